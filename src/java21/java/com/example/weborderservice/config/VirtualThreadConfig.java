@@ -0,0 +1,35 @@
+package com.example.weborderservice.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ConcurrentTaskScheduler;
+
+import java.util.concurrent.Executors;
+
+/**
+ * Runs request handling and scheduled jobs on virtual threads. Only compiled by the {@code java21} profile and only
+ * active with {@code internal.virtual-threads.enabled}; the bounded {@code cart-fetch-} pool in
+ * {@link com.example.weborderservice.client.ShoppingClient} stays on platform threads to keep its concurrency cap.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "internal.virtual-threads", name = "enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        log.info("Handling requests on virtual threads");
+        return protocolHandler -> protocolHandler.setExecutor(
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-virtual-", 0).factory()));
+    }
+
+    @Bean
+    public TaskScheduler taskScheduler() {
+        return new ConcurrentTaskScheduler(Executors.newSingleThreadScheduledExecutor(
+                Thread.ofVirtual().name("scheduling-virtual-", 0).factory()));
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.weborderservice.benchmark;
+
+import com.example.weborderservice.config.AppConfig;
+import com.example.weborderservice.config.JsonConfig;
+import com.example.weborderservice.model.Category;
+import com.example.weborderservice.model.CustomerInfo;
+import com.example.weborderservice.model.DeliveryInfo;
+import com.example.weborderservice.model.Manufacturer;
+import com.example.weborderservice.model.Order;
+import com.example.weborderservice.model.Product;
+import com.example.weborderservice.model.Review;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+final class BenchmarkData {
+
+    static final CustomerInfo CUSTOMER_INFO = CustomerInfo.builder()
+            .firstName("Joe")
+            .lastName("Doe")
+            .email("joedoe@test.com")
+            .phoneNumber("555666777")
+            .build();
+    static final DeliveryInfo DELIVERY_INFO = DeliveryInfo.builder()
+            .address("Street 1")
+            .city("London")
+            .postalCode("33333")
+            .country("United Kingdom")
+            .build();
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2023, 10, 1, 12, 0);
+
+    private BenchmarkData() {
+    }
+
+    /** The mapper the service registers, so benchmarks measure production serialization settings. */
+    static ObjectMapper objectMapper() {
+        return objectMapper(new JsonFactory(), true);
+    }
+
+    static ObjectMapper objectMapper(final JsonFactory factory, final boolean blackbird) {
+        JsonConfig config = new JsonConfig();
+        config.setBlackbird(blackbird);
+        return AppConfig.newObjectMapper(factory, config);
+    }
+
+    static List<Product> products(final int productCount, final int reviewCount) {
+        List<Product> products = new ArrayList<>(productCount);
+        for (int i = 0; i < productCount; i++) {
+            List<Review> reviews = new ArrayList<>(reviewCount);
+            for (int j = 0; j < reviewCount; j++) {
+                reviews.add(Review.builder()
+                        .reviewerName("Reviewer " + j)
+                        .comment("Review comment number " + j + " for product " + i)
+                        .rating(1 + j % 5)
+                        .reviewDate(CREATED_AT.plusDays(j))
+                        .build());
+            }
+            products.add(Product.builder()
+                    .id(UUID.randomUUID())
+                    .name("Product " + i)
+                    .description("Description of benchmark product " + i)
+                    .price(BigDecimal.valueOf(1000 + i, 2))
+                    .manufacturer(Manufacturer.builder()
+                            .id(UUID.randomUUID())
+                            .name("Manufacturer " + i % 10)
+                            .address("Street " + i % 10)
+                            .contact("contact" + i % 10 + "@test.com")
+                            .build())
+                    .categories(List.of(Category.values()[i % Category.values().length]))
+                    .createdAt(CREATED_AT)
+                    .updatedAt(CREATED_AT)
+                    .reviews(reviews)
+                    .build());
+        }
+        return products;
+    }
+
+    static Order order(final int productCount, final int reviewCount) {
+        return Order.builder()
+                .products(products(productCount, reviewCount))
+                .customerInfo(CUSTOMER_INFO)
+                .deliveryInfo(DELIVERY_INFO)
+                .build();
+    }
+
+    /**
+     * Implements a repository interface with a single answer for every call, so benchmarks measure service code
+     * rather than a mocking framework.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T stub(final Class<T> type, final InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) ->
+                method.getDeclaringClass() == Object.class ? objectMethod(proxy, method.getName(), args)
+                        : handler.invoke(proxy, method, args));
+    }
+
+    private static Object objectMethod(final Object proxy, final String name, final Object[] args) {
+        return switch (name) {
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            default -> proxy.getClass().getName();
+        };
+    }
+}
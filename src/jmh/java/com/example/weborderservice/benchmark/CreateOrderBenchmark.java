@@ -0,0 +1,99 @@
+package com.example.weborderservice.benchmark;
+
+import com.example.weborderservice.client.ShoppingClient;
+import com.example.weborderservice.client.ShoppingConfig;
+import com.example.weborderservice.config.IdempotencyConfig;
+import com.example.weborderservice.config.MetricsConfig;
+import com.example.weborderservice.config.OrderCacheConfig;
+import com.example.weborderservice.config.OrderRollupConfig;
+import com.example.weborderservice.config.OutboxConfig;
+import com.example.weborderservice.config.ProductSnapshotConfig;
+import com.example.weborderservice.model.Order;
+import com.example.weborderservice.model.ShoppingCart;
+import com.example.weborderservice.repository.IdempotencyRecordRepository;
+import com.example.weborderservice.repository.OrderEventRepository;
+import com.example.weborderservice.repository.OrderRepository;
+import com.example.weborderservice.repository.OrderRollupRepository;
+import com.example.weborderservice.repository.ProductSnapshotRepository;
+import com.example.weborderservice.service.CreateIdempotency;
+import com.example.weborderservice.service.IdempotencyCache;
+import com.example.weborderservice.service.OrderCache;
+import com.example.weborderservice.service.OrderMetrics;
+import com.example.weborderservice.service.OrderOutbox;
+import com.example.weborderservice.service.OrderRollupService;
+import com.example.weborderservice.service.OrderService;
+import com.example.weborderservice.service.ProductSnapshotService;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.retry.Retry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link OrderService#createOrder} without the network: the shopping client answers from memory and the
+ * repositories are stubbed, leaving snapshotting, totals, caching and rollup bookkeeping.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CreateOrderBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int productCount;
+
+    private OrderService orderService;
+    private UUID cartId;
+
+    @Setup
+    public void setUp() {
+        cartId = UUID.randomUUID();
+        ShoppingCart shoppingCart = new ShoppingCart(cartId, BenchmarkData.products(productCount, 2));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ShoppingClient shoppingClient = new ShoppingClient(new RestTemplate(), new ShoppingConfig(),
+                CircuitBreaker.ofDefaults("shopping"), Retry.ofDefaults("shopping"), meterRegistry, new MetricsConfig()) {
+            @Override
+            public ShoppingCart getShoppingCart(final UUID id) {
+                return shoppingCart;
+            }
+        };
+        OrderRepository orderRepository = BenchmarkData.stub(OrderRepository.class, (proxy, method, args) -> args[0]);
+        ProductSnapshotService productSnapshotService = new ProductSnapshotService(
+                BenchmarkData.stub(ProductSnapshotRepository.class, (proxy, method, args) -> null),
+                new ProductSnapshotConfig(), meterRegistry);
+        OrderRollupService orderRollupService = new OrderRollupService(
+                BenchmarkData.stub(OrderRollupRepository.class, (proxy, method, args) -> null), orderRepository,
+                new OrderRollupConfig(), meterRegistry);
+        // the benchmark reuses one cart, which would otherwise make every call after the first a replay
+        IdempotencyConfig createIdempotencyConfig = new IdempotencyConfig();
+        createIdempotencyConfig.setCartIdAsKey(false);
+        orderService = new OrderService(orderRepository, shoppingClient, null,
+                new OrderCache(new OrderCacheConfig(), meterRegistry),
+                new IdempotencyCache(new IdempotencyConfig(), meterRegistry),
+                productSnapshotService, null, orderRollupService, new OrderMetrics(meterRegistry, new MetricsConfig()),
+                new OrderOutbox(BenchmarkData.stub(OrderEventRepository.class,
+                        (proxy, method, args) -> method.getReturnType() == long.class ? 0L : null), new OutboxConfig()),
+                new CreateIdempotency(BenchmarkData.stub(IdempotencyRecordRepository.class, (proxy, method, args) -> null),
+                        createIdempotencyConfig, meterRegistry));
+    }
+
+    @Benchmark
+    public Order createOrder() {
+        return orderService.createOrder(cartId, BenchmarkData.CUSTOMER_INFO, BenchmarkData.DELIVERY_INFO, null);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.weborderservice.benchmark;
+
+import com.example.weborderservice.config.ProductSnapshotConfig;
+import com.example.weborderservice.model.Order;
+import com.example.weborderservice.model.OrderField;
+import com.example.weborderservice.model.OrderLine;
+import com.example.weborderservice.repository.ProductSnapshotRepository;
+import com.example.weborderservice.service.ProductSnapshotService;
+import com.example.weborderservice.service.SnapshottedProducts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingValidationBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int productCount;
+
+    private Validator validator;
+    private ProductSnapshotService productSnapshotService;
+    private Order order;
+    private List<OrderLine> lines;
+    private Set<OrderField> fields;
+
+    @Setup
+    public void setUp() {
+        validator = Validation.buildDefaultValidatorFactory().getValidator();
+        productSnapshotService = new ProductSnapshotService(
+                BenchmarkData.stub(ProductSnapshotRepository.class, (proxy, method, args) -> null),
+                new ProductSnapshotConfig(), new SimpleMeterRegistry());
+        order = BenchmarkData.order(productCount, 2);
+        lines = productSnapshotService.snapshot(order.getProducts()).lines();
+        order = order.toBuilder().lines(lines).total(OrderLine.total(lines)).build();
+        fields = OrderField.parse("orderId,total,customerInfo,paid");
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Order>> validate() {
+        return validator.validate(order);
+    }
+
+    @Benchmark
+    public SnapshottedProducts snapshot() {
+        return productSnapshotService.snapshot(order.getProducts());
+    }
+
+    @Benchmark
+    public BigDecimal total() {
+        return OrderLine.total(lines);
+    }
+
+    @Benchmark
+    public Map<String, Object> project() {
+        return OrderField.project(order, fields);
+    }
+}
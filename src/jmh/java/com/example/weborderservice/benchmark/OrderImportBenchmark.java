@@ -0,0 +1,106 @@
+package com.example.weborderservice.benchmark;
+
+import com.example.weborderservice.config.MetricsConfig;
+import com.example.weborderservice.config.OrderRollupConfig;
+import com.example.weborderservice.config.ProductSnapshotConfig;
+import com.example.weborderservice.config.UploadConfig;
+import com.example.weborderservice.model.Order;
+import com.example.weborderservice.model.UploadSummary;
+import com.example.weborderservice.repository.BulkInsertResult;
+import com.example.weborderservice.repository.OrderRepository;
+import com.example.weborderservice.repository.OrderRollupRepository;
+import com.example.weborderservice.repository.ProductSnapshotRepository;
+import com.example.weborderservice.service.OrderImporter;
+import com.example.weborderservice.service.OrderMetrics;
+import com.example.weborderservice.service.OrderRollupService;
+import com.example.weborderservice.service.ProductSnapshotService;
+import com.example.weborderservice.service.UploadFormat;
+import com.example.weborderservice.service.UploadProgress;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Parses, validates and batches an in-memory upload through the import pipeline. Mongo writes are stubbed out.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class OrderImportBenchmark {
+
+    @Param({"1000", "10000"})
+    private int orderCount;
+
+    @Param({"json", "ndjson", "ndjson.gz"})
+    private String format;
+
+    private OrderImporter orderImporter;
+    private UploadConfig uploadConfig;
+    private UploadFormat uploadFormat;
+    private byte[] content;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = BenchmarkData.objectMapper();
+        uploadConfig = new UploadConfig();
+        OrderRepository orderRepository = BenchmarkData.stub(OrderRepository.class,
+                (proxy, method, args) -> new BulkInsertResult(((List<?>) args[0]).size(), List.of()));
+        ProductSnapshotService productSnapshotService = new ProductSnapshotService(
+                BenchmarkData.stub(ProductSnapshotRepository.class, (proxy, method, args) -> null),
+                new ProductSnapshotConfig(), new SimpleMeterRegistry());
+        OrderRollupService orderRollupService = new OrderRollupService(
+                BenchmarkData.stub(OrderRollupRepository.class, (proxy, method, args) -> null), orderRepository,
+                new OrderRollupConfig(), new SimpleMeterRegistry());
+        orderImporter = new OrderImporter(orderRepository, productSnapshotService, orderRollupService, objectMapper,
+                Validation.buildDefaultValidatorFactory().getValidator(), uploadConfig,
+                new OrderMetrics(new SimpleMeterRegistry(), new MetricsConfig()));
+
+        uploadFormat = UploadFormat.detect(null, "orders." + format);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream outputStream = uploadFormat.gzipped() ? new GZIPOutputStream(bytes) : bytes) {
+            outputStream.write(uploadFormat.newlineDelimited() ? '\n' : '[');
+            for (int i = 0; i < orderCount; i++) {
+                Order order = BenchmarkData.order(5, 2);
+                if (i > 0 && !uploadFormat.newlineDelimited()) {
+                    outputStream.write(',');
+                }
+                outputStream.write(objectMapper.writeValueAsBytes(order));
+                if (uploadFormat.newlineDelimited()) {
+                    outputStream.write('\n');
+                }
+            }
+            if (!uploadFormat.newlineDelimited()) {
+                outputStream.write(']');
+            }
+        }
+        content = bytes.toByteArray();
+    }
+
+    @Benchmark
+    public UploadSummary importOrders() throws IOException {
+        return orderImporter.importOrders(new ByteArrayInputStream(content), uploadFormat,
+                new UploadProgress(uploadConfig.getMaxReportedFailures()));
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.weborderservice.benchmark;
+
+import com.example.weborderservice.model.Order;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderJsonBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int productCount;
+
+    @Param({"0", "10"})
+    private int reviewCount;
+
+    /** json is the plain reflective baseline; the others add the Blackbird accessors used by the service. */
+    @Param({"json", "blackbird", "smile", "cbor"})
+    private String format;
+
+    private ObjectWriter orderWriter;
+    private ObjectReader orderReader;
+    private Order order;
+    private byte[] orderJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = switch (format) {
+            case "json" -> BenchmarkData.objectMapper(new JsonFactory(), false);
+            case "blackbird" -> BenchmarkData.objectMapper(new JsonFactory(), true);
+            case "smile" -> BenchmarkData.objectMapper(new SmileFactory(), true);
+            case "cbor" -> BenchmarkData.objectMapper(new CBORFactory(), true);
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+        orderWriter = objectMapper.writerFor(Order.class);
+        orderReader = objectMapper.readerFor(Order.class);
+        order = BenchmarkData.order(productCount, reviewCount);
+        orderJson = orderWriter.writeValueAsBytes(order);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return orderWriter.writeValueAsBytes(order);
+    }
+
+    @Benchmark
+    public Order deserialize() throws IOException {
+        return orderReader.readValue(orderJson);
+    }
+}
@@ -1,32 +1,147 @@
 package com.example.weborderservice.api;
 
+import com.example.weborderservice.model.Category;
 import com.example.weborderservice.model.CreateOrderRequestBody;
+import com.example.weborderservice.model.CreateOrdersRequestBody;
+import com.example.weborderservice.model.CreateOrdersResult;
+import com.example.weborderservice.model.DeleteOrdersRequestBody;
+import com.example.weborderservice.model.DeleteOrdersResult;
 import com.example.weborderservice.model.Order;
+import com.example.weborderservice.model.OrderField;
+import com.example.weborderservice.model.OrderPage;
+import com.example.weborderservice.model.OrderRollup;
+import com.example.weborderservice.model.OrderSearchCriteria;
+import com.example.weborderservice.model.OrderView;
 import com.example.weborderservice.model.PaymentRequest;
+import com.example.weborderservice.model.UploadJobStatus;
 import com.example.weborderservice.service.OrderService;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
 
 @RestController
 @RequestMapping("/order")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @AllArgsConstructor
 public class OrderController {
 
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final String GZIP = "gzip";
+
     private final OrderService orderService;
 
     @PostMapping("{cartId}")
-    public Order createOrder(@PathVariable UUID cartId, @RequestBody @Valid CreateOrderRequestBody requestBody) {
-        return orderService.createOrder(cartId, requestBody.customerInfo(), requestBody.deliveryInfo());
+    public Order createOrder(@PathVariable UUID cartId, @RequestBody @Valid CreateOrderRequestBody requestBody,
+                             @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return orderService.createOrder(cartId, requestBody.customerInfo(), requestBody.deliveryInfo(), idempotencyKey);
+    }
+
+    @PostMapping("/batch")
+    public CreateOrdersResult createOrders(@RequestBody @Valid CreateOrdersRequestBody requestBody) {
+        return orderService.createOrders(requestBody.orders());
+    }
+
+    @GetMapping
+    public OrderPage searchOrders(@RequestParam(required = false) String email,
+                                @RequestParam(required = false) Boolean paid,
+                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                @RequestParam(required = false) Category category,
+                                @RequestParam(required = false) String cursor,
+                                @RequestParam(defaultValue = "50") int limit) {
+        return orderService.searchOrders(new OrderSearchCriteria(email, paid, from, to, category), cursor, limit);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportOrders(@RequestParam(required = false) String email,
+                                                              @RequestParam(required = false) Boolean paid,
+                                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                              @RequestParam(required = false) Category category,
+                                                              @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        OrderSearchCriteria criteria = new OrderSearchCriteria(email, paid, from, to, category);
+        boolean gzip = acceptsGzip(acceptEncoding);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, GZIP);
+        }
+        return response.body(outputStream -> orderService.exportOrders(criteria, outputStream, gzip));
+    }
+
+    static boolean acceptsGzip(final String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double wildcardQuality = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.split(";");
+            String name = parameters[0].trim().toLowerCase(Locale.ROOT);
+            if (name.equals(GZIP) || name.equals("x-gzip")) {
+                gzipQuality = quality(parameters);
+            } else if (name.equals("*")) {
+                wildcardQuality = quality(parameters);
+            }
+        }
+        Double quality = gzipQuality != null ? gzipQuality : wildcardQuality;
+        return quality != null && quality > 0;
+    }
+
+    private static double quality(final String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            String parameter = parameters[i].trim();
+            if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    @GetMapping("/stats")
+    public List<OrderRollup> retrieveRollups(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                     @RequestParam(required = false) Category category) {
+        return orderService.retrieveRollups(from, to, category);
+    }
+
+    @PostMapping("/stats/rebuild")
+    public long rebuildRollups(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return orderService.rebuildRollups(from, to);
     }
 
     @GetMapping("{orderId}")
-    public Order retrieveOrder(@PathVariable UUID orderId) {
-        return orderService.retrieveOrder(orderId);
+    public Object retrieveOrder(@PathVariable UUID orderId, @RequestParam(required = false) String view,
+                                @RequestParam(required = false) String fields) {
+        OrderView orderView = OrderView.from(view);
+        if (fields != null && view != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Use either view or fields, not both");
+        }
+        if (fields != null) {
+            return orderService.retrieveOrderFields(orderId, OrderField.parse(fields));
+        }
+        if (orderView.getFields() != null) {
+            return orderService.retrieveOrderFields(orderId, orderView.getFields());
+        }
+        return orderService.retrieveOrder(orderId, orderView);
     }
 
     @DeleteMapping("{orderId}")
@@ -34,13 +149,25 @@ public class OrderController {
         orderService.deleteOrder(orderId);
     }
 
+    @DeleteMapping
+    public DeleteOrdersResult deleteOrders(@RequestBody @Valid DeleteOrdersRequestBody requestBody) {
+        return orderService.deleteOrders(requestBody.orderIds());
+    }
+
     @PostMapping("{orderId}/finalize")
-    public Order finalizeOrder(@PathVariable UUID orderId, @RequestBody @Valid PaymentRequest paymentRequest) {
-        return orderService.finalizeOrder(orderId);
+    public Order finalizeOrder(@PathVariable UUID orderId, @RequestBody @Valid PaymentRequest paymentRequest,
+                               @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return orderService.finalizeOrder(orderId, idempotencyKey);
     }
 
     @PostMapping("/upload")
-    public List<Order> uploadOrders(@RequestPart("file") MultipartFile filePart) {
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public UploadJobStatus uploadOrders(@RequestPart("file") MultipartFile filePart) {
         return orderService.uploadProducts(filePart);
     }
+
+    @GetMapping("/upload/{jobId}")
+    public UploadJobStatus retrieveUploadStatus(@PathVariable UUID jobId) {
+        return orderService.retrieveUploadStatus(jobId);
+    }
 }
@@ -0,0 +1,42 @@
+package com.example.weborderservice.api;
+
+import com.example.weborderservice.config.OutboxConfig;
+import com.example.weborderservice.model.OrderEvent;
+import com.example.weborderservice.service.OrderEventStream;
+import lombok.AllArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+/**
+ * Server-sent order lifecycle events for both web stacks. Each event id is its sequence number; clients resume with the
+ * standard {@code Last-Event-ID} header or {@code ?after=}, and only receive new events when they pass neither.
+ */
+@RestController
+@RequestMapping("/order")
+@AllArgsConstructor
+public class OrderEventController {
+
+    public static final String LAST_EVENT_ID = "Last-Event-ID";
+
+    private final OrderEventStream eventStream;
+    private final OutboxConfig config;
+
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<OrderEvent>> streamEvents(@RequestHeader(value = LAST_EVENT_ID, required = false) Long lastEventId,
+                                                          @RequestParam(required = false) Long after) {
+        Flux<ServerSentEvent<OrderEvent>> events = eventStream.events(lastEventId != null ? lastEventId : after)
+                .map(event -> ServerSentEvent.builder(event)
+                        .id(String.valueOf(event.getSequence()))
+                        .event(event.getType().name())
+                        .build());
+        Flux<ServerSentEvent<OrderEvent>> heartbeats = Flux.interval(config.getStreamHeartbeatInterval())
+                .map(tick -> ServerSentEvent.<OrderEvent>builder().comment("heartbeat").build());
+        return Flux.merge(events, heartbeats);
+    }
+}
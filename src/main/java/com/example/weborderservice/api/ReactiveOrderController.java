@@ -0,0 +1,126 @@
+package com.example.weborderservice.api;
+
+import com.example.weborderservice.model.Category;
+import com.example.weborderservice.model.CreateOrderRequestBody;
+import com.example.weborderservice.model.CreateOrdersRequestBody;
+import com.example.weborderservice.model.CreateOrdersResult;
+import com.example.weborderservice.model.DeleteOrdersRequestBody;
+import com.example.weborderservice.model.DeleteOrdersResult;
+import com.example.weborderservice.model.Order;
+import com.example.weborderservice.model.OrderField;
+import com.example.weborderservice.model.OrderPage;
+import com.example.weborderservice.model.OrderRollup;
+import com.example.weborderservice.model.OrderSearchCriteria;
+import com.example.weborderservice.model.OrderView;
+import com.example.weborderservice.model.PaymentRequest;
+import com.example.weborderservice.model.UploadResult;
+import com.example.weborderservice.service.ReactiveOrderService;
+import com.example.weborderservice.service.UploadFormat;
+import jakarta.validation.Valid;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/order")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@AllArgsConstructor
+public class ReactiveOrderController {
+
+    private final ReactiveOrderService orderService;
+
+    @PostMapping("{cartId}")
+    public Mono<Order> createOrder(@PathVariable UUID cartId, @RequestBody @Valid CreateOrderRequestBody requestBody,
+                                   @RequestHeader(value = OrderController.IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return orderService.createOrder(cartId, requestBody.customerInfo(), requestBody.deliveryInfo(), idempotencyKey);
+    }
+
+    @PostMapping("/batch")
+    public Mono<CreateOrdersResult> createOrders(@RequestBody @Valid CreateOrdersRequestBody requestBody) {
+        return orderService.createOrders(requestBody.orders());
+    }
+
+    @GetMapping
+    public Mono<OrderPage> searchOrders(@RequestParam(required = false) String email,
+                                @RequestParam(required = false) Boolean paid,
+                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                @RequestParam(required = false) Category category,
+                                @RequestParam(required = false) String cursor,
+                                @RequestParam(defaultValue = "50") int limit) {
+        return orderService.searchOrders(new OrderSearchCriteria(email, paid, from, to, category), cursor, limit);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Order> exportOrders(@RequestParam(required = false) String email,
+                                    @RequestParam(required = false) Boolean paid,
+                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                    @RequestParam(required = false) Category category) {
+        return orderService.exportOrders(new OrderSearchCriteria(email, paid, from, to, category));
+    }
+
+    @GetMapping("/stats")
+    public Mono<List<OrderRollup>> retrieveRollups(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                     @RequestParam(required = false) Category category) {
+        return orderService.retrieveRollups(from, to, category);
+    }
+
+    @PostMapping("/stats/rebuild")
+    public Mono<Long> rebuildRollups(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return orderService.rebuildRollups(from, to);
+    }
+
+    @GetMapping("{orderId}")
+    public Mono<?> retrieveOrder(@PathVariable UUID orderId, @RequestParam(required = false) String view,
+                                @RequestParam(required = false) String fields) {
+        OrderView orderView = OrderView.from(view);
+        if (fields != null && view != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Use either view or fields, not both");
+        }
+        if (fields != null) {
+            return orderService.retrieveOrderFields(orderId, OrderField.parse(fields));
+        }
+        if (orderView.getFields() != null) {
+            return orderService.retrieveOrderFields(orderId, orderView.getFields());
+        }
+        return orderService.retrieveOrder(orderId, orderView);
+    }
+
+    @DeleteMapping("{orderId}")
+    public Mono<Void> deleteOrder(@PathVariable UUID orderId) {
+        return orderService.deleteOrder(orderId);
+    }
+
+    @DeleteMapping
+    public Mono<DeleteOrdersResult> deleteOrders(@RequestBody @Valid DeleteOrdersRequestBody requestBody) {
+        return orderService.deleteOrders(requestBody.orderIds());
+    }
+
+    @PostMapping("{orderId}/finalize")
+    public Mono<Order> finalizeOrder(@PathVariable UUID orderId, @RequestBody @Valid PaymentRequest paymentRequest,
+                                     @RequestHeader(value = OrderController.IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return orderService.finalizeOrder(orderId, idempotencyKey);
+    }
+
+    @PostMapping(value = "/upload", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<UploadResult> uploadOrders(@RequestPart("file") FilePart filePart) {
+        UploadFormat format = UploadFormat.detect(
+                Objects.toString(filePart.headers().getContentType(), null), filePart.filename());
+        return orderService.importOrders(filePart.content(), format);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.weborderservice.client;
+
+import com.example.weborderservice.model.ShoppingCart;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.github.resilience4j.reactor.retry.RetryOperator;
+import io.github.resilience4j.retry.Retry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveShoppingClient {
+
+    private static final String SHOPPING_SERVICE_UNAVAILABLE = "Shopping service unavailable";
+
+    private final WebClient webClient;
+    private final CircuitBreaker circuitBreaker;
+    private final Retry retry;
+    private final Cache<UUID, ShoppingCart> cartCache;
+    private final ConcurrentMap<UUID, Mono<ShoppingCart>> inFlightRequests = new ConcurrentHashMap<>();
+    private final int batchFetchConcurrency;
+
+    @Autowired
+    public ReactiveShoppingClient(WebClient shoppingWebClient, ShoppingConfig config, CircuitBreaker circuitBreaker,
+                                  Retry retry, MeterRegistry meterRegistry) {
+        this.webClient = shoppingWebClient;
+        this.circuitBreaker = circuitBreaker;
+        this.retry = retry;
+        this.cartCache = Caffeine.newBuilder()
+                .maximumSize(config.getCartCacheMaxSize())
+                .expireAfterWrite(config.getCartCacheTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cartCache, "reactiveShoppingCarts");
+        this.batchFetchConcurrency = config.getBatchFetchConcurrency();
+    }
+
+    public Mono<ShoppingCart> getShoppingCart(final UUID cartId) {
+        return Mono.defer(() -> {
+            ShoppingCart cachedCart = cartCache.getIfPresent(cartId);
+            if (cachedCart != null) {
+                return Mono.just(cachedCart);
+            }
+            return inFlightRequests.computeIfAbsent(cartId, this::loadShoppingCart);
+        });
+    }
+
+    public Mono<Map<UUID, ShoppingCartResult>> getShoppingCarts(final Collection<UUID> cartIds) {
+        return Flux.fromIterable(new LinkedHashSet<>(cartIds))
+                .flatMap(cartId -> getShoppingCart(cartId)
+                        .map(ShoppingCartResult::of)
+                        .defaultIfEmpty(ShoppingCartResult.of(null))
+                        .onErrorResume(e -> Mono.just(ShoppingCartResult.failed(e)))
+                        .map(result -> Map.entry(cartId, result)), batchFetchConcurrency)
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+    }
+
+    private Mono<ShoppingCart> loadShoppingCart(final UUID cartId) {
+        return fetchShoppingCart(cartId)
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                .transformDeferred(RetryOperator.of(retry))
+                .onErrorMap(this::toResponseStatusException)
+                .doOnNext(shoppingCart -> cartCache.put(cartId, shoppingCart))
+                .doFinally(signal -> inFlightRequests.remove(cartId))
+                .cache();
+    }
+
+    private Throwable toResponseStatusException(final Throwable throwable) {
+        if (throwable instanceof WebClientResponseException.NotFound) {
+            return new ResponseStatusException(HttpStatus.NOT_FOUND, "Shopping cart not found", throwable);
+        }
+        if (throwable instanceof CallNotPermittedException || throwable instanceof WebClientRequestException) {
+            return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, SHOPPING_SERVICE_UNAVAILABLE, throwable);
+        }
+        if (throwable instanceof WebClientResponseException e && e.getStatusCode().is5xxServerError()) {
+            return new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Unexpected error occurred", throwable);
+        }
+        return throwable;
+    }
+
+    private Mono<ShoppingCart> fetchShoppingCart(final UUID cartId) {
+        return webClient.get()
+                .uri("/{cartId}", cartId)
+                .retrieve()
+                .bodyToMono(ShoppingCart.class);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.weborderservice.client;
+
+import com.example.weborderservice.model.ShoppingCart;
+
+public record ShoppingCartResult(ShoppingCart cart, Throwable error) {
+
+    public static ShoppingCartResult of(final ShoppingCart cart) {
+        return new ShoppingCartResult(cart, null);
+    }
+
+    public static ShoppingCartResult failed(final Throwable error) {
+        return new ShoppingCartResult(null, error);
+    }
+}
@@ -1,35 +1,188 @@
 package com.example.weborderservice.client;
 
+import com.example.weborderservice.config.MetricsConfig;
 import com.example.weborderservice.model.ShoppingCart;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.retry.Retry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class ShoppingClient {
 
+    private static final String SHOPPING_SERVICE_UNAVAILABLE = "Shopping service unavailable";
+
     private final RestTemplate restTemplate;
     private final ShoppingConfig config;
+    private final CircuitBreaker circuitBreaker;
+    private final Retry retry;
+    private final Cache<UUID, ShoppingCart> cartCache;
+    private final MeterRegistry meterRegistry;
+    private final boolean metricsEnabled;
+    private final ConcurrentMap<UUID, CompletableFuture<ShoppingCart>> inFlightRequests = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Timer> fetchTimers = new ConcurrentHashMap<>();
+    private final ExecutorService batchExecutor;
 
     @Autowired
-    public ShoppingClient(RestTemplate restTemplate, ShoppingConfig config) {
+    public ShoppingClient(RestTemplate restTemplate, ShoppingConfig config, CircuitBreaker circuitBreaker, Retry retry,
+                          MeterRegistry meterRegistry, MetricsConfig metricsConfig) {
         this.restTemplate = restTemplate;
         this.config = config;
+        this.circuitBreaker = circuitBreaker;
+        this.retry = retry;
+        this.cartCache = Caffeine.newBuilder()
+                .maximumSize(config.getCartCacheMaxSize())
+                .expireAfterWrite(config.getCartCacheTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cartCache, "shoppingCarts");
+        this.meterRegistry = meterRegistry;
+        this.metricsEnabled = metricsConfig.isEnabled();
+        this.batchExecutor = Executors.newFixedThreadPool(config.getBatchFetchConcurrency(), new CustomizableThreadFactory("cart-fetch-"));
     }
 
     public ShoppingCart getShoppingCart(final UUID cartId) {
+        long startNanos = System.nanoTime();
+        String outcome = "error";
         try {
-            return restTemplate.getForObject(config.getUrl() + "/" + cartId, ShoppingCart.class);
+            ShoppingCart cachedCart = cartCache.getIfPresent(cartId);
+            if (cachedCart != null) {
+                outcome = "cache_hit";
+                return cachedCart;
+            }
+
+            CompletableFuture<ShoppingCart> request = new CompletableFuture<>();
+            CompletableFuture<ShoppingCart> inFlightRequest = inFlightRequests.putIfAbsent(cartId, request);
+            if (inFlightRequest != null) {
+                ShoppingCart shoppingCart = awaitShoppingCart(inFlightRequest);
+                outcome = "coalesced";
+                return shoppingCart;
+            }
+            ShoppingCart shoppingCart = loadSharedShoppingCart(cartId, request);
+            outcome = "success";
+            return shoppingCart;
+        } catch (ResponseStatusException e) {
+            outcome = outcome(e);
+            throw e;
+        } finally {
+            recordFetch(outcome, startNanos);
+        }
+    }
+
+    /**
+     * Fetches distinct carts concurrently, at most {@code batch-fetch-concurrency} at a time across all callers. A failed
+     * cart is reported in its result instead of failing the others.
+     */
+    public Map<UUID, ShoppingCartResult> getShoppingCarts(final Collection<UUID> cartIds) {
+        Map<UUID, CompletableFuture<ShoppingCartResult>> requests = new LinkedHashMap<>();
+        for (UUID cartId : cartIds) {
+            requests.computeIfAbsent(cartId, id -> CompletableFuture.supplyAsync(() -> getShoppingCartResult(id), batchExecutor));
+        }
+        Map<UUID, ShoppingCartResult> results = new LinkedHashMap<>();
+        requests.forEach((cartId, request) -> results.put(cartId, request.join()));
+        return results;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        batchExecutor.shutdownNow();
+    }
+
+    private ShoppingCartResult getShoppingCartResult(final UUID cartId) {
+        try {
+            return ShoppingCartResult.of(getShoppingCart(cartId));
+        } catch (RuntimeException e) {
+            return ShoppingCartResult.failed(e);
+        }
+    }
+
+    private ShoppingCart loadSharedShoppingCart(final UUID cartId, final CompletableFuture<ShoppingCart> request) {
+        try {
+            ShoppingCart shoppingCart = loadShoppingCart(cartId);
+            if (shoppingCart != null) {
+                cartCache.put(cartId, shoppingCart);
+            }
+            request.complete(shoppingCart);
+            return shoppingCart;
+        } catch (RuntimeException e) {
+            request.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightRequests.remove(cartId, request);
+        }
+    }
+
+    private void recordFetch(final String outcome, final long startNanos) {
+        if (metricsEnabled) {
+            fetchTimers.computeIfAbsent(outcome, this::fetchTimer).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer fetchTimer(final String outcome) {
+        return Timer.builder("shopping.cart.fetch")
+                .description("Shopping cart lookups, including cache hits and coalesced requests")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static String outcome(final ResponseStatusException e) {
+        if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
+            return "not_found";
+        }
+        return e.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE ? "unavailable" : "error";
+    }
+
+    private ShoppingCart awaitShoppingCart(final CompletableFuture<ShoppingCart> inFlightRequest) {
+        try {
+            return inFlightRequest.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private ShoppingCart loadShoppingCart(final UUID cartId) {
+        try {
+            return Retry.decorateSupplier(retry, CircuitBreaker.decorateSupplier(circuitBreaker, () -> fetchShoppingCart(cartId)))
+                    .get();
         } catch (HttpClientErrorException.NotFound e) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Shopping cart not found", e);
+        } catch (CallNotPermittedException | ResourceAccessException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, SHOPPING_SERVICE_UNAVAILABLE, e);
         } catch (HttpServerErrorException e) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Unexpected error occurred", e);
         }
     }
+
+    private ShoppingCart fetchShoppingCart(final UUID cartId) {
+        return restTemplate.getForObject(config.getUrl() + "/{cartId}", ShoppingCart.class, cartId);
+    }
 }
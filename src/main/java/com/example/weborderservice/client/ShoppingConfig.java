@@ -5,6 +5,8 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+
 @Component
 @ConfigurationProperties(prefix = "internal.api.shopping-service")
 @Getter
@@ -12,4 +14,37 @@ import org.springframework.stereotype.Component;
 public class ShoppingConfig {
 
     private String url;
+    private Duration connectTimeout = Duration.ofSeconds(1);
+    private Duration readTimeout = Duration.ofSeconds(2);
+    private Duration connectionRequestTimeout = Duration.ofMillis(500);
+    private Duration idleConnectionTimeout = Duration.ofSeconds(30);
+    private int maxConnections = 50;
+    private Duration cartCacheTtl = Duration.ofSeconds(2);
+    private long cartCacheMaxSize = 10_000;
+    private int batchFetchConcurrency = 16;
+    private final Retry retry = new Retry();
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    @Getter
+    @Setter
+    public static class Retry {
+
+        private int maxAttempts = 3;
+        private Duration initialBackoff = Duration.ofMillis(100);
+        private double backoffMultiplier = 2.0;
+        private double jitter = 0.5;
+    }
+
+    @Getter
+    @Setter
+    public static class CircuitBreaker {
+
+        private float failureRateThreshold = 50;
+        private float slowCallRateThreshold = 100;
+        private Duration slowCallDuration = Duration.ofSeconds(2);
+        private int slidingWindowSize = 20;
+        private int minimumNumberOfCalls = 10;
+        private Duration waitDurationInOpenState = Duration.ofSeconds(10);
+        private int permittedCallsInHalfOpenState = 3;
+    }
 }
@@ -1,23 +1,117 @@
 package com.example.weborderservice.config;
 
+import com.example.weborderservice.client.ShoppingConfig;
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.core.IntervalFunction;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedRetryMetrics;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 
 @Configuration
 public class AppConfig {
 
+    public static final String SHOPPING_SERVICE = "shoppingService";
+
+    @Bean
+    public RestTemplate restTemplate(RestTemplateBuilder restTemplateBuilder, ShoppingConfig config) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(config.getMaxConnections())
+                .setMaxConnPerRoute(config.getMaxConnections())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(config.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(config.getReadTimeout()))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(1))
+                        .build())
+                .build();
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(config.getConnectionRequestTimeout()))
+                        .setResponseTimeout(Timeout.of(config.getReadTimeout()))
+                        .build())
+                .evictIdleConnections(TimeValue.of(config.getIdleConnectionTimeout()))
+                .evictExpiredConnections()
+                .disableAutomaticRetries()
+                .build();
+        return restTemplateBuilder
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient))
+                .build();
+    }
+
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public CircuitBreaker shoppingServiceCircuitBreaker(ShoppingConfig config, MeterRegistry meterRegistry) {
+        ShoppingConfig.CircuitBreaker properties = config.getCircuitBreaker();
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .failureRateThreshold(properties.getFailureRateThreshold())
+                .slowCallRateThreshold(properties.getSlowCallRateThreshold())
+                .slowCallDurationThreshold(properties.getSlowCallDuration())
+                .slidingWindowSize(properties.getSlidingWindowSize())
+                .minimumNumberOfCalls(properties.getMinimumNumberOfCalls())
+                .waitDurationInOpenState(properties.getWaitDurationInOpenState())
+                .permittedNumberOfCallsInHalfOpenState(properties.getPermittedCallsInHalfOpenState())
+                .recordException(AppConfig::isShoppingServiceFailure)
+                .build());
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry.circuitBreaker(SHOPPING_SERVICE);
     }
 
     @Bean
-    public ObjectMapper objectMapper() {
-        ObjectMapper objectMapper = new ObjectMapper();
+    public Retry shoppingServiceRetry(ShoppingConfig config, MeterRegistry meterRegistry) {
+        ShoppingConfig.Retry properties = config.getRetry();
+        RetryRegistry registry = RetryRegistry.of(RetryConfig.custom()
+                .maxAttempts(properties.getMaxAttempts())
+                .intervalFunction(IntervalFunction.ofExponentialRandomBackoff(
+                        properties.getInitialBackoff(), properties.getBackoffMultiplier(), properties.getJitter()))
+                .retryOnException(AppConfig::isShoppingServiceFailure)
+                .build());
+        TaggedRetryMetrics.ofRetryRegistry(registry).bindTo(meterRegistry);
+        return registry.retry(SHOPPING_SERVICE);
+    }
+
+    private static boolean isShoppingServiceFailure(final Throwable throwable) {
+        return throwable instanceof ResourceAccessException
+                || throwable instanceof HttpServerErrorException
+                || throwable instanceof WebClientRequestException
+                || throwable instanceof WebClientResponseException e && e.getStatusCode().is5xxServerError();
+    }
+
+    @Bean
+    public ObjectMapper objectMapper(JsonConfig config) {
+        return newObjectMapper(new JsonFactory(), config);
+    }
+
+    public static ObjectMapper newObjectMapper(final JsonFactory factory, final JsonConfig config) {
+        ObjectMapper objectMapper = new ObjectMapper(factory);
         objectMapper.registerModule(new JavaTimeModule());
+        if (config.isBlackbird()) {
+            objectMapper.registerModule(new BlackbirdModule());
+        }
         return objectMapper;
     }
 }
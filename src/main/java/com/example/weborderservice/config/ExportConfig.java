@@ -0,0 +1,16 @@
+package com.example.weborderservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "internal.export")
+@Getter
+@Setter
+public class ExportConfig {
+
+    private int cursorBatchSize = 500;
+    private int outputBufferSize = 64 * 1024;
+}
@@ -0,0 +1,31 @@
+package com.example.weborderservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "internal.idempotency")
+@Getter
+@Setter
+public class IdempotencyConfig {
+
+    private long maxSize = 100_000;
+    private Duration ttl = Duration.ofHours(1);
+    /**
+     * Treats single order creation for a cart without an Idempotency-Key header as keyed by the cart id. Off by
+     * default: batch creation has no per-cart claim, so with this on only the single create path would deduplicate.
+     */
+    private boolean cartIdAsKey = false;
+    private long createCacheMaxSize = 10_000;
+    private Duration createCacheTtl = Duration.ofMinutes(5);
+    private Duration createKeyRetention = Duration.ofDays(1);
+    /**
+     * How long a claimed key whose order was never stored blocks retries before a retry may take it over.
+     */
+    private Duration createClaimTimeout = Duration.ofSeconds(30);
+    private int maxKeyLength = 255;
+}
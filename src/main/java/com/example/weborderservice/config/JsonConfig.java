@@ -0,0 +1,16 @@
+package com.example.weborderservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "internal.json")
+@Getter
+@Setter
+public class JsonConfig {
+
+    private boolean blackbird = true;
+    private boolean binaryFormats = true;
+}
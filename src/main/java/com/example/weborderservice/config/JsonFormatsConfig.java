@@ -0,0 +1,83 @@
+package com.example.weborderservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.util.MimeType;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Smile ({@code application/x-jackson-smile}) and CBOR ({@code application/cbor}) representations for internal
+ * callers that send a matching Accept or Content-Type header. JSON stays the default for everyone else. Spring
+ * registers its own Smile and CBOR converters when the dataformats are on the classpath; they are replaced here so the
+ * binary formats share the JSON mapper's modules, or dropped from the servlet stack when binary formats are disabled.
+ * The reactive stack only offers Smile: Spring's CBOR encoder cannot encode the Flux bodies most endpoints return.
+ */
+@Configuration
+public class JsonFormatsConfig {
+
+    // The mapper-only codec constructors fall back to the JSON mime types
+    private static final MimeType[] SMILE_MIME_TYPES = {
+            new MimeType("application", "x-jackson-smile"),
+            new MimeType("application", "stream+x-jackson-smile")};
+
+    @Configuration
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    static class ServletJsonFormatsConfig {
+
+        @Bean
+        public WebMvcConfigurer binaryFormatsWebMvcConfigurer(JsonConfig config) {
+            return new WebMvcConfigurer() {
+                @Override
+                public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+                    configureBinaryConverters(converters, config);
+                }
+            };
+        }
+    }
+
+    @Configuration
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    static class ReactiveJsonFormatsConfig {
+
+        @Bean
+        public CodecCustomizer binaryFormatsCodecCustomizer(JsonConfig config) {
+            return configurer -> {
+                if (!config.isBinaryFormats()) {
+                    return;
+                }
+                ObjectMapper smileMapper = smileObjectMapper(config);
+                configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper, SMILE_MIME_TYPES));
+                configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper, SMILE_MIME_TYPES));
+            };
+        }
+    }
+
+    static void configureBinaryConverters(final List<HttpMessageConverter<?>> converters, final JsonConfig config) {
+        converters.removeIf(converter -> converter instanceof MappingJackson2SmileHttpMessageConverter
+                || converter instanceof MappingJackson2CborHttpMessageConverter);
+        if (config.isBinaryFormats()) {
+            converters.add(new MappingJackson2SmileHttpMessageConverter(smileObjectMapper(config)));
+            converters.add(new MappingJackson2CborHttpMessageConverter(cborObjectMapper(config)));
+        }
+    }
+
+    static ObjectMapper smileObjectMapper(final JsonConfig config) {
+        return AppConfig.newObjectMapper(new SmileFactory(), config);
+    }
+
+    static ObjectMapper cborObjectMapper(final JsonConfig config) {
+        return AppConfig.newObjectMapper(new CBORFactory(), config);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.weborderservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "internal.metrics")
+@Getter
+@Setter
+public class MetricsConfig {
+
+    private boolean enabled = true;
+    private boolean percentileHistograms = true;
+}
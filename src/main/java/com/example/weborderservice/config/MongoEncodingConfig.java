@@ -0,0 +1,24 @@
+package com.example.weborderservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "internal.mongo-encoding")
+@Getter
+@Setter
+public class MongoEncodingConfig {
+
+    /**
+     * Matches ids in the legacy UUID encodings and migrates the orders stored in them. Enable it only on databases
+     * written before the compact encoding; it switches itself off once the migration has finished.
+     */
+    private boolean legacyReads = false;
+    private Duration migrationInterval = Duration.ofMinutes(1);
+    private int migrationBatchSize = 500;
+    private int migrationMaxBatchesPerRun = 20;
+}
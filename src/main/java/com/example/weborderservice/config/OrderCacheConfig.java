@@ -0,0 +1,18 @@
+package com.example.weborderservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "internal.order-cache")
+@Getter
+@Setter
+public class OrderCacheConfig {
+
+    private long maxSize = 10_000;
+    private Duration ttl = Duration.ofSeconds(30);
+}
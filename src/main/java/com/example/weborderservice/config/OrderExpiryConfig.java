@@ -0,0 +1,34 @@
+package com.example.weborderservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "internal.order-expiry")
+@Getter
+@Setter
+public class OrderExpiryConfig {
+
+    private Mode mode = Mode.SWEEP;
+    private String cron = "0 * * * * *";
+    private Duration retention = Duration.ofMinutes(1);
+    private int batchSize = 1000;
+    private int maxBatchesPerRun = 100;
+    private Duration pauseBetweenBatches = Duration.ofMillis(50);
+
+    public enum Mode {
+        /**
+         * Deletes expired unpaid orders in bounded, rate-limited batches on every scheduled run.
+         */
+        SWEEP,
+        /**
+         * Lets a partial Mongo TTL index on unpaid orders remove them in the background. Orders removed this way get
+         * no {@code EXPIRED} order event.
+         */
+        TTL_INDEX
+    }
+}
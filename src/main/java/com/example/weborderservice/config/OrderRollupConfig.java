@@ -0,0 +1,22 @@
+package com.example.weborderservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "internal.order-rollups")
+@Getter
+@Setter
+public class OrderRollupConfig {
+
+    private Duration defaultWindow = Duration.ofHours(24);
+    private Duration maxWindow = Duration.ofDays(31);
+    /**
+     * Cursor batch size used when a rebuild reads back the orders of the hours it recomputes.
+     */
+    private int rebuildBatchSize = 500;
+}
@@ -0,0 +1,47 @@
+package com.example.weborderservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "internal.outbox")
+@Getter
+@Setter
+public class OutboxConfig {
+
+    private boolean enabled = true;
+    private Duration relayInterval = Duration.ofMillis(200);
+    private int batchSize = 500;
+    private int maxBatchesPerRun = 10;
+    /**
+     * Pending events older than this are checked against the order they describe.
+     */
+    private Duration verifyAfter = Duration.ofSeconds(5);
+    /**
+     * Pending events whose order change still cannot be confirmed after this long are dropped.
+     */
+    private Duration abandonAfter = Duration.ofMinutes(5);
+    private Duration leaseDuration = Duration.ofSeconds(30);
+    private Duration retention = Duration.ofDays(1);
+    private int streamBufferSize = 1024;
+    private int streamReplayBatchSize = 500;
+    private Duration streamHeartbeatInterval = Duration.ofSeconds(15);
+    /**
+     * How often each instance reads newly published events for its stream subscribers.
+     */
+    private Duration streamPollInterval = Duration.ofMillis(200);
+    /**
+     * How long the stream waits for a missing sequence number before skipping it; the relay numbers events before it
+     * stores them as published, and a relay that stops in between leaves a gap for good.
+     */
+    private Duration streamGapTimeout = Duration.ofSeconds(5);
+    /**
+     * Appends published events as NDJSON when set.
+     */
+    private Path fileSinkPath;
+}
@@ -0,0 +1,15 @@
+package com.example.weborderservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "internal.product-snapshots")
+@Getter
+@Setter
+public class ProductSnapshotConfig {
+
+    private long knownIdsCacheSize = 100_000;
+}
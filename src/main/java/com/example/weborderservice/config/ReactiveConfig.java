@@ -0,0 +1,62 @@
+package com.example.weborderservice.config;
+
+import com.example.weborderservice.client.ShoppingConfig;
+import com.example.weborderservice.repository.ReactiveOrderRepository;
+import io.netty.channel.ChannelOption;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.data.mongo.MongoReactiveDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.mongo.MongoReactiveAutoConfiguration;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+import org.springframework.data.mongodb.repository.config.EnableReactiveMongoRepositories;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Reactive variant of the order API, enabled with {@code spring.main.web-application-type=reactive}. Tomcat is still
+ * on the classpath for the servlet stack, so Netty is selected explicitly to serve requests from its event loops.
+ * The blocking beans used by the cleanup scheduler stay in place and need the RestTemplateBuilder Boot only
+ * auto-configures for servlet applications. The reactive Mongo client, template and repositories are excluded from
+ * the application's auto-configuration and set up here, so the servlet API does not open a second connection pool.
+ * The client and template are a plain import, since exclusions also apply to {@code @ImportAutoConfiguration}, and
+ * enabling reactive repositories switches off the auto-configured blocking ones, so both are enabled here.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Import({MongoReactiveAutoConfiguration.class, MongoReactiveDataAutoConfiguration.class})
+@EnableReactiveMongoRepositories(basePackageClasses = ReactiveOrderRepository.class)
+@EnableMongoRepositories(basePackageClasses = ReactiveOrderRepository.class)
+public class ReactiveConfig {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    public RestTemplateBuilder restTemplateBuilder() {
+        return new RestTemplateBuilder();
+    }
+
+    @Bean
+    public WebClient shoppingWebClient(WebClient.Builder webClientBuilder, ShoppingConfig config) {
+        ConnectionProvider connectionProvider = ConnectionProvider.builder(AppConfig.SHOPPING_SERVICE)
+                .maxConnections(config.getMaxConnections())
+                .pendingAcquireTimeout(config.getConnectionRequestTimeout())
+                .maxIdleTime(config.getIdleConnectionTimeout())
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) config.getConnectTimeout().toMillis())
+                .responseTimeout(config.getReadTimeout());
+        return webClientBuilder
+                .baseUrl(config.getUrl())
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+}
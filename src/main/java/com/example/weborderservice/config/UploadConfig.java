@@ -0,0 +1,24 @@
+package com.example.weborderservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "internal.upload")
+@Getter
+@Setter
+public class UploadConfig {
+
+    private int batchSize = 1000;
+    private int maxReportedFailures = 1000;
+    private int pipelineWorkers = Runtime.getRuntime().availableProcessors();
+    private int pipelineQueueCapacity = 1024;
+    private int jobWorkers = 2;
+    private int jobQueueCapacity = 10;
+    private int maxJobs = 1000;
+    private Duration jobRetention = Duration.ofHours(1);
+}
@@ -0,0 +1,9 @@
+package com.example.weborderservice.model;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.UUID;
+
+public record CartOrderRequest(@NotNull UUID cartId, @Valid CustomerInfo customerInfo, @Valid DeliveryInfo deliveryInfo) {
+}
@@ -0,0 +1,19 @@
+package com.example.weborderservice.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.UUID;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CartOrderResult(UUID cartId, int status, Order order, String error) {
+
+    public static CartOrderResult created(final UUID cartId, final Order order) {
+        return new CartOrderResult(cartId, HttpStatus.CREATED.value(), order, null);
+    }
+
+    public static CartOrderResult failed(final UUID cartId, final ResponseStatusException e) {
+        return new CartOrderResult(cartId, e.getStatusCode().value(), null, e.getReason());
+    }
+}
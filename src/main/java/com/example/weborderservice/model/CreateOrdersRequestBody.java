@@ -0,0 +1,11 @@
+package com.example.weborderservice.model;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record CreateOrdersRequestBody(@NotEmpty @Size(max = 500) List<@NotNull @Valid CartOrderRequest> orders) {
+}
@@ -0,0 +1,6 @@
+package com.example.weborderservice.model;
+
+import java.util.List;
+
+public record CreateOrdersResult(int requested, int created, List<CartOrderResult> results) {
+}
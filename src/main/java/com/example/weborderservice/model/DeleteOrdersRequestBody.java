@@ -0,0 +1,11 @@
+package com.example.weborderservice.model;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.UUID;
+
+public record DeleteOrdersRequestBody(@NotEmpty @Size(max = 1000) List<@NotNull UUID> orderIds) {
+}
@@ -0,0 +1,4 @@
+package com.example.weborderservice.model;
+
+public record DeleteOrdersResult(int requested, long deleted) {
+}
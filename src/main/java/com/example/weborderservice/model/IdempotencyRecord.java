@@ -0,0 +1,28 @@
+package com.example.weborderservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Maps an order creation key to the order it created. The key is the document id, so Mongo's unique {@code _id} index
+ * lets exactly one request claim it.
+ */
+@Document(collection = "idempotencyKeys")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyRecord {
+    @Id
+    private String key;
+    private UUID cartId;
+    private UUID orderId;
+    private LocalDateTime createdAt;
+}
@@ -1,27 +1,56 @@
 package com.example.weborderservice.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
 @Document(collection = "orders")
+@CompoundIndex(name = "paid_insert_date_time_id", def = "{'isPaid': 1, 'insertDateTime': -1, '_id': -1}")
+@CompoundIndex(name = "insert_date_time_id", def = "{'insertDateTime': -1, '_id': -1}")
+@CompoundIndex(name = "email_insert_date_time_id", def = "{'customerInfo.email': 1, 'insertDateTime': -1, '_id': -1}")
+@CompoundIndex(name = "category_insert_date_time_id", def = "{'lines.categories': 1, 'insertDateTime': -1, '_id': -1}")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class Order {
     @Id
     private UUID orderId;
+    /**
+     * Full products as received from the shopping cart or an upload. Never stored; rebuilt from the product snapshots for views that include products.
+     */
+    @Transient
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<Product> products;
+    private List<OrderLine> lines;
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal total;
+    @Valid
     private CustomerInfo customerInfo;
+    @Valid
     private DeliveryInfo deliveryInfo;
     private boolean isPaid;
     private LocalDateTime insertDateTime;
+    /**
+     * Set by the finalize update; lets the outbox relay find payments whose event was never written.
+     */
+    @JsonIgnore
+    @Indexed(name = "paid_at", sparse = true)
+    private LocalDateTime paidAt;
 }
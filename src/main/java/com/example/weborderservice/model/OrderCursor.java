@@ -0,0 +1,38 @@
+package com.example.weborderservice.model;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position of the last order on a search page. Search results are ordered by insertDateTime and orderId, both
+ * descending, so the next page starts strictly after this pair.
+ */
+public record OrderCursor(LocalDateTime insertDateTime, UUID orderId) {
+
+    private static final String SEPARATOR = "|";
+
+    public static OrderCursor of(final Order order) {
+        return new OrderCursor(order.getInsertDateTime(), order.getOrderId());
+    }
+
+    public String encode() {
+        String value = insertDateTime + SEPARATOR + orderId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static OrderCursor decode(final String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.indexOf(SEPARATOR);
+            return new OrderCursor(LocalDateTime.parse(value.substring(0, separator)), UUID.fromString(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor", e);
+        }
+    }
+}
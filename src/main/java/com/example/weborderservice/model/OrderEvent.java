@@ -0,0 +1,52 @@
+package com.example.weborderservice.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Outbox entry for an order lifecycle change; an order has at most one event of each type. The relay assigns
+ * {@code sequence} when it publishes the event; it is the resume token of the event stream. Delivery is at least once,
+ * so consumers should deduplicate by {@code id}.
+ */
+@Document(collection = "orderEvents")
+@CompoundIndex(name = "state_id", def = "{'state': 1, '_id': 1}")
+@CompoundIndex(name = "order_id_type", def = "{'orderId': 1, 'type': 1}", unique = true)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class OrderEvent {
+    @Id
+    private String id;
+    private UUID orderId;
+    private OrderEventType type;
+    private LocalDateTime occurredAt;
+    @Indexed(name = "sequence", sparse = true)
+    private Long sequence;
+    @JsonIgnore
+    private State state;
+    @JsonIgnore
+    private LocalDateTime publishedAt;
+
+    public enum State {
+        /**
+         * Written before the order change; the change may not have happened yet.
+         */
+        PENDING,
+        /**
+         * The order change happened and the event waits for the relay.
+         */
+        READY,
+        PUBLISHED
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.weborderservice.model;
+
+public enum OrderEventType {
+    CREATED(0),
+    FINALIZED(1),
+    DELETED(2),
+    EXPIRED(2);
+
+    private final int stage;
+
+    OrderEventType(final int stage) {
+        this.stage = stage;
+    }
+
+    /**
+     * Position in the order lifecycle; the relay publishes the events of one order in stage order.
+     */
+    public int getStage() {
+        return stage;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.weborderservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Top-level order fields that can be requested with {@code fields=}, keyed by their JSON name.
+ */
+@Getter
+@AllArgsConstructor
+public enum OrderField {
+    ORDER_ID("orderId", "_id", Order::getOrderId),
+    LINES("lines", "lines", Order::getLines),
+    TOTAL("total", "total", Order::getTotal),
+    CUSTOMER_INFO("customerInfo", "customerInfo", Order::getCustomerInfo),
+    DELIVERY_INFO("deliveryInfo", "deliveryInfo", Order::getDeliveryInfo),
+    PAID("paid", "isPaid", Order::isPaid),
+    INSERT_DATE_TIME("insertDateTime", "insertDateTime", Order::getInsertDateTime);
+
+    private final String jsonName;
+    private final String mongoField;
+    private final Function<Order, Object> accessor;
+
+    public static Set<OrderField> parse(final String fields) {
+        Set<OrderField> parsed = EnumSet.noneOf(OrderField.class);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (!trimmed.isEmpty()) {
+                parsed.add(Arrays.stream(values())
+                        .filter(field -> field.jsonName.equals(trimmed))
+                        .findFirst()
+                        .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown order field: " + trimmed)));
+            }
+        }
+        if (parsed.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At least one order field is required");
+        }
+        return parsed;
+    }
+
+    public static Map<String, Object> project(final Order order, final Set<OrderField> fields) {
+        Map<String, Object> projection = new LinkedHashMap<>();
+        fields.forEach(field -> projection.put(field.jsonName, field.accessor.apply(order)));
+        return projection;
+    }
+}
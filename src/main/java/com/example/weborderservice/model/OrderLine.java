@@ -0,0 +1,36 @@
+package com.example.weborderservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderLine {
+    private UUID productId;
+    private String snapshotId;
+    private String name;
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal price;
+    private int quantity;
+    private List<Category> categories;
+
+    public BigDecimal lineTotal() {
+        return price == null ? BigDecimal.ZERO : price.multiply(BigDecimal.valueOf(quantity));
+    }
+
+    public static BigDecimal total(final List<OrderLine> lines) {
+        return lines == null ? BigDecimal.ZERO : lines.stream()
+                .map(OrderLine::lineTotal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
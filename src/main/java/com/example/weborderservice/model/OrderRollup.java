@@ -0,0 +1,42 @@
+package com.example.weborderservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Order volume and revenue for one hour, either for a single category or, when {@code category} is null, for all
+ * orders. Category buckets attribute each line to every category it belongs to, so they do not add up to the total.
+ */
+@Document(collection = "orderRollups")
+@CompoundIndex(name = "hour_category", def = "{'hour': 1, 'category': 1}")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderRollup {
+    @Id
+    private String id;
+    private LocalDateTime hour;
+    private Category category;
+    private long orders;
+    private long items;
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal revenue;
+    private long paidOrders;
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal paidRevenue;
+
+    public static String id(final LocalDateTime hour, final Category category) {
+        return hour + "|" + (category == null ? "ALL" : category.name());
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.weborderservice.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record OrderRollupDelta(LocalDateTime hour, Category category, long orders, long items, BigDecimal revenue,
+                               long paidOrders, BigDecimal paidRevenue) {
+
+    public OrderRollupDelta plus(final OrderRollupDelta other) {
+        return new OrderRollupDelta(hour, category, orders + other.orders, items + other.items, revenue.add(other.revenue),
+                paidOrders + other.paidOrders, paidRevenue.add(other.paidRevenue));
+    }
+}
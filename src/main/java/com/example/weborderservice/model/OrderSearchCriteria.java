@@ -0,0 +1,6 @@
+package com.example.weborderservice.model;
+
+import java.time.LocalDateTime;
+
+public record OrderSearchCriteria(String email, Boolean paid, LocalDateTime from, LocalDateTime to, Category category) {
+}
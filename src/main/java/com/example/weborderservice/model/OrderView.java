@@ -0,0 +1,57 @@
+package com.example.weborderservice.model;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+public enum OrderView {
+    /**
+     * Default view: the whole order with its products rebuilt from their snapshots, as before orders were stored as lines.
+     */
+    STANDARD(null, true),
+    /**
+     * Same as {@link #STANDARD}; kept for clients that already ask for it explicitly.
+     */
+    FULL(null, true),
+    /**
+     * The whole order with its stored lines only, skipping the snapshot lookup.
+     */
+    LINES(null, false),
+    SUMMARY(EnumSet.of(OrderField.ORDER_ID, OrderField.PAID, OrderField.INSERT_DATE_TIME), false);
+
+    private final Set<OrderField> fields;
+    private final boolean withProducts;
+
+    OrderView(Set<OrderField> fields, boolean withProducts) {
+        this.fields = fields;
+        this.withProducts = withProducts;
+    }
+
+    /**
+     * Fields this view is limited to, or {@code null} when it returns the whole order.
+     */
+    public Set<OrderField> getFields() {
+        return fields;
+    }
+
+    /**
+     * Whether this view rebuilds the order's products from their snapshots.
+     */
+    public boolean isWithProducts() {
+        return withProducts;
+    }
+
+    public static OrderView from(final String value) {
+        if (value == null || value.isBlank()) {
+            return STANDARD;
+        }
+        return Arrays.stream(values())
+                .filter(view -> view.name().equals(value.trim().toUpperCase(Locale.ROOT)))
+                .findFirst()
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown order view: " + value));
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.weborderservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Document(collection = "productSnapshots")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductSnapshot {
+    @Id
+    private String id;
+    private UUID productId;
+    private String name;
+    private String description;
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal price;
+    private Manufacturer manufacturer;
+    private List<Category> categories;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
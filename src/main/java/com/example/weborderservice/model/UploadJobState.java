@@ -0,0 +1,12 @@
+package com.example.weborderservice.model;
+
+public enum UploadJobState {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED;
+
+    public boolean isFinished() {
+        return this == COMPLETED || this == FAILED;
+    }
+}
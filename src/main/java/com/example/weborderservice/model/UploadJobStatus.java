@@ -0,0 +1,19 @@
+package com.example.weborderservice.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public record UploadJobStatus(
+        UUID jobId,
+        UploadJobState state,
+        long parsed,
+        long persisted,
+        long rejected,
+        double recordsPerSecond,
+        List<UploadRejection> rejections,
+        LocalDateTime submittedAt,
+        LocalDateTime finishedAt,
+        String error
+) {
+}
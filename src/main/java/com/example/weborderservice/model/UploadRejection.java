@@ -0,0 +1,4 @@
+package com.example.weborderservice.model;
+
+public record UploadRejection(long index, String reason) {
+}
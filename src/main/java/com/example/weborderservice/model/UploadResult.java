@@ -0,0 +1,24 @@
+package com.example.weborderservice.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One record of a streamed upload: the persisted order, or the reason the record at that index was rejected.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UploadResult(long index, Order order, String rejection) {
+
+    public static UploadResult accepted(final long index, final Order order) {
+        return new UploadResult(index, order, null);
+    }
+
+    public static UploadResult rejected(final long index, final String reason) {
+        return new UploadResult(index, null, reason);
+    }
+
+    @JsonIgnore
+    public boolean isRejected() {
+        return rejection != null;
+    }
+}
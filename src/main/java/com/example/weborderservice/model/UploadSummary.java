@@ -0,0 +1,6 @@
+package com.example.weborderservice.model;
+
+import java.util.List;
+
+public record UploadSummary(long received, long persisted, long failed, List<UploadRejection> rejections, long elapsedMillis) {
+}
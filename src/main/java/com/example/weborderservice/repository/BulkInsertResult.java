@@ -0,0 +1,9 @@
+package com.example.weborderservice.repository;
+
+import java.util.List;
+
+public record BulkInsertResult(int insertedCount, List<Failure> failures) {
+
+    public record Failure(int index, String message) {
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.weborderservice.repository;
+
+import com.example.weborderservice.model.IdempotencyRecord;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface IdempotencyRecordRepository extends MongoRepository<IdempotencyRecord, String>, IdempotencyRecordRepositoryCustom {
+}
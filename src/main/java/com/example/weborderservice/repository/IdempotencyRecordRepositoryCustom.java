@@ -0,0 +1,17 @@
+package com.example.weborderservice.repository;
+
+import com.example.weborderservice.model.IdempotencyRecord;
+
+import java.time.Duration;
+import java.util.UUID;
+
+public interface IdempotencyRecordRepositoryCustom {
+
+    boolean insertIfAbsent(IdempotencyRecord record);
+
+    boolean replaceClaim(IdempotencyRecord expected, IdempotencyRecord replacement);
+
+    long release(String key, UUID orderId);
+
+    void ensureIndexes(Duration retention);
+}
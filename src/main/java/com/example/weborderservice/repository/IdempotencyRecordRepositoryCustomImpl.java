@@ -0,0 +1,72 @@
+package com.example.weborderservice.repository;
+
+import com.example.weborderservice.model.IdempotencyRecord;
+import lombok.AllArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+@AllArgsConstructor
+public class IdempotencyRecordRepositoryCustomImpl implements IdempotencyRecordRepositoryCustom {
+
+    static final String CREATED_AT_TTL_INDEX = "created_at_ttl";
+
+    private static final String ID = "_id";
+    private static final String ORDER_ID = "orderId";
+    private static final String CREATED_AT = "createdAt";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public boolean insertIfAbsent(final IdempotencyRecord record) {
+        try {
+            mongoTemplate.insert(record);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean replaceClaim(final IdempotencyRecord expected, final IdempotencyRecord replacement) {
+        Query claim = Query.query(Criteria.where(ID).is(expected.getKey()).and(ORDER_ID).is(expected.getOrderId()));
+        Update update = new Update()
+                .set(ORDER_ID, replacement.getOrderId())
+                .set(CREATED_AT, replacement.getCreatedAt());
+        return mongoTemplate.updateFirst(claim, update, IdempotencyRecord.class).getModifiedCount() == 1;
+    }
+
+    @Override
+    public long release(final String key, final UUID orderId) {
+        return mongoTemplate.remove(Query.query(Criteria.where(ID).is(key).and(ORDER_ID).is(orderId)), IdempotencyRecord.class)
+                .getDeletedCount();
+    }
+
+    @Override
+    public void ensureIndexes(final Duration retention) {
+        IndexOperations indexOperations = mongoTemplate.indexOps(IdempotencyRecord.class);
+        Optional<IndexInfo> ttlIndex = indexOperations.getIndexInfo().stream()
+                .filter(index -> CREATED_AT_TTL_INDEX.equals(index.getName()))
+                .findFirst();
+        if (ttlIndex.isPresent() && !ttlIndex.get().getExpireAfter().equals(Optional.of(retention))) {
+            indexOperations.dropIndex(CREATED_AT_TTL_INDEX);
+            ttlIndex = Optional.empty();
+        }
+        if (ttlIndex.isEmpty()) {
+            indexOperations.ensureIndex(new Index()
+                    .on(CREATED_AT, Sort.Direction.ASC)
+                    .named(CREATED_AT_TTL_INDEX)
+                    .expire(retention));
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.weborderservice.repository;
+
+import com.example.weborderservice.model.Order;
+
+/**
+ * An order document in a pre-Decimal128 layout, with the {@code _id} value exactly as stored.
+ */
+public record LegacyOrder(Object storedId, Order order) {
+}
@@ -0,0 +1,83 @@
+package com.example.weborderservice.repository;
+
+import org.bson.BsonBinarySubType;
+import org.bson.types.Binary;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * UUIDs are stored as standard binary subtype 4. Documents written before that used the Java legacy subtype 3 byte
+ * order or plain strings; while legacy reads are enabled, id lookups match all three encodings.
+ */
+public final class LegacyUuids {
+
+    private static final String ID = "_id";
+    private static final int UUID_BYTES = 16;
+
+    private LegacyUuids() {
+    }
+
+    static Criteria idIs(final UUID orderId, final boolean legacyReads) {
+        return legacyReads ? Criteria.where(ID).in(encodings(orderId)) : Criteria.where(ID).is(orderId);
+    }
+
+    static Criteria idIn(final Collection<UUID> orderIds, final boolean legacyReads) {
+        if (!legacyReads) {
+            return Criteria.where(ID).in(orderIds);
+        }
+        List<Object> ids = new ArrayList<>(orderIds.size() * 3);
+        orderIds.forEach(orderId -> ids.addAll(encodings(orderId)));
+        return Criteria.where(ID).in(ids);
+    }
+
+    static List<Object> encodings(final UUID uuid) {
+        return List.of(uuid, javaLegacy(uuid), uuid.toString());
+    }
+
+    static Binary javaLegacy(final UUID uuid) {
+        byte[] data = new byte[UUID_BYTES];
+        long mostSignificantBits = uuid.getMostSignificantBits();
+        long leastSignificantBits = uuid.getLeastSignificantBits();
+        for (int i = 0; i < 8; i++) {
+            data[i] = (byte) (mostSignificantBits >>> (8 * i));
+            data[8 + i] = (byte) (leastSignificantBits >>> (8 * i));
+        }
+        return new Binary(BsonBinarySubType.UUID_LEGACY, data);
+    }
+
+    static UUID fromBinary(final Binary binary) {
+        byte[] data = binary.getData();
+        if (data.length != UUID_BYTES) {
+            throw new IllegalArgumentException("Expected " + UUID_BYTES + " bytes for a UUID, got " + data.length);
+        }
+        boolean legacy = binary.getType() == BsonBinarySubType.UUID_LEGACY.getValue();
+        long mostSignificantBits = 0;
+        long leastSignificantBits = 0;
+        for (int i = 0; i < 8; i++) {
+            int index = legacy ? 7 - i : i;
+            mostSignificantBits = (mostSignificantBits << 8) | (data[index] & 0xff);
+            leastSignificantBits = (leastSignificantBits << 8) | (data[8 + index] & 0xff);
+        }
+        return new UUID(mostSignificantBits, leastSignificantBits);
+    }
+
+    /**
+     * The driver only decodes the binary subtype matching the configured representation; any other UUID arrives as
+     * {@link Binary}.
+     */
+    @ReadingConverter
+    public enum BinaryToUuidConverter implements Converter<Binary, UUID> {
+        INSTANCE;
+
+        @Override
+        public UUID convert(final Binary source) {
+            return fromBinary(source);
+        }
+    }
+}
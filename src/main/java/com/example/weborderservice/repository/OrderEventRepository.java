@@ -0,0 +1,7 @@
+package com.example.weborderservice.repository;
+
+import com.example.weborderservice.model.OrderEvent;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface OrderEventRepository extends MongoRepository<OrderEvent, String>, OrderEventRepositoryCustom {
+}
@@ -0,0 +1,49 @@
+package com.example.weborderservice.repository;
+
+import com.example.weborderservice.model.OrderEvent;
+import com.example.weborderservice.model.OrderEventType;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+public interface OrderEventRepositoryCustom {
+
+    void insertPending(List<OrderEvent> events);
+
+    int insertIfAbsent(List<OrderEvent> events);
+
+    Set<UUID> findOrderIdsWithEvent(Collection<UUID> orderIds, OrderEventType type);
+
+    long markReady(Collection<String> eventIds);
+
+    long discardPending(Collection<String> eventIds);
+
+    List<OrderEvent> findPendingBefore(LocalDateTime occurredBefore, int limit);
+
+    List<OrderEvent> findReady(int limit);
+
+    List<OrderEvent> findReadyAfter(String eventId, int limit);
+
+    List<OrderEvent> findUnpublished(Collection<UUID> orderIds);
+
+    void markPublished(List<OrderEvent> events);
+
+    List<OrderEvent> findPublishedAfter(long sequence, int limit);
+
+    long findLastPublishedSequence();
+
+    boolean acquireRelayLease(String owner, LocalDateTime now, Duration leaseDuration);
+
+    Optional<Long> allocateSequences(String owner, int count);
+
+    Optional<LocalDateTime> findPaidCheckpoint();
+
+    void savePaidCheckpoint(String owner, LocalDateTime checkpoint);
+
+    void ensureIndexes(Duration publishedEventRetention);
+}
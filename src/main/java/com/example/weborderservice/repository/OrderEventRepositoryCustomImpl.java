@@ -0,0 +1,258 @@
+package com.example.weborderservice.repository;
+
+import com.example.weborderservice.model.OrderEvent;
+import com.example.weborderservice.model.OrderEventType;
+import lombok.AllArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@AllArgsConstructor
+public class OrderEventRepositoryCustomImpl implements OrderEventRepositoryCustom {
+
+    static final String RELAY_COLLECTION = "orderEventRelay";
+    static final String PUBLISHED_TTL_INDEX = "published_ttl";
+
+    private static final String ID = "_id";
+    private static final String RELAY_ID = "relay";
+    private static final String OWNER = "owner";
+    private static final String PAID_CHECKPOINT = "paidCheckpoint";
+    private static final String ORDER_ID = "orderId";
+    private static final String TYPE = "type";
+    private static final int DUPLICATE_KEY = 11000;
+    private static final String LEASE_UNTIL = "leaseUntil";
+    private static final String STATE = "state";
+    private static final String SEQUENCE = "sequence";
+    private static final String OCCURRED_AT = "occurredAt";
+    private static final String PUBLISHED_AT = "publishedAt";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void insertPending(final List<OrderEvent> events) {
+        if (!events.isEmpty()) {
+            mongoTemplate.insert(events, OrderEvent.class);
+        }
+    }
+
+    /**
+     * Inserts the events whose order has no event of the same type yet and returns how many were inserted.
+     */
+    @Override
+    public int insertIfAbsent(final List<OrderEvent> events) {
+        if (events.isEmpty()) {
+            return 0;
+        }
+        try {
+            return mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OrderEvent.class)
+                    .insert(events)
+                    .execute()
+                    .getInsertedCount();
+        } catch (BulkOperationException e) {
+            if (e.getErrors().stream().anyMatch(error -> error.getCode() != DUPLICATE_KEY)) {
+                throw e;
+            }
+            return events.size() - e.getErrors().size();
+        }
+    }
+
+    @Override
+    public Set<UUID> findOrderIdsWithEvent(final Collection<UUID> orderIds, final OrderEventType type) {
+        if (orderIds.isEmpty()) {
+            return Set.of();
+        }
+        Query query = Query.query(Criteria.where(ORDER_ID).in(orderIds).and(TYPE).is(type));
+        query.fields().include(ORDER_ID);
+        return mongoTemplate.find(query, OrderEvent.class).stream()
+                .map(OrderEvent::getOrderId)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public long markReady(final Collection<String> eventIds) {
+        if (eventIds.isEmpty()) {
+            return 0;
+        }
+        return mongoTemplate.updateMulti(pending(eventIds), Update.update(STATE, OrderEvent.State.READY), OrderEvent.class)
+                .getModifiedCount();
+    }
+
+    @Override
+    public long discardPending(final Collection<String> eventIds) {
+        if (eventIds.isEmpty()) {
+            return 0;
+        }
+        return mongoTemplate.remove(pending(eventIds), OrderEvent.class).getDeletedCount();
+    }
+
+    @Override
+    public List<OrderEvent> findPendingBefore(final LocalDateTime occurredBefore, final int limit) {
+        Query query = Query.query(Criteria.where(STATE).is(OrderEvent.State.PENDING).and(OCCURRED_AT).lt(occurredBefore))
+                .with(Sort.by(ID))
+                .limit(limit);
+        return mongoTemplate.find(query, OrderEvent.class);
+    }
+
+    @Override
+    public List<OrderEvent> findReady(final int limit) {
+        return findReady(Criteria.where(STATE).is(OrderEvent.State.READY), limit);
+    }
+
+    @Override
+    public List<OrderEvent> findReadyAfter(final String eventId, final int limit) {
+        return findReady(Criteria.where(STATE).is(OrderEvent.State.READY).and(ID).gt(new ObjectId(eventId)), limit);
+    }
+
+    /**
+     * Pending and ready events of the given orders, with only their order and type.
+     */
+    @Override
+    public List<OrderEvent> findUnpublished(final Collection<UUID> orderIds) {
+        if (orderIds.isEmpty()) {
+            return List.of();
+        }
+        Query query = Query.query(Criteria.where(ORDER_ID).in(orderIds)
+                .and(STATE).in(OrderEvent.State.PENDING, OrderEvent.State.READY));
+        query.fields().include(ORDER_ID, TYPE);
+        return mongoTemplate.find(query, OrderEvent.class);
+    }
+
+    @Override
+    public void markPublished(final List<OrderEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OrderEvent.class);
+        for (OrderEvent event : events) {
+            bulkOperations.updateOne(Query.query(Criteria.where(ID).is(event.getId())), new Update()
+                    .set(STATE, OrderEvent.State.PUBLISHED)
+                    .set(SEQUENCE, event.getSequence())
+                    .set(PUBLISHED_AT, event.getPublishedAt()));
+        }
+        bulkOperations.execute();
+    }
+
+    @Override
+    public List<OrderEvent> findPublishedAfter(final long sequence, final int limit) {
+        Query query = Query.query(Criteria.where(SEQUENCE).gt(sequence))
+                .with(Sort.by(SEQUENCE))
+                .limit(limit);
+        return mongoTemplate.find(query, OrderEvent.class);
+    }
+
+    /**
+     * Highest sequence handed out to a published event, or 0 before the first one.
+     */
+    @Override
+    public long findLastPublishedSequence() {
+        Query query = Query.query(Criteria.where(SEQUENCE).exists(true))
+                .with(Sort.by(Sort.Direction.DESC, SEQUENCE))
+                .limit(1);
+        query.fields().include(SEQUENCE);
+        OrderEvent last = mongoTemplate.findOne(query, OrderEvent.class);
+        return last == null ? 0 : last.getSequence();
+    }
+
+    /**
+     * Takes or renews the single relay lease; fails while another owner holds an unexpired lease.
+     */
+    @Override
+    public boolean acquireRelayLease(final String owner, final LocalDateTime now, final Duration leaseDuration) {
+        Query query = Query.query(Criteria.where(ID).is(RELAY_ID)
+                .orOperator(Criteria.where(OWNER).is(owner), Criteria.where(LEASE_UNTIL).lt(now)));
+        Update update = new Update()
+                .set(OWNER, owner)
+                .set(LEASE_UNTIL, now.plus(leaseDuration))
+                .setOnInsert(SEQUENCE, 0L);
+        try {
+            mongoTemplate.upsert(query, update, RELAY_COLLECTION);
+            return true;
+        } catch (DuplicateKeyException e) {
+            // the lease document exists and is held by another owner
+            return false;
+        }
+    }
+
+    /**
+     * Reserves {@code count} consecutive sequence numbers and returns the first, or nothing if {@code owner} no longer
+     * holds the lease.
+     */
+    @Override
+    public Optional<Long> allocateSequences(final String owner, final int count) {
+        Document relay = mongoTemplate.findAndModify(
+                Query.query(Criteria.where(ID).is(RELAY_ID).and(OWNER).is(owner)),
+                new Update().inc(SEQUENCE, (long) count),
+                FindAndModifyOptions.options().returnNew(true),
+                Document.class,
+                RELAY_COLLECTION);
+        return Optional.ofNullable(relay)
+                .map(document -> ((Number) document.get(SEQUENCE)).longValue() - count + 1);
+    }
+
+    @Override
+    public Optional<LocalDateTime> findPaidCheckpoint() {
+        Query query = Query.query(Criteria.where(ID).is(RELAY_ID));
+        query.fields().include(PAID_CHECKPOINT);
+        return Optional.ofNullable(mongoTemplate.findOne(query, Document.class, RELAY_COLLECTION))
+                .map(relay -> relay.getDate(PAID_CHECKPOINT))
+                .map(checkpoint -> LocalDateTime.ofInstant(checkpoint.toInstant(), ZoneId.systemDefault()));
+    }
+
+    @Override
+    public void savePaidCheckpoint(final String owner, final LocalDateTime checkpoint) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where(ID).is(RELAY_ID).and(OWNER).is(owner)),
+                Update.update(PAID_CHECKPOINT, checkpoint), RELAY_COLLECTION);
+    }
+
+    @Override
+    public void ensureIndexes(final Duration publishedEventRetention) {
+        IndexOperations indexOperations = mongoTemplate.indexOps(OrderEvent.class);
+        IndexResolver.create(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(OrderEvent.class)
+                .forEach(indexOperations::ensureIndex);
+
+        Optional<IndexInfo> ttlIndex = indexOperations.getIndexInfo().stream()
+                .filter(index -> PUBLISHED_TTL_INDEX.equals(index.getName()))
+                .findFirst();
+        if (ttlIndex.isPresent() && !ttlIndex.get().getExpireAfter().equals(Optional.of(publishedEventRetention))) {
+            indexOperations.dropIndex(PUBLISHED_TTL_INDEX);
+            ttlIndex = Optional.empty();
+        }
+        if (ttlIndex.isEmpty()) {
+            indexOperations.ensureIndex(new Index()
+                    .on(PUBLISHED_AT, Sort.Direction.ASC)
+                    .named(PUBLISHED_TTL_INDEX)
+                    .expire(publishedEventRetention));
+        }
+    }
+
+    private List<OrderEvent> findReady(final Criteria criteria, final int limit) {
+        return mongoTemplate.find(Query.query(criteria).with(Sort.by(ID)).limit(limit), OrderEvent.class);
+    }
+
+    private static Query pending(final Collection<String> eventIds) {
+        return Query.query(Criteria.where(ID).in(eventIds).and(STATE).is(OrderEvent.State.PENDING));
+    }
+}
@@ -3,15 +3,5 @@ package com.example.weborderservice.repository;
 import com.example.weborderservice.model.Order;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
-import java.time.LocalDateTime;
-import java.util.Optional;
-import java.util.UUID;
-
-public interface OrderRepository extends MongoRepository<Order, String> {
-
-    Optional<Order> findOrderByOrderId(UUID orderId);
-
-    void deleteOrderByOrderId(UUID orderId);
-
-    void deleteOrdersByInsertDateTimeBefore(LocalDateTime time);
+public interface OrderRepository extends MongoRepository<Order, String>, OrderRepositoryCustom {
 }
@@ -0,0 +1,51 @@
+package com.example.weborderservice.repository;
+
+import com.example.weborderservice.model.Order;
+import com.example.weborderservice.model.OrderCursor;
+import com.example.weborderservice.model.OrderSearchCriteria;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+public interface OrderRepositoryCustom {
+
+    Optional<Order> findOrderByOrderId(UUID orderId);
+
+    long deleteOrderByOrderId(UUID orderId);
+
+    long deleteOrdersByOrderIdIn(Collection<UUID> orderIds);
+
+    BulkInsertResult insertUnordered(List<Order> orders);
+
+    List<UUID> findUnpaidInsertedBefore(LocalDateTime time, int limit);
+
+    long deleteUnpaidOrders(Collection<UUID> orderIds);
+
+    Map<UUID, Boolean> findPaidStates(Collection<UUID> orderIds);
+
+    void ensureIndexes(Duration unpaidOrderTtl);
+
+    Optional<Order> markPaid(UUID orderId);
+
+    List<Order> findPaidBetween(LocalDateTime from, LocalDateTime to, int limit);
+
+    Optional<Order> findOrderFields(UUID orderId, Collection<String> fields);
+
+    List<Order> search(OrderSearchCriteria criteria, OrderCursor after, int limit);
+
+    Stream<Order> streamOrders(OrderSearchCriteria criteria, int batchSize);
+
+    List<LegacyOrder> findLegacyOrders(int limit);
+
+    boolean replaceLegacyOrder(LegacyOrder legacyOrder, Order migratedOrder);
+
+    boolean isLegacyMigrationFinished();
+
+    void markLegacyMigrationFinished();
+}
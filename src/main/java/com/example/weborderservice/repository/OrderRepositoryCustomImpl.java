@@ -0,0 +1,248 @@
+package com.example.weborderservice.repository;
+
+import com.example.weborderservice.config.MongoEncodingConfig;
+import com.example.weborderservice.model.Order;
+import com.example.weborderservice.model.OrderCursor;
+import com.example.weborderservice.model.OrderSearchCriteria;
+import com.example.weborderservice.model.Product;
+import lombok.AllArgsConstructor;
+import org.bson.BsonType;
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@AllArgsConstructor
+public class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+
+    static final String UNPAID_TTL_INDEX = "unpaid_ttl";
+    static final String LEGACY_UNPAID_INDEX = "unpaid_insert_date_time";
+    static final String MIGRATIONS_COLLECTION = "orderMigrations";
+
+    private static final String COMPACT_ENCODING_MIGRATION = "compactEncoding";
+    private static final String FINISHED_AT = "finishedAt";
+
+    private static final String ID = "_id";
+    private static final String IS_PAID = "isPaid";
+    private static final String INSERT_DATE_TIME = "insertDateTime";
+    private static final String PAID_AT = "paidAt";
+    private static final String LINES = "lines";
+    private static final String PRODUCTS = "products";
+    private static final String TOTAL = "total";
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoEncodingConfig encodingConfig;
+
+    @Override
+    public Optional<Order> findOrderByOrderId(final UUID orderId) {
+        return Optional.ofNullable(mongoTemplate.findOne(Query.query(idIs(orderId)), Order.class));
+    }
+
+    @Override
+    public long deleteOrderByOrderId(final UUID orderId) {
+        return mongoTemplate.remove(Query.query(idIs(orderId)), Order.class).getDeletedCount();
+    }
+
+    @Override
+    public long deleteOrdersByOrderIdIn(final Collection<UUID> orderIds) {
+        return mongoTemplate.remove(Query.query(LegacyUuids.idIn(orderIds, encodingConfig.isLegacyReads())), Order.class)
+                .getDeletedCount();
+    }
+
+    @Override
+    public BulkInsertResult insertUnordered(final List<Order> orders) {
+        if (orders.isEmpty()) {
+            return new BulkInsertResult(0, List.of());
+        }
+        try {
+            int inserted = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class)
+                    .insert(orders)
+                    .execute()
+                    .getInsertedCount();
+            return new BulkInsertResult(inserted, List.of());
+        } catch (BulkOperationException e) {
+            List<BulkInsertResult.Failure> failures = e.getErrors().stream()
+                    .map(error -> new BulkInsertResult.Failure(error.getIndex(), error.getMessage()))
+                    .toList();
+            return new BulkInsertResult(e.getResult().getInsertedCount(), failures);
+        }
+    }
+
+    @Override
+    public List<UUID> findUnpaidInsertedBefore(final LocalDateTime time, final int limit) {
+        Query expiredOrders = Query.query(unpaidInsertedBefore(time))
+                .with(Sort.by(INSERT_DATE_TIME))
+                .limit(limit);
+        expiredOrders.fields().include(ID);
+        return mongoTemplate.find(expiredOrders, Order.class).stream()
+                .map(Order::getOrderId)
+                .toList();
+    }
+
+    @Override
+    public long deleteUnpaidOrders(final Collection<UUID> orderIds) {
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+        Criteria unpaidOrders = LegacyUuids.idIn(orderIds, encodingConfig.isLegacyReads()).and(IS_PAID).is(false);
+        return mongoTemplate.remove(Query.query(unpaidOrders), Order.class).getDeletedCount();
+    }
+
+    @Override
+    public Map<UUID, Boolean> findPaidStates(final Collection<UUID> orderIds) {
+        if (orderIds.isEmpty()) {
+            return Map.of();
+        }
+        Query query = Query.query(LegacyUuids.idIn(orderIds, encodingConfig.isLegacyReads()));
+        query.fields().include(ID, IS_PAID);
+        return mongoTemplate.find(query, Order.class).stream()
+                .collect(Collectors.toMap(Order::getOrderId, Order::isPaid, (first, second) -> first || second));
+    }
+
+    @Override
+    public void ensureIndexes(final Duration unpaidOrderTtl) {
+        IndexOperations indexOperations = mongoTemplate.indexOps(Order.class);
+        if (indexOperations.getIndexInfo().stream().anyMatch(index -> LEGACY_UNPAID_INDEX.equals(index.getName()))) {
+            indexOperations.dropIndex(LEGACY_UNPAID_INDEX);
+        }
+        IndexResolver.create(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(Order.class)
+                .forEach(indexOperations::ensureIndex);
+
+        Optional<IndexInfo> ttlIndex = indexOperations.getIndexInfo().stream()
+                .filter(index -> UNPAID_TTL_INDEX.equals(index.getName()))
+                .findFirst();
+        boolean ttlIndexOutdated = ttlIndex.isPresent()
+                && !ttlIndex.get().getExpireAfter().equals(Optional.ofNullable(unpaidOrderTtl));
+        if (ttlIndexOutdated) {
+            indexOperations.dropIndex(UNPAID_TTL_INDEX);
+        }
+        if (unpaidOrderTtl != null && (ttlIndex.isEmpty() || ttlIndexOutdated)) {
+            indexOperations.ensureIndex(new Index()
+                    .on(INSERT_DATE_TIME, Sort.Direction.ASC)
+                    .named(UNPAID_TTL_INDEX)
+                    .expire(unpaidOrderTtl)
+                    .partial(PartialIndexFilter.of(Criteria.where(IS_PAID).is(false))));
+        }
+    }
+
+    @Override
+    public Optional<Order> markPaid(final UUID orderId) {
+        return Optional.ofNullable(mongoTemplate.findAndModify(
+                Query.query(idIs(orderId).and(IS_PAID).is(false)),
+                Update.update(IS_PAID, true).set(PAID_AT, LocalDateTime.now()),
+                FindAndModifyOptions.options().returnNew(true),
+                Order.class));
+    }
+
+    /**
+     * Ids and payment times of orders paid in {@code [from, to)}, oldest first.
+     */
+    @Override
+    public List<Order> findPaidBetween(final LocalDateTime from, final LocalDateTime to, final int limit) {
+        Query query = Query.query(Criteria.where(PAID_AT).gte(from).lt(to))
+                .with(Sort.by(PAID_AT))
+                .limit(limit);
+        query.fields().include(ID, PAID_AT);
+        return mongoTemplate.find(query, Order.class);
+    }
+
+    @Override
+    public Optional<Order> findOrderFields(final UUID orderId, final Collection<String> fields) {
+        Query query = Query.query(idIs(orderId));
+        fields.forEach(query.fields()::include);
+        return Optional.ofNullable(mongoTemplate.findOne(query, Order.class));
+    }
+
+    @Override
+    public List<Order> search(final OrderSearchCriteria criteria, final OrderCursor after, final int limit) {
+        return mongoTemplate.find(OrderSearchQuery.build(criteria, after, limit), Order.class);
+    }
+
+    @Override
+    public Stream<Order> streamOrders(final OrderSearchCriteria criteria, final int batchSize) {
+        return mongoTemplate.stream(OrderSearchQuery.sorted(criteria, null).cursorBatchSize(batchSize), Order.class);
+    }
+
+    @Override
+    public List<LegacyOrder> findLegacyOrders(final int limit) {
+        Query query = Query.query(Criteria.where(TOTAL).not().type(BsonType.DECIMAL128.getValue())).limit(limit);
+        MongoConverter converter = mongoTemplate.getConverter();
+        return mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(Order.class)).stream()
+                .map(document -> {
+                    Order order = converter.read(Order.class, document);
+                    if (order.getLines() == null && document.get(PRODUCTS) instanceof List<?> products) {
+                        order.setProducts(products.stream()
+                                .map(product -> converter.read(Product.class, (Document) product))
+                                .toList());
+                    }
+                    return new LegacyOrder(document.get(ID), order);
+                })
+                .toList();
+    }
+
+    @Override
+    public boolean replaceLegacyOrder(final LegacyOrder legacyOrder, final Order migratedOrder) {
+        if (legacyOrder.storedId() instanceof UUID) {
+            // replace only the state that was read, so a finalize in between is not overwritten
+            Query storedOrder = Query.query(Criteria.where(ID).is(legacyOrder.storedId()).and(IS_PAID).is(legacyOrder.order().isPaid()));
+            return mongoTemplate.findAndReplace(storedOrder, migratedOrder) != null;
+        }
+        try {
+            mongoTemplate.insert(migratedOrder);
+        } catch (DuplicateKeyException e) {
+            // an earlier run inserted the new document and stopped before removing the old one
+        }
+        Document storedOrder = new Document(ID, legacyOrder.storedId()).append(IS_PAID, legacyOrder.order().isPaid());
+        if (mongoTemplate.getCollection(mongoTemplate.getCollectionName(Order.class)).deleteOne(storedOrder).getDeletedCount() == 0) {
+            // paid or deleted since it was read; drop the copy and let the next run pick up the current state
+            mongoTemplate.remove(Query.query(Criteria.where(ID).is(migratedOrder.getOrderId())), Order.class);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Whether any instance recorded that no legacy orders are left; one lookup by id instead of the legacy scan.
+     */
+    @Override
+    public boolean isLegacyMigrationFinished() {
+        return mongoTemplate.exists(Query.query(Criteria.where(ID).is(COMPACT_ENCODING_MIGRATION)), MIGRATIONS_COLLECTION);
+    }
+
+    @Override
+    public void markLegacyMigrationFinished() {
+        mongoTemplate.upsert(Query.query(Criteria.where(ID).is(COMPACT_ENCODING_MIGRATION)),
+                Update.update(FINISHED_AT, LocalDateTime.now()), MIGRATIONS_COLLECTION);
+    }
+
+    private Criteria idIs(final UUID orderId) {
+        return LegacyUuids.idIs(orderId, encodingConfig.isLegacyReads());
+    }
+
+    private static Criteria unpaidInsertedBefore(final LocalDateTime time) {
+        return Criteria.where(IS_PAID).is(false).and(INSERT_DATE_TIME).lt(time);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.weborderservice.repository;
+
+import com.example.weborderservice.model.Category;
+import com.example.weborderservice.model.OrderRollup;
+import org.springframework.data.domain.Range;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OrderRollupRepository extends MongoRepository<OrderRollup, String>, OrderRollupRepositoryCustom {
+
+    List<OrderRollup> findByHourBetween(Range<LocalDateTime> hours, Sort sort);
+
+    List<OrderRollup> findByHourBetweenAndCategory(Range<LocalDateTime> hours, Category category, Sort sort);
+}
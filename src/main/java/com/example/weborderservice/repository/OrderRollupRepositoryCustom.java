@@ -0,0 +1,19 @@
+package com.example.weborderservice.repository;
+
+import com.example.weborderservice.model.OrderRollupDelta;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+public interface OrderRollupRepositoryCustom {
+
+    void increment(Collection<OrderRollupDelta> deltas);
+
+    /**
+     * Removes the rollups of the hours from {@code from} (inclusive) to {@code to} (exclusive) and stores
+     * {@code deltas} in their place.
+     */
+    void replace(LocalDateTime from, LocalDateTime to, Collection<OrderRollupDelta> deltas);
+
+    void ensureIndexes();
+}
@@ -0,0 +1,62 @@
+package com.example.weborderservice.repository;
+
+import com.example.weborderservice.model.OrderRollup;
+import com.example.weborderservice.model.OrderRollupDelta;
+import lombok.AllArgsConstructor;
+import org.bson.types.Decimal128;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+@AllArgsConstructor
+public class OrderRollupRepositoryCustomImpl implements OrderRollupRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void increment(final Collection<OrderRollupDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OrderRollup.class);
+        for (OrderRollupDelta delta : deltas) {
+            Update update = new Update()
+                    .setOnInsert("hour", delta.hour())
+                    .setOnInsert("category", delta.category())
+                    .inc("orders", delta.orders())
+                    .inc("items", delta.items())
+                    .inc("revenue", decimal128(delta.revenue()))
+                    .inc("paidOrders", delta.paidOrders())
+                    .inc("paidRevenue", decimal128(delta.paidRevenue()));
+            bulkOperations.upsert(Query.query(Criteria.where("_id").is(OrderRollup.id(delta.hour(), delta.category()))), update);
+        }
+        bulkOperations.execute();
+    }
+
+    @Override
+    public void replace(final LocalDateTime from, final LocalDateTime to, final Collection<OrderRollupDelta> deltas) {
+        mongoTemplate.remove(Query.query(Criteria.where("hour").gte(from).lt(to)), OrderRollup.class);
+        increment(deltas);
+    }
+
+    @Override
+    public void ensureIndexes() {
+        IndexOperations indexOperations = mongoTemplate.indexOps(OrderRollup.class);
+        IndexResolver.create(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(OrderRollup.class)
+                .forEach(indexOperations::ensureIndex);
+    }
+
+    private static Decimal128 decimal128(final BigDecimal value) {
+        return new Decimal128(value.round(MathContext.DECIMAL128));
+    }
+}
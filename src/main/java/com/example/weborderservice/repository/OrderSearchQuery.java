@@ -0,0 +1,57 @@
+package com.example.weborderservice.repository;
+
+import com.example.weborderservice.model.OrderCursor;
+import com.example.weborderservice.model.OrderSearchCriteria;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds keyset-paginated search queries. Every filter is an equality or range on a prefix of one of the
+ * search indexes declared on {@link com.example.weborderservice.model.Order}, and the sort always matches the
+ * index suffix, so a page never needs an in-memory sort or a skip.
+ */
+final class OrderSearchQuery {
+
+    private static final String ID = "_id";
+    private static final String EMAIL = "customerInfo.email";
+    private static final String IS_PAID = "isPaid";
+    private static final String INSERT_DATE_TIME = "insertDateTime";
+    private static final String CATEGORIES = "lines.categories";
+
+    private OrderSearchQuery() {
+    }
+
+    static Query build(final OrderSearchCriteria criteria, final OrderCursor after, final int limit) {
+        return sorted(criteria, after).limit(limit);
+    }
+
+    static Query sorted(final OrderSearchCriteria criteria, final OrderCursor after) {
+        List<Criteria> filters = new ArrayList<>();
+        if (criteria.email() != null) {
+            filters.add(Criteria.where(EMAIL).is(criteria.email()));
+        }
+        if (criteria.paid() != null) {
+            filters.add(Criteria.where(IS_PAID).is(criteria.paid()));
+        }
+        if (criteria.category() != null) {
+            filters.add(Criteria.where(CATEGORIES).is(criteria.category()));
+        }
+        if (criteria.from() != null) {
+            filters.add(Criteria.where(INSERT_DATE_TIME).gte(criteria.from()));
+        }
+        if (criteria.to() != null) {
+            filters.add(Criteria.where(INSERT_DATE_TIME).lt(criteria.to()));
+        }
+        if (after != null) {
+            filters.add(new Criteria().orOperator(
+                    Criteria.where(INSERT_DATE_TIME).lt(after.insertDateTime()),
+                    Criteria.where(INSERT_DATE_TIME).is(after.insertDateTime()).and(ID).lt(after.orderId())));
+        }
+        Query query = filters.isEmpty() ? new Query() : new Query(new Criteria().andOperator(filters));
+        return query.with(Sort.by(Sort.Direction.DESC, INSERT_DATE_TIME, ID));
+    }
+}
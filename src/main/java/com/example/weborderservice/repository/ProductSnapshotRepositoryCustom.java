@@ -0,0 +1,10 @@
+package com.example.weborderservice.repository;
+
+import com.example.weborderservice.model.ProductSnapshot;
+
+import java.util.Collection;
+
+public interface ProductSnapshotRepositoryCustom {
+
+    void insertMissing(Collection<ProductSnapshot> snapshots);
+}
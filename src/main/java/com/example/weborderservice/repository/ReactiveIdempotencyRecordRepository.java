@@ -0,0 +1,8 @@
+package com.example.weborderservice.repository;
+
+import com.example.weborderservice.model.IdempotencyRecord;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+public interface ReactiveIdempotencyRecordRepository extends ReactiveMongoRepository<IdempotencyRecord, String>,
+        ReactiveIdempotencyRecordRepositoryCustom {
+}
@@ -0,0 +1,15 @@
+package com.example.weborderservice.repository;
+
+import com.example.weborderservice.model.IdempotencyRecord;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+public interface ReactiveIdempotencyRecordRepositoryCustom {
+
+    Mono<Boolean> insertIfAbsent(IdempotencyRecord record);
+
+    Mono<Boolean> replaceClaim(IdempotencyRecord expected, IdempotencyRecord replacement);
+
+    Mono<Long> release(String key, UUID orderId);
+}
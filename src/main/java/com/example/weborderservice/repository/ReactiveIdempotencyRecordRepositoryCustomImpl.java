@@ -0,0 +1,46 @@
+package com.example.weborderservice.repository;
+
+import com.example.weborderservice.model.IdempotencyRecord;
+import com.mongodb.client.result.DeleteResult;
+import lombok.AllArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+@AllArgsConstructor
+public class ReactiveIdempotencyRecordRepositoryCustomImpl implements ReactiveIdempotencyRecordRepositoryCustom {
+
+    private static final String ID = "_id";
+    private static final String ORDER_ID = "orderId";
+    private static final String CREATED_AT = "createdAt";
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Override
+    public Mono<Boolean> insertIfAbsent(final IdempotencyRecord record) {
+        return mongoTemplate.insert(record)
+                .thenReturn(true)
+                .onErrorReturn(DuplicateKeyException.class, false);
+    }
+
+    @Override
+    public Mono<Boolean> replaceClaim(final IdempotencyRecord expected, final IdempotencyRecord replacement) {
+        Query claim = Query.query(Criteria.where(ID).is(expected.getKey()).and(ORDER_ID).is(expected.getOrderId()));
+        Update update = new Update()
+                .set(ORDER_ID, replacement.getOrderId())
+                .set(CREATED_AT, replacement.getCreatedAt());
+        return mongoTemplate.updateFirst(claim, update, IdempotencyRecord.class)
+                .map(result -> result.getModifiedCount() == 1);
+    }
+
+    @Override
+    public Mono<Long> release(final String key, final UUID orderId) {
+        return mongoTemplate.remove(Query.query(Criteria.where(ID).is(key).and(ORDER_ID).is(orderId)), IdempotencyRecord.class)
+                .map(DeleteResult::getDeletedCount);
+    }
+}
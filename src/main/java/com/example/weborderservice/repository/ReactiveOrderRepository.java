@@ -0,0 +1,7 @@
+package com.example.weborderservice.repository;
+
+import com.example.weborderservice.model.Order;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+public interface ReactiveOrderRepository extends ReactiveMongoRepository<Order, String>, ReactiveOrderRepositoryCustom {
+}
@@ -0,0 +1,33 @@
+package com.example.weborderservice.repository;
+
+import com.example.weborderservice.model.Order;
+import com.example.weborderservice.model.OrderCursor;
+import com.example.weborderservice.model.OrderSearchCriteria;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public interface ReactiveOrderRepositoryCustom {
+
+    Mono<Order> findOrderByOrderId(UUID orderId);
+
+    Mono<Long> deleteOrderByOrderId(UUID orderId);
+
+    Mono<Long> deleteOrdersByOrderIdIn(Collection<UUID> orderIds);
+
+    Mono<Map<UUID, Boolean>> findPaidStates(Collection<UUID> orderIds);
+
+    Mono<BulkInsertResult> insertUnordered(List<Order> orders);
+
+    Mono<Order> markPaid(UUID orderId);
+
+    Mono<Order> findOrderFields(UUID orderId, Collection<String> fields);
+
+    Flux<Order> search(OrderSearchCriteria criteria, OrderCursor after, int limit);
+
+    Flux<Order> streamOrders(OrderSearchCriteria criteria, int batchSize);
+}
@@ -0,0 +1,107 @@
+package com.example.weborderservice.repository;
+
+import com.example.weborderservice.config.MongoEncodingConfig;
+import com.example.weborderservice.model.Order;
+import com.example.weborderservice.model.OrderCursor;
+import com.example.weborderservice.model.OrderSearchCriteria;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.client.result.DeleteResult;
+import lombok.AllArgsConstructor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@AllArgsConstructor
+public class ReactiveOrderRepositoryCustomImpl implements ReactiveOrderRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final MongoEncodingConfig encodingConfig;
+
+    @Override
+    public Mono<Order> findOrderByOrderId(final UUID orderId) {
+        return mongoTemplate.findOne(Query.query(idIs(orderId)), Order.class);
+    }
+
+    @Override
+    public Mono<Long> deleteOrderByOrderId(final UUID orderId) {
+        return mongoTemplate.remove(Query.query(idIs(orderId)), Order.class).map(DeleteResult::getDeletedCount);
+    }
+
+    @Override
+    public Mono<Long> deleteOrdersByOrderIdIn(final Collection<UUID> orderIds) {
+        return mongoTemplate.remove(Query.query(LegacyUuids.idIn(orderIds, encodingConfig.isLegacyReads())), Order.class)
+                .map(DeleteResult::getDeletedCount);
+    }
+
+    @Override
+    public Mono<Map<UUID, Boolean>> findPaidStates(final Collection<UUID> orderIds) {
+        if (orderIds.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        Query query = Query.query(LegacyUuids.idIn(orderIds, encodingConfig.isLegacyReads()));
+        query.fields().include("_id", "isPaid");
+        return mongoTemplate.find(query, Order.class)
+                .collect(Collectors.toMap(Order::getOrderId, Order::isPaid, (first, second) -> first || second));
+    }
+
+    @Override
+    public Mono<BulkInsertResult> insertUnordered(final List<Order> orders) {
+        if (orders.isEmpty()) {
+            return Mono.just(new BulkInsertResult(0, List.of()));
+        }
+        return mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class)
+                .insert(orders)
+                .execute()
+                .map(result -> new BulkInsertResult(result.getInsertedCount(), List.of()))
+                // unlike the blocking template, write errors arrive translated (e.g. DuplicateKeyException) around the driver exception
+                .onErrorResume(e -> e.getCause() instanceof MongoBulkWriteException, e -> {
+                    MongoBulkWriteException bulkWriteException = (MongoBulkWriteException) e.getCause();
+                    List<BulkInsertResult.Failure> failures = bulkWriteException.getWriteErrors().stream()
+                            .map(error -> new BulkInsertResult.Failure(error.getIndex(), error.getMessage()))
+                            .toList();
+                    return Mono.just(new BulkInsertResult(bulkWriteException.getWriteResult().getInsertedCount(), failures));
+                });
+    }
+
+    @Override
+    public Mono<Order> markPaid(final UUID orderId) {
+        return mongoTemplate.findAndModify(
+                Query.query(idIs(orderId).and("isPaid").is(false)),
+                Update.update("isPaid", true).set("paidAt", LocalDateTime.now()),
+                FindAndModifyOptions.options().returnNew(true),
+                Order.class);
+    }
+
+    @Override
+    public Mono<Order> findOrderFields(final UUID orderId, final Collection<String> fields) {
+        Query query = Query.query(idIs(orderId));
+        fields.forEach(query.fields()::include);
+        return mongoTemplate.findOne(query, Order.class);
+    }
+
+    @Override
+    public Flux<Order> search(final OrderSearchCriteria criteria, final OrderCursor after, final int limit) {
+        return mongoTemplate.find(OrderSearchQuery.build(criteria, after, limit), Order.class);
+    }
+
+    @Override
+    public Flux<Order> streamOrders(final OrderSearchCriteria criteria, final int batchSize) {
+        return mongoTemplate.find(OrderSearchQuery.sorted(criteria, null).cursorBatchSize(batchSize), Order.class);
+    }
+
+    private Criteria idIs(final UUID orderId) {
+        return LegacyUuids.idIs(orderId, encodingConfig.isLegacyReads());
+    }
+}
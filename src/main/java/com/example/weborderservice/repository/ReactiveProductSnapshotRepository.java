@@ -0,0 +1,7 @@
+package com.example.weborderservice.repository;
+
+import com.example.weborderservice.model.ProductSnapshot;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+public interface ReactiveProductSnapshotRepository extends ReactiveMongoRepository<ProductSnapshot, String> {
+}
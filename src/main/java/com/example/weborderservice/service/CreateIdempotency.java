@@ -0,0 +1,194 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.config.IdempotencyConfig;
+import com.example.weborderservice.model.IdempotencyRecord;
+import com.example.weborderservice.model.Order;
+import com.example.weborderservice.repository.IdempotencyRecordRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Makes order creation idempotent per Idempotency-Key header or, when enabled, per cart. The first request claims the
+ * key in Mongo together with the id of the order it is about to create; retries get that order back without calling
+ * the shopping service. Completed keys are also kept in a small local cache so hot retries skip Mongo.
+ */
+@Component
+public class CreateIdempotency {
+
+    private static final String CACHE_NAME = "createIdempotencyKeys";
+    private static final String HEADER_KEY_PREFIX = "key:";
+    private static final String CART_KEY_PREFIX = "cart:";
+
+    private final IdempotencyRecordRepository repository;
+    private final IdempotencyConfig config;
+    private final Clock clock;
+    private final Cache<String, IdempotencyRecord> completedKeys;
+    private final Counter replays;
+    private volatile boolean indexesEnsured;
+
+    @Autowired
+    public CreateIdempotency(IdempotencyRecordRepository repository, IdempotencyConfig config, MeterRegistry meterRegistry) {
+        this(repository, config, meterRegistry, Clock.systemDefaultZone());
+    }
+
+    CreateIdempotency(IdempotencyRecordRepository repository, IdempotencyConfig config, MeterRegistry meterRegistry, Clock clock) {
+        this.repository = repository;
+        this.config = config;
+        this.clock = clock;
+        this.completedKeys = Caffeine.newBuilder()
+                .maximumSize(config.getCreateCacheMaxSize())
+                .expireAfterWrite(config.getCreateCacheTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, completedKeys, CACHE_NAME);
+        this.replays = Counter.builder("orders.create.replayed")
+                .description("Order creations answered with the order created by an earlier request with the same key")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Claims the key of a create request, or returns the order an earlier request with the same key created.
+     */
+    public Claim claim(final UUID cartId, final String idempotencyKey, final Function<UUID, Optional<Order>> findOrder) {
+        String key = key(cartId, idempotencyKey);
+        if (key == null) {
+            return new Claim(null, cartId, UUID.randomUUID(), null);
+        }
+        IdempotencyRecord completed = completedKeys.getIfPresent(key);
+        if (completed != null) {
+            checkCart(completed, cartId);
+            Optional<Order> order = findOrder.apply(completed.getOrderId());
+            if (order.isPresent()) {
+                return replay(key, cartId, order.get());
+            }
+            completedKeys.invalidate(key);
+        }
+
+        ensureIndexes();
+        IdempotencyRecord claim = newClaim(key, cartId);
+        if (repository.insertIfAbsent(claim)) {
+            return claimed(claim);
+        }
+        Optional<IdempotencyRecord> existing = repository.findById(key);
+        if (existing.isEmpty()) {
+            // released by a failed request since our insert
+            if (repository.insertIfAbsent(claim)) {
+                return claimed(claim);
+            }
+            throw inProgress();
+        }
+        checkCart(existing.get(), cartId);
+        Optional<Order> order = findOrder.apply(existing.get().getOrderId());
+        if (order.isPresent()) {
+            completedKeys.put(key, existing.get());
+            return replay(key, cartId, order.get());
+        }
+        if (isAbandoned(existing.get(), claim) && repository.replaceClaim(existing.get(), claim)) {
+            return claimed(claim);
+        }
+        throw inProgress();
+    }
+
+    public void complete(final Claim claim) {
+        if (claim.key() != null) {
+            completedKeys.put(claim.key(), new IdempotencyRecord(claim.key(), claim.cartId(), claim.orderId(), LocalDateTime.now(clock)));
+        }
+    }
+
+    /**
+     * Frees the key of a request that failed before storing its order, so a retry can create it.
+     */
+    public void release(final Claim claim) {
+        if (claim.key() != null) {
+            repository.release(claim.key(), claim.orderId());
+        }
+    }
+
+    String key(final UUID cartId, final String idempotencyKey) {
+        if (idempotencyKey != null) {
+            if (idempotencyKey.isBlank() || idempotencyKey.length() > config.getMaxKeyLength()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Idempotency key must be between 1 and " + config.getMaxKeyLength() + " characters");
+            }
+            return HEADER_KEY_PREFIX + idempotencyKey;
+        }
+        return config.isCartIdAsKey() ? CART_KEY_PREFIX + cartId : null;
+    }
+
+    IdempotencyRecord completedRecord(final String key) {
+        return completedKeys.getIfPresent(key);
+    }
+
+    void rememberCompleted(final IdempotencyRecord record) {
+        completedKeys.put(record.getKey(), record);
+    }
+
+    void forgetCompleted(final String key) {
+        completedKeys.invalidate(key);
+    }
+
+    IdempotencyRecord newClaim(final String key, final UUID cartId) {
+        return new IdempotencyRecord(key, cartId, UUID.randomUUID(), LocalDateTime.now(clock));
+    }
+
+    /**
+     * Whether the order of an existing claim had time enough to appear, so {@code claim} may take the key over.
+     */
+    boolean isAbandoned(final IdempotencyRecord existing, final IdempotencyRecord claim) {
+        return existing.getCreatedAt().isBefore(claim.getCreatedAt().minus(config.getCreateClaimTimeout()));
+    }
+
+    static Claim claimed(final IdempotencyRecord claim) {
+        return new Claim(claim.getKey(), claim.getCartId(), claim.getOrderId(), null);
+    }
+
+    Claim replay(final String key, final UUID cartId, final Order order) {
+        replays.increment();
+        return new Claim(key, cartId, order.getOrderId(), order);
+    }
+
+    static void checkCart(final IdempotencyRecord record, final UUID cartId) {
+        if (!record.getCartId().equals(cartId)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency key was already used for another cart");
+        }
+    }
+
+    static ResponseStatusException inProgress() {
+        return new ResponseStatusException(HttpStatus.CONFLICT, "An order for this idempotency key is still being created");
+    }
+
+    boolean indexesEnsured() {
+        return indexesEnsured;
+    }
+
+    void ensureIndexes() {
+        if (indexesEnsured) {
+            return;
+        }
+        repository.ensureIndexes(config.getCreateKeyRetention());
+        indexesEnsured = true;
+    }
+
+    /**
+     * The order id to create under, or the order to return when {@code replayedOrder} is set.
+     */
+    public record Claim(String key, UUID cartId, UUID orderId, Order replayedOrder) {
+
+        public boolean isReplay() {
+            return replayedOrder != null;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.config.OutboxConfig;
+import com.example.weborderservice.model.OrderEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(prefix = "internal.outbox", name = "file-sink-path")
+@Slf4j
+public class FileOrderEventSink implements OrderEventSink {
+
+    private final Path path;
+    private final ObjectWriter eventWriter;
+
+    @Autowired
+    public FileOrderEventSink(OutboxConfig config, ObjectMapper objectMapper) {
+        this(config.getFileSinkPath(), objectMapper);
+    }
+
+    FileOrderEventSink(Path path, ObjectMapper objectMapper) {
+        this.path = path;
+        this.eventWriter = objectMapper.writerFor(OrderEvent.class);
+        log.info("Appending published order events to {}", path);
+    }
+
+    @Override
+    public synchronized void publish(final List<OrderEvent> events) {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (OrderEvent event : events) {
+                writer.write(eventWriter.writeValueAsString(event));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append order events to " + path, e);
+        }
+    }
+}
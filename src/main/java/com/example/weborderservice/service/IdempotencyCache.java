@@ -0,0 +1,46 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.config.IdempotencyConfig;
+import com.example.weborderservice.model.Order;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Component
+public class IdempotencyCache {
+
+    private static final String CACHE_NAME = "idempotencyKeys";
+
+    private final Cache<String, Order> cache;
+
+    public IdempotencyCache(IdempotencyConfig config, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaxSize())
+                .expireAfterWrite(config.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public Optional<Order> get(final String idempotencyKey, final UUID orderId) {
+        Order order = cache.getIfPresent(idempotencyKey);
+        if (order == null) {
+            return Optional.empty();
+        }
+        if (!order.getOrderId().equals(orderId)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency key was already used for another order");
+        }
+        return Optional.of(order);
+    }
+
+    public void put(final String idempotencyKey, final Order order) {
+        cache.put(idempotencyKey, order);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.client.ShoppingCartResult;
+import com.example.weborderservice.model.CartOrderRequest;
+import com.example.weborderservice.model.CartOrderResult;
+import com.example.weborderservice.model.CreateOrdersResult;
+import com.example.weborderservice.model.Order;
+import com.example.weborderservice.model.ProductSnapshot;
+import com.example.weborderservice.repository.BulkInsertResult;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Orders of one batch create. Entries whose cart could not be fetched are answered straight away; the rest share one
+ * snapshot write and one unordered bulk insert, so a failing entry never takes the others down with it.
+ */
+class OrderBatch {
+
+    private static final String UNEXPECTED_ERROR = "Unexpected error occurred";
+
+    private final List<CartOrderRequest> requests;
+    private final ProductSnapshotService productSnapshotService;
+    private final CartOrderResult[] results;
+    private final List<Order> orders = new ArrayList<>();
+    private final List<Integer> orderIndexes = new ArrayList<>();
+    private final Map<String, ProductSnapshot> snapshots = new LinkedHashMap<>();
+
+    OrderBatch(final List<CartOrderRequest> requests, final ProductSnapshotService productSnapshotService) {
+        this.requests = requests;
+        this.productSnapshotService = productSnapshotService;
+        this.results = new CartOrderResult[requests.size()];
+    }
+
+    Set<UUID> cartIds() {
+        return requests.stream().map(CartOrderRequest::cartId).collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    void addAll(final Map<UUID, ShoppingCartResult> carts) {
+        for (int i = 0; i < requests.size(); i++) {
+            CartOrderRequest request = requests.get(i);
+            ShoppingCartResult cart = carts.get(request.cartId());
+            if (cart == null || cart.error() != null || cart.cart() == null) {
+                results[i] = CartOrderResult.failed(request.cartId(), toResponseStatusException(cart == null ? null : cart.error()));
+                continue;
+            }
+            SnapshottedProducts snapshottedProducts = productSnapshotService.snapshot(cart.cart().getProducts());
+            snapshottedProducts.snapshots().forEach(snapshot -> snapshots.putIfAbsent(snapshot.getId(), snapshot));
+            orders.add(OrderService.newOrder(snapshottedProducts.lines(), request.customerInfo(), request.deliveryInfo()));
+            orderIndexes.add(i);
+        }
+    }
+
+    Collection<ProductSnapshot> snapshots() {
+        return snapshots.values();
+    }
+
+    List<Order> orders() {
+        return orders;
+    }
+
+    /**
+     * Records the outcome of inserting {@link #orders()} and returns the orders that were stored.
+     */
+    List<Order> inserted(final BulkInsertResult result) {
+        Map<Integer, String> failures = result.failures().stream()
+                .collect(Collectors.toMap(BulkInsertResult.Failure::index, BulkInsertResult.Failure::message, (first, second) -> first));
+        List<Order> inserted = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            int index = orderIndexes.get(i);
+            UUID cartId = requests.get(index).cartId();
+            String failure = failures.get(i);
+            if (failure == null) {
+                results[index] = CartOrderResult.created(cartId, orders.get(i));
+                inserted.add(orders.get(i));
+            } else {
+                results[index] = CartOrderResult.failed(cartId, new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, failure));
+            }
+        }
+        return inserted;
+    }
+
+    CreateOrdersResult result() {
+        List<CartOrderResult> entries = List.of(results);
+        int created = (int) entries.stream().filter(entry -> entry.order() != null).count();
+        return new CreateOrdersResult(requests.size(), created, entries);
+    }
+
+    private static ResponseStatusException toResponseStatusException(final Throwable error) {
+        return error instanceof ResponseStatusException e
+                ? e
+                : new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, UNEXPECTED_ERROR, error);
+    }
+}
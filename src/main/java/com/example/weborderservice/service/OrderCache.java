@@ -0,0 +1,56 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.config.OrderCacheConfig;
+import com.example.weborderservice.model.Order;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+@Component
+public class OrderCache {
+
+    private static final String CACHE_NAME = "orders";
+
+    private final Cache<UUID, Order> cache;
+
+    public OrderCache(OrderCacheConfig config, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaxSize())
+                .expireAfterWrite(config.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Loads a missing order under the entry's lock: a put or evict of the same order waits for the load and then wins,
+     * so a stale read never replaces the order that a finalize stored meanwhile.
+     */
+    public Optional<Order> get(final UUID orderId, final Function<UUID, Optional<Order>> loader) {
+        return Optional.ofNullable(cache.get(orderId, id -> loader.apply(id).orElse(null)));
+    }
+
+    public Optional<Order> getIfPresent(final UUID orderId) {
+        return Optional.ofNullable(cache.getIfPresent(orderId));
+    }
+
+    public void put(final Order order) {
+        cache.put(order.getOrderId(), order);
+    }
+
+    public void evict(final UUID orderId) {
+        cache.invalidate(orderId);
+    }
+
+    public void evictUnpaidInsertedBefore(final LocalDateTime time) {
+        cache.asMap().values().removeIf(order -> !order.isPaid()
+                && (order.getInsertDateTime() == null || order.getInsertDateTime().isBefore(time)));
+    }
+}
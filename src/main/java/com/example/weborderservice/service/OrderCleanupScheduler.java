@@ -1,7 +1,6 @@
 package com.example.weborderservice.service;
 
 import lombok.AllArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
@@ -9,14 +8,18 @@ import org.springframework.stereotype.Component;
 @EnableScheduling
 @Component
 @AllArgsConstructor
-@Slf4j
 public class OrderCleanupScheduler {
 
-    private final OrderService orderService;
+    private final OrderExpiryService orderExpiryService;
+    private final OrderEncodingMigration orderEncodingMigration;
 
-    @Scheduled(cron = "0 * * * * *")
+    @Scheduled(cron = "${internal.order-expiry.cron:0 * * * * *}")
     public void cleanUpOldOrders() {
-        orderService.deleteOldOrders();
-        log.info("Remove old orders");
+        orderExpiryService.expireUnpaidOrders();
+    }
+
+    @Scheduled(fixedDelayString = "${internal.mongo-encoding.migration-interval:PT1M}")
+    public void migrateLegacyOrders() {
+        orderEncodingMigration.migrateLegacyOrders();
     }
 }
@@ -0,0 +1,80 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.config.MongoEncodingConfig;
+import com.example.weborderservice.model.Order;
+import com.example.weborderservice.model.OrderLine;
+import com.example.weborderservice.repository.LegacyOrder;
+import com.example.weborderservice.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Rewrites orders stored before the compact encoding: legacy or string UUIDs, string decimals and, for the oldest
+ * documents, embedded products instead of lines. Runs while legacy reads are enabled; once a run finds nothing left
+ * to migrate it records that in Mongo and turns legacy reads off, so no instance scans or fans out id lookups again.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class OrderEncodingMigration {
+
+    private final OrderRepository orderRepository;
+    private final ProductSnapshotService productSnapshotService;
+    private final MongoEncodingConfig config;
+
+    public long migrateLegacyOrders() {
+        if (!config.isLegacyReads()) {
+            return 0;
+        }
+        if (orderRepository.isLegacyMigrationFinished()) {
+            stopLegacyReads();
+            return 0;
+        }
+        long migrated = 0;
+        boolean finished = false;
+        for (int batch = 0; batch < config.getMigrationMaxBatchesPerRun(); batch++) {
+            List<LegacyOrder> legacyOrders = orderRepository.findLegacyOrders(config.getMigrationBatchSize());
+            int replaced = 0;
+            for (LegacyOrder legacyOrder : legacyOrders) {
+                if (orderRepository.replaceLegacyOrder(legacyOrder, migrate(legacyOrder.order()))) {
+                    replaced++;
+                }
+            }
+            migrated += replaced;
+            if (legacyOrders.size() < config.getMigrationBatchSize()) {
+                // an order changed while it was migrated is still legacy; the next run picks it up
+                finished = replaced == legacyOrders.size();
+                break;
+            }
+        }
+        if (migrated > 0 || finished) {
+            log.info("Migrated {} orders to the compact encoding{}", migrated, finished ? ", none left" : "");
+        }
+        if (finished) {
+            orderRepository.markLegacyMigrationFinished();
+            stopLegacyReads();
+        }
+        return migrated;
+    }
+
+    /**
+     * Every order now uses the standard UUID encoding, so id lookups match that alone and no instance scans again.
+     */
+    private void stopLegacyReads() {
+        config.setLegacyReads(false);
+        log.info("Compact encoding migration is finished; legacy reads can be switched off with "
+                + "internal.mongo-encoding.legacy-reads=false");
+    }
+
+    Order migrate(final Order order) {
+        List<OrderLine> lines = order.getLines() != null ? order.getLines() : productSnapshotService.store(order.getProducts());
+        return order.toBuilder()
+                .products(null)
+                .lines(lines)
+                .total(OrderLine.total(lines))
+                .build();
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.model.OrderEvent;
+
+import java.util.List;
+
+/**
+ * Receives every batch of events the outbox relay publishes, in sequence order, before the batch is marked as
+ * published. A failing sink makes the relay retry the batch, so sinks see events at least once.
+ */
+public interface OrderEventSink {
+
+    void publish(List<OrderEvent> events);
+}
@@ -0,0 +1,120 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.config.OutboxConfig;
+import com.example.weborderservice.model.OrderEvent;
+import com.example.weborderservice.repository.OrderEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live feed of published order events for stream subscribers. Each instance polls the stored events itself, so its
+ * subscribers follow the feed whichever instance holds the relay lease. Only events stored as published reach the
+ * feed, so a subscriber that replays stored events and then follows the live feed sees every event.
+ */
+@Component
+public class OrderEventStream {
+
+    private final OrderEventRepository eventRepository;
+    private final OutboxConfig config;
+    private final Clock clock;
+    private final Sinks.Many<OrderEvent> live = Sinks.many().multicast().directBestEffort();
+    /**
+     * Sequence of the last event passed to the live feed; null until the first poll.
+     */
+    private Long lastSequence;
+    private LocalDateTime gapSince;
+
+    @Autowired
+    public OrderEventStream(OrderEventRepository eventRepository, OutboxConfig config) {
+        this(eventRepository, config, Clock.systemDefaultZone());
+    }
+
+    OrderEventStream(OrderEventRepository eventRepository, OutboxConfig config, Clock clock) {
+        this.eventRepository = eventRepository;
+        this.config = config;
+        this.clock = clock;
+    }
+
+    /**
+     * Passes events published since the previous poll to the live feed in sequence order. The first poll only
+     * records the latest sequence. A missing sequence holds back later events until it shows up or the gap timeout
+     * passes.
+     */
+    public synchronized void poll() {
+        if (lastSequence == null) {
+            lastSequence = eventRepository.findLastPublishedSequence();
+            return;
+        }
+        int pageSize = config.getStreamReplayBatchSize();
+        List<OrderEvent> page;
+        do {
+            page = eventRepository.findPublishedAfter(lastSequence, pageSize);
+            for (OrderEvent event : page) {
+                if (event.getSequence() != lastSequence + 1 && !gapTimedOut()) {
+                    return;
+                }
+                gapSince = null;
+                lastSequence = event.getSequence();
+                live.tryEmitNext(event);
+            }
+        } while (page.size() == pageSize);
+    }
+
+    /**
+     * Events with a sequence above {@code after}, followed by live events; only live events when {@code after} is
+     * null. A subscriber that falls more than the configured buffer behind gets an error and should resume from its
+     * last sequence.
+     */
+    public Flux<OrderEvent> events(final Long after) {
+        if (after == null) {
+            return live.asFlux().onBackpressureBuffer(config.getStreamBufferSize());
+        }
+        return Flux.defer(() -> {
+            Sinks.Many<OrderEvent> buffer = Sinks.many().unicast()
+                    .onBackpressureBuffer(new ArrayBlockingQueue<>(config.getStreamBufferSize()));
+            Disposable liveSubscription = live.asFlux().subscribe(event -> {
+                if (buffer.tryEmitNext(event).isFailure()) {
+                    buffer.tryEmitError(new IllegalStateException("Order event stream subscriber fell behind"));
+                }
+            });
+            AtomicLong lastSequence = new AtomicLong(after);
+            return Flux.concat(replay(after), buffer.asFlux())
+                    .filter(event -> event.getSequence() > lastSequence.get())
+                    .doOnNext(event -> lastSequence.set(event.getSequence()))
+                    .doFinally(signal -> liveSubscription.dispose());
+        });
+    }
+
+    private boolean gapTimedOut() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        if (gapSince == null) {
+            gapSince = now;
+        }
+        return !now.isBefore(gapSince.plus(config.getStreamGapTimeout()));
+    }
+
+    private Flux<OrderEvent> replay(final long after) {
+        int pageSize = config.getStreamReplayBatchSize();
+        return findPublishedAfter(after, pageSize)
+                .expand(page -> page.size() < pageSize
+                        ? Mono.empty()
+                        : findPublishedAfter(page.get(page.size() - 1).getSequence(), pageSize))
+                .concatMapIterable(page -> page);
+    }
+
+    private Mono<List<OrderEvent>> findPublishedAfter(final long after, final int limit) {
+        return Mono.fromCallable(() -> eventRepository.findPublishedAfter(after, limit))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.config.OrderExpiryConfig;
+import com.example.weborderservice.model.OrderEvent;
+import com.example.weborderservice.model.OrderEventType;
+import com.example.weborderservice.repository.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@Slf4j
+public class OrderExpiryService {
+
+    private final OrderRepository orderRepository;
+    private final OrderCache orderCache;
+    private final OrderOutbox orderOutbox;
+    private final OrderExpiryConfig config;
+    private final Clock clock;
+    private final Timer expiryTimer;
+    private final Counter expiredOrders;
+    private final DistributionSummary expiredPerBatch;
+    private final OrderIndexes orderIndexes;
+
+    @Autowired
+    public OrderExpiryService(OrderRepository orderRepository, OrderCache orderCache, OrderOutbox orderOutbox,
+                              OrderIndexes orderIndexes, OrderExpiryConfig config, MeterRegistry meterRegistry) {
+        this(orderRepository, orderCache, orderOutbox, orderIndexes, config, meterRegistry, Clock.systemDefaultZone());
+    }
+
+    OrderExpiryService(OrderRepository orderRepository, OrderCache orderCache, OrderOutbox orderOutbox,
+                       OrderIndexes orderIndexes, OrderExpiryConfig config, MeterRegistry meterRegistry, Clock clock) {
+        this.orderRepository = orderRepository;
+        this.orderIndexes = orderIndexes;
+        this.orderCache = orderCache;
+        this.orderOutbox = orderOutbox;
+        this.config = config;
+        this.clock = clock;
+        this.expiryTimer = Timer.builder("orders.expiry")
+                .description("Duration of expiry runs for unpaid orders")
+                .tag("mode", config.getMode().name())
+                .register(meterRegistry);
+        this.expiredOrders = Counter.builder("orders.expired")
+                .description("Unpaid orders removed by expiry sweeps")
+                .register(meterRegistry);
+        this.expiredPerBatch = DistributionSummary.builder("orders.expiry.batch")
+                .description("Unpaid orders removed by a single expiry delete")
+                .baseUnit("orders")
+                .register(meterRegistry);
+    }
+
+    public long expireUnpaidOrders() {
+        long startNanos = System.nanoTime();
+        // the TTL index must exist before relying on it; a no-op once created at startup
+        orderIndexes.ensureIndexes();
+        LocalDateTime expiredBefore = LocalDateTime.now(clock).minus(config.getRetention());
+        long removed = config.getMode() == OrderExpiryConfig.Mode.SWEEP ? sweep(expiredBefore) : 0;
+        orderCache.evictUnpaidInsertedBefore(expiredBefore);
+
+        long elapsedNanos = System.nanoTime() - startNanos;
+        expiryTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        expiredOrders.increment(removed);
+        log.info("Expired {} unpaid orders inserted before {} in {} ms ({})", removed, expiredBefore,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), config.getMode());
+        return removed;
+    }
+
+    private long sweep(final LocalDateTime expiredBefore) {
+        long removed = 0;
+        for (int batch = 0; batch < config.getMaxBatchesPerRun(); batch++) {
+            List<UUID> orderIds = orderRepository.findUnpaidInsertedBefore(expiredBefore, config.getBatchSize());
+            List<OrderEvent> events = orderOutbox.prepare(OrderEventType.EXPIRED, orderIds);
+            long deleted = orderRepository.deleteUnpaidOrders(orderIds);
+            // orders paid in between stay; the relay drops their events after checking
+            if (deleted == orderIds.size()) {
+                orderOutbox.commit(events);
+            }
+            removed += deleted;
+            expiredPerBatch.record(deleted);
+            if (orderIds.size() < config.getBatchSize() || !pauseBetweenBatches()) {
+                break;
+            }
+        }
+        return removed;
+    }
+
+    private boolean pauseBetweenBatches() {
+        try {
+            Thread.sleep(config.getPauseBetweenBatches().toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.config.ExportConfig;
+import com.example.weborderservice.model.Order;
+import com.example.weborderservice.model.OrderSearchCriteria;
+import com.example.weborderservice.repository.OrderRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams orders from a Mongo cursor into NDJSON. Only one cursor batch and the output buffer are held in memory,
+ * however many orders match.
+ */
+@Component
+@Slf4j
+public class OrderExporter {
+
+    private final OrderRepository orderRepository;
+    private final ObjectWriter orderWriter;
+    private final ObjectMapper objectMapper;
+    private final ExportConfig config;
+
+    public OrderExporter(OrderRepository orderRepository, ObjectMapper objectMapper, ExportConfig config) {
+        this.orderRepository = orderRepository;
+        this.objectMapper = objectMapper;
+        this.orderWriter = objectMapper.writerFor(Order.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.config = config;
+    }
+
+    public long exportOrders(final OrderSearchCriteria criteria, final OutputStream outputStream, final boolean gzip) throws IOException {
+        long startNanos = System.nanoTime();
+        long exported = 0;
+        OutputStream target = gzip
+                ? new GZIPOutputStream(outputStream, config.getOutputBufferSize())
+                : new BufferedOutputStream(outputStream, config.getOutputBufferSize());
+        try (Stream<Order> orders = orderRepository.streamOrders(criteria, config.getCursorBatchSize());
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(target)) {
+            Iterator<Order> iterator = orders.iterator();
+            while (iterator.hasNext()) {
+                orderWriter.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+                exported++;
+            }
+        }
+        log.info("Exported {} orders in {} ms", exported, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        return exported;
+    }
+}
@@ -0,0 +1,348 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.config.UploadConfig;
+import com.example.weborderservice.model.Order;
+import com.example.weborderservice.model.OrderLine;
+import com.example.weborderservice.model.ProductSnapshot;
+import com.example.weborderservice.model.UploadSummary;
+import com.example.weborderservice.repository.BulkInsertResult;
+import com.example.weborderservice.repository.OrderRepository;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+@Component
+@Slf4j
+public class OrderImporter {
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+    private static final long QUEUE_POLL_MILLIS = 100;
+    static final String MALFORMED_ORDER = "Malformed order: ";
+    static final String NULL_ORDER = "Order must not be null";
+
+    private final OrderRepository orderRepository;
+    private final ProductSnapshotService productSnapshotService;
+    private final OrderRollupService orderRollupService;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader orderReader;
+    private final Validator validator;
+    private final UploadConfig config;
+    private final OrderMetrics orderMetrics;
+
+    public OrderImporter(OrderRepository orderRepository, ProductSnapshotService productSnapshotService,
+                         OrderRollupService orderRollupService, ObjectMapper objectMapper, Validator validator, UploadConfig config,
+                         OrderMetrics orderMetrics) {
+        this.orderRepository = orderRepository;
+        this.productSnapshotService = productSnapshotService;
+        this.orderRollupService = orderRollupService;
+        this.objectMapper = objectMapper;
+        this.orderReader = objectMapper.readerFor(Order.class);
+        this.validator = validator;
+        this.config = config;
+        this.orderMetrics = orderMetrics;
+    }
+
+    public UploadSummary importOrders(final InputStream inputStream, final UploadFormat format, final UploadProgress progress) throws IOException {
+        long startNanos = System.nanoTime();
+        Pipeline pipeline = new Pipeline(progress);
+
+        try (InputStream source = format.gzipped() ? new GZIPInputStream(inputStream, GZIP_BUFFER_SIZE) : inputStream) {
+            pipeline.start();
+            if (format.newlineDelimited()) {
+                readNewlineDelimited(source, pipeline);
+            } else {
+                readJsonArray(source, pipeline);
+            }
+            pipeline.finish();
+        } finally {
+            pipeline.shutdown();
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        log.info("Imported {} of {} orders in {} ms", progress.getPersisted(), progress.getParsed(), elapsedMillis);
+        return new UploadSummary(progress.getParsed(), progress.getPersisted(), progress.getRejected(),
+                progress.getRejections(), elapsedMillis);
+    }
+
+    private void readJsonArray(final InputStream inputStream, final Pipeline pipeline) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Expected a JSON array of orders");
+            }
+            long index = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unexpected end of orders file");
+                }
+                TokenBuffer tokens = new TokenBuffer(parser);
+                tokens.copyCurrentStructure(parser);
+                pipeline.submit(new RawOrder(index++, tokens, null));
+            }
+        }
+    }
+
+    private void readNewlineDelimited(final InputStream inputStream, final Pipeline pipeline) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        long index = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            long lineIndex = index++;
+            if (!line.isBlank()) {
+                pipeline.submit(new RawOrder(lineIndex, null, line));
+            }
+        }
+    }
+
+    private Order deserialize(final RawOrder rawOrder) throws IOException {
+        if (rawOrder.line() != null) {
+            return orderReader.readValue(rawOrder.line());
+        }
+        try (JsonParser parser = rawOrder.tokens().asParser()) {
+            return orderReader.readValue(parser);
+        }
+    }
+
+    private String validate(final Order order) {
+        return describe(validator.validate(order));
+    }
+
+    static String describe(final Set<ConstraintViolation<Order>> violations) {
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private void setOrderIdAndInsertDateTime(final Order order) {
+        order.setOrderId(UUID.randomUUID());
+        order.setInsertDateTime(LocalDateTime.now());
+    }
+
+    private List<ProductSnapshot> replaceProductsWithLines(final Order order) {
+        List<ProductSnapshot> snapshots = List.of();
+        if (order.getProducts() != null) {
+            SnapshottedProducts snapshottedProducts = productSnapshotService.snapshot(order.getProducts());
+            order.setLines(snapshottedProducts.lines());
+            order.setProducts(null);
+            snapshots = snapshottedProducts.snapshots();
+        }
+        order.setTotal(OrderLine.total(order.getLines()));
+        return snapshots;
+    }
+
+    private record RawOrder(long index, TokenBuffer tokens, String line) {
+    }
+
+    private record IndexedOrder(long index, Order order, List<ProductSnapshot> snapshots) {
+    }
+
+    private class Pipeline {
+
+        private final RawOrder endOfInput = new RawOrder(-1, null, null);
+        private final IndexedOrder endOfOrders = new IndexedOrder(-1, null, null);
+
+        private final UploadProgress progress;
+        private final int workers = config.getPipelineWorkers();
+        private final BlockingQueue<RawOrder> rawOrders = new ArrayBlockingQueue<>(config.getPipelineQueueCapacity());
+        private final BlockingQueue<IndexedOrder> validOrders = new ArrayBlockingQueue<>(config.getPipelineQueueCapacity());
+        private final AtomicInteger activeWorkers = new AtomicInteger(workers);
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final ExecutorService executor = Executors.newFixedThreadPool(workers + 1, new CustomizableThreadFactory("order-import-"));
+        private final List<Future<?>> stages = new ArrayList<>();
+
+        private Pipeline(UploadProgress progress) {
+            this.progress = progress;
+        }
+
+        private void start() {
+            for (int i = 0; i < workers; i++) {
+                stages.add(executor.submit(this::validateAndEnrich));
+            }
+            stages.add(executor.submit(this::write));
+        }
+
+        private void submit(final RawOrder rawOrder) throws IOException {
+            put(rawOrders, rawOrder);
+        }
+
+        private void finish() throws IOException {
+            for (int i = 0; i < workers; i++) {
+                put(rawOrders, endOfInput);
+            }
+            for (Future<?> stage : stages) {
+                try {
+                    stage.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Import interrupted", e);
+                } catch (ExecutionException e) {
+                    Throwable cause = failure.get() != null ? failure.get() : e.getCause();
+                    throw new IOException("Import failed: " + cause.getMessage(), cause);
+                }
+            }
+        }
+
+        private void shutdown() {
+            executor.shutdownNow();
+        }
+
+        private void validateAndEnrich() {
+            try {
+                RawOrder rawOrder;
+                while ((rawOrder = take(rawOrders)) != endOfInput) {
+                    Order order;
+                    try {
+                        order = deserialize(rawOrder);
+                    } catch (JsonProcessingException e) {
+                        progress.recordRejected(rawOrder.index(), MALFORMED_ORDER + e.getOriginalMessage());
+                        continue;
+                    }
+                    progress.recordParsed();
+                    if (order == null) {
+                        progress.recordRejected(rawOrder.index(), NULL_ORDER);
+                        continue;
+                    }
+                    String violations = validate(order);
+                    if (violations != null) {
+                        progress.recordRejected(rawOrder.index(), violations);
+                        continue;
+                    }
+                    setOrderIdAndInsertDateTime(order);
+                    List<ProductSnapshot> snapshots = replaceProductsWithLines(order);
+                    put(validOrders, new IndexedOrder(rawOrder.index(), order, snapshots));
+                }
+                if (activeWorkers.decrementAndGet() == 0) {
+                    put(validOrders, endOfOrders);
+                }
+            } catch (Exception e) {
+                fail(e);
+            }
+        }
+
+        private void write() {
+            List<Order> batch = new ArrayList<>(config.getBatchSize());
+            Map<String, ProductSnapshot> snapshots = new LinkedHashMap<>();
+            long[] indexes = new long[config.getBatchSize()];
+            try {
+                IndexedOrder indexedOrder;
+                while ((indexedOrder = take(validOrders)) != endOfOrders) {
+                    indexes[batch.size()] = indexedOrder.index();
+                    batch.add(indexedOrder.order());
+                    indexedOrder.snapshots().forEach(snapshot -> snapshots.putIfAbsent(snapshot.getId(), snapshot));
+                    if (batch.size() == indexes.length) {
+                        flush(batch, snapshots, indexes);
+                    }
+                }
+                flush(batch, snapshots, indexes);
+            } catch (Exception e) {
+                fail(e);
+            }
+        }
+
+        private void flush(final List<Order> batch, final Map<String, ProductSnapshot> snapshots, final long[] indexes) {
+            if (batch.isEmpty()) {
+                return;
+            }
+            productSnapshotService.save(snapshots.values());
+            snapshots.clear();
+            orderMetrics.recordUploadBatch(batch.size());
+            BulkInsertResult result = orderRepository.insertUnordered(batch);
+            progress.recordPersisted(result.insertedCount());
+            result.failures().forEach(failure -> progress.recordRejected(indexes[failure.index()], failure.message()));
+            recordPlaced(batch, result);
+            batch.clear();
+        }
+
+        private void recordPlaced(final List<Order> batch, final BulkInsertResult result) {
+            if (result.failures().isEmpty()) {
+                orderRollupService.recordPlaced(batch);
+                return;
+            }
+            Set<Integer> failedIndexes = result.failures().stream().map(BulkInsertResult.Failure::index).collect(Collectors.toSet());
+            List<Order> inserted = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                if (!failedIndexes.contains(i)) {
+                    inserted.add(batch.get(i));
+                }
+            }
+            orderRollupService.recordPlaced(inserted);
+        }
+
+        private void fail(final Exception e) {
+            failure.compareAndSet(null, e);
+            if (e instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e);
+        }
+
+        private <T> void put(final BlockingQueue<T> queue, final T item) throws IOException {
+            try {
+                while (!queue.offer(item, QUEUE_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    checkFailure();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Import interrupted", e);
+            }
+        }
+
+        private <T> T take(final BlockingQueue<T> queue) throws IOException {
+            try {
+                T item;
+                while ((item = queue.poll(QUEUE_POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+                    checkFailure();
+                }
+                return item;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Import interrupted", e);
+            }
+        }
+
+        private void checkFailure() throws IOException {
+            Throwable cause = failure.get();
+            if (cause != null) {
+                throw new IOException("Import aborted", cause);
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.config.OrderExpiryConfig;
+import com.example.weborderservice.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Owns the orders collection indexes: the keyset search indexes declared on {@code Order} (auto-index-creation is off)
+ * and, in TTL_INDEX expiry mode, the unpaid-order TTL index. They are created right after startup, retried until
+ * Mongo is reachable, so search does not run unindexed until the first expiry run.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class OrderIndexes {
+
+    private final OrderRepository orderRepository;
+    private final OrderExpiryConfig expiryConfig;
+    private volatile boolean ensured;
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${internal.order-indexes.retry-interval:PT30S}")
+    public void ensureIndexesAtStartup() {
+        if (ensured) {
+            return;
+        }
+        try {
+            ensureIndexes();
+            log.info("Order indexes are in place");
+        } catch (RuntimeException e) {
+            log.warn("Could not create order indexes, will retry", e);
+        }
+    }
+
+    public void ensureIndexes() {
+        if (ensured) {
+            return;
+        }
+        orderRepository.ensureIndexes(expiryConfig.getMode() == OrderExpiryConfig.Mode.TTL_INDEX ? expiryConfig.getRetention() : null);
+        ensured = true;
+    }
+}
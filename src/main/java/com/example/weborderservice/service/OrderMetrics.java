@@ -0,0 +1,117 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.config.MetricsConfig;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times order operations and their phases. With {@code internal.metrics.enabled=false} every call runs the wrapped
+ * code directly, without reading the clock or touching the registry.
+ */
+@Component
+public class OrderMetrics {
+
+    static final String OPERATION_TIMER = "orders.operation";
+    static final String PHASE_TIMER = "orders.operation.phase";
+    static final String UPLOAD_BATCH_SIZE = "orders.upload.batch.size";
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final DistributionSummary uploadBatchSize;
+    private final ConcurrentMap<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    public OrderMetrics(MeterRegistry meterRegistry, MetricsConfig config) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = config.isEnabled();
+        this.uploadBatchSize = DistributionSummary.builder(UPLOAD_BATCH_SIZE)
+                .description("Orders per bulk insert during uploads")
+                .baseUnit("orders")
+                .register(meterRegistry);
+    }
+
+    public <T, E extends Exception> T time(final String operation, final Call<T, E> call) throws E {
+        return time(OPERATION_TIMER, operation, null, call);
+    }
+
+    public <E extends Exception> void timeVoid(final String operation, final VoidCall<E> call) throws E {
+        time(OPERATION_TIMER, operation, null, () -> {
+            call.call();
+            return null;
+        });
+    }
+
+    public <T, E extends Exception> T timePhase(final String operation, final String phase, final Call<T, E> call) throws E {
+        return time(PHASE_TIMER, operation, phase, call);
+    }
+
+    public void recordUploadBatch(final int size) {
+        if (enabled) {
+            uploadBatchSize.record(size);
+        }
+    }
+
+    private <T, E extends Exception> T time(final String name, final String operation, final String phase,
+                                            final Call<T, E> call) throws E {
+        if (!enabled) {
+            return call.call();
+        }
+        long startNanos = System.nanoTime();
+        String outcome = "success";
+        try {
+            return call.call();
+        } catch (RuntimeException e) {
+            outcome = outcome(e);
+            throw e;
+        } catch (Exception e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            timer(new TimerKey(name, operation, phase, outcome)).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timer(final TimerKey key) {
+        Timer timer = timers.get(key);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(key, this::register);
+        }
+        return timer;
+    }
+
+    private Timer register(final TimerKey key) {
+        Timer.Builder timer = Timer.builder(key.name())
+                .tag("operation", key.operation())
+                .tag("outcome", key.outcome());
+        if (key.phase() != null) {
+            timer.tag("phase", key.phase());
+        }
+        return timer.register(meterRegistry);
+    }
+
+    static String outcome(final RuntimeException e) {
+        if (e instanceof ResponseStatusException statusException) {
+            return statusException.getStatusCode().is4xxClientError() ? "client_error" : "server_error";
+        }
+        return "error";
+    }
+
+    private record TimerKey(String name, String operation, String phase, String outcome) {
+    }
+
+    @FunctionalInterface
+    public interface Call<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    @FunctionalInterface
+    public interface VoidCall<E extends Exception> {
+        void call() throws E;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.config.OutboxConfig;
+import com.example.weborderservice.model.OrderEvent;
+import com.example.weborderservice.model.OrderEventType;
+import com.example.weborderservice.repository.OrderEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Records order lifecycle events around the change they describe. Mongo offers no multi-document transactions here, so
+ * an event is either written as pending before the change and made ready once its outcome is known, or, for a single
+ * conditional write, recorded as ready once the write reports a change. Pending events whose outcome is unknown (the
+ * change failed midway or the instance died) stay pending until {@link OrderOutboxRelay} checks them against the order;
+ * the relay also recovers finalize events lost between the payment and the event write.
+ */
+@Service
+public class OrderOutbox {
+
+    private final OrderEventRepository eventRepository;
+    private final OutboxConfig config;
+    private final Clock clock;
+
+    @Autowired
+    public OrderOutbox(OrderEventRepository eventRepository, OutboxConfig config) {
+        this(eventRepository, config, Clock.systemDefaultZone());
+    }
+
+    OrderOutbox(OrderEventRepository eventRepository, OutboxConfig config, Clock clock) {
+        this.eventRepository = eventRepository;
+        this.config = config;
+        this.clock = clock;
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    public List<OrderEvent> prepare(final OrderEventType type, final Collection<UUID> orderIds) {
+        if (!config.isEnabled() || orderIds.isEmpty()) {
+            return List.of();
+        }
+        List<OrderEvent> events = newEvents(type, orderIds, OrderEvent.State.PENDING);
+        eventRepository.insertPending(events);
+        return events;
+    }
+
+    /**
+     * Records events for changes that already happened; an event the relay recovered first is kept.
+     */
+    public void record(final OrderEventType type, final Collection<UUID> orderIds) {
+        if (!config.isEnabled() || orderIds.isEmpty()) {
+            return;
+        }
+        eventRepository.insertIfAbsent(newEvents(type, orderIds, OrderEvent.State.READY));
+    }
+
+    public void commit(final List<OrderEvent> events) {
+        eventRepository.markReady(ids(events));
+    }
+
+    /**
+     * Commits the events of orders the change was applied to and discards the others.
+     */
+    public void resolve(final List<OrderEvent> events, final Collection<UUID> changedOrderIds) {
+        Set<UUID> changed = new HashSet<>(changedOrderIds);
+        eventRepository.markReady(ids(events.stream().filter(event -> changed.contains(event.getOrderId())).toList()));
+        eventRepository.discardPending(ids(events.stream().filter(event -> !changed.contains(event.getOrderId())).toList()));
+    }
+
+    private List<OrderEvent> newEvents(final OrderEventType type, final Collection<UUID> orderIds, final OrderEvent.State state) {
+        LocalDateTime occurredAt = LocalDateTime.now(clock);
+        return orderIds.stream()
+                .map(orderId -> OrderEvent.builder()
+                        .orderId(orderId)
+                        .type(type)
+                        .occurredAt(occurredAt)
+                        .state(state)
+                        .build())
+                .toList();
+    }
+
+    private static List<String> ids(final List<OrderEvent> events) {
+        return events.stream().map(OrderEvent::getId).toList();
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.config.OutboxConfig;
+import com.example.weborderservice.model.Order;
+import com.example.weborderservice.model.OrderEvent;
+import com.example.weborderservice.model.OrderEventType;
+import com.example.weborderservice.repository.OrderEventRepository;
+import com.example.weborderservice.repository.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Publishes ready outbox events in batches, each order's events in lifecycle order. One instance at a time holds the
+ * relay lease and numbers events as it publishes them; those sequence numbers are the resume tokens of
+ * {@link OrderEventStream}, which every instance feeds from the stored events.
+ */
+@Service
+@Slf4j
+public class OrderOutboxRelay {
+
+    private final OrderEventRepository eventRepository;
+    private final OrderRepository orderRepository;
+    private final List<OrderEventSink> sinks;
+    private final OutboxConfig config;
+    private final Clock clock;
+    private final String owner = UUID.randomUUID().toString();
+    private final Counter publishedEvents;
+    private final Counter abandonedEvents;
+    private final Counter recoveredEvents;
+    private volatile boolean indexesEnsured;
+    private LocalDateTime nextPaidCheck = LocalDateTime.MIN;
+
+    @Autowired
+    public OrderOutboxRelay(OrderEventRepository eventRepository, OrderRepository orderRepository, List<OrderEventSink> sinks,
+                            OutboxConfig config, MeterRegistry meterRegistry) {
+        this(eventRepository, orderRepository, sinks, config, meterRegistry, Clock.systemDefaultZone());
+    }
+
+    OrderOutboxRelay(OrderEventRepository eventRepository, OrderRepository orderRepository, List<OrderEventSink> sinks,
+                     OutboxConfig config, MeterRegistry meterRegistry, Clock clock) {
+        this.eventRepository = eventRepository;
+        this.orderRepository = orderRepository;
+        this.sinks = sinks;
+        this.config = config;
+        this.clock = clock;
+        this.publishedEvents = Counter.builder("orders.events.published")
+                .description("Order lifecycle events published by the outbox relay")
+                .register(meterRegistry);
+        this.abandonedEvents = Counter.builder("orders.events.abandoned")
+                .description("Pending order lifecycle events dropped because their order change could not be confirmed")
+                .register(meterRegistry);
+        this.recoveredEvents = Counter.builder("orders.events.recovered")
+                .description("Finalize events written by the relay because the paying request never recorded them")
+                .register(meterRegistry);
+    }
+
+    public int relay() {
+        if (!config.isEnabled()) {
+            return 0;
+        }
+        ensureIndexes();
+        LocalDateTime now = LocalDateTime.now(clock);
+        if (!eventRepository.acquireRelayLease(owner, now, config.getLeaseDuration())) {
+            return 0;
+        }
+        verifyPending(now);
+        recoverFinalized(now);
+        int published = 0;
+        String lastEventId = null;
+        for (int batch = 0; batch < config.getMaxBatchesPerRun(); batch++) {
+            List<OrderEvent> ready = lastEventId == null
+                    ? eventRepository.findReady(config.getBatchSize())
+                    : eventRepository.findReadyAfter(lastEventId, config.getBatchSize());
+            if (ready.isEmpty()) {
+                break;
+            }
+            lastEventId = ready.get(ready.size() - 1).getId();
+            List<OrderEvent> events = inLifecycleOrder(ready);
+            if (!events.isEmpty()) {
+                Optional<Long> firstSequence = eventRepository.allocateSequences(owner, events.size());
+                if (firstSequence.isEmpty()) {
+                    log.warn("Lost the order event relay lease, stopping after {} events", published);
+                    break;
+                }
+                publish(events, firstSequence.get());
+                published += events.size();
+            }
+            if (ready.size() < config.getBatchSize()) {
+                break;
+            }
+        }
+        return published;
+    }
+
+    /**
+     * Ready events are found in insertion order, which across instances and recovered events says nothing about the
+     * order lifecycle. Events of an order wait while an earlier stage of it is still unpublished outside the batch, and
+     * the rest are published stage by stage, so no order is seen finalized or deleted before it is created.
+     */
+    private List<OrderEvent> inLifecycleOrder(final List<OrderEvent> ready) {
+        Set<String> batch = ready.stream().map(OrderEvent::getId).collect(Collectors.toSet());
+        Map<UUID, Integer> waitingStages = new HashMap<>();
+        List<UUID> orderIds = ready.stream().map(OrderEvent::getOrderId).distinct().toList();
+        for (OrderEvent unpublished : eventRepository.findUnpublished(orderIds)) {
+            if (!batch.contains(unpublished.getId())) {
+                waitingStages.merge(unpublished.getOrderId(), unpublished.getType().getStage(), Math::min);
+            }
+        }
+        List<OrderEvent> events = ready.stream()
+                .filter(event -> event.getType().getStage()
+                        <= waitingStages.getOrDefault(event.getOrderId(), Integer.MAX_VALUE))
+                .sorted(Comparator.comparingInt(event -> event.getType().getStage()))
+                .toList();
+        if (events.size() < ready.size()) {
+            log.debug("Holding back {} order events until earlier events of their orders are published",
+                    ready.size() - events.size());
+        }
+        return events;
+    }
+
+    private void publish(final List<OrderEvent> events, final long firstSequence) {
+        LocalDateTime publishedAt = LocalDateTime.now(clock);
+        for (int i = 0; i < events.size(); i++) {
+            events.get(i).setSequence(firstSequence + i);
+            events.get(i).setPublishedAt(publishedAt);
+        }
+        sinks.forEach(sink -> sink.publish(events));
+        eventRepository.markPublished(events);
+        publishedEvents.increment(events.size());
+    }
+
+    /**
+     * Resolves pending events by checking whether the order change they describe is visible; deletions are confirmed
+     * by the order being gone.
+     */
+    private void verifyPending(final LocalDateTime now) {
+        List<OrderEvent> pending = eventRepository.findPendingBefore(now.minus(config.getVerifyAfter()), config.getBatchSize());
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<UUID, Boolean> paidStates = orderRepository.findPaidStates(pending.stream().map(OrderEvent::getOrderId).toList());
+        LocalDateTime abandonBefore = now.minus(config.getAbandonAfter());
+        List<String> confirmed = new ArrayList<>();
+        List<String> abandoned = new ArrayList<>();
+        for (OrderEvent event : pending) {
+            if (happened(event, paidStates)) {
+                confirmed.add(event.getId());
+            } else if (event.getOccurredAt().isBefore(abandonBefore)) {
+                abandoned.add(event.getId());
+            }
+        }
+        eventRepository.markReady(confirmed);
+        long discarded = eventRepository.discardPending(abandoned);
+        abandonedEvents.increment(discarded);
+        if (discarded > 0) {
+            log.warn("Dropped {} pending order events whose order change could not be confirmed", discarded);
+        }
+    }
+
+    /**
+     * Finalize events are written after the payment, so an instance that dies in between leaves a paid order without
+     * one. Once per verify interval, orders paid since the stored checkpoint get the events they are missing.
+     */
+    private void recoverFinalized(final LocalDateTime now) {
+        if (now.isBefore(nextPaidCheck)) {
+            return;
+        }
+        nextPaidCheck = now.plus(config.getVerifyAfter());
+        LocalDateTime paidBefore = now.minus(config.getVerifyAfter());
+        LocalDateTime checkpoint = eventRepository.findPaidCheckpoint().orElse(paidBefore);
+        List<Order> paidOrders = orderRepository.findPaidBetween(checkpoint, paidBefore, config.getBatchSize());
+        if (!paidOrders.isEmpty()) {
+            Set<UUID> recorded = eventRepository.findOrderIdsWithEvent(
+                    paidOrders.stream().map(Order::getOrderId).toList(), OrderEventType.FINALIZED);
+            List<OrderEvent> missing = paidOrders.stream()
+                    .filter(order -> !recorded.contains(order.getOrderId()))
+                    .map(order -> OrderEvent.builder()
+                            .orderId(order.getOrderId())
+                            .type(OrderEventType.FINALIZED)
+                            .occurredAt(order.getPaidAt())
+                            .state(OrderEvent.State.READY)
+                            .build())
+                    .toList();
+            int recovered = eventRepository.insertIfAbsent(missing);
+            recoveredEvents.increment(recovered);
+            if (recovered > 0) {
+                log.warn("Recovered {} finalize events that were never recorded", recovered);
+            }
+        }
+        if (paidOrders.size() < config.getBatchSize()) {
+            eventRepository.savePaidCheckpoint(owner, paidBefore);
+        } else {
+            eventRepository.savePaidCheckpoint(owner, paidOrders.get(paidOrders.size() - 1).getPaidAt());
+            nextPaidCheck = now;
+        }
+    }
+
+    private static boolean happened(final OrderEvent event, final Map<UUID, Boolean> paidStates) {
+        return switch (event.getType()) {
+            case CREATED -> paidStates.containsKey(event.getOrderId());
+            case FINALIZED -> Boolean.TRUE.equals(paidStates.get(event.getOrderId()));
+            case DELETED, EXPIRED -> !paidStates.containsKey(event.getOrderId());
+        };
+    }
+
+    private void ensureIndexes() {
+        if (indexesEnsured) {
+            return;
+        }
+        eventRepository.ensureIndexes(config.getRetention());
+        indexesEnsured = true;
+    }
+}
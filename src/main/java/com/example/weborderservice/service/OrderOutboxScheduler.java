@@ -0,0 +1,64 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.config.OutboxConfig;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the outbox relay and the event stream poll on their own threads, so their short intervals are not held up by
+ * the order expiry sweep or the legacy order migration on the shared scheduler, nor by each other.
+ */
+@Component
+@Slf4j
+public class OrderOutboxScheduler {
+
+    private final OrderOutboxRelay orderOutboxRelay;
+    private final OrderEventStream orderEventStream;
+    private final OutboxConfig config;
+    private final ScheduledExecutorService executor =
+            Executors.newScheduledThreadPool(2, new CustomizableThreadFactory("order-outbox-"));
+
+    public OrderOutboxScheduler(OrderOutboxRelay orderOutboxRelay, OrderEventStream orderEventStream, OutboxConfig config) {
+        this.orderOutboxRelay = orderOutboxRelay;
+        this.orderEventStream = orderEventStream;
+        this.config = config;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        long relayInterval = config.getRelayInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::relayOrderEvents, relayInterval, relayInterval, TimeUnit.MILLISECONDS);
+        long pollInterval = config.getStreamPollInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::pollOrderEvents, 0, pollInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    void relayOrderEvents() {
+        try {
+            orderOutboxRelay.relay();
+        } catch (RuntimeException e) {
+            // a failed run must not cancel the schedule
+            log.warn("Order event relay run failed", e);
+        }
+    }
+
+    void pollOrderEvents() {
+        try {
+            orderEventStream.poll();
+        } catch (RuntimeException e) {
+            log.warn("Order event stream poll failed", e);
+        }
+    }
+}
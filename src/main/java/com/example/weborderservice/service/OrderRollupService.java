@@ -0,0 +1,190 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.config.OrderRollupConfig;
+import com.example.weborderservice.model.Category;
+import com.example.weborderservice.model.Order;
+import com.example.weborderservice.model.OrderLine;
+import com.example.weborderservice.model.OrderRollup;
+import com.example.weborderservice.model.OrderRollupDelta;
+import com.example.weborderservice.model.OrderSearchCriteria;
+import com.example.weborderservice.repository.OrderRepository;
+import com.example.weborderservice.repository.OrderRollupRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Range;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Maintains hourly order rollups with {@code $inc} as orders are placed and paid, so reporting never aggregates the
+ * orders collection. Rollups count placed orders; expiring or deleting an order does not reduce them.
+ * <p>
+ * A failed update is not retried: part of an unordered bulk {@code $inc} may already be applied, and applying it again
+ * would count those orders twice. Failures are counted in {@code orders.rollups.failed} and logged with the hours they
+ * cover; {@link #rebuild} recomputes those hours from the stored orders.
+ */
+@Service
+@Slf4j
+public class OrderRollupService {
+
+    private static final Sort BY_HOUR = Sort.by("hour", "category");
+
+    private final OrderRollupRepository rollupRepository;
+    private final OrderRepository orderRepository;
+    private final OrderRollupConfig config;
+    private final Clock clock;
+    private final Counter failedUpdates;
+    private volatile boolean indexesEnsured;
+
+    @Autowired
+    public OrderRollupService(OrderRollupRepository rollupRepository, OrderRepository orderRepository,
+                              OrderRollupConfig config, MeterRegistry meterRegistry) {
+        this(rollupRepository, orderRepository, config, meterRegistry, Clock.systemDefaultZone());
+    }
+
+    OrderRollupService(OrderRollupRepository rollupRepository, OrderRepository orderRepository,
+                       OrderRollupConfig config, MeterRegistry meterRegistry, Clock clock) {
+        this.rollupRepository = rollupRepository;
+        this.orderRepository = orderRepository;
+        this.config = config;
+        this.clock = clock;
+        this.failedUpdates = Counter.builder("orders.rollups.failed")
+                .description("Rollup updates that failed and left their hours to be rebuilt")
+                .register(meterRegistry);
+    }
+
+    public void recordPlaced(final Collection<Order> orders) {
+        increment(orders, false);
+    }
+
+    public void recordPaid(final Order order) {
+        increment(List.of(order), true);
+    }
+
+    public List<OrderRollup> rollups(final LocalDateTime from, final LocalDateTime to, final Category category) {
+        LocalDateTime end = Optional.ofNullable(to).orElseGet(() -> LocalDateTime.now(clock));
+        LocalDateTime start = Optional.ofNullable(from).orElseGet(() -> end.minus(config.getDefaultWindow()));
+        checkWindow(start, end);
+        ensureIndexes();
+        Range<LocalDateTime> hours = Range.rightOpen(start.truncatedTo(ChronoUnit.HOURS), end);
+        return category == null
+                ? rollupRepository.findByHourBetween(hours, BY_HOUR)
+                : rollupRepository.findByHourBetweenAndCategory(hours, category, BY_HOUR);
+    }
+
+    /**
+     * Replaces the rollups of the whole hours from {@code from} up to {@code to} with totals recomputed from the orders
+     * still stored, which is how hours logged by a failed update are repaired. Orders deleted or expired since they
+     * were placed are no longer counted. Only hours that have ended can be rebuilt, so new orders never race with it;
+     * an order of a rebuilt hour paid while the rebuild runs may be missed, and a second rebuild picks it up.
+     *
+     * @return the number of orders counted
+     */
+    public long rebuild(final LocalDateTime from, final LocalDateTime to) {
+        LocalDateTime start = from.truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime end = to.truncatedTo(ChronoUnit.HOURS);
+        checkWindow(start, end);
+        if (end.isAfter(LocalDateTime.now(clock).truncatedTo(ChronoUnit.HOURS))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Only hours that have ended can be rebuilt");
+        }
+        Map<String, OrderRollupDelta> deltas = new LinkedHashMap<>();
+        long orders = 0;
+        try (Stream<Order> stored = orderRepository.streamOrders(new OrderSearchCriteria(null, null, start, end, null),
+                config.getRebuildBatchSize())) {
+            for (Order order : (Iterable<Order>) stored::iterator) {
+                addDeltas(deltas, order, false);
+                if (order.isPaid()) {
+                    addDeltas(deltas, order, true);
+                }
+                orders++;
+            }
+        }
+        rollupRepository.replace(start, end, deltas.values());
+        log.info("Rebuilt order rollups from {} to {} from {} orders", start, end, orders);
+        return orders;
+    }
+
+    static Collection<OrderRollupDelta> deltas(final Collection<Order> orders, final boolean paid) {
+        Map<String, OrderRollupDelta> deltas = new LinkedHashMap<>();
+        for (Order order : orders) {
+            addDeltas(deltas, order, paid);
+        }
+        return deltas.values();
+    }
+
+    private static void addDeltas(final Map<String, OrderRollupDelta> deltas, final Order order, final boolean paid) {
+        if (order.getInsertDateTime() == null) {
+            return;
+        }
+        LocalDateTime hour = order.getInsertDateTime().truncatedTo(ChronoUnit.HOURS);
+        List<OrderLine> lines = Optional.ofNullable(order.getLines()).orElse(List.of());
+        BigDecimal total = Optional.ofNullable(order.getTotal()).orElseGet(() -> OrderLine.total(lines));
+        add(deltas, delta(hour, null, lines.stream().mapToLong(OrderLine::getQuantity).sum(), total, paid));
+
+        Map<Category, OrderRollupDelta> categoryDeltas = new EnumMap<>(Category.class);
+        for (OrderLine line : lines) {
+            for (Category category : Optional.ofNullable(line.getCategories()).orElse(List.of())) {
+                OrderRollupDelta lineDelta = delta(hour, category, line.getQuantity(), line.lineTotal(), paid);
+                categoryDeltas.merge(category, lineDelta, (left, right) -> new OrderRollupDelta(hour, category,
+                        left.orders(), left.items() + right.items(), left.revenue().add(right.revenue()),
+                        left.paidOrders(), left.paidRevenue().add(right.paidRevenue())));
+            }
+        }
+        categoryDeltas.values().forEach(delta -> add(deltas, delta));
+    }
+
+    private void increment(final Collection<Order> orders, final boolean paid) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        Collection<OrderRollupDelta> deltas = deltas(orders, paid);
+        try {
+            rollupRepository.increment(deltas);
+        } catch (RuntimeException e) {
+            failedUpdates.increment();
+            log.warn("Failed to update order rollups for {} orders; rebuild hours {}", orders.size(),
+                    deltas.stream().map(OrderRollupDelta::hour).distinct().sorted().toList(), e);
+        }
+    }
+
+    private void checkWindow(final LocalDateTime start, final LocalDateTime end) {
+        if (!start.isBefore(end) || Duration.between(start, end).compareTo(config.getMaxWindow()) > 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must be before to and the window at most " + config.getMaxWindow());
+        }
+    }
+
+    private void ensureIndexes() {
+        if (!indexesEnsured) {
+            rollupRepository.ensureIndexes();
+            indexesEnsured = true;
+        }
+    }
+
+    private static OrderRollupDelta delta(final LocalDateTime hour, final Category category, final long items,
+                                          final BigDecimal revenue, final boolean paid) {
+        return paid
+                ? new OrderRollupDelta(hour, category, 0, 0, BigDecimal.ZERO, 1, revenue)
+                : new OrderRollupDelta(hour, category, 1, items, revenue, 0, BigDecimal.ZERO);
+    }
+
+    private static void add(final Map<String, OrderRollupDelta> deltas, final OrderRollupDelta delta) {
+        deltas.merge(OrderRollup.id(delta.hour(), delta.category()), delta, OrderRollupDelta::plus);
+    }
+}
@@ -1,13 +1,27 @@
 package com.example.weborderservice.service;
 
+import com.example.weborderservice.client.ShoppingCartResult;
 import com.example.weborderservice.client.ShoppingClient;
+import com.example.weborderservice.model.CartOrderRequest;
+import com.example.weborderservice.model.Category;
+import com.example.weborderservice.model.CreateOrdersResult;
 import com.example.weborderservice.model.CustomerInfo;
+import com.example.weborderservice.model.DeleteOrdersResult;
 import com.example.weborderservice.model.DeliveryInfo;
 import com.example.weborderservice.model.Order;
+import com.example.weborderservice.model.OrderCursor;
+import com.example.weborderservice.model.OrderEvent;
+import com.example.weborderservice.model.OrderEventType;
+import com.example.weborderservice.model.OrderField;
+import com.example.weborderservice.model.OrderLine;
+import com.example.weborderservice.model.OrderPage;
+import com.example.weborderservice.model.OrderRollup;
+import com.example.weborderservice.model.OrderSearchCriteria;
+import com.example.weborderservice.model.OrderView;
 import com.example.weborderservice.model.ShoppingCart;
+import com.example.weborderservice.model.UploadJobStatus;
+import com.example.weborderservice.repository.BulkInsertResult;
 import com.example.weborderservice.repository.OrderRepository;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AllArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -15,9 +29,13 @@ import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
-import java.time.ZoneId;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
@@ -25,66 +43,231 @@ import java.util.UUID;
 public class OrderService {
 
     public static final String ORDER_NOT_FOUND = "Order not found";
+    public static final int MAX_SEARCH_LIMIT = 500;
+    private static final String CREATE = "create";
+    private static final String CREATE_BATCH = "create_batch";
     private final OrderRepository orderRepository;
     private final ShoppingClient shoppingClient;
-    private final ObjectMapper objectMapper;
+    private final UploadJobService uploadJobService;
+    private final OrderCache orderCache;
+    private final IdempotencyCache idempotencyCache;
+    private final ProductSnapshotService productSnapshotService;
+    private final OrderExporter orderExporter;
+    private final OrderRollupService orderRollupService;
+    private final OrderMetrics orderMetrics;
+    private final OrderOutbox orderOutbox;
+    private final CreateIdempotency createIdempotency;
 
-    public Order createOrder(final UUID cartId, final CustomerInfo customerInfo, final DeliveryInfo deliveryInfo) {
-        ShoppingCart shoppingCart = shoppingClient.getShoppingCart(cartId);
-        Order order = new Order(
-                UUID.randomUUID(),
-                shoppingCart.getProducts(),
-                customerInfo,
-                deliveryInfo,
-                false,
-                LocalDateTime.now()
-        );
-        return orderRepository.save(order);
+    public Order createOrder(final UUID cartId, final CustomerInfo customerInfo, final DeliveryInfo deliveryInfo,
+                             final String idempotencyKey) {
+        return orderMetrics.time(CREATE, () -> {
+            CreateIdempotency.Claim claim = orderMetrics.timePhase(CREATE, "idempotency",
+                    () -> createIdempotency.claim(cartId, idempotencyKey, orderId -> orderCache.get(orderId, orderRepository::findOrderByOrderId)));
+            if (claim.isReplay()) {
+                return claim.replayedOrder();
+            }
+            List<OrderLine> lines;
+            try {
+                ShoppingCart shoppingCart = orderMetrics.timePhase(CREATE, "cart", () -> shoppingClient.getShoppingCart(cartId));
+                lines = orderMetrics.timePhase(CREATE, "snapshot", () -> productSnapshotService.store(shoppingCart.getProducts()));
+            } catch (RuntimeException e) {
+                createIdempotency.release(claim);
+                throw e;
+            }
+            // from here on the order may be stored even if saving fails, so the claim stays until it times out
+            Order order = newOrder(claim.orderId(), lines, customerInfo, deliveryInfo);
+            List<OrderEvent> events = orderOutbox.prepare(OrderEventType.CREATED, List.of(order.getOrderId()));
+            Order savedOrder = orderMetrics.timePhase(CREATE, "save", () -> orderRepository.save(order));
+            orderOutbox.commit(events);
+            orderCache.put(savedOrder);
+            createIdempotency.complete(claim);
+            orderRollupService.recordPlaced(List.of(savedOrder));
+            return savedOrder;
+        });
+    }
+
+    public CreateOrdersResult createOrders(final List<CartOrderRequest> requests) {
+        return orderMetrics.time(CREATE_BATCH, () -> {
+            OrderBatch batch = new OrderBatch(requests, productSnapshotService);
+            Map<UUID, ShoppingCartResult> carts = orderMetrics.timePhase(CREATE_BATCH, "cart", () -> shoppingClient.getShoppingCarts(batch.cartIds()));
+            batch.addAll(carts);
+            orderMetrics.timePhase(CREATE_BATCH, "snapshot", () -> {
+                productSnapshotService.save(batch.snapshots());
+                return null;
+            });
+            List<OrderEvent> events = orderOutbox.prepare(OrderEventType.CREATED, orderIds(batch.orders()));
+            BulkInsertResult result = orderMetrics.timePhase(CREATE_BATCH, "save", () -> orderRepository.insertUnordered(batch.orders()));
+            List<Order> createdOrders = batch.inserted(result);
+            orderOutbox.resolve(events, orderIds(createdOrders));
+            createdOrders.forEach(orderCache::put);
+            orderRollupService.recordPlaced(createdOrders);
+            return batch.result();
+        });
+    }
+
+    static Order newOrder(final List<OrderLine> lines, final CustomerInfo customerInfo, final DeliveryInfo deliveryInfo) {
+        return newOrder(UUID.randomUUID(), lines, customerInfo, deliveryInfo);
+    }
+
+    static Order newOrder(final UUID orderId, final List<OrderLine> lines, final CustomerInfo customerInfo, final DeliveryInfo deliveryInfo) {
+        return Order.builder()
+                .orderId(orderId)
+                .lines(lines)
+                .total(OrderLine.total(lines))
+                .customerInfo(customerInfo)
+                .deliveryInfo(deliveryInfo)
+                .isPaid(false)
+                .insertDateTime(LocalDateTime.now())
+                .build();
     }
 
     public Order retrieveOrder(final UUID orderId) {
-        return orderRepository.findOrderByOrderId(orderId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, ORDER_NOT_FOUND));
+        return retrieveOrder(orderId, OrderView.STANDARD);
     }
 
-    public void deleteOrder(final UUID orderId) {
-        Order order = orderRepository.findOrderByOrderId(orderId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, ORDER_NOT_FOUND));
-        orderRepository.deleteOrderByOrderId(order.getOrderId());
+    public Order retrieveOrder(final UUID orderId, final OrderView view) {
+        return orderMetrics.time("retrieve", () -> {
+            Order order = findOrder(orderId);
+            if (view.isWithProducts() && order.getLines() != null) {
+                return order.toBuilder()
+                        .products(productSnapshotService.loadProducts(order.getLines()))
+                        .build();
+            }
+            return order;
+        });
     }
 
-    public Order finalizeOrder(final UUID orderId) {
-        Order order = orderRepository.findOrderByOrderId(orderId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, ORDER_NOT_FOUND));
-        payForOrder(order);
-        return orderRepository.save(order);
+    public Map<String, Object> retrieveOrderFields(final UUID orderId, final Set<OrderField> fields) {
+        return orderMetrics.time("retrieve_fields", () -> {
+            Optional<Order> cachedOrder = orderCache.getIfPresent(orderId);
+            Order order = cachedOrder.isPresent()
+                    ? cachedOrder.get()
+                    : orderRepository.findOrderFields(orderId, mongoFields(fields))
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, ORDER_NOT_FOUND));
+            return OrderField.project(order, fields);
+        });
     }
 
-    public List<Order> uploadProducts(final MultipartFile file) {
-        try {
-            byte[] bytes = file.getBytes();
-            List<Order> orders = objectMapper.readValue(bytes, new TypeReference<>() {
-            });
-            orders.forEach(this::setOrderIdAndInsertDateTime);
-            return orderRepository.saveAll(orders);
-        } catch (IOException e) {
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error processing file", e);
+    public OrderPage searchOrders(final OrderSearchCriteria criteria, final String cursor, final int limit) {
+        return orderMetrics.time("search", () -> {
+            checkSearchLimit(limit);
+            OrderCursor after = cursor == null ? null : OrderCursor.decode(cursor);
+            return toPage(orderRepository.search(criteria, after, limit + 1), limit);
+        });
+    }
+
+    static void checkSearchLimit(final int limit) {
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_SEARCH_LIMIT);
+        }
+    }
+
+    static OrderPage toPage(final List<Order> orders, final int limit) {
+        if (orders.size() <= limit) {
+            return new OrderPage(orders, null);
         }
+        List<Order> page = orders.subList(0, limit);
+        return new OrderPage(page, OrderCursor.of(page.get(limit - 1)).encode());
+    }
+
+    public long exportOrders(final OrderSearchCriteria criteria, final OutputStream outputStream, final boolean gzip) throws IOException {
+        return orderMetrics.time("export", () -> orderExporter.exportOrders(criteria, outputStream, gzip));
+    }
+
+    public List<OrderRollup> retrieveRollups(final LocalDateTime from, final LocalDateTime to, final Category category) {
+        return orderMetrics.time("rollups", () -> orderRollupService.rollups(from, to, category));
     }
 
-    public void deleteOldOrders() {
-        LocalDateTime oneMinuteAgo = LocalDateTime.now(ZoneId.systemDefault()).minusMinutes(1);
-        orderRepository.deleteOrdersByInsertDateTimeBefore(oneMinuteAgo);
+    public long rebuildRollups(final LocalDateTime from, final LocalDateTime to) {
+        return orderRollupService.rebuild(from, to);
     }
 
-    private void payForOrder(final Order order) {
-        if (!order.isPaid()) {
-            order.setPaid(true);
+    public void deleteOrder(final UUID orderId) {
+        orderMetrics.timeVoid("delete", () -> {
+            long deleted = orderRepository.deleteOrderByOrderId(orderId);
+            orderCache.evict(orderId);
+            if (deleted == 0) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, ORDER_NOT_FOUND);
+            }
+            // a deleted order leaves nothing to check against, so an instance dying right here loses this event
+            orderOutbox.record(OrderEventType.DELETED, List.of(orderId));
+        });
+    }
+
+    public DeleteOrdersResult deleteOrders(final List<UUID> orderIds) {
+        return orderMetrics.time("delete_many", () -> {
+            Set<UUID> uniqueOrderIds = new HashSet<>(orderIds);
+            long deleted = orderOutbox.isEnabled()
+                    ? deleteOrdersWithEvents(uniqueOrderIds)
+                    : orderRepository.deleteOrdersByOrderIdIn(uniqueOrderIds);
+            uniqueOrderIds.forEach(orderCache::evict);
+            return new DeleteOrdersResult(uniqueOrderIds.size(), deleted);
+        });
+    }
+
+    public Order finalizeOrder(final UUID orderId, final String idempotencyKey) {
+        return orderMetrics.time("finalize", () -> {
+            if (idempotencyKey != null) {
+                Optional<Order> previousResult = idempotencyCache.get(idempotencyKey, orderId);
+                if (previousResult.isPresent()) {
+                    return previousResult.get();
+                }
+            }
+            Optional<Order> paidOrder = orderRepository.markPaid(orderId);
+            // only the request that paid the order records the event; the relay recovers it if this instance dies first
+            paidOrder.ifPresent(order -> orderOutbox.record(OrderEventType.FINALIZED, List.of(orderId)));
+            paidOrder.ifPresent(orderRollupService::recordPaid);
+            Order order = paidOrder
+                    .or(() -> orderRepository.findOrderByOrderId(orderId))
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, ORDER_NOT_FOUND));
+            orderCache.put(order);
+            return remember(idempotencyKey, order);
+        });
+    }
+
+    public UploadJobStatus uploadProducts(final MultipartFile file) {
+        return orderMetrics.time("upload", () -> uploadJobService.submit(file));
+    }
+
+    public UploadJobStatus retrieveUploadStatus(final UUID jobId) {
+        return orderMetrics.time("upload_status", () -> uploadJobService.getStatus(jobId));
+    }
+
+    static List<UUID> orderIds(final List<Order> orders) {
+        return orders.stream().map(Order::getOrderId).toList();
+    }
+
+    static List<String> mongoFields(final Set<OrderField> fields) {
+        return fields.stream().map(OrderField::getMongoField).toList();
+    }
+
+    /**
+     * Deletes the orders and records events for those that exist. The existence check is one read on the id index;
+     * without it, unknown ids would get pending events that the relay would confirm, since the order is gone. If
+     * fewer orders are deleted than found, the events stay pending and the relay works out which ones went.
+     */
+    private long deleteOrdersWithEvents(final Set<UUID> orderIds) {
+        Set<UUID> existingOrderIds = orderRepository.findPaidStates(orderIds).keySet();
+        if (existingOrderIds.isEmpty()) {
+            return 0;
         }
+        List<OrderEvent> events = orderOutbox.prepare(OrderEventType.DELETED, existingOrderIds);
+        long deleted = orderRepository.deleteOrdersByOrderIdIn(orderIds);
+        if (deleted == existingOrderIds.size()) {
+            orderOutbox.commit(events);
+        }
+        return deleted;
     }
 
-    private void setOrderIdAndInsertDateTime(final Order order) {
-        order.setOrderId(UUID.randomUUID());
-        order.setInsertDateTime(LocalDateTime.now());
+    private Order remember(final String idempotencyKey, final Order order) {
+        if (idempotencyKey != null) {
+            idempotencyCache.put(idempotencyKey, order);
+        }
+        return order;
+    }
+
+    private Order findOrder(final UUID orderId) {
+        return orderCache.get(orderId, orderRepository::findOrderByOrderId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, ORDER_NOT_FOUND));
     }
 }
@@ -0,0 +1,157 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.config.ProductSnapshotConfig;
+import com.example.weborderservice.model.Manufacturer;
+import com.example.weborderservice.model.OrderLine;
+import com.example.weborderservice.model.Product;
+import com.example.weborderservice.model.ProductSnapshot;
+import com.example.weborderservice.repository.ProductSnapshotRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Stores each distinct product version once, keyed by a hash of its content, so orders only keep slim
+ * {@link OrderLine}s that reference it. Reviews are never stored with orders.
+ */
+@Service
+public class ProductSnapshotService {
+
+    private static final String CACHE_NAME = "productSnapshots";
+    private static final int SNAPSHOT_ID_BYTES = 16;
+
+    private final ProductSnapshotRepository snapshotRepository;
+    private final Cache<String, Boolean> storedSnapshotIds;
+
+    public ProductSnapshotService(ProductSnapshotRepository snapshotRepository, ProductSnapshotConfig config,
+                                  MeterRegistry meterRegistry) {
+        this.snapshotRepository = snapshotRepository;
+        this.storedSnapshotIds = Caffeine.newBuilder()
+                .maximumSize(config.getKnownIdsCacheSize())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, storedSnapshotIds, CACHE_NAME);
+    }
+
+    public SnapshottedProducts snapshot(final List<Product> products) {
+        Map<String, ProductSnapshot> snapshots = new LinkedHashMap<>();
+        Map<String, OrderLine> lines = new LinkedHashMap<>();
+        for (Product product : Optional.ofNullable(products).orElse(List.of())) {
+            ProductSnapshot snapshot = toSnapshot(product);
+            snapshots.putIfAbsent(snapshot.getId(), snapshot);
+            OrderLine line = lines.get(snapshot.getId());
+            if (line == null) {
+                lines.put(snapshot.getId(), new OrderLine(product.getId(), snapshot.getId(), product.getName(),
+                        product.getPrice(), 1, product.getCategories()));
+            } else {
+                line.setQuantity(line.getQuantity() + 1);
+            }
+        }
+        return new SnapshottedProducts(new ArrayList<>(lines.values()), new ArrayList<>(snapshots.values()));
+    }
+
+    public List<OrderLine> store(final List<Product> products) {
+        SnapshottedProducts snapshottedProducts = snapshot(products);
+        save(snapshottedProducts.snapshots());
+        return snapshottedProducts.lines();
+    }
+
+    public void save(final Collection<ProductSnapshot> snapshots) {
+        List<ProductSnapshot> unsavedSnapshots = unsaved(snapshots);
+        snapshotRepository.insertMissing(unsavedSnapshots);
+        markSaved(unsavedSnapshots);
+    }
+
+    public List<ProductSnapshot> unsaved(final Collection<ProductSnapshot> snapshots) {
+        return snapshots.stream()
+                .filter(snapshot -> storedSnapshotIds.getIfPresent(snapshot.getId()) == null)
+                .toList();
+    }
+
+    public void markSaved(final Collection<ProductSnapshot> snapshots) {
+        snapshots.forEach(snapshot -> storedSnapshotIds.put(snapshot.getId(), Boolean.TRUE));
+    }
+
+    public List<Product> loadProducts(final List<OrderLine> lines) {
+        List<String> snapshotIds = Optional.ofNullable(lines).orElse(List.of()).stream()
+                .map(OrderLine::getSnapshotId)
+                .distinct()
+                .toList();
+        Map<String, ProductSnapshot> snapshots = snapshotRepository.findAllById(snapshotIds).stream()
+                .collect(Collectors.toMap(ProductSnapshot::getId, Function.identity()));
+        return toProducts(lines, snapshots);
+    }
+
+    public static List<Product> toProducts(final List<OrderLine> lines, final Map<String, ProductSnapshot> snapshots) {
+        List<Product> products = new ArrayList<>();
+        for (OrderLine line : Optional.ofNullable(lines).orElse(List.of())) {
+            ProductSnapshot snapshot = snapshots.get(line.getSnapshotId());
+            Product product = snapshot == null
+                    ? Product.builder().id(line.getProductId()).name(line.getName()).price(line.getPrice()).categories(line.getCategories()).build()
+                    : new Product(snapshot.getProductId(), snapshot.getName(), snapshot.getDescription(), snapshot.getPrice(),
+                    snapshot.getManufacturer(), snapshot.getCategories(), snapshot.getCreatedAt(), snapshot.getUpdatedAt(), null);
+            for (int i = 0; i < line.getQuantity(); i++) {
+                products.add(product);
+            }
+        }
+        return products;
+    }
+
+    private static ProductSnapshot toSnapshot(final Product product) {
+        ProductSnapshot snapshot = new ProductSnapshot(null, product.getId(), product.getName(), product.getDescription(),
+                product.getPrice(), product.getManufacturer(), product.getCategories(), product.getCreatedAt(), product.getUpdatedAt());
+        snapshot.setId(snapshotId(snapshot));
+        return snapshot;
+    }
+
+    private static String snapshotId(final ProductSnapshot snapshot) {
+        MessageDigest digest = sha256();
+        update(digest, snapshot.getProductId());
+        update(digest, snapshot.getName());
+        update(digest, snapshot.getDescription());
+        update(digest, snapshot.getPrice() == null ? null : snapshot.getPrice().stripTrailingZeros().toPlainString());
+        Manufacturer manufacturer = snapshot.getManufacturer();
+        update(digest, manufacturer == null ? null : manufacturer.getId());
+        update(digest, manufacturer == null ? null : manufacturer.getName());
+        update(digest, manufacturer == null ? null : manufacturer.getAddress());
+        update(digest, manufacturer == null ? null : manufacturer.getContact());
+        update(digest, snapshot.getCategories());
+        update(digest, snapshot.getCreatedAt());
+        update(digest, snapshot.getUpdatedAt());
+        return HexFormat.of().formatHex(digest.digest(), 0, SNAPSHOT_ID_BYTES);
+    }
+
+    private static void update(final MessageDigest digest, final Object value) {
+        if (value == null) {
+            digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(-1).array());
+            return;
+        }
+        byte[] bytes = String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+        digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+        digest.update(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
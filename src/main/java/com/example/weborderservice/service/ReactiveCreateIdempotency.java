@@ -0,0 +1,98 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.model.IdempotencyRecord;
+import com.example.weborderservice.model.Order;
+import com.example.weborderservice.repository.ReactiveIdempotencyRecordRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * The claims of {@link CreateIdempotency} for the reactive API, on the reactive template and sharing its keys, local
+ * cache and rules, so retries are recognised across both APIs.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveCreateIdempotency {
+
+    private final CreateIdempotency createIdempotency;
+    private final ReactiveIdempotencyRecordRepository repository;
+
+    public Mono<CreateIdempotency.Claim> claim(final UUID cartId, final String idempotencyKey,
+                                               final Function<UUID, Mono<Order>> findOrder) {
+        return Mono.defer(() -> {
+            String key = createIdempotency.key(cartId, idempotencyKey);
+            if (key == null) {
+                return Mono.just(new CreateIdempotency.Claim(null, cartId, UUID.randomUUID(), null));
+            }
+            IdempotencyRecord completed = createIdempotency.completedRecord(key);
+            Mono<CreateIdempotency.Claim> replay = Mono.empty();
+            if (completed != null) {
+                CreateIdempotency.checkCart(completed, cartId);
+                replay = findOrder.apply(completed.getOrderId())
+                        .map(order -> createIdempotency.replay(key, cartId, order))
+                        .switchIfEmpty(Mono.fromRunnable(() -> createIdempotency.forgetCompleted(key)));
+            }
+            return replay.switchIfEmpty(Mono.defer(() -> claimKey(key, cartId, findOrder)));
+        });
+    }
+
+    public void complete(final CreateIdempotency.Claim claim) {
+        createIdempotency.complete(claim);
+    }
+
+    /**
+     * Frees the key of a request that failed before storing its order, so a retry can create it.
+     */
+    public Mono<Void> release(final CreateIdempotency.Claim claim) {
+        return claim.key() == null ? Mono.empty() : repository.release(claim.key(), claim.orderId()).then();
+    }
+
+    private Mono<CreateIdempotency.Claim> claimKey(final String key, final UUID cartId, final Function<UUID, Mono<Order>> findOrder) {
+        IdempotencyRecord claim = createIdempotency.newClaim(key, cartId);
+        return ensureIndexes()
+                .then(repository.insertIfAbsent(claim))
+                .flatMap(inserted -> inserted
+                        ? Mono.just(CreateIdempotency.claimed(claim))
+                        : repository.findById(key)
+                                .flatMap(existing -> claimExisting(existing, claim, findOrder))
+                                // released by a failed request since our insert
+                                .switchIfEmpty(Mono.defer(() -> repository.insertIfAbsent(claim))
+                                        .flatMap(reinserted -> claimedOrInProgress(reinserted, claim))));
+    }
+
+    private Mono<CreateIdempotency.Claim> claimExisting(final IdempotencyRecord existing, final IdempotencyRecord claim,
+                                                        final Function<UUID, Mono<Order>> findOrder) {
+        CreateIdempotency.checkCart(existing, claim.getCartId());
+        return findOrder.apply(existing.getOrderId())
+                .map(order -> {
+                    createIdempotency.rememberCompleted(existing);
+                    return createIdempotency.replay(claim.getKey(), claim.getCartId(), order);
+                })
+                .switchIfEmpty(Mono.defer(() -> createIdempotency.isAbandoned(existing, claim)
+                        ? repository.replaceClaim(existing, claim).flatMap(replaced -> claimedOrInProgress(replaced, claim))
+                        : Mono.error(CreateIdempotency.inProgress())));
+    }
+
+    private static Mono<CreateIdempotency.Claim> claimedOrInProgress(final boolean claimed, final IdempotencyRecord claim) {
+        return claimed ? Mono.just(CreateIdempotency.claimed(claim)) : Mono.error(CreateIdempotency.inProgress());
+    }
+
+    /**
+     * The TTL index is set up once per instance through the blocking repository, like for servlet requests.
+     */
+    private Mono<Void> ensureIndexes() {
+        if (createIdempotency.indexesEnsured()) {
+            return Mono.empty();
+        }
+        return Mono.fromRunnable(createIdempotency::ensureIndexes)
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+}
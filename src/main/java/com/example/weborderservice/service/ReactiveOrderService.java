@@ -0,0 +1,359 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.client.ReactiveShoppingClient;
+import com.example.weborderservice.config.ExportConfig;
+import com.example.weborderservice.config.UploadConfig;
+import com.example.weborderservice.model.CartOrderRequest;
+import com.example.weborderservice.model.Category;
+import com.example.weborderservice.model.CreateOrdersResult;
+import com.example.weborderservice.model.CustomerInfo;
+import com.example.weborderservice.model.DeleteOrdersResult;
+import com.example.weborderservice.model.DeliveryInfo;
+import com.example.weborderservice.model.Order;
+import com.example.weborderservice.model.OrderCursor;
+import com.example.weborderservice.model.OrderEvent;
+import com.example.weborderservice.model.OrderEventType;
+import com.example.weborderservice.model.OrderField;
+import com.example.weborderservice.model.OrderPage;
+import com.example.weborderservice.model.OrderRollup;
+import com.example.weborderservice.model.OrderSearchCriteria;
+import com.example.weborderservice.model.OrderLine;
+import com.example.weborderservice.model.OrderView;
+import com.example.weborderservice.model.ProductSnapshot;
+import com.example.weborderservice.model.UploadResult;
+import com.example.weborderservice.repository.ReactiveOrderRepository;
+import com.example.weborderservice.repository.ReactiveProductSnapshotRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.StringDecoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveOrderService {
+
+    private static final ResolvableType JSON_NODE_TYPE = ResolvableType.forClass(JsonNode.class);
+    private static final ResolvableType STRING_TYPE = ResolvableType.forClass(String.class);
+
+    private final ReactiveOrderRepository orderRepository;
+    private final ReactiveProductSnapshotRepository snapshotRepository;
+    private final ProductSnapshotService productSnapshotService;
+    private final OrderRollupService orderRollupService;
+    private final OrderOutbox orderOutbox;
+    private final ReactiveCreateIdempotency createIdempotency;
+    private final IdempotencyCache idempotencyCache;
+    private final ReactiveShoppingClient shoppingClient;
+    private final Validator validator;
+    private final UploadConfig config;
+    private final ExportConfig exportConfig;
+    private final Jackson2JsonDecoder orderDecoder;
+    private final StringDecoder lineDecoder = StringDecoder.textPlainOnly();
+    private final ObjectReader orderReader;
+
+    @Autowired
+    public ReactiveOrderService(ReactiveOrderRepository orderRepository, ReactiveProductSnapshotRepository snapshotRepository,
+                                ProductSnapshotService productSnapshotService, OrderRollupService orderRollupService,
+                                OrderOutbox orderOutbox, ReactiveCreateIdempotency createIdempotency, IdempotencyCache idempotencyCache,
+                                ReactiveShoppingClient shoppingClient, Validator validator, UploadConfig config, ExportConfig exportConfig, ObjectMapper objectMapper) {
+        this.orderRepository = orderRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.productSnapshotService = productSnapshotService;
+        this.orderRollupService = orderRollupService;
+        this.orderOutbox = orderOutbox;
+        this.createIdempotency = createIdempotency;
+        this.idempotencyCache = idempotencyCache;
+        this.shoppingClient = shoppingClient;
+        this.validator = validator;
+        this.config = config;
+        this.exportConfig = exportConfig;
+        this.orderDecoder = new Jackson2JsonDecoder(objectMapper);
+        this.orderReader = objectMapper.readerFor(Order.class);
+    }
+
+    /**
+     * Creates an order with the same idempotency rules as {@link OrderService#createOrder}; the claim shares its Mongo
+     * collection, so retries are recognised across both APIs.
+     */
+    public Mono<Order> createOrder(final UUID cartId, final CustomerInfo customerInfo, final DeliveryInfo deliveryInfo,
+                                   final String idempotencyKey) {
+        return createIdempotency.claim(cartId, idempotencyKey, orderRepository::findOrderByOrderId)
+                .flatMap(claim -> claim.isReplay()
+                        ? Mono.just(claim.replayedOrder())
+                        : createOrder(claim, customerInfo, deliveryInfo));
+    }
+
+    private Mono<Order> createOrder(final CreateIdempotency.Claim claim, final CustomerInfo customerInfo, final DeliveryInfo deliveryInfo) {
+        return Mono.defer(() -> shoppingClient.getShoppingCart(claim.cartId()))
+                .map(shoppingCart -> productSnapshotService.snapshot(shoppingCart.getProducts()))
+                .flatMap(snapshottedProducts -> saveSnapshots(snapshottedProducts.snapshots()).thenReturn(snapshottedProducts))
+                .onErrorResume(error -> createIdempotency.release(claim).then(Mono.error(error)))
+                // from here on the order may be stored even if saving fails, so the claim stays until it times out
+                .flatMap(snapshottedProducts -> {
+                    Order order = OrderService.newOrder(claim.orderId(), snapshottedProducts.lines(), customerInfo, deliveryInfo);
+                    return prepareEvents(OrderEventType.CREATED, List.of(order.getOrderId()))
+                            .flatMap(events -> orderRepository.save(order)
+                                    .flatMap(savedOrder -> commitEvents(events).thenReturn(savedOrder)));
+                })
+                .doOnNext(savedOrder -> createIdempotency.complete(claim))
+                .flatMap(savedOrder -> recordPlaced(List.of(savedOrder)).thenReturn(savedOrder));
+    }
+
+    public Mono<CreateOrdersResult> createOrders(final List<CartOrderRequest> requests) {
+        OrderBatch batch = new OrderBatch(requests, productSnapshotService);
+        return shoppingClient.getShoppingCarts(batch.cartIds())
+                .doOnNext(batch::addAll)
+                .then(Mono.defer(() -> saveSnapshots(batch.snapshots())))
+                .then(Mono.defer(() -> prepareEvents(OrderEventType.CREATED, OrderService.orderIds(batch.orders()))))
+                .flatMap(events -> orderRepository.insertUnordered(batch.orders())
+                        .map(batch::inserted)
+                        .flatMap(createdOrders -> resolveEvents(events, OrderService.orderIds(createdOrders))
+                                .then(recordPlaced(createdOrders))))
+                .then(Mono.fromSupplier(batch::result));
+    }
+
+    public Mono<Order> retrieveOrder(final UUID orderId) {
+        return retrieveOrder(orderId, OrderView.STANDARD);
+    }
+
+    public Mono<Order> retrieveOrder(final UUID orderId, final OrderView view) {
+        Mono<Order> order = findOrder(orderId);
+        if (!view.isWithProducts()) {
+            return order;
+        }
+        return order.flatMap(foundOrder -> foundOrder.getLines() == null
+                ? Mono.just(foundOrder)
+                : snapshotRepository.findAllById(lineSnapshotIds(foundOrder))
+                .collectMap(ProductSnapshot::getId)
+                .map(snapshots -> foundOrder.toBuilder()
+                        .products(ProductSnapshotService.toProducts(foundOrder.getLines(), snapshots))
+                        .build()));
+    }
+
+    public Mono<Map<String, Object>> retrieveOrderFields(final UUID orderId, final Set<OrderField> fields) {
+        return orderRepository.findOrderFields(orderId, OrderService.mongoFields(fields))
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, OrderService.ORDER_NOT_FOUND)))
+                .map(order -> OrderField.project(order, fields));
+    }
+
+    public Mono<OrderPage> searchOrders(final OrderSearchCriteria criteria, final String cursor, final int limit) {
+        return Mono.defer(() -> {
+            OrderService.checkSearchLimit(limit);
+            OrderCursor after = cursor == null ? null : OrderCursor.decode(cursor);
+            return orderRepository.search(criteria, after, limit + 1)
+                    .collectList()
+                    .map(orders -> OrderService.toPage(orders, limit));
+        });
+    }
+
+    public Flux<Order> exportOrders(final OrderSearchCriteria criteria) {
+        return orderRepository.streamOrders(criteria, exportConfig.getCursorBatchSize());
+    }
+
+    public Mono<Void> deleteOrder(final UUID orderId) {
+        return orderRepository.deleteOrderByOrderId(orderId)
+                .filter(deleted -> deleted > 0)
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, OrderService.ORDER_NOT_FOUND)))
+                .then(recordEvents(OrderEventType.DELETED, List.of(orderId)));
+    }
+
+    public Mono<DeleteOrdersResult> deleteOrders(final List<UUID> orderIds) {
+        Set<UUID> uniqueOrderIds = new HashSet<>(orderIds);
+        Mono<Long> deleted = orderOutbox.isEnabled()
+                ? deleteOrdersWithEvents(uniqueOrderIds)
+                : orderRepository.deleteOrdersByOrderIdIn(uniqueOrderIds);
+        return deleted.map(count -> new DeleteOrdersResult(uniqueOrderIds.size(), count));
+    }
+
+    /**
+     * Finalizes with the same idempotency key handling as {@link OrderService#finalizeOrder}.
+     */
+    public Mono<Order> finalizeOrder(final UUID orderId, final String idempotencyKey) {
+        return Mono.defer(() -> {
+            Optional<Order> previousResult = idempotencyKey != null ? idempotencyCache.get(idempotencyKey, orderId) : Optional.empty();
+            return previousResult.map(Mono::just).orElseGet(() -> finalizeOrder(orderId));
+        }).doOnNext(order -> {
+            if (idempotencyKey != null) {
+                idempotencyCache.put(idempotencyKey, order);
+            }
+        });
+    }
+
+    private Mono<Order> finalizeOrder(final UUID orderId) {
+        return orderRepository.markPaid(orderId)
+                .flatMap(paidOrder -> recordEvents(OrderEventType.FINALIZED, List.of(orderId))
+                        .then(Mono.fromRunnable(() -> orderRollupService.recordPaid(paidOrder))
+                                .subscribeOn(Schedulers.boundedElastic()))
+                        .thenReturn(paidOrder))
+                .switchIfEmpty(Mono.defer(() -> findOrder(orderId)));
+    }
+
+    public Flux<UploadResult> importOrders(final Flux<DataBuffer> content, final UploadFormat format) {
+        if (format.gzipped()) {
+            return Flux.error(new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Gzipped uploads are not supported by the reactive API"));
+        }
+        Flux<UploadResult> records = format.newlineDelimited() ? readLines(content) : readArrayElements(content);
+        return records.publish(results -> Flux.merge(
+                results.filter(UploadResult::isRejected),
+                results.filter(result -> !result.isRejected())
+                        .doOnNext(result -> setOrderIdAndInsertDateTime(result.order()))
+                        .buffer(config.getBatchSize())
+                        .concatMap(this::insertBatch)));
+    }
+
+    private Flux<UploadResult> readLines(final Flux<DataBuffer> content) {
+        return lineDecoder.decode(content, STRING_TYPE, null, null)
+                .index()
+                .filter(line -> !line.getT2().isBlank())
+                .map(line -> {
+                    try {
+                        return toUploadResult(line.getT1(), orderReader.readValue(line.getT2()));
+                    } catch (JsonProcessingException e) {
+                        return UploadResult.rejected(line.getT1(), OrderImporter.MALFORMED_ORDER + e.getOriginalMessage());
+                    }
+                });
+    }
+
+    private Flux<UploadResult> readArrayElements(final Flux<DataBuffer> content) {
+        return orderDecoder.decode(content, JSON_NODE_TYPE, null, null)
+                .cast(JsonNode.class)
+                .index()
+                .map(element -> {
+                    try {
+                        return toUploadResult(element.getT1(), orderReader.readValue(element.getT2()));
+                    } catch (IOException e) {
+                        return UploadResult.rejected(element.getT1(), OrderImporter.MALFORMED_ORDER + e.getMessage());
+                    }
+                });
+    }
+
+    private UploadResult toUploadResult(final long index, final Order order) {
+        if (order == null) {
+            return UploadResult.rejected(index, OrderImporter.NULL_ORDER);
+        }
+        String violations = OrderImporter.describe(validator.validate(order));
+        return violations == null ? UploadResult.accepted(index, order) : UploadResult.rejected(index, violations);
+    }
+
+    private Flux<UploadResult> insertBatch(final List<UploadResult> accepted) {
+        List<Order> orders = accepted.stream().map(UploadResult::order).toList();
+        Map<String, ProductSnapshot> snapshots = new LinkedHashMap<>();
+        for (Order order : orders) {
+            if (order.getProducts() != null) {
+                SnapshottedProducts snapshottedProducts = productSnapshotService.snapshot(order.getProducts());
+                snapshottedProducts.snapshots().forEach(snapshot -> snapshots.putIfAbsent(snapshot.getId(), snapshot));
+                order.setLines(snapshottedProducts.lines());
+                order.setProducts(null);
+            }
+            order.setTotal(OrderLine.total(order.getLines()));
+        }
+        return saveSnapshots(snapshots.values())
+                .thenMany(Flux.defer(() -> orderRepository.insert(orders)))
+                .collectList()
+                .flatMapMany(insertedOrders -> recordPlaced(insertedOrders).thenMany(Flux.range(0, insertedOrders.size())
+                        .map(i -> UploadResult.accepted(accepted.get(i).index(), insertedOrders.get(i)))));
+    }
+
+    public Mono<List<OrderRollup>> retrieveRollups(final LocalDateTime from, final LocalDateTime to, final Category category) {
+        return Mono.fromCallable(() -> orderRollupService.rollups(from, to, category))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public Mono<Long> rebuildRollups(final LocalDateTime from, final LocalDateTime to) {
+        return Mono.fromCallable(() -> orderRollupService.rebuild(from, to))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Deletes the orders and records events for those that exist; see {@link OrderService} for why the existence read
+     * is needed.
+     */
+    private Mono<Long> deleteOrdersWithEvents(final Set<UUID> orderIds) {
+        return orderRepository.findPaidStates(orderIds)
+                .map(Map::keySet)
+                .flatMap(existing -> existing.isEmpty()
+                        ? Mono.just(0L)
+                        : prepareEvents(OrderEventType.DELETED, existing)
+                        .flatMap(events -> orderRepository.deleteOrdersByOrderIdIn(orderIds)
+                                .flatMap(deleted -> (deleted == existing.size() ? commitEvents(events) : Mono.<Void>empty())
+                                        .thenReturn(deleted))));
+    }
+
+    private Mono<Void> recordEvents(final OrderEventType type, final Collection<UUID> orderIds) {
+        return Mono.fromRunnable(() -> orderOutbox.record(type, orderIds))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+
+    private Mono<List<OrderEvent>> prepareEvents(final OrderEventType type, final Collection<UUID> orderIds) {
+        return Mono.fromCallable(() -> orderOutbox.prepare(type, orderIds))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private Mono<Void> commitEvents(final List<OrderEvent> events) {
+        return Mono.fromRunnable(() -> orderOutbox.commit(events))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+
+    private Mono<Void> resolveEvents(final List<OrderEvent> events, final Collection<UUID> changedOrderIds) {
+        return Mono.fromRunnable(() -> orderOutbox.resolve(events, changedOrderIds))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+
+    private Mono<Void> recordPlaced(final List<Order> orders) {
+        return Mono.fromRunnable(() -> orderRollupService.recordPlaced(orders))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+
+    private Mono<Void> saveSnapshots(final Collection<ProductSnapshot> snapshots) {
+        List<ProductSnapshot> unsavedSnapshots = productSnapshotService.unsaved(snapshots);
+        if (unsavedSnapshots.isEmpty()) {
+            return Mono.empty();
+        }
+        return snapshotRepository.saveAll(unsavedSnapshots)
+                .then(Mono.fromRunnable(() -> productSnapshotService.markSaved(unsavedSnapshots)));
+    }
+
+    private static List<String> lineSnapshotIds(final Order order) {
+        return Optional.ofNullable(order.getLines()).orElse(List.of()).stream()
+                .map(OrderLine::getSnapshotId)
+                .distinct()
+                .toList();
+    }
+
+    private Mono<Order> findOrder(final UUID orderId) {
+        return orderRepository.findOrderByOrderId(orderId)
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, OrderService.ORDER_NOT_FOUND)));
+    }
+
+    private void setOrderIdAndInsertDateTime(final Order order) {
+        order.setOrderId(UUID.randomUUID());
+        order.setInsertDateTime(LocalDateTime.now());
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.model.OrderLine;
+import com.example.weborderservice.model.ProductSnapshot;
+
+import java.util.List;
+
+public record SnapshottedProducts(List<OrderLine> lines, List<ProductSnapshot> snapshots) {
+}
@@ -0,0 +1,25 @@
+package com.example.weborderservice.service;
+
+import java.util.Locale;
+import java.util.Set;
+
+public record UploadFormat(boolean newlineDelimited, boolean gzipped) {
+
+    public static final UploadFormat JSON_ARRAY = new UploadFormat(false, false);
+
+    private static final Set<String> NDJSON_CONTENT_TYPES = Set.of("application/x-ndjson", "application/ndjson", "application/jsonl", "application/x-jsonlines");
+    private static final Set<String> GZIP_CONTENT_TYPES = Set.of("application/gzip", "application/x-gzip");
+    private static final String GZIP_EXTENSION = ".gz";
+
+    public static UploadFormat detect(final String contentType, final String filename) {
+        String type = contentType == null ? "" : contentType.toLowerCase(Locale.ROOT).split(";")[0].trim();
+        String name = filename == null ? "" : filename.toLowerCase(Locale.ROOT);
+
+        boolean gzipped = GZIP_CONTENT_TYPES.contains(type) || name.endsWith(GZIP_EXTENSION);
+        if (name.endsWith(GZIP_EXTENSION)) {
+            name = name.substring(0, name.length() - GZIP_EXTENSION.length());
+        }
+        boolean newlineDelimited = NDJSON_CONTENT_TYPES.contains(type) || name.endsWith(".ndjson") || name.endsWith(".jsonl");
+        return new UploadFormat(newlineDelimited, gzipped);
+    }
+}
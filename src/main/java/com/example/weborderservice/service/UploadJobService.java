@@ -0,0 +1,178 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.config.UploadConfig;
+import com.example.weborderservice.model.UploadJobState;
+import com.example.weborderservice.model.UploadJobStatus;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@Slf4j
+public class UploadJobService {
+
+    private final OrderImporter orderImporter;
+    private final UploadConfig config;
+    private final Clock clock;
+    private final ThreadPoolExecutor executor;
+    private final Map<UUID, UploadJob> jobs = new ConcurrentHashMap<>();
+    private final Semaphore jobSlots;
+
+    @Autowired
+    public UploadJobService(OrderImporter orderImporter, UploadConfig config) {
+        this(orderImporter, config, Clock.systemDefaultZone());
+    }
+
+    UploadJobService(OrderImporter orderImporter, UploadConfig config, Clock clock) {
+        this.orderImporter = orderImporter;
+        this.config = config;
+        this.clock = clock;
+        this.jobSlots = new Semaphore(config.getMaxJobs());
+        this.executor = new ThreadPoolExecutor(config.getJobWorkers(), config.getJobWorkers(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.getJobQueueCapacity()),
+                new CustomizableThreadFactory("order-upload-"));
+    }
+
+    public UploadJobStatus submit(final MultipartFile file) {
+        removeExpiredJobs();
+        if (!jobSlots.tryAcquire()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many upload jobs");
+        }
+        try {
+            return start(file);
+        } catch (RuntimeException e) {
+            jobSlots.release();
+            throw e;
+        }
+    }
+
+    public UploadJobStatus getStatus(final UUID jobId) {
+        UploadJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Upload job not found");
+        }
+        return job.toStatus(clock);
+    }
+
+    @Scheduled(fixedDelayString = "${internal.upload.job-purge-interval:PT1M}")
+    public void removeExpiredJobs() {
+        LocalDateTime expiredBefore = LocalDateTime.now(clock).minus(config.getJobRetention());
+        for (UploadJob job : jobs.values()) {
+            if (job.finishedAt != null && job.finishedAt.isBefore(expiredBefore) && jobs.remove(job.jobId, job)) {
+                jobSlots.release();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private UploadJobStatus start(final MultipartFile file) {
+        UploadFormat format = UploadFormat.detect(file.getContentType(), file.getOriginalFilename());
+        Path spoolFile = spool(file);
+        UploadJob job = new UploadJob(UUID.randomUUID(), new UploadProgress(config.getMaxReportedFailures()), LocalDateTime.now(clock));
+        jobs.put(job.jobId, job);
+        try {
+            executor.execute(() -> run(job, spoolFile, format));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.jobId);
+            deleteSpoolFile(spoolFile);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Upload queue is full", e);
+        }
+        return job.toStatus(clock);
+    }
+
+    private void run(final UploadJob job, final Path spoolFile, final UploadFormat format) {
+        job.startedAt = LocalDateTime.now(clock);
+        job.state = UploadJobState.RUNNING;
+        try (InputStream inputStream = Files.newInputStream(spoolFile)) {
+            orderImporter.importOrders(inputStream, format, job.progress);
+            job.state = UploadJobState.COMPLETED;
+        } catch (Exception e) {
+            log.warn("Upload job {} failed", job.jobId, e);
+            job.error = e instanceof ResponseStatusException statusException ? statusException.getReason() : e.getMessage();
+            job.state = UploadJobState.FAILED;
+        } finally {
+            job.finishedAt = LocalDateTime.now(clock);
+            deleteSpoolFile(spoolFile);
+        }
+    }
+
+    private Path spool(final MultipartFile file) {
+        try {
+            Path spoolFile = Files.createTempFile("order-upload-", ".tmp");
+            try (InputStream inputStream = file.getInputStream()) {
+                Files.copy(inputStream, spoolFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return spoolFile;
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error processing file", e);
+        }
+    }
+
+    private void deleteSpoolFile(final Path spoolFile) {
+        try {
+            Files.deleteIfExists(spoolFile);
+        } catch (IOException e) {
+            log.warn("Could not delete upload spool file {}", spoolFile, e);
+        }
+    }
+
+    private static class UploadJob {
+        private final UUID jobId;
+        private final UploadProgress progress;
+        private final LocalDateTime submittedAt;
+        private volatile UploadJobState state = UploadJobState.QUEUED;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+
+        private UploadJob(UUID jobId, UploadProgress progress, LocalDateTime submittedAt) {
+            this.jobId = jobId;
+            this.progress = progress;
+            this.submittedAt = submittedAt;
+        }
+
+        private UploadJobStatus toStatus(final Clock clock) {
+            return new UploadJobStatus(jobId, state, progress.getParsed(), progress.getPersisted(),
+                    progress.getRejected(), recordsPerSecond(clock), progress.getRejections(),
+                    submittedAt, finishedAt, error);
+        }
+
+        private double recordsPerSecond(final Clock clock) {
+            LocalDateTime start = startedAt;
+            if (start == null) {
+                return 0;
+            }
+            LocalDateTime end = finishedAt != null ? finishedAt : LocalDateTime.now(clock);
+            long elapsedMillis = Math.max(Duration.between(start, end).toMillis(), 1);
+            return progress.getParsed() * 1000.0 / elapsedMillis;
+        }
+    }
+}
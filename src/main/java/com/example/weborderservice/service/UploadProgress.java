@@ -0,0 +1,55 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.model.UploadRejection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class UploadProgress {
+
+    private final AtomicLong parsed = new AtomicLong();
+    private final AtomicLong persisted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final List<UploadRejection> rejections = new ArrayList<>();
+    private final int maxReportedFailures;
+
+    public UploadProgress(int maxReportedFailures) {
+        this.maxReportedFailures = maxReportedFailures;
+    }
+
+    public void recordParsed() {
+        parsed.incrementAndGet();
+    }
+
+    public void recordPersisted(long count) {
+        persisted.addAndGet(count);
+    }
+
+    public void recordRejected(long index, String reason) {
+        rejected.incrementAndGet();
+        synchronized (rejections) {
+            if (rejections.size() < maxReportedFailures) {
+                rejections.add(new UploadRejection(index, reason));
+            }
+        }
+    }
+
+    public long getParsed() {
+        return parsed.get();
+    }
+
+    public long getPersisted() {
+        return persisted.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public List<UploadRejection> getRejections() {
+        synchronized (rejections) {
+            return List.copyOf(rejections);
+        }
+    }
+}
@@ -1,13 +1,29 @@
 package com.example.weborderservice;
 
+import com.example.weborderservice.repository.ReactiveOrderRepository;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
 
 @SpringBootTest
 class OrderServiceApplicationTests {
 
+    @Autowired
+    private ApplicationContext context;
+
     @Test
     void contextLoads() {
     }
 
+    @Test
+    void should_not_create_reactive_mongo_beans_for_the_servlet_api() {
+        assertThat(context.getBeanNamesForType(com.mongodb.reactivestreams.client.MongoClient.class)).isEmpty();
+        assertThat(context.getBeanNamesForType(ReactiveMongoTemplate.class)).isEmpty();
+        assertThat(context.getBeanNamesForType(ReactiveOrderRepository.class)).isEmpty();
+    }
+
 }
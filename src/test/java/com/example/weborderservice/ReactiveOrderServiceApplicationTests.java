@@ -0,0 +1,26 @@
+package com.example.weborderservice;
+
+import com.example.weborderservice.repository.OrderRepository;
+import com.example.weborderservice.repository.ReactiveOrderRepository;
+import com.example.weborderservice.service.ReactiveOrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.main.web-application-type=reactive")
+class ReactiveOrderServiceApplicationTests {
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Test
+    void should_create_reactive_mongo_beans_for_the_reactive_api() {
+        assertThat(context.getBeanNamesForType(ReactiveOrderRepository.class)).hasSize(1);
+        assertThat(context.getBeanNamesForType(ReactiveOrderService.class)).hasSize(1);
+        // the cleanup scheduler and outbox relay keep using the blocking repositories
+        assertThat(context.getBeanNamesForType(OrderRepository.class)).hasSize(1);
+    }
+}
@@ -10,19 +10,27 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Mono;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -108,7 +116,7 @@ class OrderControllerTest {
 
     @Test
     void should_return_created_order() throws Exception {
-        when(orderService.createOrder(any(), any(), any())).thenReturn(ORDER);
+        when(orderService.createOrder(any(), any(), any(), any())).thenReturn(ORDER);
 
         String createOrderRequestBodyJson = objectMapper.writeValueAsString(new CreateOrderRequestBody(CUSTOMER_INFO, DELIVERY_INFO));
 
@@ -154,7 +162,7 @@ class OrderControllerTest {
 
     @Test
     void should_return_error_in_case_service_returned_error() throws Exception {
-        when(orderService.createOrder(any(), any(), any())).thenThrow(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Some error"));
+        when(orderService.createOrder(any(), any(), any(), any())).thenThrow(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Some error"));
 
         mockMvc.perform(post("/order/{orderId}", ORDER.getOrderId())
                         .contentType(MediaType.APPLICATION_JSON)
@@ -164,7 +172,7 @@ class OrderControllerTest {
 
     @Test
     void should_return_order() throws Exception {
-        when(orderService.retrieveOrder(any())).thenReturn(ORDER);
+        when(orderService.retrieveOrder(any(), any())).thenReturn(ORDER);
 
         mockMvc.perform(get("/order/{orderId}", ORDER.getOrderId()))
                 .andExpect(status().isOk())
@@ -172,6 +180,149 @@ class OrderControllerTest {
                 .andExpect(jsonPath("$.orderId").value(ORDER.getOrderId().toString()));
     }
 
+    @Test
+    void should_pass_full_view_to_service() throws Exception {
+        when(orderService.retrieveOrder(ORDER.getOrderId(), OrderView.FULL)).thenReturn(ORDER);
+
+        mockMvc.perform(get("/order/{orderId}", ORDER.getOrderId()).param("view", "full"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products").isArray());
+    }
+
+    @Test
+    void should_return_bad_request_for_unknown_view() throws Exception {
+        mockMvc.perform(get("/order/{orderId}", ORDER.getOrderId()).param("view", "everything"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    void should_return_only_requested_fields() throws Exception {
+        when(orderService.retrieveOrderFields(ORDER.getOrderId(), EnumSet.of(OrderField.ORDER_ID, OrderField.PAID)))
+                .thenReturn(Map.of("orderId", ORDER.getOrderId(), "paid", false));
+
+        mockMvc.perform(get("/order/{orderId}", ORDER.getOrderId()).param("fields", "paid, orderId"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.paid").value(false))
+                .andExpect(jsonPath("$.customerInfo").doesNotExist());
+    }
+
+    @Test
+    void should_return_summary_view_as_projection() throws Exception {
+        when(orderService.retrieveOrderFields(ORDER.getOrderId(), OrderView.SUMMARY.getFields()))
+                .thenReturn(Map.of("orderId", ORDER.getOrderId(), "paid", false));
+
+        mockMvc.perform(get("/order/{orderId}", ORDER.getOrderId()).param("view", "summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.paid").value(false));
+        verify(orderService, never()).retrieveOrder(any(), any());
+    }
+
+    @Test
+    void should_return_bad_request_for_unknown_field() throws Exception {
+        mockMvc.perform(get("/order/{orderId}", ORDER.getOrderId()).param("fields", "paid,reviews"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    void should_return_bad_request_for_both_view_and_fields() throws Exception {
+        mockMvc.perform(get("/order/{orderId}", ORDER.getOrderId()).param("fields", "paid").param("view", "full"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    void should_search_orders_with_filters() throws Exception {
+        OrderSearchCriteria criteria = new OrderSearchCriteria("joedoe@test.com", false, LocalDateTime.of(2023, 10, 1, 0, 0),
+                null, Category.BOOKS);
+        when(orderService.searchOrders(criteria, "abc", 20)).thenReturn(new OrderPage(List.of(ORDER), "next"));
+
+        mockMvc.perform(get("/order")
+                        .param("email", "joedoe@test.com")
+                        .param("paid", "false")
+                        .param("from", "2023-10-01T00:00:00")
+                        .param("category", "BOOKS")
+                        .param("cursor", "abc")
+                        .param("limit", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orders[0].orderId").value(ORDER.getOrderId().toString()))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+    }
+
+    @Test
+    void should_stream_export_as_gzipped_ndjson_when_accepted() throws Exception {
+        when(orderService.exportOrders(any(), any(), eq(true))).thenAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(1).write("{}\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+
+        MvcResult result = mockMvc.perform(get("/order/export").param("paid", "true").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+        verify(orderService).exportOrders(eq(new OrderSearchCriteria(null, true, null, null, null)), any(), eq(true));
+    }
+
+    @Test
+    void should_not_gzip_export_when_client_refuses_gzip() throws Exception {
+        when(orderService.exportOrders(any(), any(), eq(false))).thenReturn(0L);
+
+        MvcResult result = mockMvc.perform(get("/order/export").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, deflate"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+        verify(orderService).exportOrders(any(), any(), eq(false));
+    }
+
+    @Test
+    void should_parse_accept_encoding_quality_values() {
+        assertTrue(OrderController.acceptsGzip("deflate, gzip;q=0.5"));
+        assertTrue(OrderController.acceptsGzip("*"));
+        assertTrue(OrderController.acceptsGzip("X-GZIP"));
+        assertFalse(OrderController.acceptsGzip(null));
+        assertFalse(OrderController.acceptsGzip("identity"));
+        assertFalse(OrderController.acceptsGzip("gzip; q=0.0"));
+        assertFalse(OrderController.acceptsGzip("gzip;q=0, *"));
+        assertFalse(OrderController.acceptsGzip("*;q=0"));
+        assertFalse(OrderController.acceptsGzip("gzipped"));
+    }
+
+    @Test
+    void should_return_hourly_rollups() throws Exception {
+        LocalDateTime hour = LocalDateTime.of(2023, 10, 1, 12, 0);
+        when(orderService.retrieveRollups(hour, null, Category.BOOKS)).thenReturn(List.of(OrderRollup.builder()
+                .id(OrderRollup.id(hour, Category.BOOKS)).hour(hour).category(Category.BOOKS).orders(3).revenue(BigDecimal.TEN).build()));
+
+        mockMvc.perform(get("/order/stats").param("from", "2023-10-01T12:00:00").param("category", "BOOKS"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].category").value("BOOKS"))
+                .andExpect(jsonPath("$[0].orders").value(3));
+    }
+
+    @Test
+    void should_rebuild_rollups_of_requested_hours() throws Exception {
+        when(orderService.rebuildRollups(LocalDateTime.of(2023, 10, 1, 12, 0), LocalDateTime.of(2023, 10, 1, 14, 0))).thenReturn(7L);
+
+        mockMvc.perform(post("/order/stats/rebuild").param("from", "2023-10-01T12:00:00").param("to", "2023-10-01T14:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("7"));
+    }
+
+    @Test
+    void should_return_bad_request_for_unknown_search_category() throws Exception {
+        mockMvc.perform(get("/order").param("category", "SPACESHIPS"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(orderService);
+    }
+
     @Test
     void should_return_bad_request_for_invalid_orderId_format_for_retrieve() throws Exception {
         mockMvc.perform(get("/order/{orderId}", NOT_UUID_STRING))
@@ -180,7 +331,7 @@ class OrderControllerTest {
 
     @Test
     void should_return_error_in_case_retrieve_error_returned_one() throws Exception {
-        when(orderService.retrieveOrder(any())).thenThrow(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Some error"));
+        when(orderService.retrieveOrder(any(), any())).thenThrow(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Some error"));
 
         mockMvc.perform(get("/order/{orderId}", ORDER.getOrderId()))
                 .andExpect(status().is5xxServerError());
@@ -208,9 +359,64 @@ class OrderControllerTest {
                 .andExpect(status().is5xxServerError());
     }
 
+    @Test
+    void should_delete_orders_in_bulk() throws Exception {
+        UUID otherOrderId = UUID.randomUUID();
+        when(orderService.deleteOrders(List.of(ORDER.getOrderId(), otherOrderId))).thenReturn(new DeleteOrdersResult(2, 1));
+
+        mockMvc.perform(delete("/order")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new DeleteOrdersRequestBody(List.of(ORDER.getOrderId(), otherOrderId)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.requested").value(2))
+                .andExpect(jsonPath("$.deleted").value(1));
+    }
+
+    @Test
+    void should_create_orders_in_batch() throws Exception {
+        UUID missingCartId = UUID.randomUUID();
+        List<CartOrderRequest> requests = List.of(
+                new CartOrderRequest(ORDER.getOrderId(), CUSTOMER_INFO, DELIVERY_INFO),
+                new CartOrderRequest(missingCartId, CUSTOMER_INFO, DELIVERY_INFO));
+        when(orderService.createOrders(requests)).thenReturn(new CreateOrdersResult(2, 1, List.of(
+                CartOrderResult.created(ORDER.getOrderId(), ORDER),
+                CartOrderResult.failed(missingCartId, new ResponseStatusException(HttpStatus.NOT_FOUND, "Shopping cart not found")))));
+
+        mockMvc.perform(post("/order/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CreateOrdersRequestBody(requests))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.results[0].status").value(201))
+                .andExpect(jsonPath("$.results[0].order.orderId").value(ORDER.getOrderId().toString()))
+                .andExpect(jsonPath("$.results[1].status").value(404))
+                .andExpect(jsonPath("$.results[1].order").doesNotExist())
+                .andExpect(jsonPath("$.results[1].error").value("Shopping cart not found"));
+    }
+
+    @Test
+    void should_return_bad_request_for_invalid_batch_entry() throws Exception {
+        mockMvc.perform(post("/order/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CreateOrdersRequestBody(List.of(
+                                new CartOrderRequest(UUID.randomUUID(), INVALID_CUSTOMER_INFO, DELIVERY_INFO))))))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    void should_return_bad_request_for_empty_bulk_delete() throws Exception {
+        mockMvc.perform(delete("/order")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new DeleteOrdersRequestBody(List.of()))))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(orderService);
+    }
+
     @Test
     void should_return_finalized_order() throws Exception {
-        when(orderService.finalizeOrder(any())).thenReturn(ORDER);
+        when(orderService.finalizeOrder(any(), any())).thenReturn(ORDER);
 
         String paymentRequestJson = objectMapper.writeValueAsString(PAYMENT_REQUEST);
 
@@ -222,6 +428,32 @@ class OrderControllerTest {
                 .andExpect(jsonPath("$.orderId").value(ORDER.getOrderId().toString()));
     }
 
+    @Test
+    void should_pass_idempotency_key_to_create() throws Exception {
+        UUID cartId = UUID.randomUUID();
+        when(orderService.createOrder(cartId, CUSTOMER_INFO, DELIVERY_INFO, "retry-key")).thenReturn(ORDER);
+
+        mockMvc.perform(post("/order/{cartId}", cartId)
+                        .header(OrderController.IDEMPOTENCY_KEY, "retry-key")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CreateOrderRequestBody(CUSTOMER_INFO, DELIVERY_INFO))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orderId").value(ORDER.getOrderId().toString()));
+    }
+
+    @Test
+    void should_pass_idempotency_key_to_finalize() throws Exception {
+        when(orderService.finalizeOrder(ORDER.getOrderId(), "retry-key")).thenReturn(ORDER);
+
+        mockMvc.perform(post("/order/{orderId}/finalize", ORDER.getOrderId())
+                        .header(OrderController.IDEMPOTENCY_KEY, "retry-key")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(PAYMENT_REQUEST)))
+                .andExpect(status().isOk());
+
+        verify(orderService).finalizeOrder(ORDER.getOrderId(), "retry-key");
+    }
+
     @Test
     void should_return_bad_request_for_invalid_request_body() throws Exception {
         String invalidPaymentRequestJson = objectMapper.writeValueAsString(INVALID_PAYMENT_REQUEST);
@@ -244,7 +476,7 @@ class OrderControllerTest {
 
     @Test
     void should_return_error_if_finalize_returned_error() throws Exception {
-        when(orderService.finalizeOrder(any())).thenThrow(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Some error"));
+        when(orderService.finalizeOrder(any(), any())).thenThrow(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Some error"));
 
         String paymentRequestJson = objectMapper.writeValueAsString(PAYMENT_REQUEST);
 
@@ -258,12 +490,37 @@ class OrderControllerTest {
     void should_return_success_for_orders_upload() throws Exception {
         MockMultipartFile file = new MockMultipartFile("file", "orders.json", "application/json", "<<json data>>".getBytes());
 
-        when(orderService.uploadProducts(any())).thenReturn(List.of(ORDER));
+        UUID jobId = UUID.randomUUID();
+        when(orderService.uploadProducts(any())).thenReturn(new UploadJobStatus(jobId, UploadJobState.QUEUED, 0, 0, 0, 0, List.of(), null, null, null));
 
         mockMvc.perform(multipart("/order/upload").file(file))
-                .andExpect(status().isOk())
+                .andExpect(status().isAccepted())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$[0].orderId").value(ORDER.getOrderId().toString()));
+                .andExpect(jsonPath("$.jobId").value(jobId.toString()))
+                .andExpect(jsonPath("$.state").value("QUEUED"));
+    }
+
+    @Test
+    void should_return_upload_status() throws Exception {
+        UUID jobId = UUID.randomUUID();
+        when(orderService.retrieveUploadStatus(jobId)).thenReturn(new UploadJobStatus(jobId, UploadJobState.COMPLETED, 3, 2, 1, 150.0, List.of(new UploadRejection(2, "customerInfo.firstName must not be blank")), null, null, null));
+
+        mockMvc.perform(get("/order/upload/{jobId}", jobId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("COMPLETED"))
+                .andExpect(jsonPath("$.parsed").value(3))
+                .andExpect(jsonPath("$.persisted").value(2))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.rejections[0].index").value(2))
+                .andExpect(jsonPath("$.rejections[0].reason").value("customerInfo.firstName must not be blank"));
+    }
+
+    @Test
+    void should_return_not_found_for_unknown_upload_job() throws Exception {
+        when(orderService.retrieveUploadStatus(any())).thenThrow(new ResponseStatusException(HttpStatus.NOT_FOUND, "Upload job not found"));
+
+        mockMvc.perform(get("/order/upload/{jobId}", UUID.randomUUID()))
+                .andExpect(status().isNotFound());
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,188 @@
+package com.example.weborderservice.api;
+
+import com.example.weborderservice.model.*;
+import com.example.weborderservice.service.ReactiveOrderService;
+import com.example.weborderservice.service.UploadFormat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ReactiveOrderControllerTest {
+
+    private static final CustomerInfo CUSTOMER_INFO = CustomerInfo.builder()
+            .firstName("Joe")
+            .lastName("Doe")
+            .email("joedoe@test.com")
+            .phoneNumber("555666777")
+            .build();
+    private static final CustomerInfo INVALID_CUSTOMER_INFO = CustomerInfo.builder()
+            .lastName("Doe")
+            .email("joedoe@test.com")
+            .phoneNumber("555666777")
+            .build();
+    private static final DeliveryInfo DELIVERY_INFO = DeliveryInfo.builder()
+            .address("Street 1")
+            .city("London")
+            .postalCode("33333")
+            .country("United Kingdom")
+            .build();
+    private static final Order ORDER = Order.builder()
+            .orderId(UUID.randomUUID())
+            .customerInfo(CUSTOMER_INFO)
+            .deliveryInfo(DELIVERY_INFO)
+            .isPaid(false)
+            .build();
+
+    @Mock
+    private ReactiveOrderService orderService;
+
+    @InjectMocks
+    private ReactiveOrderController orderController;
+
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        webTestClient = WebTestClient.bindToController(orderController).build();
+    }
+
+    @Test
+    void should_return_created_order() {
+        when(orderService.createOrder(any(), any(), any(), any())).thenReturn(Mono.just(ORDER));
+
+        webTestClient.post().uri("/order/{cartId}", UUID.randomUUID())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new CreateOrderRequestBody(CUSTOMER_INFO, DELIVERY_INFO))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.orderId").isEqualTo(ORDER.getOrderId().toString());
+    }
+
+    @Test
+    void should_pass_idempotency_key_to_create() {
+        UUID cartId = UUID.randomUUID();
+        when(orderService.createOrder(cartId, CUSTOMER_INFO, DELIVERY_INFO, "retry-key")).thenReturn(Mono.just(ORDER));
+
+        webTestClient.post().uri("/order/{cartId}", cartId)
+                .header(OrderController.IDEMPOTENCY_KEY, "retry-key")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new CreateOrderRequestBody(CUSTOMER_INFO, DELIVERY_INFO))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.orderId").isEqualTo(ORDER.getOrderId().toString());
+    }
+
+    @Test
+    void should_return_bad_request_for_invalid_customer_info() {
+        webTestClient.post().uri("/order/{cartId}", UUID.randomUUID())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new CreateOrderRequestBody(INVALID_CUSTOMER_INFO, DELIVERY_INFO))
+                .exchange()
+                .expectStatus().isBadRequest();
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    void should_return_not_found_for_missing_order() {
+        when(orderService.retrieveOrder(any(), any())).thenReturn(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found")));
+
+        webTestClient.get().uri("/order/{orderId}", ORDER.getOrderId())
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void should_return_only_requested_fields() {
+        when(orderService.retrieveOrderFields(ORDER.getOrderId(), EnumSet.of(OrderField.PAID)))
+                .thenReturn(Mono.just(Map.of("paid", false)));
+
+        webTestClient.get().uri("/order/{orderId}?fields=paid", ORDER.getOrderId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.paid").isEqualTo(false)
+                .jsonPath("$.orderId").doesNotExist();
+    }
+
+    @Test
+    void should_return_bad_request_for_invalid_orderId_format() {
+        webTestClient.get().uri("/order/{orderId}", "not-uuid-string")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void should_return_empty_for_deleted_order() {
+        when(orderService.deleteOrder(ORDER.getOrderId())).thenReturn(Mono.empty());
+
+        webTestClient.delete().uri("/order/{orderId}", ORDER.getOrderId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    void should_pass_idempotency_key_to_finalize() {
+        when(orderService.finalizeOrder(ORDER.getOrderId(), "retry-key")).thenReturn(Mono.just(ORDER));
+
+        webTestClient.post().uri("/order/{orderId}/finalize", ORDER.getOrderId())
+                .header(OrderController.IDEMPOTENCY_KEY, "retry-key")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(OrderControllerTest.PAYMENT_REQUEST)
+                .exchange()
+                .expectStatus().isOk();
+
+        verify(orderService).finalizeOrder(ORDER.getOrderId(), "retry-key");
+    }
+
+    @Test
+    void should_stream_persisted_orders_and_rejections_for_upload() {
+        when(orderService.importOrders(any(), any()))
+                .thenReturn(Flux.just(UploadResult.accepted(0, ORDER), UploadResult.rejected(1, "Malformed order: oops")));
+        MultipartBodyBuilder body = new MultipartBodyBuilder();
+        body.part("file", new ByteArrayResource("{}\n{}".getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public String getFilename() {
+                return "orders.ndjson";
+            }
+        });
+
+        webTestClient.post().uri("/order/upload")
+                .contentType(MediaType.MULTIPART_FORM_DATA)
+                .body(BodyInserters.fromMultipartData(body.build()))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(UploadResult.class)
+                .value(results -> {
+                    assertThat(results.get(0).order().getOrderId()).isEqualTo(ORDER.getOrderId());
+                    assertThat(results.get(1)).isEqualTo(UploadResult.rejected(1, "Malformed order: oops"));
+                });
+
+        ArgumentCaptor<UploadFormat> format = ArgumentCaptor.forClass(UploadFormat.class);
+        verify(orderService).importOrders(any(), format.capture());
+        assertThat(format.getValue().newlineDelimited()).isTrue();
+    }
+}
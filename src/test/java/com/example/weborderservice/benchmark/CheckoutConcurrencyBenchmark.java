@@ -0,0 +1,110 @@
+package com.example.weborderservice.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how many concurrent checkouts the service sustains while the shopping service answers with a fixed
+ * latency. Every concurrency level keeps that many createOrder calls in flight for a fixed duration.
+ *
+ * <pre>
+ * mvn -Pjava21 test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.example.weborderservice.benchmark.CheckoutConcurrencyBenchmark \
+ *     -DvirtualThreads=true -Dconcurrency=100,200,400,800,1600 -DlatencyMillis=200
+ * </pre>
+ * The reactive stack is measured with {@code -DwebApplicationType=reactive}.
+ */
+public class CheckoutConcurrencyBenchmark {
+
+    private static final String REQUEST_BODY = """
+            {"customerInfo":{"firstName":"Joe","lastName":"Doe","email":"joedoe@test.com","phoneNumber":"555666777"},
+             "deliveryInfo":{"address":"Street 1","city":"London","postalCode":"33333","country":"United Kingdom"}}""";
+
+    public static void main(String[] args) throws Exception {
+        boolean virtualThreads = Boolean.getBoolean("virtualThreads");
+        String webApplicationType = System.getProperty("webApplicationType", "servlet");
+        long latencyMillis = Long.getLong("latencyMillis", 200);
+        Duration levelDuration = Duration.ofSeconds(Long.getLong("durationSeconds", 10));
+        int[] concurrencyLevels = Arrays.stream(System.getProperty("concurrency", "100,200,400,800,1600").split(","))
+                .mapToInt(Integer::parseInt)
+                .toArray();
+
+        try (StubShoppingService shoppingService = new StubShoppingService(latencyMillis, 3);
+             LocalOrderService orderService = new LocalOrderService(shoppingService,
+                     "--internal.virtual-threads.enabled=" + virtualThreads,
+                     "--spring.main.web-application-type=" + webApplicationType)) {
+            HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+            System.out.printf("java=%s webApplicationType=%s virtualThreads=%s shoppingLatency=%dms duration=%ss%n",
+                    Runtime.version(), webApplicationType, virtualThreads, latencyMillis, levelDuration.toSeconds());
+            System.out.printf("%12s %12s %12s %12s %12s %10s%n", "concurrency", "orders/s", "p50 ms", "p99 ms", "max ms", "errors");
+            for (int concurrency : concurrencyLevels) {
+                LevelResult result = runLevel(httpClient, orderService.baseUrl(), concurrency, levelDuration);
+                System.out.printf("%12d %12.1f %12.1f %12.1f %12.1f %10d%n", concurrency, result.throughput(),
+                        result.percentile(0.50), result.percentile(0.99), result.percentile(1.0), result.errors());
+            }
+        }
+    }
+
+    private static LevelResult runLevel(final HttpClient httpClient, final String baseUrl, final int concurrency,
+                                        final Duration duration) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        long[] latencies = new long[1 << 22];
+        AtomicLong completed = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        CountDownLatch finished = new CountDownLatch(concurrency);
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < concurrency; i++) {
+            sendNext(httpClient, baseUrl, deadline, latencies, completed, errors, finished);
+        }
+        finished.await(duration.toSeconds() + 120, TimeUnit.SECONDS);
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+        int count = (int) Math.min(completed.get(), latencies.length);
+        long[] recorded = Arrays.copyOf(latencies, count);
+        Arrays.sort(recorded);
+        return new LevelResult(completed.get() / elapsedSeconds, recorded, errors.get());
+    }
+
+    private static void sendNext(final HttpClient httpClient, final String baseUrl, final long deadline, final long[] latencies,
+                                 final AtomicLong completed, final AtomicLong errors, final CountDownLatch finished) {
+        if (System.nanoTime() >= deadline) {
+            finished.countDown();
+            return;
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/" + UUID.randomUUID()))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(REQUEST_BODY))
+                .build();
+        long requestStart = System.nanoTime();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, throwable) -> {
+            if (throwable != null || response.statusCode() != 200) {
+                errors.incrementAndGet();
+            } else {
+                long index = completed.getAndIncrement();
+                if (index < latencies.length) {
+                    latencies[(int) index] = System.nanoTime() - requestStart;
+                }
+            }
+            sendNext(httpClient, baseUrl, deadline, latencies, completed, errors, finished);
+        });
+    }
+
+    private record LevelResult(double throughput, long[] sortedLatencies, long errors) {
+
+        double percentile(final double percentile) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.min(sortedLatencies.length - 1, Math.ceil(percentile * sortedLatencies.length) - 1);
+            return sortedLatencies[Math.max(index, 0)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.weborderservice.benchmark;
+
+import com.example.weborderservice.OrderServiceApplication;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the service on a random port against an in-memory Mongo stand-in and a {@link StubShoppingService}, so
+ * benchmarks need nothing but a JVM.
+ */
+public class LocalOrderService implements AutoCloseable {
+
+    private final MongoServer mongoServer;
+    private final ConfigurableApplicationContext context;
+
+    public LocalOrderService(StubShoppingService shoppingService, String... extraArgs) {
+        this.mongoServer = new MongoServer(new MemoryBackend());
+        InetSocketAddress mongoAddress = mongoServer.bind();
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.data.mongodb.uri=mongodb://localhost:" + mongoAddress.getPort() + "/order",
+                "--internal.api.shopping-service.url=" + shoppingService.url(),
+                "--internal.api.shopping-service.max-connections=4096",
+                "--internal.api.shopping-service.read-timeout=PT30S",
+                "--internal.api.shopping-service.connection-request-timeout=PT30S",
+                "--internal.api.shopping-service.circuit-breaker.slow-call-duration=PT30S",
+                "--logging.level.com.example.weborderservice=WARN",
+                "--logging.level.de.bwaldvogel=WARN"));
+        args.addAll(List.of(extraArgs));
+        try {
+            this.context = new SpringApplicationBuilder(OrderServiceApplication.class).run(args.toArray(String[]::new));
+        } catch (RuntimeException e) {
+            mongoServer.shutdownNow();
+            throw e;
+        }
+    }
+
+    public String baseUrl() {
+        return "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort() + "/order";
+    }
+
+    @Override
+    public void close() {
+        try {
+            context.close();
+        } finally {
+            mongoServer.shutdownNow();
+        }
+    }
+}
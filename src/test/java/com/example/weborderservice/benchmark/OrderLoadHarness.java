@@ -0,0 +1,327 @@
+package com.example.weborderservice.benchmark;
+
+import com.example.weborderservice.model.CustomerInfo;
+import com.example.weborderservice.model.DeliveryInfo;
+import com.example.weborderservice.model.Order;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Drives a weighted mix of create, retrieve, finalize, delete and upload calls against a {@link LocalOrderService}
+ * and reports throughput and latency percentiles per operation. Each of the {@code concurrency} clients runs a closed
+ * loop: it picks the next operation by weight as soon as its previous call completes.
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.example.weborderservice.benchmark.OrderLoadHarness \
+ *     -Dconcurrency=64 -DdurationSeconds=60 -DwarmupSeconds=15 \
+ *     -Dmix=create:30,retrieve:50,finalize:10,delete:5,upload:5 \
+ *     -DlatencyMillis=50 -DlatencyJitterMillis=20 -DproductsPerCart=5 \
+ *     -DmaxP99Millis=500 -DmaxErrorRate=0.001
+ * </pre>
+ * Percentile distributions are written to {@code target/load-test/<operation>.hgrm}. When {@code maxP99Millis} or
+ * {@code maxErrorRate} is set and exceeded, the harness exits with status 1 so it can gate a release.
+ * {@code -DvirtualThreads=true} only takes effect in a build with {@code -Pjava21}.
+ */
+public class OrderLoadHarness {
+
+    private static final String CREATE_BODY = """
+            {"customerInfo":{"firstName":"Joe","lastName":"Doe","email":"joedoe@test.com","phoneNumber":"555666777"},
+             "deliveryInfo":{"address":"Street 1","city":"London","postalCode":"33333","country":"United Kingdom"}}""";
+    private static final String PAYMENT_BODY = """
+            {"cardNumber":"4111111111111111","expirationMonth":"12","expirationYear":"2030","securityCode":"123",
+             "cardOwner":"Joe Doe"}""";
+    private static final String BOUNDARY = "order-load-harness";
+    private static final int KNOWN_ORDERS = 1 << 16;
+
+    enum Operation {
+        CREATE, RETRIEVE, FINALIZE, DELETE, UPLOAD
+    }
+
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final AtomicReferenceArray<UUID> knownOrders = new AtomicReferenceArray<>(KNOWN_ORDERS);
+    private final AtomicLong createdOrders = new AtomicLong();
+    private final String baseUrl;
+    private final Operation[] schedule;
+    private final byte[] uploadBody;
+
+    OrderLoadHarness(String baseUrl, Map<Operation, Integer> mix, byte[] uploadBody) {
+        this.baseUrl = baseUrl;
+        this.schedule = schedule(mix);
+        this.uploadBody = uploadBody;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = Integer.getInteger("concurrency", 64);
+        Duration duration = Duration.ofSeconds(Long.getLong("durationSeconds", 60));
+        Duration warmup = Duration.ofSeconds(Long.getLong("warmupSeconds", 15));
+        Map<Operation, Integer> mix = parseMix(System.getProperty("mix", "create:30,retrieve:50,finalize:10,delete:5,upload:5"));
+        long latencyMillis = Long.getLong("latencyMillis", 50);
+        long latencyJitterMillis = Long.getLong("latencyJitterMillis", 0);
+        int productsPerCart = Integer.getInteger("productsPerCart", 5);
+        int ordersPerUpload = Integer.getInteger("ordersPerUpload", 100);
+        String webApplicationType = System.getProperty("webApplicationType", "servlet");
+        Path reportDirectory = Path.of(System.getProperty("reportDirectory", "target/load-test"));
+
+        Report report;
+        try (StubShoppingService shoppingService = new StubShoppingService(latencyMillis, latencyJitterMillis, productsPerCart);
+             LocalOrderService orderService = new LocalOrderService(shoppingService,
+                     "--internal.virtual-threads.enabled=" + Boolean.getBoolean("virtualThreads"),
+                     "--spring.main.web-application-type=" + webApplicationType)) {
+            OrderLoadHarness harness = new OrderLoadHarness(orderService.baseUrl(), mix,
+                    uploadBody(shoppingService, ordersPerUpload));
+            System.out.printf("java=%s webApplicationType=%s concurrency=%d mix=%s shoppingLatency=%d+%dms productsPerCart=%d%n",
+                    Runtime.version(), webApplicationType, concurrency, mix, latencyMillis, latencyJitterMillis, productsPerCart);
+            if (!warmup.isZero()) {
+                harness.run(concurrency, warmup);
+            }
+            report = harness.run(concurrency, duration);
+        }
+        report.print(System.out);
+        report.write(reportDirectory);
+
+        boolean passed = report.check(System.out, Long.getLong("maxP99Millis", 0), Double.parseDouble(System.getProperty("maxErrorRate", "-1")));
+        System.exit(passed ? 0 : 1);
+    }
+
+    Report run(final int concurrency, final Duration duration) throws InterruptedException {
+        Report report = new Report();
+        long deadline = System.nanoTime() + duration.toNanos();
+        CountDownLatch finished = new CountDownLatch(concurrency);
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < concurrency; i++) {
+            sendNext(report, deadline, finished);
+        }
+        finished.await(duration.toSeconds() + 120, TimeUnit.SECONDS);
+        report.elapsedNanos = System.nanoTime() - startNanos;
+        return report;
+    }
+
+    private void sendNext(final Report report, final long deadline, final CountDownLatch finished) {
+        if (System.nanoTime() >= deadline) {
+            finished.countDown();
+            return;
+        }
+        Operation operation = schedule[ThreadLocalRandom.current().nextInt(schedule.length)];
+        UUID orderId = null;
+        if (operation != Operation.CREATE && operation != Operation.UPLOAD) {
+            orderId = operation == Operation.DELETE ? takeKnownOrder() : peekKnownOrder();
+            if (orderId == null) {
+                operation = Operation.CREATE;
+            }
+        }
+        Operation sent = operation;
+        long requestStart = System.nanoTime();
+        httpClient.sendAsync(request(operation, orderId), HttpResponse.BodyHandlers.ofByteArray())
+                .whenComplete((response, throwable) -> {
+                    long latencyNanos = System.nanoTime() - requestStart;
+                    if (throwable == null && succeeded(sent, response.statusCode())) {
+                        report.record(sent, latencyNanos);
+                        if (sent == Operation.CREATE) {
+                            rememberOrder(response.body());
+                        }
+                    } else {
+                        report.recordError(sent);
+                    }
+                    sendNext(report, deadline, finished);
+                });
+    }
+
+    private HttpRequest request(final Operation operation, final UUID orderId) {
+        return switch (operation) {
+            case CREATE -> HttpRequest.newBuilder(URI.create(baseUrl + "/" + UUID.randomUUID()))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(CREATE_BODY))
+                    .build();
+            case RETRIEVE -> HttpRequest.newBuilder(URI.create(baseUrl + "/" + orderId)).GET().build();
+            case FINALIZE -> HttpRequest.newBuilder(URI.create(baseUrl + "/" + orderId + "/finalize"))
+                    .header("Content-Type", "application/json")
+                    .header("Idempotency-Key", UUID.randomUUID().toString())
+                    .POST(HttpRequest.BodyPublishers.ofString(PAYMENT_BODY))
+                    .build();
+            case DELETE -> HttpRequest.newBuilder(URI.create(baseUrl + "/" + orderId)).DELETE().build();
+            case UPLOAD -> HttpRequest.newBuilder(URI.create(baseUrl + "/upload"))
+                    .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(uploadBody))
+                    .build();
+        };
+    }
+
+    // A retrieve or finalize can race with a delete of the same order, so not-found is an expected answer for them.
+    private static boolean succeeded(final Operation operation, final int statusCode) {
+        return statusCode / 100 == 2 || statusCode == 404 && operation != Operation.CREATE && operation != Operation.UPLOAD;
+    }
+
+    private void rememberOrder(final byte[] body) {
+        try {
+            UUID orderId = UUID.fromString(objectMapper.readTree(body).path("orderId").asText());
+            knownOrders.set((int) (createdOrders.getAndIncrement() % KNOWN_ORDERS), orderId);
+        } catch (IOException | IllegalArgumentException e) {
+            // the call itself succeeded; an unreadable body only means the order is not reused
+        }
+    }
+
+    private UUID peekKnownOrder() {
+        long created = Math.min(createdOrders.get(), KNOWN_ORDERS);
+        return created == 0 ? null : knownOrders.get(ThreadLocalRandom.current().nextInt((int) created));
+    }
+
+    private UUID takeKnownOrder() {
+        long created = Math.min(createdOrders.get(), KNOWN_ORDERS);
+        return created == 0 ? null : knownOrders.getAndSet(ThreadLocalRandom.current().nextInt((int) created), null);
+    }
+
+    static Map<Operation, Integer> parseMix(final String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Mix entries look like operation:weight, got " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Mix weights must not be negative, got " + entry);
+            }
+            weights.put(Operation.valueOf(parts[0].trim().toUpperCase()), weight);
+        }
+        if (weights.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("Mix needs at least one positive weight");
+        }
+        return weights;
+    }
+
+    private static Operation[] schedule(final Map<Operation, Integer> mix) {
+        return mix.entrySet().stream()
+                .flatMap(entry -> Collections.nCopies(entry.getValue(), entry.getKey()).stream())
+                .toArray(Operation[]::new);
+    }
+
+    private static byte[] uploadBody(final StubShoppingService shoppingService, final int ordersPerUpload) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.writeBytes(("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"orders.ndjson\"\r\n"
+                + "Content-Type: application/x-ndjson\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < ordersPerUpload; i++) {
+            Order order = Order.builder()
+                    .products(shoppingService.products())
+                    .customerInfo(new CustomerInfo("Joe", "Doe", "joedoe@test.com", "555666777"))
+                    .deliveryInfo(new DeliveryInfo("Street 1", "London", "33333", "United Kingdom"))
+                    .build();
+            body.writeBytes(objectMapper.writeValueAsBytes(order));
+            body.write('\n');
+        }
+        body.writeBytes(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return body.toByteArray();
+    }
+
+    static final class Report {
+
+        private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+        private final Map<Operation, AtomicLong> errors = new EnumMap<>(Operation.class);
+        private long elapsedNanos;
+
+        Report() {
+            for (Operation operation : Operation.values()) {
+                latencies.put(operation, new ConcurrentHistogram(3));
+                errors.put(operation, new AtomicLong());
+            }
+        }
+
+        void record(final Operation operation, final long latencyNanos) {
+            latencies.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        }
+
+        void recordError(final Operation operation) {
+            errors.get(operation).incrementAndGet();
+        }
+
+        void print(final PrintStream out) {
+            double elapsedSeconds = elapsedNanos / 1e9;
+            out.printf("%10s %10s %10s %10s %10s %10s %10s %10s %8s%n",
+                    "operation", "count", "ops/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "errors");
+            Histogram total = new Histogram(3);
+            long totalErrors = 0;
+            for (Operation operation : Operation.values()) {
+                Histogram histogram = latencies.get(operation);
+                long operationErrors = errors.get(operation).get();
+                if (histogram.getTotalCount() + operationErrors > 0) {
+                    printRow(out, operation.name().toLowerCase(), histogram, operationErrors, elapsedSeconds);
+                }
+                total.add(histogram);
+                totalErrors += operationErrors;
+            }
+            printRow(out, "all", total, totalErrors, elapsedSeconds);
+        }
+
+        private static void printRow(final PrintStream out, final String name, final Histogram histogram,
+                                     final long errors, final double elapsedSeconds) {
+            out.printf("%10s %10d %10.1f %10.2f %10.2f %10.2f %10.2f %10.2f %8d%n", name, histogram.getTotalCount(),
+                    histogram.getTotalCount() / elapsedSeconds, millis(histogram, 50), millis(histogram, 90),
+                    millis(histogram, 99), millis(histogram, 99.9), histogram.getMaxValue() / 1000.0, errors);
+        }
+
+        void write(final Path directory) throws IOException {
+            Files.createDirectories(directory);
+            for (Operation operation : Operation.values()) {
+                Histogram histogram = latencies.get(operation);
+                if (histogram.getTotalCount() > 0) {
+                    try (PrintStream out = new PrintStream(Files.newOutputStream(
+                            directory.resolve(operation.name().toLowerCase() + ".hgrm")), false, StandardCharsets.UTF_8)) {
+                        histogram.outputPercentileDistribution(out, 1000.0);
+                    }
+                }
+            }
+        }
+
+        boolean check(final PrintStream out, final long maxP99Millis, final double maxErrorRate) {
+            boolean passed = true;
+            for (Operation operation : Operation.values()) {
+                Histogram histogram = latencies.get(operation);
+                long operationErrors = errors.get(operation).get();
+                long calls = histogram.getTotalCount() + operationErrors;
+                if (calls == 0) {
+                    continue;
+                }
+                if (maxP99Millis > 0 && millis(histogram, 99) > maxP99Millis) {
+                    out.printf("FAILED %s p99 %.2f ms exceeds %d ms%n", operation.name().toLowerCase(), millis(histogram, 99), maxP99Millis);
+                    passed = false;
+                }
+                if (maxErrorRate >= 0 && (double) operationErrors / calls > maxErrorRate) {
+                    out.printf("FAILED %s error rate %.4f exceeds %s%n", operation.name().toLowerCase(),
+                            (double) operationErrors / calls, maxErrorRate);
+                    passed = false;
+                }
+            }
+            return passed;
+        }
+
+        private static double millis(final Histogram histogram, final double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.weborderservice.benchmark;
+
+import com.example.weborderservice.model.Category;
+import com.example.weborderservice.model.Manufacturer;
+import com.example.weborderservice.model.Product;
+import com.example.weborderservice.model.Review;
+import com.example.weborderservice.model.ShoppingCart;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Local stand-in for web-shopping-service which answers every cart lookup with a generated cart after a fixed delay,
+ * optionally plus a uniformly distributed jitter.
+ */
+public class StubShoppingService implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final long latencyMillis;
+    private final long latencyJitterMillis;
+    private final int productsPerCart;
+
+    public StubShoppingService(long latencyMillis, int productsPerCart) throws IOException {
+        this(latencyMillis, 0, productsPerCart);
+    }
+
+    public StubShoppingService(long latencyMillis, long latencyJitterMillis, int productsPerCart) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.latencyJitterMillis = latencyJitterMillis;
+        this.productsPerCart = productsPerCart;
+        this.executor = Executors.newCachedThreadPool();
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 4096);
+        this.server.createContext("/shopping/cart", this::handle);
+        this.server.setExecutor(executor);
+        this.server.start();
+    }
+
+    public String url() {
+        return "http://localhost:" + server.getAddress().getPort() + "/shopping/cart";
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        try {
+            Thread.sleep(latencyMillis + (latencyJitterMillis > 0 ? ThreadLocalRandom.current().nextLong(latencyJitterMillis + 1) : 0));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        String path = exchange.getRequestURI().getPath();
+        UUID cartId = UUID.fromString(path.substring(path.lastIndexOf('/') + 1));
+        byte[] body = objectMapper.writeValueAsBytes(new ShoppingCart(cartId, products()));
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+
+    List<Product> products() {
+        List<Product> products = new ArrayList<>(productsPerCart);
+        for (int i = 0; i < productsPerCart; i++) {
+            products.add(Product.builder()
+                    .id(UUID.randomUUID())
+                    .name("Product " + i)
+                    .description("Benchmark product " + i)
+                    .price(BigDecimal.valueOf(10 + i))
+                    .manufacturer(Manufacturer.builder()
+                            .id(UUID.randomUUID())
+                            .name("Manufacturer")
+                            .address("Street 1")
+                            .contact("contact@test.com")
+                            .build())
+                    .categories(List.of(Category.values()[i % Category.values().length]))
+                    .createdAt(LocalDateTime.now())
+                    .updatedAt(LocalDateTime.now())
+                    .reviews(List.of(Review.builder()
+                            .reviewerName("Reviewer")
+                            .comment("Comment")
+                            .rating(5)
+                            .reviewDate(LocalDateTime.now())
+                            .build()))
+                    .build());
+        }
+        return products;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.weborderservice.client;
+
+import com.example.weborderservice.config.AppConfig;
+import com.example.weborderservice.config.ReactiveConfig;
+import com.example.weborderservice.model.ShoppingCart;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReactiveShoppingClientTest {
+
+    private static final UUID CART_ID = UUID.randomUUID();
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int responseStatus = 200;
+    private volatile long responseDelayMillis = 0;
+
+    private HttpServer server;
+    private ReactiveShoppingClient shoppingClient;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/shopping/cart", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        ShoppingConfig config = new ShoppingConfig();
+        config.setUrl("http://localhost:" + server.getAddress().getPort() + "/shopping/cart");
+        config.setReadTimeout(Duration.ofMillis(300));
+        config.setCartCacheTtl(Duration.ofSeconds(10));
+        config.getRetry().setMaxAttempts(3);
+        config.getRetry().setInitialBackoff(Duration.ofMillis(10));
+
+        AppConfig appConfig = new AppConfig();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        WebClient webClient = new ReactiveConfig().shoppingWebClient(WebClient.builder(), config);
+        shoppingClient = new ReactiveShoppingClient(webClient, config, appConfig.shoppingServiceCircuitBreaker(config, meterRegistry),
+                appConfig.shoppingServiceRetry(config, meterRegistry), meterRegistry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void should_return_shopping_cart() {
+        ShoppingCart shoppingCart = shoppingClient.getShoppingCart(CART_ID).block();
+
+        assertEquals(CART_ID, shoppingCart.getId());
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void should_coalesce_concurrent_lookups_and_cache_result() {
+        responseDelayMillis = 100;
+
+        List<ShoppingCart> shoppingCarts = Flux.range(0, 8)
+                .flatMap(i -> shoppingClient.getShoppingCart(CART_ID))
+                .collectList()
+                .block();
+        shoppingClient.getShoppingCart(CART_ID).block();
+
+        assertEquals(8, shoppingCarts.size());
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void should_return_not_found_without_retrying() {
+        responseStatus = 404;
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> shoppingClient.getShoppingCart(CART_ID).block());
+
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void should_retry_server_errors() {
+        responseStatus = 500;
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> shoppingClient.getShoppingCart(CART_ID).block());
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, exception.getStatusCode());
+        assertEquals(3, requests.get());
+    }
+
+    @Test
+    void should_return_service_unavailable_on_timeout() {
+        responseDelayMillis = 500;
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> shoppingClient.getShoppingCart(CART_ID).block());
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            Thread.sleep(responseDelayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        String json = responseStatus == 200 ? "{\"id\":\"" + CART_ID + "\",\"products\":[]}" : "{}";
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(responseStatus, body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+}
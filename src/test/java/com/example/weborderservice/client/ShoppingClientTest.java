@@ -0,0 +1,218 @@
+package com.example.weborderservice.client;
+
+import com.example.weborderservice.config.AppConfig;
+import com.example.weborderservice.config.MetricsConfig;
+import com.example.weborderservice.model.ShoppingCart;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShoppingClientTest {
+
+    private static final UUID CART_ID = UUID.randomUUID();
+    private static final UUID MISSING_CART_ID = UUID.randomUUID();
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int responseStatus = 200;
+    private volatile long responseDelayMillis = 0;
+
+    private HttpServer server;
+    private SimpleMeterRegistry meterRegistry;
+    private CircuitBreaker circuitBreaker;
+    private ShoppingClient shoppingClient;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/shopping/cart", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        ShoppingConfig config = new ShoppingConfig();
+        config.setUrl("http://localhost:" + server.getAddress().getPort() + "/shopping/cart");
+        config.setReadTimeout(Duration.ofMillis(300));
+        config.setCartCacheTtl(Duration.ofSeconds(10));
+        config.getRetry().setMaxAttempts(3);
+        config.getRetry().setInitialBackoff(Duration.ofMillis(10));
+        config.getCircuitBreaker().setSlidingWindowSize(4);
+        config.getCircuitBreaker().setMinimumNumberOfCalls(4);
+        config.getCircuitBreaker().setWaitDurationInOpenState(Duration.ofMinutes(1));
+
+        AppConfig appConfig = new AppConfig();
+        meterRegistry = new SimpleMeterRegistry();
+        circuitBreaker = appConfig.shoppingServiceCircuitBreaker(config, meterRegistry);
+        shoppingClient = new ShoppingClient(appConfig.restTemplate(new RestTemplateBuilder(), config), config,
+                circuitBreaker, appConfig.shoppingServiceRetry(config, meterRegistry), meterRegistry,
+                new MetricsConfig());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        shoppingClient.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void should_return_shopping_cart() {
+        ShoppingCart shoppingCart = shoppingClient.getShoppingCart(CART_ID);
+
+        assertEquals(CART_ID, shoppingCart.getId());
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void should_serve_repeated_lookups_from_cache() {
+        shoppingClient.getShoppingCart(CART_ID);
+        ShoppingCart shoppingCart = shoppingClient.getShoppingCart(CART_ID);
+
+        assertEquals(CART_ID, shoppingCart.getId());
+        assertEquals(1, requests.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "shoppingCarts").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void should_time_lookups_by_outcome() {
+        shoppingClient.getShoppingCart(CART_ID);
+        shoppingClient.getShoppingCart(CART_ID);
+        responseStatus = 404;
+        assertThrows(ResponseStatusException.class, () -> shoppingClient.getShoppingCart(UUID.randomUUID()));
+
+        assertEquals(1, meterRegistry.get("shopping.cart.fetch").tag("outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("shopping.cart.fetch").tag("outcome", "cache_hit").timer().count());
+        assertEquals(1, meterRegistry.get("shopping.cart.fetch").tag("outcome", "not_found").timer().count());
+    }
+
+    @Test
+    void should_coalesce_concurrent_lookups_for_same_cart() throws Exception {
+        responseDelayMillis = 100;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<ShoppingCart>> lookups = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                lookups.add(executor.submit(() -> shoppingClient.getShoppingCart(CART_ID)));
+            }
+            for (Future<ShoppingCart> lookup : lookups) {
+                assertEquals(CART_ID, lookup.get(5, TimeUnit.SECONDS).getId());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void should_fetch_distinct_carts_concurrently_and_report_failures_per_cart() {
+        responseDelayMillis = 200;
+        List<UUID> cartIds = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), MISSING_CART_ID);
+
+        long startNanos = System.nanoTime();
+        Map<UUID, ShoppingCartResult> carts = shoppingClient.getShoppingCarts(
+                List.of(cartIds.get(0), cartIds.get(1), cartIds.get(0), cartIds.get(2), cartIds.get(3)));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+        assertEquals(cartIds, List.copyOf(carts.keySet()));
+        assertEquals(4, requests.get());
+        assertTrue(elapsedMillis < 4 * responseDelayMillis, "carts were fetched one after another in " + elapsedMillis + " ms");
+        assertNotNull(carts.get(cartIds.get(0)).cart());
+        ResponseStatusException error = assertInstanceOf(ResponseStatusException.class, carts.get(MISSING_CART_ID).error());
+        assertEquals(HttpStatus.NOT_FOUND, error.getStatusCode());
+    }
+
+    @Test
+    void should_not_cache_failed_lookups() {
+        responseStatus = 404;
+        assertThrows(ResponseStatusException.class, () -> shoppingClient.getShoppingCart(CART_ID));
+
+        responseStatus = 200;
+        ShoppingCart shoppingCart = shoppingClient.getShoppingCart(CART_ID);
+
+        assertEquals(CART_ID, shoppingCart.getId());
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void should_return_not_found_without_retrying() {
+        responseStatus = 404;
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> shoppingClient.getShoppingCart(CART_ID));
+
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void should_retry_server_errors() {
+        responseStatus = 500;
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> shoppingClient.getShoppingCart(CART_ID));
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, exception.getStatusCode());
+        assertEquals(3, requests.get());
+    }
+
+    @Test
+    void should_return_service_unavailable_on_timeout() {
+        responseDelayMillis = 500;
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> shoppingClient.getShoppingCart(CART_ID));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+    }
+
+    @Test
+    void should_fail_fast_when_circuit_is_open() {
+        responseStatus = 500;
+        assertThrows(ResponseStatusException.class, () -> shoppingClient.getShoppingCart(CART_ID));
+        assertThrows(ResponseStatusException.class, () -> shoppingClient.getShoppingCart(CART_ID));
+        int requestsBeforeOpen = requests.get();
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> shoppingClient.getShoppingCart(CART_ID));
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+        assertEquals(requestsBeforeOpen, requests.get());
+        assertEquals(1.0, meterRegistry.get("resilience4j.circuitbreaker.state").tag("state", "open").gauge().value());
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            Thread.sleep(responseDelayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int status = exchange.getRequestURI().getPath().endsWith(MISSING_CART_ID.toString()) ? 404 : responseStatus;
+        String json = status == 200 ? "{\"id\":\"" + CART_ID + "\",\"products\":[]}" : "{}";
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+}
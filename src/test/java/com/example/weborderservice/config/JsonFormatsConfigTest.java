@@ -0,0 +1,105 @@
+package com.example.weborderservice.config;
+
+import com.example.weborderservice.model.CustomerInfo;
+import com.example.weborderservice.model.Order;
+import com.example.weborderservice.model.OrderLine;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonFormatsConfigTest {
+
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+    private static final Order ORDER = Order.builder()
+            .orderId(UUID.randomUUID())
+            .lines(List.of(OrderLine.builder()
+                    .productId(UUID.randomUUID())
+                    .name("Test product")
+                    .price(new BigDecimal("10.50"))
+                    .build()))
+            .total(new BigDecimal("10.50"))
+            .customerInfo(CustomerInfo.builder().firstName("Joe").lastName("Doe").email("joedoe@test.com").build())
+            .insertDateTime(LocalDateTime.of(2023, 10, 1, 12, 0))
+            .build();
+
+    @Test
+    void should_replace_default_binary_converters_with_configured_mappers() {
+        List<HttpMessageConverter<?>> converters = new ArrayList<>(List.of(
+                new MappingJackson2HttpMessageConverter(),
+                new MappingJackson2SmileHttpMessageConverter(),
+                new MappingJackson2CborHttpMessageConverter()));
+
+        JsonFormatsConfig.configureBinaryConverters(converters, new JsonConfig());
+
+        assertEquals(3, converters.size());
+        assertInstanceOf(MappingJackson2HttpMessageConverter.class, converters.get(0));
+        MappingJackson2SmileHttpMessageConverter smile = assertInstanceOf(MappingJackson2SmileHttpMessageConverter.class, converters.get(1));
+        MappingJackson2CborHttpMessageConverter cbor = assertInstanceOf(MappingJackson2CborHttpMessageConverter.class, converters.get(2));
+        assertInstanceOf(SmileFactory.class, smile.getObjectMapper().getFactory());
+        assertInstanceOf(CBORFactory.class, cbor.getObjectMapper().getFactory());
+        assertTrue(smile.getObjectMapper().getRegisteredModuleIds().contains("com.fasterxml.jackson.module.blackbird.BlackbirdModule"));
+    }
+
+    @Test
+    void should_drop_binary_converters_when_disabled() {
+        JsonConfig config = new JsonConfig();
+        config.setBinaryFormats(false);
+        List<HttpMessageConverter<?>> converters = new ArrayList<>(List.of(
+                new MappingJackson2HttpMessageConverter(),
+                new MappingJackson2SmileHttpMessageConverter(),
+                new MappingJackson2CborHttpMessageConverter()));
+
+        JsonFormatsConfig.configureBinaryConverters(converters, config);
+
+        assertEquals(1, converters.size());
+        assertInstanceOf(MappingJackson2HttpMessageConverter.class, converters.get(0));
+    }
+
+    @Test
+    void should_register_smile_codecs_for_smile_media_type_only() {
+        ServerCodecConfigurer configurer = ServerCodecConfigurer.create();
+        new JsonFormatsConfig.ReactiveJsonFormatsConfig().binaryFormatsCodecCustomizer(new JsonConfig()).customize(configurer);
+
+        ResolvableType orderType = ResolvableType.forClass(Order.class);
+        List<HttpMessageWriter<?>> smileWriters = configurer.getWriters().stream()
+                .filter(writer -> writer.canWrite(orderType, SMILE))
+                .toList();
+        assertEquals(1, smileWriters.size());
+        assertFalse(smileWriters.get(0).getWritableMediaTypes().contains(MediaType.APPLICATION_JSON));
+        assertTrue(configurer.getReaders().stream()
+                .filter(reader -> reader.canRead(orderType, MediaType.APPLICATION_JSON))
+                .noneMatch(reader -> reader.getReadableMediaTypes().contains(SMILE)));
+    }
+
+    @Test
+    void should_round_trip_order_in_every_format() throws Exception {
+        JsonConfig config = new JsonConfig();
+        ObjectMapper plain = new ObjectMapper().findAndRegisterModules();
+        byte[] json = plain.writeValueAsBytes(ORDER);
+
+        for (ObjectMapper mapper : List.of(AppConfig.newObjectMapper(new JsonFactory(), config),
+                JsonFormatsConfig.smileObjectMapper(config), JsonFormatsConfig.cborObjectMapper(config))) {
+            Order decoded = mapper.readValue(mapper.writeValueAsBytes(ORDER), Order.class);
+            assertEquals(ORDER, decoded);
+        }
+        assertEquals(ORDER, AppConfig.newObjectMapper(new JsonFactory(), config).readValue(json, Order.class));
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.weborderservice.repository;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.bson.UuidRepresentation;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.DefaultDbRefResolver;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An in-memory mongo-java-server for repository tests. Clients and templates handed out here are closed together with
+ * the server.
+ */
+final class EmbeddedMongo implements AutoCloseable {
+
+    static final String DATABASE = "order";
+
+    private final MongoServer mongoServer = new MongoServer(new MemoryBackend());
+    private final InetSocketAddress address = mongoServer.bind();
+    private final List<AutoCloseable> clients = new ArrayList<>();
+
+    MongoClient client() {
+        return client(UuidRepresentation.STANDARD);
+    }
+
+    MongoClient client(final UuidRepresentation uuidRepresentation) {
+        MongoClient mongoClient = MongoClients.create(settings(uuidRepresentation));
+        clients.add(mongoClient);
+        return mongoClient;
+    }
+
+    MongoTemplate template() {
+        return new MongoTemplate(client(), DATABASE);
+    }
+
+    MongoTemplate template(final MongoClient mongoClient, final MongoCustomConversions conversions) {
+        SimpleMongoClientDatabaseFactory databaseFactory = new SimpleMongoClientDatabaseFactory(mongoClient, DATABASE);
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        MappingMongoConverter converter = new MappingMongoConverter(new DefaultDbRefResolver(databaseFactory), mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        return new MongoTemplate(databaseFactory, converter);
+    }
+
+    ReactiveMongoTemplate reactiveTemplate() {
+        com.mongodb.reactivestreams.client.MongoClient mongoClient =
+                com.mongodb.reactivestreams.client.MongoClients.create(settings(UuidRepresentation.STANDARD));
+        clients.add(mongoClient);
+        return new ReactiveMongoTemplate(mongoClient, DATABASE);
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (AutoCloseable client : clients) {
+            client.close();
+        }
+        mongoServer.shutdownNow();
+    }
+
+    private MongoClientSettings settings(final UuidRepresentation uuidRepresentation) {
+        return MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString("mongodb://localhost:" + address.getPort()))
+                .uuidRepresentation(uuidRepresentation)
+                .build();
+    }
+}
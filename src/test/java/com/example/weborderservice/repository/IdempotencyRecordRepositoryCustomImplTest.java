@@ -0,0 +1,87 @@
+package com.example.weborderservice.repository;
+
+import com.example.weborderservice.model.IdempotencyRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyRecordRepositoryCustomImplTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2023, 10, 1, 12, 0);
+    private static final UUID CART_ID = UUID.randomUUID();
+
+    private EmbeddedMongo mongo;
+    private MongoTemplate mongoTemplate;
+    private IdempotencyRecordRepositoryCustomImpl repository;
+
+    @BeforeEach
+    public void setUp() {
+        mongo = new EmbeddedMongo();
+        mongoTemplate = mongo.template();
+        repository = new IdempotencyRecordRepositoryCustomImpl(mongoTemplate);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        mongo.close();
+    }
+
+    @Test
+    void should_let_only_first_insert_claim_key() {
+        IdempotencyRecord first = record(UUID.randomUUID(), NOW);
+
+        assertTrue(repository.insertIfAbsent(first));
+        assertFalse(repository.insertIfAbsent(record(UUID.randomUUID(), NOW)));
+
+        assertEquals(first, mongoTemplate.findById("key", IdempotencyRecord.class));
+    }
+
+    @Test
+    void should_replace_claim_only_if_unchanged() {
+        IdempotencyRecord claim = record(UUID.randomUUID(), NOW);
+        IdempotencyRecord takeOver = record(UUID.randomUUID(), NOW.plusMinutes(1));
+        repository.insertIfAbsent(claim);
+
+        assertTrue(repository.replaceClaim(claim, takeOver));
+        assertFalse(repository.replaceClaim(claim, record(UUID.randomUUID(), NOW.plusMinutes(2))));
+
+        assertEquals(takeOver, mongoTemplate.findById("key", IdempotencyRecord.class));
+    }
+
+    @Test
+    void should_release_only_matching_claim() {
+        IdempotencyRecord claim = record(UUID.randomUUID(), NOW);
+        repository.insertIfAbsent(claim);
+
+        assertEquals(0, repository.release("key", UUID.randomUUID()));
+        assertEquals(1, repository.release("key", claim.getOrderId()));
+
+        assertNull(mongoTemplate.findById("key", IdempotencyRecord.class));
+    }
+
+    @Test
+    void should_create_ttl_index_and_replace_outdated_retention() {
+        repository.ensureIndexes(Duration.ofDays(1));
+        repository.ensureIndexes(Duration.ofHours(6));
+
+        assertThat(mongoTemplate.indexOps(IdempotencyRecord.class).getIndexInfo())
+                .filteredOn(index -> IdempotencyRecordRepositoryCustomImpl.CREATED_AT_TTL_INDEX.equals(index.getName()))
+                .singleElement()
+                .extracting(IndexInfo::getExpireAfter)
+                .isEqualTo(Optional.of(Duration.ofHours(6)));
+    }
+
+    private static IdempotencyRecord record(final UUID orderId, final LocalDateTime createdAt) {
+        return new IdempotencyRecord("key", CART_ID, orderId, createdAt);
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.weborderservice.repository;
+
+import com.example.weborderservice.model.OrderEvent;
+import com.example.weborderservice.model.OrderEventType;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderEventRepositoryCustomImplTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2023, 10, 1, 12, 0);
+    private static final Duration LEASE = Duration.ofSeconds(30);
+
+    private EmbeddedMongo mongo;
+    private MongoTemplate mongoTemplate;
+    private OrderEventRepositoryCustomImpl repository;
+
+    @BeforeEach
+    public void setUp() {
+        mongo = new EmbeddedMongo();
+        mongoTemplate = mongo.template();
+        repository = new OrderEventRepositoryCustomImpl(mongoTemplate);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        mongo.close();
+    }
+
+    @Test
+    void should_move_only_pending_events_to_ready_or_discard_them() {
+        OrderEvent committed = event(NOW);
+        OrderEvent discarded = event(NOW);
+        OrderEvent stale = event(NOW.minusMinutes(1));
+        repository.insertPending(List.of(committed, discarded, stale));
+
+        assertEquals(1, repository.markReady(List.of(committed.getId())));
+        assertEquals(1, repository.discardPending(List.of(discarded.getId())));
+        assertEquals(0, repository.discardPending(List.of(committed.getId())));
+
+        assertThat(repository.findReady(10)).extracting(OrderEvent::getId).containsExactly(committed.getId());
+        assertThat(repository.findPendingBefore(NOW, 10)).extracting(OrderEvent::getId).containsExactly(stale.getId());
+        assertNull(mongoTemplate.findById(discarded.getId(), OrderEvent.class));
+    }
+
+    @Test
+    void should_return_published_events_after_sequence_in_order() {
+        List<OrderEvent> events = List.of(event(NOW), event(NOW), event(NOW));
+        repository.insertPending(events);
+        assertEquals(0, repository.findLastPublishedSequence());
+        for (int i = 0; i < events.size(); i++) {
+            events.get(i).setSequence(10L + i);
+            events.get(i).setPublishedAt(NOW);
+        }
+        repository.markPublished(events);
+
+        assertThat(repository.findPublishedAfter(10, 10)).extracting(OrderEvent::getSequence).containsExactly(11L, 12L);
+        assertThat(repository.findPublishedAfter(0, 1)).extracting(OrderEvent::getSequence).containsExactly(10L);
+        assertEquals(12, repository.findLastPublishedSequence());
+        assertEquals(OrderEvent.State.PUBLISHED, mongoTemplate.findById(events.get(0).getId(), OrderEvent.class).getState());
+        assertThat(repository.findReady(10)).isEmpty();
+    }
+
+    @Test
+    void should_grant_lease_to_one_owner_until_it_expires() {
+        assertTrue(repository.acquireRelayLease("a", NOW, LEASE));
+        assertTrue(repository.acquireRelayLease("a", NOW.plusSeconds(10), LEASE));
+        assertFalse(repository.acquireRelayLease("b", NOW.plusSeconds(20), LEASE));
+
+        assertTrue(repository.acquireRelayLease("b", NOW.plusMinutes(1), LEASE));
+        assertFalse(repository.acquireRelayLease("a", NOW.plusMinutes(1), LEASE));
+    }
+
+    @Test
+    void should_allocate_consecutive_sequences_only_to_lease_owner() {
+        repository.acquireRelayLease("a", NOW, LEASE);
+
+        assertEquals(Optional.of(1L), repository.allocateSequences("a", 3));
+        assertEquals(Optional.of(4L), repository.allocateSequences("a", 2));
+        assertEquals(Optional.empty(), repository.allocateSequences("b", 2));
+
+        repository.acquireRelayLease("b", NOW.plusMinutes(1), LEASE);
+        assertEquals(Optional.of(6L), repository.allocateSequences("b", 1));
+    }
+
+    @Test
+    void should_keep_one_event_per_order_and_type() {
+        repository.ensureIndexes(Duration.ofDays(1));
+        OrderEvent finalized = event(NOW).toBuilder().type(OrderEventType.FINALIZED).build();
+        OrderEvent duplicate = finalized.toBuilder().state(OrderEvent.State.READY).build();
+        OrderEvent other = event(NOW).toBuilder().type(OrderEventType.FINALIZED).build();
+
+        assertEquals(1, repository.insertIfAbsent(List.of(finalized)));
+        assertEquals(1, repository.insertIfAbsent(List.of(duplicate, other)));
+
+        assertEquals(2, mongoTemplate.count(new Query(), OrderEvent.class));
+        assertEquals(Set.of(finalized.getOrderId(), other.getOrderId()), repository.findOrderIdsWithEvent(
+                List.of(finalized.getOrderId(), other.getOrderId(), UUID.randomUUID()), OrderEventType.FINALIZED));
+        assertThat(repository.findOrderIdsWithEvent(List.of(finalized.getOrderId()), OrderEventType.CREATED)).isEmpty();
+    }
+
+    @Test
+    void should_store_paid_checkpoint_only_for_lease_owner() {
+        assertEquals(Optional.empty(), repository.findPaidCheckpoint());
+        repository.acquireRelayLease("a", NOW, LEASE);
+
+        repository.savePaidCheckpoint("a", NOW);
+        repository.savePaidCheckpoint("b", NOW.plusMinutes(1));
+
+        assertEquals(Optional.of(NOW), repository.findPaidCheckpoint());
+    }
+
+    @Test
+    void should_create_indexes_and_replace_outdated_retention() {
+        repository.ensureIndexes(Duration.ofDays(1));
+        repository.ensureIndexes(Duration.ofHours(1));
+
+        List<IndexInfo> indexes = mongoTemplate.indexOps(OrderEvent.class).getIndexInfo();
+        assertThat(indexes).extracting(IndexInfo::getName).contains("state_id", "sequence", OrderEventRepositoryCustomImpl.PUBLISHED_TTL_INDEX);
+        assertThat(indexes).filteredOn(index -> OrderEventRepositoryCustomImpl.PUBLISHED_TTL_INDEX.equals(index.getName()))
+                .singleElement()
+                .satisfies(index -> assertEquals(Optional.of(Duration.ofHours(1)), index.getExpireAfter()));
+    }
+
+    @Test
+    void should_page_ready_events_and_find_unpublished_events_of_orders() {
+        UUID orderId = UUID.randomUUID();
+        // ids from two instances: the finalizing one has the slower clock, so the later change gets the smaller id
+        OrderEvent finalized = event(NOW).toBuilder().id(new ObjectId(new Date(1_000), 1).toHexString())
+                .orderId(orderId).type(OrderEventType.FINALIZED).state(OrderEvent.State.READY).build();
+        OrderEvent created = event(NOW).toBuilder().id(new ObjectId(new Date(2_000), 1).toHexString())
+                .orderId(orderId).state(OrderEvent.State.READY).build();
+        OrderEvent deleted = event(NOW).toBuilder().orderId(orderId).type(OrderEventType.DELETED).build();
+        OrderEvent published = event(NOW).toBuilder().orderId(orderId).type(OrderEventType.EXPIRED)
+                .state(OrderEvent.State.PUBLISHED).sequence(1L).build();
+        repository.insertPending(List.of(finalized, created, deleted, published));
+
+        assertThat(repository.findReady(1)).containsExactly(finalized);
+        assertThat(repository.findReadyAfter(finalized.getId(), 10)).containsExactly(created);
+        assertThat(repository.findReadyAfter(created.getId(), 10)).isEmpty();
+        assertThat(repository.findUnpublished(List.of(orderId, UUID.randomUUID())))
+                .extracting(OrderEvent::getId, OrderEvent::getType)
+                .containsExactlyInAnyOrder(tuple(finalized.getId(), OrderEventType.FINALIZED),
+                        tuple(created.getId(), OrderEventType.CREATED), tuple(deleted.getId(), OrderEventType.DELETED));
+    }
+
+    private static OrderEvent event(final LocalDateTime occurredAt) {
+        return OrderEvent.builder()
+                .orderId(UUID.randomUUID())
+                .type(OrderEventType.CREATED)
+                .occurredAt(occurredAt)
+                .state(OrderEvent.State.PENDING)
+                .build();
+    }
+}
@@ -0,0 +1,376 @@
+package com.example.weborderservice.repository;
+
+import com.example.weborderservice.config.MongoConfig;
+import com.example.weborderservice.config.MongoEncodingConfig;
+import com.example.weborderservice.model.Category;
+import com.example.weborderservice.model.CustomerInfo;
+import com.example.weborderservice.model.Order;
+import com.example.weborderservice.model.OrderCursor;
+import com.example.weborderservice.model.OrderLine;
+import com.example.weborderservice.model.OrderSearchCriteria;
+import com.example.weborderservice.model.Product;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import org.bson.BsonBinarySubType;
+import org.bson.BsonDecimal128;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.UuidRepresentation;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderRepositoryCustomImplTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2023, 10, 1, 12, 0);
+
+    private EmbeddedMongo mongo;
+    private MongoClient mongoClient;
+    private MongoClient legacyMongoClient;
+    private MongoTemplate mongoTemplate;
+    private MongoTemplate legacyMongoTemplate;
+    private MongoEncodingConfig encodingConfig;
+    private OrderRepositoryCustomImpl repository;
+
+    @BeforeEach
+    public void setUp() {
+        mongo = new EmbeddedMongo();
+        mongoClient = mongo.client();
+        legacyMongoClient = mongo.client(UuidRepresentation.JAVA_LEGACY);
+        mongoTemplate = mongo.template(mongoClient, new MongoConfig().mongoCustomConversions());
+        legacyMongoTemplate = new MongoTemplate(legacyMongoClient, EmbeddedMongo.DATABASE);
+        encodingConfig = new MongoEncodingConfig();
+        encodingConfig.setLegacyReads(true);
+        repository = new OrderRepositoryCustomImpl(mongoTemplate, encodingConfig);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        mongo.close();
+    }
+
+    @Test
+    void should_store_standard_uuids_and_decimal128_amounts() {
+        Order order = mongoTemplate.insert(Order.builder()
+                .orderId(UUID.randomUUID())
+                .lines(List.of(OrderLine.builder().productId(UUID.randomUUID()).price(new BigDecimal("12.50")).quantity(2).build()))
+                .total(new BigDecimal("25.00"))
+                .insertDateTime(NOW)
+                .build());
+
+        BsonDocument stored = rawOrders().find().first();
+
+        assertEquals(BsonBinarySubType.UUID_STANDARD.getValue(), stored.getBinary("_id").getType());
+        assertEquals(new BsonDecimal128(new Decimal128(new BigDecimal("25.00"))), stored.get("total"));
+        BsonDocument line = stored.getArray("lines").get(0).asDocument();
+        assertEquals(BsonBinarySubType.UUID_STANDARD.getValue(), line.getBinary("productId").getType());
+        assertTrue(line.get("price").isDecimal128());
+        assertEquals(order, repository.findOrderByOrderId(order.getOrderId()).orElseThrow());
+    }
+
+    @Test
+    void should_find_pay_and_delete_legacy_orders_while_legacy_reads_are_enabled() {
+        UUID legacyId = UUID.randomUUID();
+        UUID stringId = UUID.randomUUID();
+        insertLegacy(new Document("_id", legacyId).append("total", "12.50").append("isPaid", false));
+        insertLegacy(new Document("_id", stringId.toString()).append("total", "7.00").append("isPaid", false));
+
+        Order legacyOrder = repository.findOrderByOrderId(legacyId).orElseThrow();
+
+        assertEquals(legacyId, legacyOrder.getOrderId());
+        assertEquals(new BigDecimal("12.50"), legacyOrder.getTotal());
+        assertEquals(stringId, repository.findOrderByOrderId(stringId).orElseThrow().getOrderId());
+        assertTrue(repository.markPaid(legacyId).orElseThrow().isPaid());
+        assertEquals(2, repository.deleteOrdersByOrderIdIn(List.of(legacyId, stringId)));
+    }
+
+    @Test
+    void should_match_only_standard_uuids_when_legacy_reads_are_disabled() {
+        UUID legacyId = UUID.randomUUID();
+        insertLegacy(new Document("_id", legacyId).append("isPaid", false));
+        encodingConfig.setLegacyReads(false);
+
+        assertTrue(repository.findOrderByOrderId(legacyId).isEmpty());
+        assertEquals(0, repository.deleteOrderByOrderId(legacyId));
+    }
+
+    @Test
+    void should_record_that_the_legacy_migration_finished() {
+        assertFalse(repository.isLegacyMigrationFinished());
+
+        repository.markLegacyMigrationFinished();
+        repository.markLegacyMigrationFinished();
+
+        assertTrue(repository.isLegacyMigrationFinished());
+        assertEquals(1, mongoTemplate.getCollection(OrderRepositoryCustomImpl.MIGRATIONS_COLLECTION).countDocuments());
+    }
+
+    @Test
+    void should_replace_legacy_order_with_embedded_products() {
+        UUID orderId = UUID.randomUUID();
+        Product product = Product.builder().id(UUID.randomUUID()).name("Test product").price(new BigDecimal("10.00")).build();
+        Document storedProduct = new Document();
+        legacyMongoTemplate.getConverter().write(product, storedProduct);
+        insertLegacy(new Document("_id", orderId).append("products", List.of(storedProduct)).append("isPaid", false)
+                .append("insertDateTime", NOW));
+        mongoTemplate.insert(Order.builder().orderId(UUID.randomUUID()).lines(List.of()).total(BigDecimal.ZERO).build());
+
+        List<LegacyOrder> legacyOrders = repository.findLegacyOrders(10);
+
+        assertEquals(1, legacyOrders.size());
+        Order order = legacyOrders.get(0).order();
+        assertEquals(orderId, order.getOrderId());
+        assertEquals(List.of(product), order.getProducts());
+        OrderLine line = OrderLine.builder().productId(product.getId()).price(product.getPrice()).quantity(1).build();
+        assertTrue(repository.replaceLegacyOrder(legacyOrders.get(0),
+                order.toBuilder().products(null).lines(List.of(line)).total(product.getPrice()).build()));
+
+        assertTrue(repository.findLegacyOrders(10).isEmpty());
+        assertEquals(2, rawOrders().countDocuments());
+        Order migrated = repository.findOrderByOrderId(orderId).orElseThrow();
+        assertEquals(List.of(line), migrated.getLines());
+        assertEquals(new BigDecimal("10.00"), migrated.getTotal());
+    }
+
+    @Test
+    void should_keep_legacy_order_that_changed_while_being_migrated() {
+        UUID orderId = UUID.randomUUID();
+        insertLegacy(new Document("_id", orderId).append("lines", List.of()).append("isPaid", false));
+        LegacyOrder legacyOrder = repository.findLegacyOrders(10).get(0);
+        repository.markPaid(orderId);
+
+        assertFalse(repository.replaceLegacyOrder(legacyOrder, legacyOrder.order().toBuilder().total(BigDecimal.ZERO).build()));
+
+        assertEquals(1, rawOrders().countDocuments());
+        assertTrue(repository.findOrderByOrderId(orderId).orElseThrow().isPaid());
+    }
+
+    @Test
+    void should_not_overwrite_payment_of_standard_uuid_order_being_migrated() {
+        UUID orderId = UUID.randomUUID();
+        mongoClient.getDatabase(EmbeddedMongo.DATABASE).getCollection("orders")
+                .insertOne(new Document("_id", orderId).append("lines", List.of()).append("total", "12.50").append("isPaid", false));
+        LegacyOrder legacyOrder = repository.findLegacyOrders(10).get(0);
+        repository.markPaid(orderId);
+
+        assertFalse(repository.replaceLegacyOrder(legacyOrder, legacyOrder.order().toBuilder().total(new BigDecimal("12.50")).build()));
+
+        assertTrue(repository.findOrderByOrderId(orderId).orElseThrow().isPaid());
+        assertEquals(1, repository.findLegacyOrders(10).size());
+        LegacyOrder paidLegacyOrder = repository.findLegacyOrders(10).get(0);
+        assertTrue(repository.replaceLegacyOrder(paidLegacyOrder, paidLegacyOrder.order().toBuilder().total(new BigDecimal("12.50")).build()));
+        assertTrue(repository.findLegacyOrders(10).isEmpty());
+        assertTrue(repository.findOrderByOrderId(orderId).orElseThrow().isPaid());
+    }
+
+    @Test
+    void should_delete_only_expired_unpaid_orders_up_to_limit() {
+        save(false, NOW.minusMinutes(30));
+        save(false, NOW.minusMinutes(20));
+        Order old = save(false, NOW.minusMinutes(10));
+        Order paid = save(true, NOW.minusMinutes(40));
+        Order recent = save(false, NOW.plusMinutes(1));
+
+        assertEquals(2, repository.deleteUnpaidOrders(repository.findUnpaidInsertedBefore(NOW, 2)));
+        assertThat(remainingOrderIds()).containsExactlyInAnyOrder(old.getOrderId(), paid.getOrderId(), recent.getOrderId());
+
+        assertThat(repository.findUnpaidInsertedBefore(NOW, 2)).containsExactly(old.getOrderId());
+        assertEquals(1, repository.deleteUnpaidOrders(List.of(old.getOrderId(), paid.getOrderId())));
+        assertThat(repository.findUnpaidInsertedBefore(NOW, 2)).isEmpty();
+        assertThat(remainingOrderIds()).containsExactlyInAnyOrder(paid.getOrderId(), recent.getOrderId());
+    }
+
+    @Test
+    void should_find_paid_states_of_existing_orders() {
+        Order unpaid = save(false, NOW);
+        Order paid = save(true, NOW);
+
+        Map<UUID, Boolean> paidStates = repository.findPaidStates(List.of(unpaid.getOrderId(), paid.getOrderId(), UUID.randomUUID()));
+
+        assertEquals(Map.of(unpaid.getOrderId(), false, paid.getOrderId(), true), paidStates);
+    }
+
+    @Test
+    void should_create_expiry_index_without_ttl_in_sweep_mode() {
+        repository.ensureIndexes(null);
+
+        assertThat(indexNames()).contains("paid_insert_date_time_id", "email_insert_date_time_id", "category_insert_date_time_id")
+                .doesNotContain(OrderRepositoryCustomImpl.UNPAID_TTL_INDEX);
+    }
+
+    @Test
+    void should_drop_legacy_expiry_index() {
+        mongoTemplate.indexOps(Order.class).ensureIndex(new Index().on("isPaid", Sort.Direction.ASC)
+                .on("insertDateTime", Sort.Direction.ASC).named(OrderRepositoryCustomImpl.LEGACY_UNPAID_INDEX));
+
+        repository.ensureIndexes(null);
+
+        assertThat(indexNames()).doesNotContain(OrderRepositoryCustomImpl.LEGACY_UNPAID_INDEX);
+    }
+
+    @Test
+    void should_replace_ttl_index_when_retention_changes() {
+        repository.ensureIndexes(Duration.ofMinutes(1));
+        repository.ensureIndexes(Duration.ofMinutes(5));
+
+        assertEquals(Optional.of(Duration.ofMinutes(5)), ttlIndex().flatMap(IndexInfo::getExpireAfter));
+    }
+
+    @Test
+    void should_drop_ttl_index_when_switching_to_sweep_mode() {
+        repository.ensureIndexes(Duration.ofMinutes(1));
+        repository.ensureIndexes(null);
+
+        assertTrue(ttlIndex().isEmpty());
+    }
+
+    @Test
+    void should_mark_unpaid_order_as_paid_only_once() {
+        Order order = save(false, NOW);
+
+        Optional<Order> paidOrder = repository.markPaid(order.getOrderId());
+
+        assertTrue(paidOrder.isPresent());
+        assertTrue(paidOrder.get().isPaid());
+        assertTrue(mongoTemplate.findById(order.getOrderId(), Order.class).isPaid());
+        assertTrue(repository.markPaid(order.getOrderId()).isEmpty());
+        assertTrue(repository.markPaid(UUID.randomUUID()).isEmpty());
+    }
+
+    @Test
+    void should_find_orders_paid_in_range_oldest_first() {
+        Order first = save(false, NOW);
+        Order second = save(false, NOW);
+        save(false, NOW);
+        repository.markPaid(first.getOrderId());
+        repository.markPaid(second.getOrderId());
+        LocalDateTime paidAt = mongoTemplate.findById(first.getOrderId(), Order.class).getPaidAt();
+
+        List<Order> paidOrders = repository.findPaidBetween(paidAt, LocalDateTime.now().plusMinutes(1), 10);
+
+        assertThat(paidOrders).extracting(Order::getOrderId).containsExactly(first.getOrderId(), second.getOrderId());
+        assertThat(paidOrders).allSatisfy(order -> assertThat(order.getPaidAt()).isNotNull());
+        assertThat(repository.findPaidBetween(paidAt, LocalDateTime.now().plusMinutes(1), 1)).hasSize(1);
+        assertThat(repository.findPaidBetween(paidAt.minusMinutes(2), paidAt.minusMinutes(1), 10)).isEmpty();
+    }
+
+    @Test
+    void should_read_only_requested_fields() {
+        Order order = mongoTemplate.insert(Order.builder()
+                .orderId(UUID.randomUUID())
+                .lines(List.of(OrderLine.builder().name("Test product").quantity(1).build()))
+                .customerInfo(CustomerInfo.builder().firstName("Joe").build())
+                .isPaid(true)
+                .insertDateTime(NOW)
+                .build());
+
+        Optional<Order> projected = repository.findOrderFields(order.getOrderId(), List.of("_id", "isPaid"));
+
+        assertTrue(projected.isPresent());
+        assertEquals(order.getOrderId(), projected.get().getOrderId());
+        assertTrue(projected.get().isPaid());
+        assertNull(projected.get().getLines());
+        assertNull(projected.get().getCustomerInfo());
+        assertNull(projected.get().getInsertDateTime());
+        assertTrue(repository.findOrderFields(UUID.randomUUID(), List.of("isPaid")).isEmpty());
+    }
+
+    @Test
+    void should_page_through_search_results_with_keyset_cursor() {
+        repository.ensureIndexes(null);
+        Order first = save(false, NOW.minusMinutes(1));
+        Order second = save(false, NOW.minusMinutes(2));
+        Order third = save(false, NOW.minusMinutes(2));
+        Order fourth = save(false, NOW.minusMinutes(3));
+        save(true, NOW.minusMinutes(1));
+        OrderSearchCriteria unpaid = new OrderSearchCriteria(null, false, null, null, null);
+
+        List<Order> firstPage = repository.search(unpaid, null, 2);
+        List<Order> secondPage = repository.search(unpaid, OrderCursor.of(firstPage.get(1)), 2);
+        List<Order> lastPage = repository.search(unpaid, OrderCursor.of(secondPage.get(1)), 2);
+
+        assertThat(firstPage).extracting(Order::getOrderId).first().isEqualTo(first.getOrderId());
+        assertThat(firstPage).extracting(Order::getOrderId).last().isIn(second.getOrderId(), third.getOrderId());
+        assertThat(secondPage).extracting(Order::getOrderId).first().isIn(second.getOrderId(), third.getOrderId());
+        assertThat(secondPage).extracting(Order::getOrderId).last().isEqualTo(fourth.getOrderId());
+        assertThat(firstPage.get(1).getOrderId()).isNotEqualTo(secondPage.get(0).getOrderId());
+        assertThat(lastPage).isEmpty();
+    }
+
+    @Test
+    void should_filter_search_by_email_category_and_time_range() {
+        Order match = mongoTemplate.insert(Order.builder()
+                .orderId(UUID.randomUUID())
+                .lines(List.of(OrderLine.builder().categories(List.of(Category.BOOKS, Category.TOYS_GAMES)).quantity(1).build()))
+                .customerInfo(CustomerInfo.builder().email("joedoe@test.com").build())
+                .insertDateTime(NOW)
+                .build());
+        mongoTemplate.insert(match.toBuilder().orderId(UUID.randomUUID()).insertDateTime(NOW.minusDays(2)).build());
+        mongoTemplate.insert(match.toBuilder().orderId(UUID.randomUUID()).customerInfo(CustomerInfo.builder().email("other@test.com").build()).build());
+        mongoTemplate.insert(match.toBuilder().orderId(UUID.randomUUID()).lines(List.of()).build());
+
+        List<Order> result = repository.search(new OrderSearchCriteria("joedoe@test.com", null, NOW.minusDays(1), NOW.plusDays(1),
+                Category.TOYS_GAMES), null, 10);
+
+        assertThat(result).extracting(Order::getOrderId).containsExactly(match.getOrderId());
+    }
+
+    @Test
+    void should_stream_matching_orders_newest_first() {
+        Order older = save(true, NOW.minusMinutes(2));
+        Order newer = save(true, NOW.minusMinutes(1));
+        save(false, NOW);
+
+        try (Stream<Order> orders = repository.streamOrders(new OrderSearchCriteria(null, true, null, null, null), 1)) {
+            assertThat(orders.map(Order::getOrderId)).containsExactly(newer.getOrderId(), older.getOrderId());
+        }
+    }
+
+    private void insertLegacy(final Document order) {
+        legacyMongoClient.getDatabase(EmbeddedMongo.DATABASE).getCollection("orders").insertOne(order);
+    }
+
+    private MongoCollection<BsonDocument> rawOrders() {
+        return mongoClient.getDatabase(EmbeddedMongo.DATABASE).getCollection("orders", BsonDocument.class);
+    }
+
+    private Order save(final boolean paid, final LocalDateTime insertDateTime) {
+        return mongoTemplate.insert(Order.builder()
+                .orderId(UUID.randomUUID())
+                .lines(List.of())
+                .isPaid(paid)
+                .insertDateTime(insertDateTime)
+                .build());
+    }
+
+    private List<UUID> remainingOrderIds() {
+        return mongoTemplate.findAll(Order.class).stream().map(Order::getOrderId).toList();
+    }
+
+    private List<String> indexNames() {
+        return mongoTemplate.indexOps(Order.class).getIndexInfo().stream().map(IndexInfo::getName).toList();
+    }
+
+    private Optional<IndexInfo> ttlIndex() {
+        return mongoTemplate.indexOps(Order.class).getIndexInfo().stream()
+                .filter(index -> OrderRepositoryCustomImpl.UNPAID_TTL_INDEX.equals(index.getName()))
+                .findFirst();
+    }
+}
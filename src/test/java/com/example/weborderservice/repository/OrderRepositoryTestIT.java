@@ -1,12 +1,16 @@
 package com.example.weborderservice.repository;
 
+import com.example.weborderservice.config.MongoConfig;
+import com.example.weborderservice.config.MongoEncodingConfig;
 import com.example.weborderservice.model.CustomerInfo;
 import com.example.weborderservice.model.DeliveryInfo;
 import com.example.weborderservice.model.Order;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.Optional;
@@ -15,6 +19,7 @@ import java.util.UUID;
 import static org.junit.jupiter.api.Assertions.*;
 
 @DataMongoTest
+@Import({MongoConfig.class, MongoEncodingConfig.class})
 class OrderRepositoryTestIT {
 
     @Autowired
@@ -23,7 +28,7 @@ class OrderRepositoryTestIT {
     @Test
     void should_find_order_by_orderId() {
         UUID orderId = UUID.randomUUID();
-        orderRepository.save(new Order(orderId, Collections.emptyList(), new CustomerInfo(), new DeliveryInfo(), false, LocalDateTime.now()));
+        orderRepository.save(new Order(orderId, null, Collections.emptyList(), BigDecimal.ZERO, new CustomerInfo(), new DeliveryInfo(), false, LocalDateTime.now(), null));
 
         Optional<Order> foundOrder = orderRepository.findOrderByOrderId(orderId);
         assertTrue(foundOrder.isPresent());
@@ -33,7 +38,7 @@ class OrderRepositoryTestIT {
     @Test
     void should_delete_order_by_orderId() {
         UUID orderId = UUID.randomUUID();
-        orderRepository.save(new Order(orderId, Collections.emptyList(), new CustomerInfo(), new DeliveryInfo(), false, LocalDateTime.now()));
+        orderRepository.save(new Order(orderId, null, Collections.emptyList(), BigDecimal.ZERO, new CustomerInfo(), new DeliveryInfo(), false, LocalDateTime.now(), null));
 
         orderRepository.deleteOrderByOrderId(orderId);
 
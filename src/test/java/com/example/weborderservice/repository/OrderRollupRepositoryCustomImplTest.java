@@ -0,0 +1,107 @@
+package com.example.weborderservice.repository;
+
+import com.example.weborderservice.model.Category;
+import com.example.weborderservice.model.OrderRollup;
+import com.example.weborderservice.model.OrderRollupDelta;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Range;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderRollupRepositoryCustomImplTest {
+
+    private static final LocalDateTime HOUR = LocalDateTime.of(2023, 10, 1, 12, 0);
+
+    private EmbeddedMongo mongo;
+    private MongoTemplate mongoTemplate;
+    private OrderRollupRepositoryCustomImpl repository;
+
+    @BeforeEach
+    public void setUp() {
+        mongo = new EmbeddedMongo();
+        mongoTemplate = mongo.template();
+        repository = new OrderRollupRepositoryCustomImpl(mongoTemplate);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        mongo.close();
+    }
+
+    @Test
+    void should_create_and_increment_rollups_in_place() {
+        repository.increment(List.of(
+                new OrderRollupDelta(HOUR, null, 1, 2, new BigDecimal("10.50"), 0, BigDecimal.ZERO),
+                new OrderRollupDelta(HOUR, Category.BOOKS, 1, 2, new BigDecimal("10.50"), 0, BigDecimal.ZERO)));
+        repository.increment(List.of(new OrderRollupDelta(HOUR, null, 0, 0, BigDecimal.ZERO, 1, new BigDecimal("10.50"))));
+
+        OrderRollup total = mongoTemplate.findById(OrderRollup.id(HOUR, null), OrderRollup.class);
+        OrderRollup books = mongoTemplate.findById(OrderRollup.id(HOUR, Category.BOOKS), OrderRollup.class);
+
+        assertEquals(HOUR, total.getHour());
+        assertNull(total.getCategory());
+        assertEquals(1, total.getOrders());
+        assertEquals(2, total.getItems());
+        assertThat(total.getRevenue()).isEqualByComparingTo("10.50");
+        assertEquals(1, total.getPaidOrders());
+        assertThat(total.getPaidRevenue()).isEqualByComparingTo("10.50");
+        assertEquals(Category.BOOKS, books.getCategory());
+        assertEquals(0, books.getPaidOrders());
+    }
+
+    @Test
+    void should_query_hours_with_right_open_range_through_derived_queries() {
+        OrderRollupRepository rollupRepository = new MongoRepositoryFactory(mongoTemplate)
+                .getRepository(OrderRollupRepository.class, RepositoryFragments.just(repository));
+        for (LocalDateTime hour : List.of(HOUR.minusHours(1), HOUR, HOUR.plusHours(1))) {
+            repository.increment(List.of(
+                    new OrderRollupDelta(hour, null, 1, 1, BigDecimal.ONE, 0, BigDecimal.ZERO),
+                    new OrderRollupDelta(hour, Category.BOOKS, 1, 1, BigDecimal.ONE, 0, BigDecimal.ZERO),
+                    new OrderRollupDelta(hour, Category.TOYS_GAMES, 1, 1, BigDecimal.ONE, 0, BigDecimal.ZERO)));
+        }
+        Range<LocalDateTime> hours = Range.rightOpen(HOUR.minusHours(1), HOUR.plusHours(1));
+
+        List<OrderRollup> all = rollupRepository.findByHourBetween(hours, Sort.by("hour"));
+        List<OrderRollup> books = rollupRepository.findByHourBetweenAndCategory(hours, Category.BOOKS, Sort.by("hour"));
+
+        assertThat(all).hasSize(6).extracting(OrderRollup::getHour).containsOnly(HOUR.minusHours(1), HOUR).isSorted();
+        assertThat(books).extracting(OrderRollup::getHour).containsExactly(HOUR.minusHours(1), HOUR);
+        assertThat(books).extracting(OrderRollup::getCategory).containsOnly(Category.BOOKS);
+    }
+
+    @Test
+    void should_replace_only_rollups_of_rebuilt_hours() {
+        for (LocalDateTime hour : List.of(HOUR.minusHours(1), HOUR, HOUR.plusHours(1))) {
+            repository.increment(List.of(
+                    new OrderRollupDelta(hour, null, 5, 5, BigDecimal.TEN, 0, BigDecimal.ZERO),
+                    new OrderRollupDelta(hour, Category.TOYS_GAMES, 5, 5, BigDecimal.TEN, 0, BigDecimal.ZERO)));
+        }
+
+        repository.replace(HOUR, HOUR.plusHours(1), List.of(new OrderRollupDelta(HOUR, null, 1, 2, BigDecimal.ONE, 1, BigDecimal.ONE)));
+
+        OrderRollup rebuilt = mongoTemplate.findById(OrderRollup.id(HOUR, null), OrderRollup.class);
+        assertEquals(1, rebuilt.getOrders());
+        assertEquals(1, rebuilt.getPaidOrders());
+        assertNull(mongoTemplate.findById(OrderRollup.id(HOUR, Category.TOYS_GAMES), OrderRollup.class));
+        assertEquals(5, mongoTemplate.findById(OrderRollup.id(HOUR.minusHours(1), null), OrderRollup.class).getOrders());
+        assertEquals(5, mongoTemplate.findById(OrderRollup.id(HOUR.plusHours(1), Category.TOYS_GAMES), OrderRollup.class).getOrders());
+    }
+
+    @Test
+    void should_create_hour_category_index() {
+        repository.ensureIndexes();
+
+        assertThat(mongoTemplate.indexOps(OrderRollup.class).getIndexInfo()).anyMatch(index -> "hour_category".equals(index.getName()));
+    }
+}
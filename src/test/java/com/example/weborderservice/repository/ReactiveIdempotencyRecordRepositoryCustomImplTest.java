@@ -0,0 +1,72 @@
+package com.example.weborderservice.repository;
+
+import com.example.weborderservice.model.IdempotencyRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+class ReactiveIdempotencyRecordRepositoryCustomImplTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2023, 10, 1, 12, 0);
+    private static final UUID CART_ID = UUID.randomUUID();
+
+    private EmbeddedMongo mongo;
+    private ReactiveMongoTemplate mongoTemplate;
+    private ReactiveIdempotencyRecordRepositoryCustomImpl repository;
+
+    @BeforeEach
+    public void setUp() {
+        mongo = new EmbeddedMongo();
+        mongoTemplate = mongo.reactiveTemplate();
+        repository = new ReactiveIdempotencyRecordRepositoryCustomImpl(mongoTemplate);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        mongo.close();
+    }
+
+    @Test
+    void should_let_only_first_insert_claim_key() {
+        IdempotencyRecord first = record(UUID.randomUUID(), NOW);
+
+        StepVerifier.create(repository.insertIfAbsent(first)).expectNext(true).verifyComplete();
+        StepVerifier.create(repository.insertIfAbsent(record(UUID.randomUUID(), NOW))).expectNext(false).verifyComplete();
+
+        StepVerifier.create(mongoTemplate.findById("key", IdempotencyRecord.class)).expectNext(first).verifyComplete();
+    }
+
+    @Test
+    void should_replace_claim_only_if_unchanged() {
+        IdempotencyRecord claim = record(UUID.randomUUID(), NOW);
+        IdempotencyRecord takeOver = record(UUID.randomUUID(), NOW.plusMinutes(1));
+        repository.insertIfAbsent(claim).block();
+
+        StepVerifier.create(repository.replaceClaim(claim, takeOver)).expectNext(true).verifyComplete();
+        StepVerifier.create(repository.replaceClaim(claim, record(UUID.randomUUID(), NOW.plusMinutes(2))))
+                .expectNext(false)
+                .verifyComplete();
+
+        StepVerifier.create(mongoTemplate.findById("key", IdempotencyRecord.class)).expectNext(takeOver).verifyComplete();
+    }
+
+    @Test
+    void should_release_only_matching_claim() {
+        IdempotencyRecord claim = record(UUID.randomUUID(), NOW);
+        repository.insertIfAbsent(claim).block();
+
+        StepVerifier.create(repository.release("key", UUID.randomUUID())).expectNext(0L).verifyComplete();
+        StepVerifier.create(repository.release("key", claim.getOrderId())).expectNext(1L).verifyComplete();
+
+        StepVerifier.create(mongoTemplate.findById("key", IdempotencyRecord.class)).verifyComplete();
+    }
+
+    private static IdempotencyRecord record(final UUID orderId, final LocalDateTime createdAt) {
+        return new IdempotencyRecord("key", CART_ID, orderId, createdAt);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.weborderservice.repository;
+
+import com.example.weborderservice.config.MongoEncodingConfig;
+import com.example.weborderservice.model.Order;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReactiveOrderRepositoryCustomImplTest {
+
+    private EmbeddedMongo mongo;
+    private ReactiveMongoTemplate mongoTemplate;
+    private ReactiveOrderRepositoryCustomImpl repository;
+
+    @BeforeEach
+    public void setUp() {
+        mongo = new EmbeddedMongo();
+        mongoTemplate = mongo.reactiveTemplate();
+        repository = new ReactiveOrderRepositoryCustomImpl(mongoTemplate, new MongoEncodingConfig());
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        mongo.close();
+    }
+
+    @Test
+    void should_report_failed_inserts_by_index_and_keep_the_rest() {
+        Order existingOrder = mongoTemplate.insert(Order.builder().orderId(UUID.randomUUID()).build()).block();
+        Order newOrder = Order.builder().orderId(UUID.randomUUID()).build();
+
+        StepVerifier.create(repository.insertUnordered(List.of(newOrder, Order.builder().orderId(existingOrder.getOrderId()).build())))
+                .assertNext(result -> assertThat(result.failures()).singleElement()
+                        .satisfies(failure -> assertThat(failure.index()).isEqualTo(1)))
+                .verifyComplete();
+        StepVerifier.create(repository.findOrderByOrderId(newOrder.getOrderId()))
+                .expectNextCount(1)
+                .verifyComplete();
+    }
+}
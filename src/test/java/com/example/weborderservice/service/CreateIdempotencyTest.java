@@ -0,0 +1,162 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.config.IdempotencyConfig;
+import com.example.weborderservice.model.IdempotencyRecord;
+import com.example.weborderservice.model.Order;
+import com.example.weborderservice.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class CreateIdempotencyTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2023-10-01T12:00:00Z"), ZoneId.of("UTC"));
+    private static final LocalDateTime NOW = LocalDateTime.of(2023, 10, 1, 12, 0);
+    private static final UUID CART_ID = UUID.randomUUID();
+    private static final String CART_KEY = "cart:" + CART_ID;
+
+    @Mock
+    private IdempotencyRecordRepository repository;
+
+    private IdempotencyConfig config;
+    private SimpleMeterRegistry meterRegistry;
+    private CreateIdempotency createIdempotency;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        config = new IdempotencyConfig();
+        config.setCartIdAsKey(true);
+        meterRegistry = new SimpleMeterRegistry();
+        createIdempotency = new CreateIdempotency(repository, config, meterRegistry, CLOCK);
+    }
+
+    @Test
+    void should_claim_unused_key_with_new_order_id() {
+        when(repository.insertIfAbsent(any())).thenReturn(true);
+
+        CreateIdempotency.Claim claim = createIdempotency.claim(CART_ID, null, noOrders());
+
+        assertFalse(claim.isReplay());
+        assertEquals(CART_KEY, claim.key());
+        verify(repository).insertIfAbsent(new IdempotencyRecord(CART_KEY, CART_ID, claim.orderId(), NOW));
+        verify(repository).ensureIndexes(Duration.ofDays(1));
+    }
+
+    @Test
+    void should_not_track_creation_without_header_when_cart_keys_are_disabled() {
+        config.setCartIdAsKey(false);
+
+        CreateIdempotency.Claim claim = createIdempotency.claim(CART_ID, null, noOrders());
+
+        assertNull(claim.key());
+        assertNotNull(claim.orderId());
+        createIdempotency.release(claim);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void should_replay_completed_key_from_local_cache() {
+        when(repository.insertIfAbsent(any())).thenReturn(true);
+        CreateIdempotency.Claim claim = createIdempotency.claim(CART_ID, "retry-key", noOrders());
+        createIdempotency.complete(claim);
+        Order order = Order.builder().orderId(claim.orderId()).build();
+
+        CreateIdempotency.Claim replay = createIdempotency.claim(CART_ID, "retry-key", orders(Map.of(order.getOrderId(), order)));
+
+        assertSame(order, replay.replayedOrder());
+        verify(repository, times(1)).insertIfAbsent(argThat(record -> record.getKey().equals("key:retry-key")));
+        verify(repository, never()).findById(any());
+        assertEquals(1.0, meterRegistry.get("orders.create.replayed").counter().count());
+    }
+
+    @Test
+    void should_replay_order_of_stored_key() {
+        UUID orderId = UUID.randomUUID();
+        Order order = Order.builder().orderId(orderId).build();
+        when(repository.findById(CART_KEY)).thenReturn(Optional.of(new IdempotencyRecord(CART_KEY, CART_ID, orderId, NOW.minusHours(1))));
+
+        CreateIdempotency.Claim replay = createIdempotency.claim(CART_ID, null, orders(Map.of(orderId, order)));
+
+        assertSame(order, replay.replayedOrder());
+    }
+
+    @Test
+    void should_reject_key_used_for_another_cart() {
+        when(repository.findById("key:retry-key"))
+                .thenReturn(Optional.of(new IdempotencyRecord("key:retry-key", UUID.randomUUID(), UUID.randomUUID(), NOW)));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> createIdempotency.claim(CART_ID, "retry-key", noOrders()));
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, exception.getStatusCode());
+    }
+
+    @Test
+    void should_report_conflict_while_first_request_is_still_creating_the_order() {
+        when(repository.findById(CART_KEY)).thenReturn(Optional.of(new IdempotencyRecord(CART_KEY, CART_ID, UUID.randomUUID(), NOW.minusSeconds(5))));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> createIdempotency.claim(CART_ID, null, noOrders()));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatusCode());
+        verify(repository, never()).replaceClaim(any(), any());
+    }
+
+    @Test
+    void should_take_over_claim_whose_order_never_appeared() {
+        IdempotencyRecord abandoned = new IdempotencyRecord(CART_KEY, CART_ID, UUID.randomUUID(), NOW.minusMinutes(5));
+        when(repository.findById(CART_KEY)).thenReturn(Optional.of(abandoned));
+        when(repository.replaceClaim(eq(abandoned), any())).thenReturn(true);
+
+        CreateIdempotency.Claim claim = createIdempotency.claim(CART_ID, null, noOrders());
+
+        assertFalse(claim.isReplay());
+        assertNotEquals(abandoned.getOrderId(), claim.orderId());
+        verify(repository).replaceClaim(abandoned, new IdempotencyRecord(CART_KEY, CART_ID, claim.orderId(), NOW));
+    }
+
+    @Test
+    void should_release_only_own_claim() {
+        when(repository.insertIfAbsent(any())).thenReturn(true);
+        CreateIdempotency.Claim claim = createIdempotency.claim(CART_ID, null, noOrders());
+
+        createIdempotency.release(claim);
+
+        verify(repository).release(CART_KEY, claim.orderId());
+    }
+
+    @Test
+    void should_reject_blank_or_oversized_keys() {
+        assertThrows(ResponseStatusException.class, () -> createIdempotency.claim(CART_ID, " ", noOrders()));
+        assertThrows(ResponseStatusException.class, () -> createIdempotency.claim(CART_ID, "k".repeat(256), noOrders()));
+        verifyNoInteractions(repository);
+    }
+
+    private static Function<UUID, Optional<Order>> noOrders() {
+        return orderId -> Optional.empty();
+    }
+
+    private static Function<UUID, Optional<Order>> orders(final Map<UUID, Order> orders) {
+        return orderId -> Optional.ofNullable(orders.get(orderId));
+    }
+}
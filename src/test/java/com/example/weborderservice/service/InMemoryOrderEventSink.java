@@ -0,0 +1,28 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.model.OrderEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class InMemoryOrderEventSink implements OrderEventSink {
+
+    private final List<OrderEvent> events = new ArrayList<>();
+    private RuntimeException failure;
+
+    @Override
+    public synchronized void publish(final List<OrderEvent> batch) {
+        if (failure != null) {
+            throw failure;
+        }
+        batch.forEach(event -> events.add(event.toBuilder().build()));
+    }
+
+    synchronized List<OrderEvent> events() {
+        return List.copyOf(events);
+    }
+
+    synchronized void failWith(final RuntimeException failure) {
+        this.failure = failure;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.config.OrderCacheConfig;
+import com.example.weborderservice.model.Order;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderCacheTest {
+
+    private static final UUID ORDER_ID = UUID.randomUUID();
+
+    private OrderCache orderCache;
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setUp() {
+        orderCache = new OrderCache(new OrderCacheConfig(), new SimpleMeterRegistry());
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void should_load_once_and_not_cache_missing_orders() {
+        AtomicInteger loads = new AtomicInteger();
+        Order order = Order.builder().orderId(ORDER_ID).build();
+
+        assertTrue(orderCache.get(ORDER_ID, orderId -> Optional.empty()).isEmpty());
+        assertEquals(Optional.of(order), orderCache.get(ORDER_ID, orderId -> {
+            loads.incrementAndGet();
+            return Optional.of(order);
+        }));
+        assertEquals(Optional.of(order), orderCache.get(ORDER_ID, orderId -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        }));
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void should_keep_the_order_put_while_a_stale_load_was_running() throws Exception {
+        Order unpaid = Order.builder().orderId(ORDER_ID).isPaid(false).build();
+        Order paid = unpaid.toBuilder().isPaid(true).build();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Optional<Order>> load = CompletableFuture.supplyAsync(() -> orderCache.get(ORDER_ID, orderId -> {
+            loading.countDown();
+            await(release);
+            return Optional.of(unpaid);
+        }), executor);
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        Future<?> finalize = executor.submit(() -> orderCache.put(paid));
+        try {
+            // the put waits for the load of the same order
+            finalize.get(100, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // expected
+        }
+        release.countDown();
+        load.get(5, TimeUnit.SECONDS);
+        finalize.get(5, TimeUnit.SECONDS);
+
+        assertEquals(Optional.of(paid), orderCache.getIfPresent(ORDER_ID));
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
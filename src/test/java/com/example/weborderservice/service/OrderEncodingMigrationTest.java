@@ -0,0 +1,133 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.config.MongoEncodingConfig;
+import com.example.weborderservice.model.Order;
+import com.example.weborderservice.model.OrderLine;
+import com.example.weborderservice.model.Product;
+import com.example.weborderservice.repository.LegacyOrder;
+import com.example.weborderservice.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class OrderEncodingMigrationTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+    @Mock
+    private ProductSnapshotService productSnapshotService;
+
+    private MongoEncodingConfig config;
+    private OrderEncodingMigration migration;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        config = new MongoEncodingConfig();
+        config.setLegacyReads(true);
+        config.setMigrationBatchSize(2);
+        config.setMigrationMaxBatchesPerRun(3);
+        migration = new OrderEncodingMigration(orderRepository, productSnapshotService, config);
+    }
+
+    @Test
+    void should_turn_embedded_products_into_lines_and_total() {
+        List<Product> products = List.of(Product.builder().id(UUID.randomUUID()).price(new BigDecimal("4.50")).build());
+        List<OrderLine> lines = List.of(OrderLine.builder().price(new BigDecimal("4.50")).quantity(2).build());
+        when(productSnapshotService.store(products)).thenReturn(lines);
+        LegacyOrder legacyOrder = new LegacyOrder("stored-id", Order.builder().orderId(UUID.randomUUID()).products(products).build());
+        when(orderRepository.findLegacyOrders(2)).thenReturn(List.of(legacyOrder));
+        when(orderRepository.replaceLegacyOrder(any(), any())).thenReturn(true);
+
+        assertEquals(1, migration.migrateLegacyOrders());
+
+        ArgumentCaptor<Order> migrated = ArgumentCaptor.forClass(Order.class);
+        verify(orderRepository).replaceLegacyOrder(eq(legacyOrder), migrated.capture());
+        assertNull(migrated.getValue().getProducts());
+        assertEquals(lines, migrated.getValue().getLines());
+        assertEquals(new BigDecimal("9.00"), migrated.getValue().getTotal());
+    }
+
+    @Test
+    void should_keep_existing_lines_and_recompute_total() {
+        List<OrderLine> lines = List.of(OrderLine.builder().price(new BigDecimal("3")).quantity(3).build());
+
+        Order migrated = migration.migrate(Order.builder().lines(lines).build());
+
+        assertEquals(lines, migrated.getLines());
+        assertEquals(new BigDecimal("9"), migrated.getTotal());
+        verifyNoInteractions(productSnapshotService);
+    }
+
+    @Test
+    void should_stop_after_a_short_batch_and_not_scan_again() {
+        LegacyOrder legacyOrder = new LegacyOrder("stored-id", Order.builder().lines(List.of()).build());
+        when(orderRepository.findLegacyOrders(2)).thenReturn(List.of(legacyOrder, legacyOrder), List.of(legacyOrder), List.of());
+        when(orderRepository.replaceLegacyOrder(any(), any())).thenReturn(true);
+
+        assertEquals(3, migration.migrateLegacyOrders());
+        assertEquals(0, migration.migrateLegacyOrders());
+
+        verify(orderRepository, times(2)).findLegacyOrders(2);
+        verify(orderRepository).markLegacyMigrationFinished();
+        assertFalse(config.isLegacyReads());
+    }
+
+    @Test
+    void should_keep_scanning_while_the_last_batch_has_orders_that_changed_during_migration() {
+        LegacyOrder legacyOrder = new LegacyOrder("stored-id", Order.builder().lines(List.of()).build());
+        when(orderRepository.findLegacyOrders(2)).thenReturn(List.of(legacyOrder), List.of());
+        when(orderRepository.replaceLegacyOrder(any(), any())).thenReturn(false);
+
+        assertEquals(0, migration.migrateLegacyOrders());
+        verify(orderRepository, never()).markLegacyMigrationFinished();
+        assertTrue(config.isLegacyReads());
+
+        assertEquals(0, migration.migrateLegacyOrders());
+        verify(orderRepository).markLegacyMigrationFinished();
+        assertFalse(config.isLegacyReads());
+    }
+
+    @Test
+    void should_skip_the_scan_and_legacy_reads_once_any_instance_finished_the_migration() {
+        when(orderRepository.isLegacyMigrationFinished()).thenReturn(true);
+
+        assertEquals(0, migration.migrateLegacyOrders());
+        assertEquals(0, migration.migrateLegacyOrders());
+
+        verify(orderRepository, never()).findLegacyOrders(anyInt());
+        verify(orderRepository, times(1)).isLegacyMigrationFinished();
+        assertFalse(config.isLegacyReads());
+    }
+
+    @Test
+    void should_limit_batches_per_run() {
+        LegacyOrder legacyOrder = new LegacyOrder("stored-id", Order.builder().lines(List.of()).build());
+        when(orderRepository.findLegacyOrders(2)).thenReturn(List.of(legacyOrder, legacyOrder));
+        when(orderRepository.replaceLegacyOrder(any(), any())).thenReturn(true);
+
+        assertEquals(6, migration.migrateLegacyOrders());
+
+        verify(orderRepository, times(3)).findLegacyOrders(2);
+    }
+
+    @Test
+    void should_do_nothing_when_legacy_reads_are_disabled() {
+        config.setLegacyReads(false);
+
+        assertEquals(0, migration.migrateLegacyOrders());
+
+        verify(orderRepository, never()).findLegacyOrders(anyInt());
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.config.OutboxConfig;
+import com.example.weborderservice.model.OrderEvent;
+import com.example.weborderservice.model.OrderEventType;
+import com.example.weborderservice.repository.OrderEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.Mockito.*;
+
+class OrderEventStreamTest {
+
+    private static final Instant NOW = Instant.parse("2023-10-01T12:00:00Z");
+
+    @Mock
+    private OrderEventRepository eventRepository;
+
+    @Mock
+    private Clock clock;
+
+    private OrderEventStream eventStream;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        OutboxConfig config = new OutboxConfig();
+        config.setStreamReplayBatchSize(2);
+        config.setStreamBufferSize(2);
+        when(clock.getZone()).thenReturn(ZoneId.of("UTC"));
+        when(clock.instant()).thenReturn(NOW);
+        eventStream = new OrderEventStream(eventRepository, config, clock);
+    }
+
+    @Test
+    void should_replay_stored_events_in_pages_then_follow_live_events_without_duplicates() {
+        when(eventRepository.findPublishedAfter(5, 2)).thenReturn(List.of(event(6), event(7)));
+        when(eventRepository.findPublishedAfter(7, 2)).thenReturn(List.of(event(8)));
+        startPollingAfter(7);
+
+        StepVerifier.create(eventStream.events(5L))
+                .expectNextMatches(event -> event.getSequence() == 6)
+                .expectNextMatches(event -> event.getSequence() == 7)
+                .expectNextMatches(event -> event.getSequence() == 8)
+                .then(eventStream::poll)
+                .then(() -> when(eventRepository.findPublishedAfter(8, 2)).thenReturn(List.of(event(9))))
+                .then(eventStream::poll)
+                .expectNextMatches(event -> event.getSequence() == 9)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void should_only_follow_live_events_without_resume_token() {
+        startPollingAfter(0);
+        when(eventRepository.findPublishedAfter(0, 2)).thenReturn(List.of(event(1)));
+        eventStream.poll();
+        when(eventRepository.findPublishedAfter(1, 2)).thenReturn(List.of(event(2)));
+
+        StepVerifier.create(eventStream.events(null))
+                .then(eventStream::poll)
+                .expectNextMatches(event -> event.getSequence() == 2)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void should_start_polling_from_the_latest_published_event() {
+        when(eventRepository.findLastPublishedSequence()).thenReturn(7L);
+
+        StepVerifier.create(eventStream.events(null))
+                .then(eventStream::poll)
+                .then(() -> when(eventRepository.findPublishedAfter(7, 2)).thenReturn(List.of(event(8))))
+                .then(eventStream::poll)
+                .expectNextMatches(event -> event.getSequence() == 8)
+                .thenCancel()
+                .verify();
+        verify(eventRepository, times(1)).findLastPublishedSequence();
+    }
+
+    @Test
+    void should_hold_back_events_behind_a_gap_until_it_fills_or_times_out() {
+        startPollingAfter(0);
+        when(eventRepository.findPublishedAfter(0, 2)).thenReturn(List.of(event(1), event(3)));
+
+        StepVerifier.create(eventStream.events(null))
+                .then(eventStream::poll)
+                .expectNextMatches(event -> event.getSequence() == 1)
+                .then(() -> when(eventRepository.findPublishedAfter(1, 2)).thenReturn(List.of(event(2), event(3))))
+                .then(eventStream::poll)
+                .expectNextMatches(event -> event.getSequence() == 2)
+                .expectNextMatches(event -> event.getSequence() == 3)
+                .then(() -> when(eventRepository.findPublishedAfter(3, 2)).thenReturn(List.of(event(5))))
+                .then(eventStream::poll)
+                .expectNoEvent(Duration.ofMillis(50))
+                .then(() -> when(clock.instant()).thenReturn(NOW.plusSeconds(5)))
+                .then(eventStream::poll)
+                .expectNextMatches(event -> event.getSequence() == 5)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void should_fail_subscriber_that_falls_behind_buffer() {
+        when(eventRepository.findPublishedAfter(0, 2)).thenReturn(List.of());
+        startPollingAfter(10);
+        when(eventRepository.findPublishedAfter(10, 2)).thenReturn(List.of(event(11), event(12)));
+        when(eventRepository.findPublishedAfter(12, 2)).thenReturn(List.of(event(13)));
+
+        StepVerifier.create(eventStream.events(0L), 0)
+                .then(eventStream::poll)
+                .thenRequest(10)
+                .expectNextCount(2)
+                .expectError(IllegalStateException.class)
+                .verify();
+    }
+
+    private void startPollingAfter(final long sequence) {
+        when(eventRepository.findLastPublishedSequence()).thenReturn(sequence);
+        eventStream.poll();
+    }
+
+    private static OrderEvent event(final long sequence) {
+        return OrderEvent.builder()
+                .id(UUID.randomUUID().toString())
+                .orderId(UUID.randomUUID())
+                .type(OrderEventType.CREATED)
+                .sequence(sequence)
+                .build();
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.config.OrderCacheConfig;
+import com.example.weborderservice.config.OrderExpiryConfig;
+import com.example.weborderservice.model.Order;
+import com.example.weborderservice.model.OrderEvent;
+import com.example.weborderservice.model.OrderEventType;
+import com.example.weborderservice.repository.OrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class OrderExpiryServiceTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2023-10-01T12:00:00Z"), ZoneId.of("UTC"));
+    private static final LocalDateTime EXPIRED_BEFORE = LocalDateTime.of(2023, 10, 1, 11, 59);
+
+    @Mock
+    private OrderRepository orderRepository;
+    @Mock
+    private OrderOutbox orderOutbox;
+
+    private OrderExpiryConfig config;
+    private OrderCache orderCache;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        config = new OrderExpiryConfig();
+        config.setBatchSize(2);
+        config.setMaxBatchesPerRun(10);
+        config.setPauseBetweenBatches(Duration.ZERO);
+        meterRegistry = new SimpleMeterRegistry();
+        orderCache = new OrderCache(new OrderCacheConfig(), meterRegistry);
+    }
+
+    @Test
+    void should_delete_in_batches_until_partial_batch() {
+        when(orderRepository.findUnpaidInsertedBefore(EXPIRED_BEFORE, 2)).thenReturn(orderIds(2), orderIds(2), orderIds(1));
+        when(orderRepository.deleteUnpaidOrders(any())).thenReturn(2L, 2L, 1L);
+
+        long removed = expiryService().expireUnpaidOrders();
+
+        assertEquals(5, removed);
+        verify(orderRepository, times(3)).findUnpaidInsertedBefore(EXPIRED_BEFORE, 2);
+        verify(orderRepository, times(3)).deleteUnpaidOrders(any());
+        assertEquals(5.0, meterRegistry.get("orders.expired").counter().count());
+        assertEquals(1, meterRegistry.get("orders.expiry").tag("mode", "SWEEP").timer().count());
+    }
+
+    @Test
+    void should_stop_after_max_batches_per_run() {
+        config.setMaxBatchesPerRun(3);
+        when(orderRepository.findUnpaidInsertedBefore(any(), anyInt())).thenAnswer(invocation -> orderIds(2));
+        when(orderRepository.deleteUnpaidOrders(any())).thenReturn(2L);
+
+        long removed = expiryService().expireUnpaidOrders();
+
+        assertEquals(6, removed);
+        verify(orderRepository, times(3)).findUnpaidInsertedBefore(EXPIRED_BEFORE, 2);
+    }
+
+    @Test
+    void should_record_expired_events_before_deleting() {
+        List<UUID> orderIds = orderIds(1);
+        List<OrderEvent> events = List.of(OrderEvent.builder().id("event").orderId(orderIds.get(0)).build());
+        when(orderRepository.findUnpaidInsertedBefore(EXPIRED_BEFORE, 2)).thenReturn(orderIds);
+        when(orderOutbox.prepare(OrderEventType.EXPIRED, orderIds)).thenReturn(events);
+        when(orderRepository.deleteUnpaidOrders(orderIds)).thenReturn(1L);
+
+        expiryService().expireUnpaidOrders();
+
+        InOrder inOrder = inOrder(orderOutbox, orderRepository);
+        inOrder.verify(orderOutbox).prepare(OrderEventType.EXPIRED, orderIds);
+        inOrder.verify(orderRepository).deleteUnpaidOrders(orderIds);
+        inOrder.verify(orderOutbox).commit(events);
+    }
+
+    @Test
+    void should_leave_events_pending_when_an_order_was_paid_meanwhile() {
+        List<UUID> orderIds = orderIds(2);
+        List<OrderEvent> events = List.of(OrderEvent.builder().id("event").orderId(orderIds.get(0)).build());
+        when(orderRepository.findUnpaidInsertedBefore(EXPIRED_BEFORE, 2)).thenReturn(orderIds, List.of());
+        when(orderOutbox.prepare(OrderEventType.EXPIRED, orderIds)).thenReturn(events);
+        when(orderRepository.deleteUnpaidOrders(orderIds)).thenReturn(1L);
+
+        assertEquals(1, expiryService().expireUnpaidOrders());
+
+        verify(orderOutbox, never()).commit(events);
+    }
+
+    @Test
+    void should_ensure_indexes_only_once() {
+        OrderExpiryService expiryService = expiryService();
+
+        expiryService.expireUnpaidOrders();
+        expiryService.expireUnpaidOrders();
+
+        verify(orderRepository, times(1)).ensureIndexes(null);
+    }
+
+    @Test
+    void should_retry_index_creation_after_failure() {
+        doThrow(new IllegalStateException("Mongo unavailable")).doNothing().when(orderRepository).ensureIndexes(any());
+        OrderExpiryService expiryService = expiryService();
+
+        assertThrows(IllegalStateException.class, expiryService::expireUnpaidOrders);
+        expiryService.expireUnpaidOrders();
+
+        verify(orderRepository, times(2)).ensureIndexes(null);
+    }
+
+    @Test
+    void should_leave_expiry_to_ttl_index() {
+        config.setMode(OrderExpiryConfig.Mode.TTL_INDEX);
+
+        long removed = expiryService().expireUnpaidOrders();
+
+        assertEquals(0, removed);
+        verify(orderRepository).ensureIndexes(Duration.ofMinutes(1));
+        verify(orderRepository, never()).findUnpaidInsertedBefore(any(), anyInt());
+        verify(orderOutbox, never()).prepare(any(), any());
+    }
+
+    @Test
+    void should_evict_only_expired_unpaid_orders_from_cache() {
+        Order expiredOrder = order(false, EXPIRED_BEFORE.minusMinutes(5));
+        Order paidOrder = order(true, EXPIRED_BEFORE.minusMinutes(5));
+        Order recentOrder = order(false, EXPIRED_BEFORE.plusSeconds(30));
+        orderCache.put(expiredOrder);
+        orderCache.put(paidOrder);
+        orderCache.put(recentOrder);
+
+        expiryService().expireUnpaidOrders();
+
+        assertTrue(orderCache.get(expiredOrder.getOrderId(), orderId -> Optional.empty()).isEmpty());
+        assertTrue(orderCache.get(paidOrder.getOrderId(), orderId -> Optional.empty()).isPresent());
+        assertTrue(orderCache.get(recentOrder.getOrderId(), orderId -> Optional.empty()).isPresent());
+    }
+
+    private OrderExpiryService expiryService() {
+        return new OrderExpiryService(orderRepository, orderCache, orderOutbox, new OrderIndexes(orderRepository, config), config,
+                meterRegistry, CLOCK);
+    }
+
+    private static List<UUID> orderIds(final int count) {
+        return Stream.generate(UUID::randomUUID).limit(count).toList();
+    }
+
+    private static Order order(final boolean paid, final LocalDateTime insertDateTime) {
+        return Order.builder()
+                .orderId(UUID.randomUUID())
+                .isPaid(paid)
+                .insertDateTime(insertDateTime)
+                .build();
+    }
+}
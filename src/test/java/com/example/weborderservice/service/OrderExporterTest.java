@@ -0,0 +1,89 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.config.ExportConfig;
+import com.example.weborderservice.model.Order;
+import com.example.weborderservice.model.OrderSearchCriteria;
+import com.example.weborderservice.repository.OrderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class OrderExporterTest {
+
+    private static final OrderSearchCriteria PAID = new OrderSearchCriteria(null, true, null, null, null);
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    private ObjectMapper objectMapper;
+    private ExportConfig exportConfig;
+    private OrderExporter orderExporter;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        exportConfig = new ExportConfig();
+        exportConfig.setCursorBatchSize(2);
+        orderExporter = new OrderExporter(orderRepository, objectMapper, exportConfig);
+    }
+
+    @Test
+    void should_write_one_order_per_line_and_close_cursor() throws IOException {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(orderRepository.streamOrders(PAID, 2)).thenReturn(Stream.of(order(), order(), order()).onClose(() -> closed.set(true)));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long exported = orderExporter.exportOrders(PAID, output, false);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, exported);
+        assertThat(lines).hasSize(3).allSatisfy(line -> assertTrue(objectMapper.readValue(line, Order.class).isPaid()));
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void should_gzip_output_when_requested() throws IOException {
+        when(orderRepository.streamOrders(PAID, 2)).thenReturn(Stream.of(order(), order()));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        orderExporter.exportOrders(PAID, output, true);
+
+        try (InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+            String ndjson = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+            assertThat(ndjson.split("\n")).hasSize(2);
+        }
+    }
+
+    @Test
+    void should_write_nothing_when_no_orders_match() throws IOException {
+        when(orderRepository.streamOrders(PAID, 2)).thenReturn(Stream.empty());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        assertEquals(0, orderExporter.exportOrders(PAID, output, false));
+        assertEquals(0, output.size());
+    }
+
+    private static Order order() {
+        return Order.builder().orderId(UUID.randomUUID()).isPaid(true).insertDateTime(LocalDateTime.now()).build();
+    }
+}
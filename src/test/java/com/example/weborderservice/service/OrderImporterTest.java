@@ -0,0 +1,232 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.config.MetricsConfig;
+import com.example.weborderservice.config.ProductSnapshotConfig;
+import com.example.weborderservice.config.UploadConfig;
+import com.example.weborderservice.model.Order;
+import com.example.weborderservice.model.OrderLine;
+import com.example.weborderservice.model.UploadRejection;
+import com.example.weborderservice.model.UploadSummary;
+import com.example.weborderservice.repository.BulkInsertResult;
+import com.example.weborderservice.repository.OrderRepository;
+import com.example.weborderservice.repository.ProductSnapshotRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class OrderImporterTest {
+
+    private static final String NDJSON_ORDER = "{\"products\":[],\"customerInfo\":{\"firstName\":\"Joe\",\"lastName\":\"Doe\","
+            + "\"email\":\"joedoe@test.com\",\"phoneNumber\":\"555666777\"},\"deliveryInfo\":{\"address\":\"Street 1\","
+            + "\"city\":\"London\",\"postalCode\":\"33333\",\"country\":\"United Kingdom\"},\"paid\":false}";
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private ProductSnapshotRepository snapshotRepository;
+
+    @Mock
+    private OrderRollupService orderRollupService;
+
+    @Captor
+    private ArgumentCaptor<List<Order>> captor;
+
+    private UploadConfig uploadConfig;
+
+    private OrderImporter orderImporter;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        uploadConfig = new UploadConfig();
+        uploadConfig.setBatchSize(2);
+        uploadConfig.setPipelineWorkers(4);
+        uploadConfig.setPipelineQueueCapacity(2);
+        ProductSnapshotService productSnapshotService = new ProductSnapshotService(snapshotRepository, new ProductSnapshotConfig(),
+                new SimpleMeterRegistry());
+        orderImporter = new OrderImporter(orderRepository, productSnapshotService, orderRollupService, objectMapper, Validation.buildDefaultValidatorFactory().getValidator(), uploadConfig,
+                new OrderMetrics(new SimpleMeterRegistry(), new MetricsConfig()));
+    }
+
+    @Test
+    void should_import_orders_in_batches() throws IOException {
+        when(orderRepository.insertUnordered(anyList()))
+                .thenAnswer(invocation -> new BulkInsertResult(invocation.<List<Order>>getArgument(0).size(), List.of()));
+
+        UploadSummary summary;
+        try (InputStream inputStream = getClass().getResourceAsStream("/orders.json")) {
+            summary = orderImporter.importOrders(inputStream, UploadFormat.JSON_ARRAY, new UploadProgress(uploadConfig.getMaxReportedFailures()));
+        }
+
+        assertEquals(3, summary.received());
+        assertEquals(3, summary.persisted());
+        assertEquals(0, summary.failed());
+        assertThat(summary.rejections()).isEmpty();
+
+        verify(orderRepository, times(2)).insertUnordered(captor.capture());
+        assertThat(captor.getAllValues()).allSatisfy(batch -> assertThat(batch).allSatisfy(order -> {
+            assertNotNull(order.getOrderId());
+            assertNotNull(order.getInsertDateTime());
+            assertNull(order.getProducts());
+            assertThat(order.getLines()).isNotEmpty();
+            assertEquals(OrderLine.total(order.getLines()), order.getTotal());
+        }));
+        verify(orderRollupService, times(2)).recordPlaced(anyList());
+        verify(snapshotRepository, atLeastOnce()).insertMissing(anyCollection());
+    }
+
+    @Test
+    void should_report_failed_indexes_relative_to_file() throws IOException {
+        List<Order> placed = new ArrayList<>();
+        doAnswer(invocation -> placed.addAll(invocation.getArgument(0))).when(orderRollupService).recordPlaced(anyList());
+        when(orderRepository.insertUnordered(anyList())).thenAnswer(invocation -> {
+            List<Order> batch = invocation.getArgument(0);
+            List<BulkInsertResult.Failure> failures = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                if ("Damian3".equals(batch.get(i).getCustomerInfo().getFirstName())) {
+                    failures.add(new BulkInsertResult.Failure(i, "E11000 duplicate key"));
+                }
+            }
+            return new BulkInsertResult(batch.size() - failures.size(), failures);
+        });
+
+        UploadSummary summary;
+        try (InputStream inputStream = getClass().getResourceAsStream("/orders.json")) {
+            summary = orderImporter.importOrders(inputStream, UploadFormat.JSON_ARRAY, new UploadProgress(uploadConfig.getMaxReportedFailures()));
+        }
+
+        assertEquals(3, summary.received());
+        assertEquals(2, summary.persisted());
+        assertEquals(1, summary.failed());
+        assertThat(summary.rejections()).containsExactly(new UploadRejection(2, "E11000 duplicate key"));
+        assertThat(placed).hasSize(2).noneMatch(order -> "Damian3".equals(order.getCustomerInfo().getFirstName()));
+    }
+
+    @Test
+    void should_reject_file_which_is_not_json_array() {
+        InputStream inputStream = new ByteArrayInputStream("{\"orderId\":null}".getBytes());
+
+        assertThrows(ResponseStatusException.class, () -> orderImporter.importOrders(inputStream, UploadFormat.JSON_ARRAY, new UploadProgress(uploadConfig.getMaxReportedFailures())));
+        verify(orderRepository, never()).insertUnordered(anyList());
+    }
+
+    @Test
+    void should_import_newline_delimited_orders_and_skip_malformed_lines() throws IOException {
+        when(orderRepository.insertUnordered(anyList()))
+                .thenAnswer(invocation -> new BulkInsertResult(invocation.<List<Order>>getArgument(0).size(), List.of()));
+
+        String ndjson = NDJSON_ORDER + "\n{not json}\n\n" + NDJSON_ORDER + "\n";
+        UploadSummary summary = orderImporter.importOrders(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)),
+                new UploadFormat(true, false), new UploadProgress(uploadConfig.getMaxReportedFailures()));
+
+        assertEquals(2, summary.received());
+        assertEquals(2, summary.persisted());
+        assertEquals(1, summary.failed());
+        assertThat(summary.rejections()).extracting(UploadRejection::index).containsExactly(1L);
+        assertThat(summary.rejections().get(0).reason()).startsWith("Malformed order");
+    }
+
+    @Test
+    void should_import_gzipped_newline_delimited_orders() throws IOException {
+        when(orderRepository.insertUnordered(anyList()))
+                .thenAnswer(invocation -> new BulkInsertResult(invocation.<List<Order>>getArgument(0).size(), List.of()));
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write((NDJSON_ORDER + "\n" + NDJSON_ORDER + "\n" + NDJSON_ORDER).getBytes(StandardCharsets.UTF_8));
+        }
+
+        UploadSummary summary = orderImporter.importOrders(new ByteArrayInputStream(compressed.toByteArray()),
+                new UploadFormat(true, true), new UploadProgress(uploadConfig.getMaxReportedFailures()));
+
+        assertEquals(3, summary.received());
+        assertEquals(3, summary.persisted());
+        verify(orderRepository, times(2)).insertUnordered(anyList());
+    }
+
+    @Test
+    void should_map_failed_writes_to_line_indexes_after_skipped_lines() throws IOException {
+        uploadConfig.setPipelineWorkers(1);
+        when(orderRepository.insertUnordered(anyList()))
+                .thenReturn(new BulkInsertResult(1, List.of(new BulkInsertResult.Failure(1, "E11000 duplicate key"))));
+
+        String ndjson = "oops\n" + NDJSON_ORDER + "\n" + NDJSON_ORDER;
+        UploadSummary summary = orderImporter.importOrders(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)),
+                new UploadFormat(true, false), new UploadProgress(uploadConfig.getMaxReportedFailures()));
+
+        assertEquals(2, summary.received());
+        assertEquals(1, summary.persisted());
+        assertThat(summary.rejections()).extracting(UploadRejection::index).containsExactlyInAnyOrder(0L, 2L);
+    }
+
+    @Test
+    void should_reject_orders_violating_constraints() throws IOException {
+        when(orderRepository.insertUnordered(anyList()))
+                .thenAnswer(invocation -> new BulkInsertResult(invocation.<List<Order>>getArgument(0).size(), List.of()));
+
+        String invalidOrder = NDJSON_ORDER.replace("\"firstName\":\"Joe\"", "\"firstName\":\"\"");
+        String ndjson = NDJSON_ORDER + "\n" + invalidOrder + "\n" + NDJSON_ORDER;
+        UploadSummary summary = orderImporter.importOrders(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)),
+                new UploadFormat(true, false), new UploadProgress(uploadConfig.getMaxReportedFailures()));
+
+        assertEquals(3, summary.received());
+        assertEquals(2, summary.persisted());
+        assertThat(summary.rejections()).containsExactly(new UploadRejection(1, "customerInfo.firstName must not be blank"));
+    }
+
+    @Test
+    void should_reject_null_orders_without_failing_import() throws IOException {
+        when(orderRepository.insertUnordered(anyList()))
+                .thenAnswer(invocation -> new BulkInsertResult(invocation.<List<Order>>getArgument(0).size(), List.of()));
+
+        String json = "[" + NDJSON_ORDER + ",null," + NDJSON_ORDER + "]";
+        UploadSummary arraySummary = orderImporter.importOrders(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)),
+                UploadFormat.JSON_ARRAY, new UploadProgress(uploadConfig.getMaxReportedFailures()));
+        String ndjson = "null\n" + NDJSON_ORDER;
+        UploadSummary ndjsonSummary = orderImporter.importOrders(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)),
+                new UploadFormat(true, false), new UploadProgress(uploadConfig.getMaxReportedFailures()));
+
+        assertEquals(2, arraySummary.persisted());
+        assertThat(arraySummary.rejections()).containsExactly(new UploadRejection(1, "Order must not be null"));
+        assertEquals(1, ndjsonSummary.persisted());
+        assertThat(ndjsonSummary.rejections()).containsExactly(new UploadRejection(0, "Order must not be null"));
+    }
+
+    @Test
+    void should_fail_import_when_write_stage_fails() {
+        when(orderRepository.insertUnordered(anyList())).thenThrow(new IllegalStateException("Mongo unavailable"));
+
+        String ndjson = NDJSON_ORDER + "\n" + NDJSON_ORDER + "\n" + NDJSON_ORDER;
+        IOException exception = assertThrows(IOException.class, () -> orderImporter.importOrders(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)),
+                new UploadFormat(true, false), new UploadProgress(uploadConfig.getMaxReportedFailures())));
+
+        assertThat(exception.getMessage()).contains("Mongo unavailable");
+    }
+}
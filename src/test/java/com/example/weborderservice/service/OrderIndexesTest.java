@@ -0,0 +1,58 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.config.OrderExpiryConfig;
+import com.example.weborderservice.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class OrderIndexesTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    private OrderExpiryConfig expiryConfig;
+    private OrderIndexes orderIndexes;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        expiryConfig = new OrderExpiryConfig();
+        orderIndexes = new OrderIndexes(orderRepository, expiryConfig);
+    }
+
+    @Test
+    void should_create_search_indexes_at_startup_without_ttl_in_sweep_mode() {
+        orderIndexes.ensureIndexesAtStartup();
+        orderIndexes.ensureIndexesAtStartup();
+        orderIndexes.ensureIndexes();
+
+        verify(orderRepository, times(1)).ensureIndexes(null);
+    }
+
+    @Test
+    void should_include_ttl_index_in_ttl_mode() {
+        expiryConfig.setMode(OrderExpiryConfig.Mode.TTL_INDEX);
+
+        orderIndexes.ensureIndexesAtStartup();
+
+        verify(orderRepository).ensureIndexes(Duration.ofMinutes(1));
+    }
+
+    @Test
+    void should_keep_retrying_while_mongo_is_unavailable() {
+        doThrow(new IllegalStateException("Mongo unavailable")).doNothing().when(orderRepository).ensureIndexes(any());
+
+        orderIndexes.ensureIndexesAtStartup();
+        orderIndexes.ensureIndexesAtStartup();
+        orderIndexes.ensureIndexesAtStartup();
+
+        verify(orderRepository, times(2)).ensureIndexes(null);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.config.MetricsConfig;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private MetricsConfig config;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        config = new MetricsConfig();
+    }
+
+    @Test
+    void should_time_operations_by_outcome() {
+        OrderMetrics orderMetrics = new OrderMetrics(meterRegistry, config);
+
+        assertEquals("result", orderMetrics.time("retrieve", () -> "result"));
+        assertThrows(ResponseStatusException.class, () -> orderMetrics.timeVoid("retrieve", () -> {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }));
+        assertThrows(IllegalStateException.class, () -> orderMetrics.time("retrieve", () -> {
+            throw new IllegalStateException();
+        }));
+
+        assertEquals(1, meterRegistry.get(OrderMetrics.OPERATION_TIMER).tags("operation", "retrieve", "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get(OrderMetrics.OPERATION_TIMER).tags("operation", "retrieve", "outcome", "client_error").timer().count());
+        assertEquals(1, meterRegistry.get(OrderMetrics.OPERATION_TIMER).tags("operation", "retrieve", "outcome", "error").timer().count());
+    }
+
+    @Test
+    void should_time_phases_and_pass_checked_exceptions_through() {
+        OrderMetrics orderMetrics = new OrderMetrics(meterRegistry, config);
+
+        orderMetrics.timePhase("create", "cart", () -> 1);
+        assertThrows(IOException.class, () -> orderMetrics.time("export", () -> {
+            throw new IOException("closed");
+        }));
+
+        assertEquals(1, meterRegistry.get(OrderMetrics.PHASE_TIMER).tags("operation", "create", "phase", "cart").timer().count());
+        assertEquals(1, meterRegistry.get(OrderMetrics.OPERATION_TIMER).tags("operation", "export", "outcome", "error").timer().count());
+    }
+
+    @Test
+    void should_register_each_timer_once() {
+        AtomicInteger registrations = new AtomicInteger();
+        meterRegistry.config().meterFilter(new MeterFilter() {
+            @Override
+            public Meter.Id map(Meter.Id id) {
+                if (id.getName().startsWith(OrderMetrics.OPERATION_TIMER)) {
+                    registrations.incrementAndGet();
+                }
+                return id;
+            }
+        });
+        OrderMetrics orderMetrics = new OrderMetrics(meterRegistry, config);
+
+        for (int i = 0; i < 5; i++) {
+            orderMetrics.time("retrieve", () -> "result");
+            orderMetrics.timePhase("create", "cart", () -> 1);
+        }
+
+        assertEquals(2, registrations.get());
+        assertEquals(5, meterRegistry.get(OrderMetrics.OPERATION_TIMER).tags("operation", "retrieve").timer().count());
+        assertEquals(5, meterRegistry.get(OrderMetrics.PHASE_TIMER).tags("operation", "create", "phase", "cart").timer().count());
+    }
+
+    @Test
+    void should_record_upload_batch_sizes() {
+        OrderMetrics orderMetrics = new OrderMetrics(meterRegistry, config);
+
+        orderMetrics.recordUploadBatch(1000);
+        orderMetrics.recordUploadBatch(200);
+
+        assertEquals(1200, meterRegistry.get(OrderMetrics.UPLOAD_BATCH_SIZE).summary().totalAmount());
+    }
+
+    @Test
+    void should_record_nothing_when_disabled() {
+        config.setEnabled(false);
+        OrderMetrics orderMetrics = new OrderMetrics(meterRegistry, config);
+
+        assertEquals("result", orderMetrics.time("retrieve", () -> "result"));
+        orderMetrics.recordUploadBatch(1000);
+
+        assertNull(meterRegistry.find(OrderMetrics.OPERATION_TIMER).timer());
+        assertEquals(0, meterRegistry.get(OrderMetrics.UPLOAD_BATCH_SIZE).summary().count());
+    }
+}
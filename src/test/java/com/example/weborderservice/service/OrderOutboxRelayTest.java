@@ -0,0 +1,253 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.config.OutboxConfig;
+import com.example.weborderservice.model.Order;
+import com.example.weborderservice.model.OrderEvent;
+import com.example.weborderservice.model.OrderEventType;
+import com.example.weborderservice.repository.OrderEventRepository;
+import com.example.weborderservice.repository.OrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class OrderOutboxRelayTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2023-10-01T12:00:00Z"), ZoneId.of("UTC"));
+    private static final LocalDateTime NOW = LocalDateTime.of(2023, 10, 1, 12, 0);
+
+    @Mock
+    private OrderEventRepository eventRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    private InMemoryOrderEventSink sink;
+    private OutboxConfig config;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        sink = new InMemoryOrderEventSink();
+        config = new OutboxConfig();
+        config.setBatchSize(2);
+        meterRegistry = new SimpleMeterRegistry();
+        when(eventRepository.acquireRelayLease(anyString(), eq(NOW), eq(config.getLeaseDuration()))).thenReturn(true);
+        when(eventRepository.allocateSequences(anyString(), anyInt())).thenReturn(Optional.of(1L)).thenReturn(Optional.of(3L));
+    }
+
+    @Test
+    void should_publish_ready_events_in_batches_with_consecutive_sequences() {
+        List<OrderEvent> firstBatch = List.of(event(OrderEventType.CREATED, NOW), event(OrderEventType.FINALIZED, NOW));
+        List<OrderEvent> secondBatch = List.of(event(OrderEventType.DELETED, NOW));
+        when(eventRepository.findReady(2)).thenReturn(firstBatch);
+        when(eventRepository.findReadyAfter(firstBatch.get(1).getId(), 2)).thenReturn(secondBatch);
+
+        assertEquals(3, relay().relay());
+
+        assertThat(sink.events()).extracting(OrderEvent::getSequence).containsExactly(1L, 2L, 3L);
+        assertThat(sink.events()).extracting(OrderEvent::getType)
+                .containsExactly(OrderEventType.CREATED, OrderEventType.FINALIZED, OrderEventType.DELETED);
+        InOrder inOrder = inOrder(eventRepository);
+        inOrder.verify(eventRepository).markPublished(firstBatch);
+        inOrder.verify(eventRepository).markPublished(secondBatch);
+        verify(eventRepository).findReady(2);
+        assertEquals(NOW, firstBatch.get(0).getPublishedAt());
+        assertEquals(3.0, meterRegistry.get("orders.events.published").counter().count());
+    }
+
+    @Test
+    void should_publish_events_of_an_order_in_lifecycle_order_whatever_instance_recorded_them() {
+        UUID orderId = UUID.randomUUID();
+        // the finalizing instance's event sorts before the creating instance's one
+        OrderEvent finalized = event(OrderEventType.FINALIZED, NOW).toBuilder().orderId(orderId).build();
+        OrderEvent created = event(OrderEventType.CREATED, NOW).toBuilder().orderId(orderId).build();
+        when(eventRepository.findReady(2)).thenReturn(List.of(finalized, created));
+        when(eventRepository.findUnpublished(List.of(orderId))).thenReturn(List.of(finalized, created));
+
+        assertEquals(2, relay().relay());
+
+        assertThat(sink.events()).extracting(OrderEvent::getType)
+                .containsExactly(OrderEventType.CREATED, OrderEventType.FINALIZED);
+        assertThat(sink.events()).extracting(OrderEvent::getSequence).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void should_hold_back_events_until_earlier_events_of_the_order_are_published() {
+        UUID orderId = UUID.randomUUID();
+        // created is still pending after its instance crashed and finalized was recovered later, so both sort after deleted
+        OrderEvent deleted = event(OrderEventType.DELETED, NOW).toBuilder().orderId(orderId).build();
+        OrderEvent other = event(OrderEventType.CREATED, NOW);
+        OrderEvent created = event(OrderEventType.CREATED, NOW).toBuilder().orderId(orderId).build();
+        OrderEvent finalized = event(OrderEventType.FINALIZED, NOW).toBuilder().orderId(orderId).build();
+        when(eventRepository.findUnpublished(any())).thenAnswer(invocation -> Stream.of(deleted, created, finalized)
+                .filter(event -> event.getSequence() == null)
+                .toList());
+        when(eventRepository.allocateSequences(anyString(), anyInt()))
+                .thenReturn(Optional.of(1L)).thenReturn(Optional.of(2L)).thenReturn(Optional.of(3L)).thenReturn(Optional.of(4L));
+        when(eventRepository.findReady(2)).thenReturn(List.of(deleted, other))
+                .thenReturn(List.of(deleted, created))
+                .thenReturn(List.of(deleted));
+        when(eventRepository.findReadyAfter(other.getId(), 2)).thenReturn(List.of(finalized));
+        when(eventRepository.findReadyAfter(created.getId(), 2)).thenReturn(List.of(finalized));
+        OrderOutboxRelay relay = relay();
+
+        assertEquals(1, relay.relay());
+        assertEquals(2, relay.relay());
+        assertEquals(1, relay.relay());
+
+        assertThat(sink.events()).containsExactly(other, created, finalized, deleted);
+        assertThat(sink.events()).extracting(OrderEvent::getSequence).containsExactly(1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    void should_stop_after_max_batches_per_run() {
+        config.setMaxBatchesPerRun(1);
+        when(eventRepository.findReady(2)).thenReturn(List.of(event(OrderEventType.CREATED, NOW), event(OrderEventType.CREATED, NOW)));
+
+        assertEquals(2, relay().relay());
+
+        verify(eventRepository, times(1)).findReady(2);
+    }
+
+    @Test
+    void should_do_nothing_without_lease() {
+        when(eventRepository.acquireRelayLease(anyString(), any(), any())).thenReturn(false);
+
+        assertEquals(0, relay().relay());
+
+        verify(eventRepository, never()).findReady(anyInt());
+        verify(eventRepository, never()).findPendingBefore(any(), anyInt());
+    }
+
+    @Test
+    void should_stop_when_lease_is_lost_before_numbering_events() {
+        when(eventRepository.findReady(2)).thenReturn(List.of(event(OrderEventType.CREATED, NOW)));
+        when(eventRepository.allocateSequences(anyString(), anyInt())).thenReturn(Optional.empty());
+
+        assertEquals(0, relay().relay());
+
+        assertThat(sink.events()).isEmpty();
+        verify(eventRepository, never()).markPublished(any());
+    }
+
+    @Test
+    void should_keep_events_ready_when_a_sink_fails() {
+        when(eventRepository.findReady(2)).thenReturn(List.of(event(OrderEventType.CREATED, NOW)));
+        sink.failWith(new IllegalStateException("sink unavailable"));
+
+        assertThrows(IllegalStateException.class, () -> relay().relay());
+
+        verify(eventRepository, never()).markPublished(any());
+    }
+
+    @Test
+    void should_confirm_pending_events_from_order_state_and_abandon_old_ones() {
+        config.setBatchSize(10);
+        OrderEvent created = event(OrderEventType.CREATED, NOW.minusMinutes(1));
+        OrderEvent deleted = event(OrderEventType.DELETED, NOW.minusMinutes(1));
+        OrderEvent unpaid = event(OrderEventType.FINALIZED, NOW.minusMinutes(1));
+        OrderEvent expiredButPaid = event(OrderEventType.EXPIRED, NOW.minusHours(1));
+        when(eventRepository.findPendingBefore(NOW.minus(config.getVerifyAfter()), 10))
+                .thenReturn(List.of(created, deleted, unpaid, expiredButPaid));
+        when(orderRepository.findPaidStates(any())).thenReturn(Map.of(
+                created.getOrderId(), false,
+                unpaid.getOrderId(), false,
+                expiredButPaid.getOrderId(), true));
+        when(eventRepository.discardPending(any())).thenReturn(1L);
+
+        relay().relay();
+
+        verify(eventRepository).markReady(List.of(created.getId(), deleted.getId()));
+        verify(eventRepository).discardPending(List.of(expiredButPaid.getId()));
+        assertEquals(1.0, meterRegistry.get("orders.events.abandoned").counter().count());
+    }
+
+    @Test
+    void should_recover_finalize_events_missing_for_paid_orders_once_per_verify_interval() {
+        LocalDateTime checkpoint = NOW.minusSeconds(30);
+        LocalDateTime paidBefore = NOW.minus(config.getVerifyAfter());
+        Order recorded = Order.builder().orderId(UUID.randomUUID()).paidAt(NOW.minusSeconds(20)).build();
+        Order unrecorded = Order.builder().orderId(UUID.randomUUID()).paidAt(NOW.minusSeconds(10)).build();
+        when(eventRepository.findPaidCheckpoint()).thenReturn(Optional.of(checkpoint));
+        when(orderRepository.findPaidBetween(checkpoint, paidBefore, 2)).thenReturn(List.of(recorded, unrecorded));
+        when(eventRepository.findOrderIdsWithEvent(List.of(recorded.getOrderId(), unrecorded.getOrderId()), OrderEventType.FINALIZED))
+                .thenReturn(Set.of(recorded.getOrderId()));
+        when(eventRepository.insertIfAbsent(any())).thenAnswer(invocation -> invocation.<List<OrderEvent>>getArgument(0).size());
+        OrderOutboxRelay relay = relay();
+
+        relay.relay();
+
+        verify(eventRepository).insertIfAbsent(argThat(events -> events.size() == 1
+                && events.get(0).getOrderId().equals(unrecorded.getOrderId())
+                && events.get(0).getType() == OrderEventType.FINALIZED
+                && events.get(0).getState() == OrderEvent.State.READY
+                && events.get(0).getOccurredAt().equals(unrecorded.getPaidAt())));
+        // a full batch moves the checkpoint to the last payment seen and checks again on the next run
+        verify(eventRepository).savePaidCheckpoint(anyString(), eq(unrecorded.getPaidAt()));
+        assertEquals(1.0, meterRegistry.get("orders.events.recovered").counter().count());
+
+        when(orderRepository.findPaidBetween(checkpoint, paidBefore, 2)).thenReturn(List.of());
+        relay.relay();
+        relay.relay();
+
+        verify(eventRepository).savePaidCheckpoint(anyString(), eq(paidBefore));
+        verify(orderRepository, times(2)).findPaidBetween(any(), any(), anyInt());
+    }
+
+    @Test
+    void should_ensure_indexes_only_once() {
+        OrderOutboxRelay relay = relay();
+
+        relay.relay();
+        relay.relay();
+
+        verify(eventRepository, times(1)).ensureIndexes(Duration.ofDays(1));
+    }
+
+    @Test
+    void should_do_nothing_when_disabled() {
+        config.setEnabled(false);
+
+        assertEquals(0, relay().relay());
+
+        verifyNoInteractions(eventRepository, orderRepository);
+    }
+
+    private OrderOutboxRelay relay() {
+        return new OrderOutboxRelay(eventRepository, orderRepository, List.of(sink), config, meterRegistry, CLOCK);
+    }
+
+    private static OrderEvent event(final OrderEventType type, final LocalDateTime occurredAt) {
+        return OrderEvent.builder()
+                .id(UUID.randomUUID().toString())
+                .orderId(UUID.randomUUID())
+                .type(type)
+                .occurredAt(occurredAt)
+                .build();
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.config.OrderRollupConfig;
+import com.example.weborderservice.model.Category;
+import com.example.weborderservice.model.Order;
+import com.example.weborderservice.model.OrderLine;
+import com.example.weborderservice.model.OrderRollupDelta;
+import com.example.weborderservice.model.OrderSearchCriteria;
+import com.example.weborderservice.repository.OrderRepository;
+import com.example.weborderservice.repository.OrderRollupRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Range;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class OrderRollupServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2023, 10, 1, 12, 30);
+    private static final LocalDateTime HOUR = LocalDateTime.of(2023, 10, 1, 12, 0);
+
+    @Mock
+    private OrderRollupRepository rollupRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Captor
+    private ArgumentCaptor<Collection<OrderRollupDelta>> deltas;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OrderRollupService orderRollupService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        orderRollupService = new OrderRollupService(rollupRepository, orderRepository, new OrderRollupConfig(), meterRegistry,
+                Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+    }
+
+    @Test
+    void should_merge_placed_orders_into_hourly_total_and_category_deltas() {
+        Order order = order(line("10.00", 2, Category.BOOKS, Category.TOYS_GAMES), line("5", 1, Category.BOOKS));
+
+        orderRollupService.recordPlaced(List.of(order, order));
+
+        verify(rollupRepository).increment(deltas.capture());
+        assertThat(deltas.getValue()).containsExactlyInAnyOrder(
+                new OrderRollupDelta(HOUR, null, 2, 6, new BigDecimal("50.00"), 0, BigDecimal.ZERO),
+                new OrderRollupDelta(HOUR, Category.BOOKS, 2, 6, new BigDecimal("50.00"), 0, BigDecimal.ZERO),
+                new OrderRollupDelta(HOUR, Category.TOYS_GAMES, 2, 4, new BigDecimal("40.00"), 0, BigDecimal.ZERO));
+    }
+
+    @Test
+    void should_record_paid_revenue_once_per_order() {
+        orderRollupService.recordPaid(order(line("10", 3, Category.BOOKS)));
+
+        verify(rollupRepository).increment(deltas.capture());
+        assertThat(deltas.getValue()).containsExactlyInAnyOrder(
+                new OrderRollupDelta(HOUR, null, 0, 0, BigDecimal.ZERO, 1, new BigDecimal("30")),
+                new OrderRollupDelta(HOUR, Category.BOOKS, 0, 0, BigDecimal.ZERO, 1, new BigDecimal("30")));
+    }
+
+    @Test
+    void should_count_failed_update_without_failing_order_flow() {
+        doThrow(new IllegalStateException("Mongo unavailable")).when(rollupRepository).increment(any());
+
+        assertDoesNotThrow(() -> orderRollupService.recordPlaced(List.of(order(line("1", 1)))));
+
+        verify(rollupRepository, times(1)).increment(any());
+        assertEquals(1.0, meterRegistry.get("orders.rollups.failed").counter().count());
+    }
+
+    @Test
+    void should_rebuild_whole_ended_hours_from_stored_orders() {
+        LocalDateTime placedAt = HOUR.minusMinutes(20);
+        Order paid = order(line("10", 1, Category.BOOKS)).toBuilder().insertDateTime(placedAt).isPaid(true).build();
+        Order placed = order(line("5", 2)).toBuilder().insertDateTime(placedAt).build();
+        when(orderRepository.streamOrders(any(), anyInt())).thenReturn(Stream.of(paid, placed));
+
+        assertEquals(2, orderRollupService.rebuild(HOUR.minusHours(2).plusMinutes(10), NOW));
+
+        verify(orderRepository).streamOrders(new OrderSearchCriteria(null, null, HOUR.minusHours(2), HOUR, null), 500);
+        verify(rollupRepository).replace(eq(HOUR.minusHours(2)), eq(HOUR), deltas.capture());
+        assertThat(deltas.getValue()).containsExactlyInAnyOrder(
+                new OrderRollupDelta(HOUR.minusHours(1), null, 2, 3, new BigDecimal("20"), 1, new BigDecimal("10")),
+                new OrderRollupDelta(HOUR.minusHours(1), Category.BOOKS, 1, 1, new BigDecimal("10"), 1, new BigDecimal("10")));
+    }
+
+    @Test
+    void should_not_rebuild_hour_still_in_progress() {
+        assertThrows(ResponseStatusException.class, () -> orderRollupService.rebuild(HOUR.minusHours(1), NOW.plusHours(1)));
+        verifyNoInteractions(orderRepository, rollupRepository);
+    }
+
+    @Test
+    void should_read_default_window_from_start_of_hour() {
+        orderRollupService.rollups(null, null, Category.BOOKS);
+        orderRollupService.rollups(null, null, null);
+
+        verify(rollupRepository).findByHourBetweenAndCategory(eq(Range.rightOpen(HOUR.minusDays(1), NOW)), eq(Category.BOOKS), any());
+        verify(rollupRepository).findByHourBetween(eq(Range.rightOpen(HOUR.minusDays(1), NOW)), any());
+        verify(rollupRepository, times(1)).ensureIndexes();
+    }
+
+    @Test
+    void should_reject_empty_or_too_large_window() {
+        assertThrows(ResponseStatusException.class, () -> orderRollupService.rollups(NOW, NOW.minusHours(1), null));
+        assertThrows(ResponseStatusException.class, () -> orderRollupService.rollups(NOW.minusDays(40), NOW, null));
+        verifyNoInteractions(rollupRepository);
+    }
+
+    private static Order order(final OrderLine... lines) {
+        return Order.builder().orderId(UUID.randomUUID()).lines(List.of(lines)).insertDateTime(NOW).build();
+    }
+
+    private static OrderLine line(final String price, final int quantity, final Category... categories) {
+        return OrderLine.builder().price(new BigDecimal(price)).quantity(quantity).categories(List.of(categories)).build();
+    }
+}
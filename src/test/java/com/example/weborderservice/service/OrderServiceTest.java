@@ -1,13 +1,23 @@
 package com.example.weborderservice.service;
 
 
+import com.example.weborderservice.client.ShoppingCartResult;
 import com.example.weborderservice.client.ShoppingClient;
+import com.example.weborderservice.config.IdempotencyConfig;
+import com.example.weborderservice.config.MetricsConfig;
+import com.example.weborderservice.config.OrderCacheConfig;
+import com.example.weborderservice.config.ProductSnapshotConfig;
 import com.example.weborderservice.model.*;
+import com.example.weborderservice.repository.BulkInsertResult;
+import com.example.weborderservice.repository.IdempotencyRecordRepository;
 import com.example.weborderservice.repository.OrderRepository;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.weborderservice.repository.ProductSnapshotRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
@@ -15,16 +25,22 @@ import org.springframework.http.codec.multipart.FilePart;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class OrderServiceTest {
@@ -130,17 +146,46 @@ class OrderServiceTest {
     private ShoppingClient shoppingClient;
 
     @Mock
-    private ObjectMapper objectMapper;
+    private ProductSnapshotRepository snapshotRepository;
+
+    @Mock
+    private UploadJobService uploadJobService;
+
+    @Mock
+    private OrderExporter orderExporter;
+
+    @Mock
+    private OrderRollupService orderRollupService;
+
+    @Mock
+    private OrderOutbox orderOutbox;
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
 
     @Mock
     private FilePart filePart;
 
+    @Captor
+    private ArgumentCaptor<Collection<ProductSnapshot>> snapshots;
+
+    private SimpleMeterRegistry meterRegistry;
+
     private OrderService orderService;
 
     @BeforeEach
     public void setUp() {
         MockitoAnnotations.openMocks(this);
-        orderService = new OrderService(orderRepository, shoppingClient, objectMapper);
+        meterRegistry = new SimpleMeterRegistry();
+        IdempotencyConfig idempotencyConfig = new IdempotencyConfig();
+        idempotencyConfig.setCartIdAsKey(true);
+        OrderCache orderCache = new OrderCache(new OrderCacheConfig(), meterRegistry);
+        orderService = new OrderService(orderRepository, shoppingClient, uploadJobService, orderCache,
+                new IdempotencyCache(new IdempotencyConfig(), meterRegistry),
+                new ProductSnapshotService(snapshotRepository, new ProductSnapshotConfig(), meterRegistry), orderExporter, orderRollupService,
+                new OrderMetrics(meterRegistry, new MetricsConfig()), orderOutbox,
+                new CreateIdempotency(idempotencyRecordRepository, idempotencyConfig, meterRegistry));
+        when(idempotencyRecordRepository.insertIfAbsent(any())).thenReturn(true);
     }
 
     @Test
@@ -154,6 +199,129 @@ class OrderServiceTest {
         verify(orderRepository).findOrderByOrderId(orderId);
     }
 
+    @Test
+    void should_serve_repeated_reads_from_cache() {
+        UUID orderId = ORDER.getOrderId();
+        when(orderRepository.findOrderByOrderId(orderId)).thenReturn(Optional.of(ORDER));
+
+        orderService.retrieveOrder(orderId);
+        Order result = orderService.retrieveOrder(orderId);
+
+        assertThat(result).isEqualTo(ORDER);
+        verify(orderRepository, times(1)).findOrderByOrderId(orderId);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "orders").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "orders").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void should_evict_deleted_order_from_cache() {
+        UUID orderId = ORDER.getOrderId();
+        when(orderRepository.findOrderByOrderId(orderId)).thenReturn(Optional.of(ORDER)).thenReturn(Optional.empty());
+        when(orderRepository.deleteOrderByOrderId(orderId)).thenReturn(1L);
+
+        orderService.retrieveOrder(orderId);
+        orderService.deleteOrder(orderId);
+
+        assertThrows(ResponseStatusException.class, () -> orderService.retrieveOrder(orderId));
+        verify(orderRepository, times(2)).findOrderByOrderId(orderId);
+    }
+
+    @Test
+    void should_cache_created_order() {
+        UUID cartId = UUID.randomUUID();
+        when(shoppingClient.getShoppingCart(cartId)).thenReturn(SHOPPING_CART);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Order createdOrder = orderService.createOrder(cartId, CUSTOMER_INFO, DELIVERY_INFO, null);
+        Order retrievedOrder = orderService.retrieveOrder(createdOrder.getOrderId(), OrderView.LINES);
+
+        assertThat(retrievedOrder).isEqualTo(createdOrder);
+        verify(orderRepository, never()).findOrderByOrderId(any());
+    }
+
+    @Test
+    void should_record_created_event_around_save() {
+        UUID cartId = UUID.randomUUID();
+        List<OrderEvent> events = List.of(OrderEvent.builder().id("event").build());
+        when(shoppingClient.getShoppingCart(cartId)).thenReturn(SHOPPING_CART);
+        when(orderOutbox.prepare(eq(OrderEventType.CREATED), any())).thenReturn(events);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Order createdOrder = orderService.createOrder(cartId, CUSTOMER_INFO, DELIVERY_INFO, null);
+
+        InOrder inOrder = inOrder(orderOutbox, orderRepository);
+        inOrder.verify(orderOutbox).prepare(OrderEventType.CREATED, List.of(createdOrder.getOrderId()));
+        inOrder.verify(orderRepository).save(createdOrder);
+        inOrder.verify(orderOutbox).commit(events);
+    }
+
+    @Test
+    void should_push_field_projection_down_to_repository() {
+        UUID orderId = UUID.randomUUID();
+        when(orderRepository.findOrderFields(orderId, List.of("_id", "isPaid")))
+                .thenReturn(Optional.of(Order.builder().orderId(orderId).isPaid(true).build()));
+
+        Map<String, Object> result = orderService.retrieveOrderFields(orderId, EnumSet.of(OrderField.ORDER_ID, OrderField.PAID));
+
+        assertThat(result).containsExactly(entry("orderId", orderId), entry("paid", true));
+        verify(orderRepository, never()).findOrderByOrderId(any());
+    }
+
+    @Test
+    void should_project_cached_order_without_reading_repository() {
+        UUID orderId = ORDER.getOrderId();
+        when(orderRepository.findOrderByOrderId(orderId)).thenReturn(Optional.of(ORDER));
+        orderService.retrieveOrder(orderId);
+
+        Map<String, Object> result = orderService.retrieveOrderFields(orderId, OrderView.SUMMARY.getFields());
+
+        assertThat(result).containsOnlyKeys("orderId", "paid", "insertDateTime");
+        verify(orderRepository, never()).findOrderFields(any(), any());
+    }
+
+    @Test
+    void should_return_not_found_for_missing_projected_order() {
+        UUID orderId = UUID.randomUUID();
+        when(orderRepository.findOrderFields(any(), any())).thenReturn(Optional.empty());
+
+        assertThrows(ResponseStatusException.class, () -> orderService.retrieveOrderFields(orderId, EnumSet.of(OrderField.PAID)));
+    }
+
+    @Test
+    void should_return_page_with_cursor_of_last_order_when_more_results_exist() {
+        OrderSearchCriteria criteria = new OrderSearchCriteria(null, false, null, null, null);
+        Order newer = Order.builder().orderId(UUID.randomUUID()).insertDateTime(LocalDateTime.of(2023, 10, 1, 12, 1)).build();
+        Order older = Order.builder().orderId(UUID.randomUUID()).insertDateTime(LocalDateTime.of(2023, 10, 1, 12, 0)).build();
+        when(orderRepository.search(criteria, null, 2)).thenReturn(List.of(newer, older));
+
+        OrderPage page = orderService.searchOrders(criteria, null, 1);
+
+        assertThat(page.orders()).containsExactly(newer);
+        assertEquals(OrderCursor.of(newer), OrderCursor.decode(page.nextCursor()));
+    }
+
+    @Test
+    void should_return_last_page_without_cursor() {
+        OrderSearchCriteria criteria = new OrderSearchCriteria("joedoe@test.com", null, null, null, null);
+        OrderCursor cursor = new OrderCursor(LocalDateTime.of(2023, 10, 1, 12, 0), UUID.randomUUID());
+        when(orderRepository.search(criteria, cursor, 51)).thenReturn(List.of(ORDER));
+
+        OrderPage page = orderService.searchOrders(criteria, cursor.encode(), 50);
+
+        assertThat(page.orders()).containsExactly(ORDER);
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void should_reject_invalid_search_limit_and_cursor() {
+        OrderSearchCriteria criteria = new OrderSearchCriteria(null, null, null, null, null);
+
+        assertThrows(ResponseStatusException.class, () -> orderService.searchOrders(criteria, null, 0));
+        assertThrows(ResponseStatusException.class, () -> orderService.searchOrders(criteria, null, OrderService.MAX_SEARCH_LIMIT + 1));
+        assertThrows(ResponseStatusException.class, () -> orderService.searchOrders(criteria, "not-a-cursor", 10));
+        verifyNoInteractions(orderRepository);
+    }
+
     @Test
     void should_not_return_order_if_it_does_not_exist() {
         UUID orderId = ORDER.getOrderId();
@@ -164,28 +332,51 @@ class OrderServiceTest {
     }
 
     @Test
-    void should_create_order() {
+    void should_create_order_with_lines_and_store_snapshots_once() {
         UUID cartId = UUID.randomUUID();
-        UUID orderId = UUID.randomUUID();
+        UUID otherCartId = UUID.randomUUID();
+        Product product = SHOPPING_CART.getProducts().get(0);
+        when(shoppingClient.getShoppingCart(cartId)).thenReturn(ShoppingCart.builder().id(cartId).products(List.of(product, product)).build());
+        when(shoppingClient.getShoppingCart(otherCartId)).thenReturn(ShoppingCart.builder().id(otherCartId).products(List.of(product)).build());
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
-        when(shoppingClient.getShoppingCart(cartId)).thenReturn(SHOPPING_CART);
-        when(orderRepository.save(any(Order.class))).thenReturn(
-                Order.builder()
-                        .orderId(orderId)
-                        .products(SHOPPING_CART.getProducts())
-                        .deliveryInfo(DELIVERY_INFO)
-                        .customerInfo(CUSTOMER_INFO)
-                        .isPaid(false)
-                        .build()
-        );
-
-        Order createdOrder = orderService.createOrder(cartId, CUSTOMER_INFO, DELIVERY_INFO);
+        Order createdOrder = orderService.createOrder(cartId, CUSTOMER_INFO, DELIVERY_INFO, null);
+        orderService.createOrder(otherCartId, CUSTOMER_INFO, DELIVERY_INFO, null);
 
         assertNotNull(createdOrder.getOrderId());
-        assertThat(createdOrder.getProducts()).containsExactlyInAnyOrderElementsOf(SHOPPING_CART.getProducts());
+        assertNull(createdOrder.getProducts());
+        assertThat(createdOrder.getLines()).singleElement().satisfies(line -> {
+            assertEquals(product.getId(), line.getProductId());
+            assertEquals(product.getPrice(), line.getPrice());
+            assertEquals(2, line.getQuantity());
+        });
         assertThat(createdOrder.getCustomerInfo()).isEqualTo(CUSTOMER_INFO);
         assertThat(createdOrder.getDeliveryInfo()).isEqualTo(DELIVERY_INFO);
         assertFalse(createdOrder.isPaid());
+        assertEquals(new BigDecimal("20"), createdOrder.getTotal());
+        verify(orderRollupService, times(2)).recordPlaced(any());
+        verify(snapshotRepository, times(1)).insertMissing(argThat(snapshots -> snapshots.size() == 1));
+    }
+
+    @Test
+    void should_return_products_from_snapshots_by_default() {
+        UUID cartId = UUID.randomUUID();
+        Product product = SHOPPING_CART.getProducts().get(0);
+        when(shoppingClient.getShoppingCart(cartId)).thenReturn(SHOPPING_CART);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        Order createdOrder = orderService.createOrder(cartId, CUSTOMER_INFO, DELIVERY_INFO, null);
+        verify(snapshotRepository).insertMissing(snapshots.capture());
+        when(snapshotRepository.findAllById(any())).thenReturn(List.copyOf(snapshots.getValue()));
+
+        Order fullOrder = orderService.retrieveOrder(createdOrder.getOrderId());
+
+        assertThat(fullOrder.getProducts()).singleElement().satisfies(fullProduct -> {
+            assertEquals(product.getDescription(), fullProduct.getDescription());
+            assertEquals(product.getManufacturer(), fullProduct.getManufacturer());
+            assertNull(fullProduct.getReviews());
+        });
+        assertEquals(fullOrder, orderService.retrieveOrder(createdOrder.getOrderId(), OrderView.FULL));
+        assertNull(orderService.retrieveOrder(createdOrder.getOrderId(), OrderView.LINES).getProducts());
     }
 
     @Test
@@ -193,103 +384,286 @@ class OrderServiceTest {
         UUID orderId = ORDER.getOrderId();
         when(shoppingClient.getShoppingCart(orderId)).thenThrow(new ResponseStatusException(HttpStatus.NOT_FOUND, "Cart not found"));
 
-        assertThrows(ResponseStatusException.class, () -> orderService.createOrder(orderId, CUSTOMER_INFO, DELIVERY_INFO));
+        assertThrows(ResponseStatusException.class, () -> orderService.createOrder(orderId, CUSTOMER_INFO, DELIVERY_INFO, null));
+        verify(idempotencyRecordRepository).release(eq("cart:" + orderId), any());
+    }
+
+    @Test
+    void should_replay_order_created_with_same_idempotency_key_without_calling_shopping_service() {
+        UUID cartId = UUID.randomUUID();
+        when(shoppingClient.getShoppingCart(cartId)).thenReturn(SHOPPING_CART);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Order createdOrder = orderService.createOrder(cartId, CUSTOMER_INFO, DELIVERY_INFO, "retry-key");
+        Order replayedOrder = orderService.createOrder(cartId, CUSTOMER_INFO, DELIVERY_INFO, "retry-key");
+
+        assertEquals(createdOrder, replayedOrder);
+        verify(idempotencyRecordRepository).insertIfAbsent(argThat(record ->
+                record.getKey().equals("key:retry-key") && record.getOrderId().equals(createdOrder.getOrderId())));
+        verify(shoppingClient, times(1)).getShoppingCart(cartId);
+        verify(orderRepository, times(1)).save(any(Order.class));
+        verify(orderOutbox, times(1)).prepare(eq(OrderEventType.CREATED), any());
+        verify(orderRollupService, times(1)).recordPlaced(any());
+    }
+
+    @Test
+    void should_replay_order_stored_for_cart_by_another_instance() {
+        UUID cartId = UUID.randomUUID();
+        UUID orderId = UUID.randomUUID();
+        Order storedOrder = ORDER.toBuilder().orderId(orderId).build();
+        when(idempotencyRecordRepository.insertIfAbsent(any())).thenReturn(false);
+        when(idempotencyRecordRepository.findById("cart:" + cartId))
+                .thenReturn(Optional.of(new IdempotencyRecord("cart:" + cartId, cartId, orderId, LocalDateTime.now())));
+        when(orderRepository.findOrderByOrderId(orderId)).thenReturn(Optional.of(storedOrder));
+
+        assertEquals(storedOrder, orderService.createOrder(cartId, CUSTOMER_INFO, DELIVERY_INFO, null));
+
+        verifyNoInteractions(shoppingClient);
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    void should_create_batch_with_one_insert_and_report_failures_per_entry() {
+        UUID cartId = UUID.randomUUID();
+        UUID missingCartId = UUID.randomUUID();
+        UUID failingCartId = UUID.randomUUID();
+        when(shoppingClient.getShoppingCarts(any())).thenReturn(Map.of(
+                cartId, ShoppingCartResult.of(SHOPPING_CART),
+                missingCartId, ShoppingCartResult.failed(new ResponseStatusException(HttpStatus.NOT_FOUND, "Shopping cart not found")),
+                failingCartId, ShoppingCartResult.of(SHOPPING_CART)));
+        when(orderRepository.insertUnordered(anyList())).thenReturn(new BulkInsertResult(2, List.of(new BulkInsertResult.Failure(1, "write failed"))));
+
+        CreateOrdersResult result = orderService.createOrders(List.of(
+                new CartOrderRequest(cartId, CUSTOMER_INFO, DELIVERY_INFO),
+                new CartOrderRequest(missingCartId, CUSTOMER_INFO, DELIVERY_INFO),
+                new CartOrderRequest(failingCartId, CUSTOMER_INFO, DELIVERY_INFO),
+                new CartOrderRequest(cartId, CUSTOMER_INFO, DELIVERY_INFO)));
+
+        assertEquals(4, result.requested());
+        assertEquals(2, result.created());
+        assertEquals(List.of(201, 404, 500, 201), result.results().stream().map(CartOrderResult::status).toList());
+        assertEquals("Shopping cart not found", result.results().get(1).error());
+        assertNotEquals(result.results().get(0).order().getOrderId(), result.results().get(3).order().getOrderId());
+        verify(shoppingClient).getShoppingCarts(Set.of(cartId, missingCartId, failingCartId));
+        verify(shoppingClient, never()).getShoppingCart(any());
+        verify(orderRepository).insertUnordered(argThat(orders -> orders.size() == 3));
+        verify(snapshotRepository, times(1)).insertMissing(argThat(snapshots -> snapshots.size() == 1));
+        verify(orderRollupService).recordPlaced(argThat(orders -> orders.size() == 2));
+        verify(orderOutbox).prepare(eq(OrderEventType.CREATED), argThat(orderIds -> orderIds.size() == 3));
+        verify(orderOutbox).resolve(any(), eq(List.of(result.results().get(0).order().getOrderId(), result.results().get(3).order().getOrderId())));
+        Order createdOrder = result.results().get(0).order();
+        assertEquals(createdOrder, orderService.retrieveOrder(createdOrder.getOrderId(), OrderView.LINES));
+        verify(orderRepository, never()).findOrderByOrderId(any());
     }
 
     @Test
-    void should_delete_order() {
+    void should_delete_order_with_single_repository_call() {
         UUID orderId = ORDER.getOrderId();
-        when(orderRepository.findOrderByOrderId(orderId)).thenReturn(Optional.of(ORDER));
-        doNothing().when(orderRepository).deleteOrderByOrderId(orderId);
+        when(orderRepository.deleteOrderByOrderId(orderId)).thenReturn(1L);
 
         orderService.deleteOrder(orderId);
 
-        verify(orderRepository).findOrderByOrderId(orderId);
         verify(orderRepository).deleteOrderByOrderId(orderId);
+        verify(orderRepository, never()).findOrderByOrderId(any());
+        verify(orderRepository, never()).findPaidStates(any());
+        verify(orderOutbox).record(OrderEventType.DELETED, List.of(orderId));
     }
 
     @Test
     void should_return_error_if_order_not_found() {
         UUID orderId = ORDER.getOrderId();
-        when(orderRepository.findOrderByOrderId(orderId)).thenReturn(Optional.empty());
+        when(orderRepository.deleteOrderByOrderId(orderId)).thenReturn(0L);
 
-        assertThrows(ResponseStatusException.class, () -> orderService.deleteOrder(orderId));
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> orderService.deleteOrder(orderId));
 
-        verify(orderRepository).findOrderByOrderId(orderId);
-        verify(orderRepository, never()).deleteOrderByOrderId(orderId);
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
+        verify(orderRepository, never()).findOrderByOrderId(any());
+        verifyNoInteractions(orderOutbox);
     }
 
     @Test
     void should_return_error_if_deletion_failed() {
         UUID orderId = ORDER.getOrderId();
-        when(orderRepository.findOrderByOrderId(orderId)).thenReturn(Optional.of(ORDER));
-        doThrow(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Some error")).when(orderRepository).deleteOrderByOrderId(orderId);
+        when(orderRepository.deleteOrderByOrderId(orderId)).thenThrow(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Some error"));
 
         assertThrows(ResponseStatusException.class, () -> orderService.deleteOrder(orderId));
 
-        verify(orderRepository).findOrderByOrderId(orderId);
         verify(orderRepository).deleteOrderByOrderId(orderId);
     }
 
     @Test
-    void should_finalize_order() {
+    void should_delete_distinct_orders_in_one_batch_and_evict_them() {
+        UUID orderId = ORDER.getOrderId();
+        UUID missingOrderId = UUID.randomUUID();
+        when(orderRepository.findOrderByOrderId(orderId)).thenReturn(Optional.of(ORDER)).thenReturn(Optional.empty());
+        when(orderRepository.deleteOrdersByOrderIdIn(Set.of(orderId, missingOrderId))).thenReturn(1L);
+        orderService.retrieveOrder(orderId);
+
+        DeleteOrdersResult result = orderService.deleteOrders(List.of(orderId, missingOrderId, orderId));
+
+        assertEquals(new DeleteOrdersResult(2, 1), result);
+        verify(orderRepository).deleteOrdersByOrderIdIn(Set.of(orderId, missingOrderId));
+        assertThrows(ResponseStatusException.class, () -> orderService.retrieveOrder(orderId));
+    }
+
+    @Test
+    void should_record_deleted_events_only_for_existing_orders() {
+        UUID orderId = ORDER.getOrderId();
+        UUID missingOrderId = UUID.randomUUID();
+        List<OrderEvent> events = List.of(OrderEvent.builder().id("event").orderId(orderId).build());
+        when(orderOutbox.isEnabled()).thenReturn(true);
+        when(orderRepository.findPaidStates(Set.of(orderId, missingOrderId))).thenReturn(Map.of(orderId, false));
+        when(orderOutbox.prepare(OrderEventType.DELETED, Set.of(orderId))).thenReturn(events);
+        when(orderRepository.deleteOrdersByOrderIdIn(Set.of(orderId, missingOrderId))).thenReturn(1L);
+
+        orderService.deleteOrders(List.of(orderId, missingOrderId));
+
+        verify(orderOutbox).commit(events);
+    }
+
+    @Test
+    void should_skip_batch_delete_when_no_order_exists() {
+        UUID orderId = UUID.randomUUID();
+        when(orderOutbox.isEnabled()).thenReturn(true);
+        when(orderRepository.findPaidStates(Set.of(orderId))).thenReturn(Map.of());
+
+        assertEquals(new DeleteOrdersResult(1, 0), orderService.deleteOrders(List.of(orderId)));
+
+        verify(orderOutbox, never()).prepare(any(), any());
+        verify(orderRepository, never()).deleteOrdersByOrderIdIn(any());
+    }
+
+    @Test
+    void should_leave_deleted_events_pending_when_fewer_orders_were_deleted() {
+        UUID orderId = ORDER.getOrderId();
+        UUID otherOrderId = UUID.randomUUID();
+        when(orderOutbox.isEnabled()).thenReturn(true);
+        when(orderRepository.findPaidStates(any())).thenReturn(Map.of(orderId, false, otherOrderId, true));
+        when(orderRepository.deleteOrdersByOrderIdIn(any())).thenReturn(1L);
+
+        orderService.deleteOrders(List.of(orderId, otherOrderId));
+
+        verify(orderOutbox).prepare(OrderEventType.DELETED, Set.of(orderId, otherOrderId));
+        verify(orderOutbox, never()).commit(any());
+    }
+
+    @Test
+    void should_finalize_order_with_single_conditional_update() {
+        UUID orderId = FINALIZED_ORDER.getOrderId();
+        when(orderRepository.markPaid(orderId)).thenReturn(Optional.of(FINALIZED_ORDER));
+
+        Order finalizedOrder = orderService.finalizeOrder(orderId, null);
+
+        assertTrue(finalizedOrder.isPaid());
+        verify(orderRollupService).recordPaid(FINALIZED_ORDER);
+        verify(orderRepository).markPaid(orderId);
+        verify(orderOutbox).record(OrderEventType.FINALIZED, List.of(orderId));
+        verify(orderRepository, never()).findOrderByOrderId(any());
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    void should_return_already_paid_order_without_writing() {
         UUID orderId = FINALIZED_ORDER.getOrderId();
+        when(orderRepository.markPaid(orderId)).thenReturn(Optional.empty());
         when(orderRepository.findOrderByOrderId(orderId)).thenReturn(Optional.of(FINALIZED_ORDER));
-        when(orderRepository.save(any(Order.class))).thenReturn(FINALIZED_ORDER);
 
-        Order finalizedOrder = orderService.finalizeOrder(orderId);
+        Order finalizedOrder = orderService.finalizeOrder(orderId, null);
 
         assertTrue(finalizedOrder.isPaid());
-        verify(orderRepository).findOrderByOrderId(orderId);
-        verify(orderRepository).save(any(Order.class));
+        verify(orderRepository, never()).save(any(Order.class));
+        verify(orderRollupService, never()).recordPaid(any());
+        verifyNoInteractions(orderOutbox);
+    }
+
+    @Test
+    void should_serve_finalized_order_from_cache() {
+        UUID orderId = FINALIZED_ORDER.getOrderId();
+        when(orderRepository.markPaid(orderId)).thenReturn(Optional.of(FINALIZED_ORDER));
+
+        orderService.finalizeOrder(orderId, null);
+        Order retrievedOrder = orderService.retrieveOrder(orderId);
+
+        assertTrue(retrievedOrder.isPaid());
+        verify(orderRepository, never()).findOrderByOrderId(any());
     }
 
     @Test
     void should_return_error_if_order_not_found_for_finalize() {
         UUID orderId = ORDER.getOrderId();
+        when(orderRepository.markPaid(orderId)).thenReturn(Optional.empty());
         when(orderRepository.findOrderByOrderId(orderId)).thenReturn(Optional.empty());
 
-        assertThrows(ResponseStatusException.class, () -> orderService.finalizeOrder(orderId));
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> orderService.finalizeOrder(orderId, null));
 
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
         verify(orderRepository).findOrderByOrderId(orderId);
     }
 
     @Test
     void should_return_error_if_updating_order_failed() {
         UUID orderId = ORDER.getOrderId();
-        when(orderRepository.findOrderByOrderId(orderId)).thenReturn(Optional.of(ORDER));
-        when(orderRepository.save(any(Order.class))).thenThrow(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Some error"));
+        when(orderRepository.markPaid(orderId)).thenThrow(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Some error"));
 
-        assertThrows(ResponseStatusException.class, () -> orderService.finalizeOrder(orderId));
+        assertThrows(ResponseStatusException.class, () -> orderService.finalizeOrder(orderId, null));
 
-        verify(orderRepository).findOrderByOrderId(orderId);
-        verify(orderRepository).save(any(Order.class));
+        verify(orderRepository).markPaid(orderId);
+    }
+
+    @Test
+    void should_replay_finalize_for_same_idempotency_key() {
+        UUID orderId = FINALIZED_ORDER.getOrderId();
+        when(orderRepository.markPaid(orderId)).thenReturn(Optional.of(FINALIZED_ORDER));
+
+        orderService.finalizeOrder(orderId, "retry-key");
+        Order replayedOrder = orderService.finalizeOrder(orderId, "retry-key");
+
+        assertThat(replayedOrder).isEqualTo(FINALIZED_ORDER);
+        verify(orderRepository, times(1)).markPaid(orderId);
+    }
+
+    @Test
+    void should_reject_idempotency_key_reused_for_another_order() {
+        when(orderRepository.markPaid(FINALIZED_ORDER.getOrderId())).thenReturn(Optional.of(FINALIZED_ORDER));
+        orderService.finalizeOrder(FINALIZED_ORDER.getOrderId(), "retry-key");
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> orderService.finalizeOrder(ORDER.getOrderId(), "retry-key"));
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, exception.getStatusCode());
+        verify(orderRepository, never()).markPaid(ORDER.getOrderId());
     }
 
     @Test
-    void should_upload_orders() throws IOException {
+    void should_upload_orders() {
         String jsonContent = "[{\"orderId\":\"...\", ...}]";
         MockMultipartFile file = new MockMultipartFile("file", "orders.json", "application/json", jsonContent.getBytes());
 
-        List<Order> orders = List.of(ORDER, FINALIZED_ORDER);
-        when(objectMapper.readValue(any(byte[].class), any(TypeReference.class))).thenReturn(orders);
-        when(orderRepository.saveAll(anyList())).thenReturn(orders);
+        UploadJobStatus status = new UploadJobStatus(UUID.randomUUID(), UploadJobState.QUEUED, 0, 0, 0, 0, List.of(), LocalDateTime.now(), null, null);
+        when(uploadJobService.submit(file)).thenReturn(status);
 
-        List<Order> uploadedOrders = orderService.uploadProducts(file);
+        UploadJobStatus uploadStatus = orderService.uploadProducts(file);
 
-        assertEquals(2, uploadedOrders.size());
-        verify(objectMapper, times(1)).readValue(any(byte[].class), any(TypeReference.class));
-        verify(orderRepository, times(1)).saveAll(anyList());
+        assertEquals(status.jobId(), uploadStatus.jobId());
+        verify(uploadJobService, times(1)).submit(file);
     }
 
     @Test
-    void should_throw_error_when_file_processing_fails() throws IOException {
+    void should_throw_error_when_upload_submission_fails() {
         MockMultipartFile file = new MockMultipartFile("file", "orders.json", "application/json", new byte[0]);
 
-        when(objectMapper.readValue(any(byte[].class), any(TypeReference.class))).thenThrow(new IOException("Failed to read"));
+        when(uploadJobService.submit(file)).thenThrow(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Upload queue is full"));
 
         assertThrows(ResponseStatusException.class, () -> orderService.uploadProducts(file));
-        verify(objectMapper, times(1)).readValue(any(byte[].class), any(TypeReference.class));
-        verify(orderRepository, never()).saveAll(anyList());
+        verify(orderRepository, never()).insertUnordered(anyList());
+    }
+
+    @Test
+    void should_return_upload_status() {
+        UUID jobId = UUID.randomUUID();
+        UploadJobStatus status = new UploadJobStatus(jobId, UploadJobState.COMPLETED, 3, 3, 0, 100, List.of(), LocalDateTime.now(), LocalDateTime.now(), null);
+        when(uploadJobService.getStatus(jobId)).thenReturn(status);
+
+        assertThat(orderService.retrieveUploadStatus(jobId)).isEqualTo(status);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,121 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.config.ProductSnapshotConfig;
+import com.example.weborderservice.model.Category;
+import com.example.weborderservice.model.Manufacturer;
+import com.example.weborderservice.model.OrderLine;
+import com.example.weborderservice.model.Product;
+import com.example.weborderservice.model.ProductSnapshot;
+import com.example.weborderservice.model.Review;
+import com.example.weborderservice.repository.ProductSnapshotRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class ProductSnapshotServiceTest {
+
+    private static final UUID PRODUCT_ID = UUID.randomUUID();
+    private static final Manufacturer MANUFACTURER = Manufacturer.builder().id(UUID.randomUUID()).name("manufacturer name").build();
+    private static final Product PRODUCT = product(PRODUCT_ID, "Test product", new BigDecimal("10.00"));
+
+    @Mock
+    private ProductSnapshotRepository snapshotRepository;
+
+    private ProductSnapshotService productSnapshotService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        productSnapshotService = new ProductSnapshotService(snapshotRepository, new ProductSnapshotConfig(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void should_group_identical_products_into_one_line_and_snapshot() {
+        Product otherProduct = product(UUID.randomUUID(), "Test product", new BigDecimal("10.00"));
+
+        SnapshottedProducts result = productSnapshotService.snapshot(List.of(PRODUCT, otherProduct, PRODUCT));
+
+        assertThat(result.snapshots()).hasSize(2);
+        assertThat(result.lines()).extracting(OrderLine::getProductId, OrderLine::getQuantity)
+                .containsExactly(tuple(PRODUCT.getId(), 2), tuple(otherProduct.getId(), 1));
+    }
+
+    @Test
+    void should_derive_snapshot_id_from_content_only() {
+        Product samePrice = product(PRODUCT_ID, "Test product", new BigDecimal("10"));
+        samePrice.setReviews(null);
+        Product renamed = product(PRODUCT_ID, "Renamed", new BigDecimal("10.00"));
+
+        String id = snapshotId(PRODUCT);
+
+        assertThat(snapshotId(samePrice)).isEqualTo(id);
+        assertThat(snapshotId(renamed)).isNotEqualTo(id);
+    }
+
+    @Test
+    void should_insert_each_snapshot_once() {
+        productSnapshotService.store(List.of(PRODUCT));
+        productSnapshotService.store(List.of(PRODUCT, PRODUCT));
+
+        verify(snapshotRepository).insertMissing(argThat(snapshots -> snapshots.size() == 1));
+        verify(snapshotRepository).insertMissing(List.of());
+    }
+
+    @Test
+    void should_expand_lines_into_products_without_reviews() {
+        SnapshottedProducts snapshotted = productSnapshotService.snapshot(List.of(PRODUCT, PRODUCT));
+        ProductSnapshot snapshot = snapshotted.snapshots().get(0);
+
+        List<Product> products = ProductSnapshotService.toProducts(snapshotted.lines(), Map.of(snapshot.getId(), snapshot));
+
+        assertThat(products).hasSize(2).allSatisfy(product -> {
+            assertThat(product.getDescription()).isEqualTo(PRODUCT.getDescription());
+            assertThat(product.getManufacturer()).isEqualTo(PRODUCT.getManufacturer());
+            assertThat(product.getReviews()).isNull();
+        });
+    }
+
+    @Test
+    void should_fall_back_to_line_when_snapshot_is_missing() {
+        List<OrderLine> lines = productSnapshotService.snapshot(List.of(PRODUCT)).lines();
+
+        List<Product> products = ProductSnapshotService.toProducts(lines, Map.of());
+
+        assertThat(products).singleElement().satisfies(product -> {
+            assertThat(product.getId()).isEqualTo(PRODUCT.getId());
+            assertThat(product.getPrice()).isEqualTo(PRODUCT.getPrice());
+            assertThat(product.getDescription()).isNull();
+        });
+        verify(snapshotRepository, never()).insertMissing(anyCollection());
+    }
+
+    private static Product product(final UUID id, final String name, final BigDecimal price) {
+        return Product.builder()
+                .id(id)
+                .name(name)
+                .description("Test description")
+                .price(price)
+                .manufacturer(MANUFACTURER)
+                .categories(List.of(Category.BABY_PRODUCTS))
+                .createdAt(LocalDateTime.of(2023, 1, 1, 12, 0))
+                .reviews(List.of(Review.builder().comment("Comment").rating(5).build()))
+                .build();
+    }
+
+    private String snapshotId(final Product product) {
+        return productSnapshotService.snapshot(List.of(product)).snapshots().get(0).getId();
+    }
+}
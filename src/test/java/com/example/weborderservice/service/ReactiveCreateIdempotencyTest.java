@@ -0,0 +1,153 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.config.IdempotencyConfig;
+import com.example.weborderservice.model.IdempotencyRecord;
+import com.example.weborderservice.model.Order;
+import com.example.weborderservice.repository.IdempotencyRecordRepository;
+import com.example.weborderservice.repository.ReactiveIdempotencyRecordRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ReactiveCreateIdempotencyTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2023-10-01T12:00:00Z"), ZoneId.of("UTC"));
+    private static final LocalDateTime NOW = LocalDateTime.of(2023, 10, 1, 12, 0);
+    private static final UUID CART_ID = UUID.randomUUID();
+    private static final String CART_KEY = "cart:" + CART_ID;
+
+    @Mock
+    private IdempotencyRecordRepository blockingRepository;
+    @Mock
+    private ReactiveIdempotencyRecordRepository repository;
+
+    private ReactiveCreateIdempotency createIdempotency;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        IdempotencyConfig config = new IdempotencyConfig();
+        config.setCartIdAsKey(true);
+        createIdempotency = new ReactiveCreateIdempotency(
+                new CreateIdempotency(blockingRepository, config, new SimpleMeterRegistry(), CLOCK), repository);
+        when(repository.insertIfAbsent(any())).thenReturn(Mono.just(false));
+        when(repository.findById(any(String.class))).thenReturn(Mono.empty());
+    }
+
+    @Test
+    void should_claim_unused_key_and_ensure_indexes_once() {
+        when(repository.insertIfAbsent(any())).thenReturn(Mono.just(true));
+
+        StepVerifier.create(createIdempotency.claim(CART_ID, null, noOrders()))
+                .assertNext(claim -> {
+                    assertThat(claim.isReplay()).isFalse();
+                    verify(repository).insertIfAbsent(new IdempotencyRecord(CART_KEY, CART_ID, claim.orderId(), NOW));
+                })
+                .verifyComplete();
+        createIdempotency.claim(CART_ID, "retry-key", noOrders()).block();
+
+        verify(blockingRepository, times(1)).ensureIndexes(Duration.ofDays(1));
+        verify(blockingRepository, never()).insertIfAbsent(any());
+    }
+
+    @Test
+    void should_replay_order_of_stored_key_and_then_from_local_cache() {
+        UUID orderId = UUID.randomUUID();
+        Order order = Order.builder().orderId(orderId).build();
+        when(repository.findById(CART_KEY)).thenReturn(Mono.just(new IdempotencyRecord(CART_KEY, CART_ID, orderId, NOW.minusHours(1))));
+
+        StepVerifier.create(createIdempotency.claim(CART_ID, null, orders(Map.of(orderId, order))))
+                .assertNext(claim -> assertThat(claim.replayedOrder()).isSameAs(order))
+                .verifyComplete();
+        StepVerifier.create(createIdempotency.claim(CART_ID, null, orders(Map.of(orderId, order))))
+                .assertNext(claim -> assertThat(claim.replayedOrder()).isSameAs(order))
+                .verifyComplete();
+
+        verify(repository, times(1)).insertIfAbsent(any());
+    }
+
+    @Test
+    void should_reject_key_used_for_another_cart() {
+        when(repository.findById("key:retry-key"))
+                .thenReturn(Mono.just(new IdempotencyRecord("key:retry-key", UUID.randomUUID(), UUID.randomUUID(), NOW)));
+
+        StepVerifier.create(createIdempotency.claim(CART_ID, "retry-key", noOrders()))
+                .expectErrorSatisfies(error -> assertThat(((ResponseStatusException) error).getStatusCode())
+                        .isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY))
+                .verify();
+    }
+
+    @Test
+    void should_report_conflict_while_first_request_is_still_creating_the_order() {
+        when(repository.findById(CART_KEY)).thenReturn(Mono.just(new IdempotencyRecord(CART_KEY, CART_ID, UUID.randomUUID(), NOW.minusSeconds(5))));
+
+        StepVerifier.create(createIdempotency.claim(CART_ID, null, noOrders()))
+                .expectErrorSatisfies(error -> assertThat(((ResponseStatusException) error).getStatusCode())
+                        .isEqualTo(HttpStatus.CONFLICT))
+                .verify();
+        verify(repository, never()).replaceClaim(any(), any());
+    }
+
+    @Test
+    void should_take_over_claim_whose_order_never_appeared() {
+        IdempotencyRecord abandoned = new IdempotencyRecord(CART_KEY, CART_ID, UUID.randomUUID(), NOW.minusMinutes(5));
+        when(repository.findById(CART_KEY)).thenReturn(Mono.just(abandoned));
+        when(repository.replaceClaim(eq(abandoned), any())).thenReturn(Mono.just(true));
+
+        StepVerifier.create(createIdempotency.claim(CART_ID, null, noOrders()))
+                .assertNext(claim -> {
+                    assertThat(claim.isReplay()).isFalse();
+                    verify(repository).replaceClaim(abandoned, new IdempotencyRecord(CART_KEY, CART_ID, claim.orderId(), NOW));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void should_claim_key_released_since_the_first_insert() {
+        when(repository.insertIfAbsent(any())).thenReturn(Mono.just(false), Mono.just(true));
+
+        StepVerifier.create(createIdempotency.claim(CART_ID, null, noOrders()))
+                .assertNext(claim -> assertThat(claim.key()).isEqualTo(CART_KEY))
+                .verifyComplete();
+        verify(repository, times(2)).insertIfAbsent(any());
+    }
+
+    @Test
+    void should_release_only_own_claim() {
+        when(repository.insertIfAbsent(any())).thenReturn(Mono.just(true));
+        when(repository.release(any(), any())).thenReturn(Mono.just(1L));
+        CreateIdempotency.Claim claim = createIdempotency.claim(CART_ID, null, noOrders()).block();
+
+        StepVerifier.create(createIdempotency.release(claim)).verifyComplete();
+
+        verify(repository).release(CART_KEY, claim.orderId());
+    }
+
+    private static Function<UUID, Mono<Order>> noOrders() {
+        return orderId -> Mono.empty();
+    }
+
+    private static Function<UUID, Mono<Order>> orders(final Map<UUID, Order> orders) {
+        return orderId -> Mono.justOrEmpty(orders.get(orderId));
+    }
+}
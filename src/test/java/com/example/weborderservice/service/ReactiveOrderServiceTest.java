@@ -0,0 +1,408 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.client.ReactiveShoppingClient;
+import com.example.weborderservice.client.ShoppingCartResult;
+import com.example.weborderservice.config.ExportConfig;
+import com.example.weborderservice.config.IdempotencyConfig;
+import com.example.weborderservice.config.ProductSnapshotConfig;
+import com.example.weborderservice.config.UploadConfig;
+import com.example.weborderservice.model.*;
+import com.example.weborderservice.repository.BulkInsertResult;
+import com.example.weborderservice.repository.IdempotencyRecordRepository;
+import com.example.weborderservice.repository.ReactiveIdempotencyRecordRepository;
+import com.example.weborderservice.repository.ProductSnapshotRepository;
+import com.example.weborderservice.repository.ReactiveOrderRepository;
+import com.example.weborderservice.repository.ReactiveProductSnapshotRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ReactiveOrderServiceTest {
+
+    private static final String ORDER_JSON = "{\"products\":[],\"customerInfo\":{\"firstName\":\"Joe\",\"lastName\":\"Doe\","
+            + "\"email\":\"joedoe@test.com\",\"phoneNumber\":\"555666777\"},\"deliveryInfo\":{\"address\":\"Street 1\","
+            + "\"city\":\"London\",\"postalCode\":\"33333\",\"country\":\"United Kingdom\"},\"paid\":false}";
+
+    private static final CustomerInfo CUSTOMER_INFO = CustomerInfo.builder()
+            .firstName("Joe")
+            .lastName("Doe")
+            .email("joedoe@test.com")
+            .phoneNumber("555666777")
+            .build();
+    private static final DeliveryInfo DELIVERY_INFO = DeliveryInfo.builder()
+            .address("Street 1")
+            .city("London")
+            .postalCode("33333")
+            .country("United Kingdom")
+            .build();
+
+    @Mock
+    private ReactiveOrderRepository orderRepository;
+
+    @Mock
+    private ReactiveProductSnapshotRepository snapshotRepository;
+
+    @Mock
+    private ReactiveShoppingClient shoppingClient;
+
+    @Mock
+    private OrderRollupService orderRollupService;
+
+    @Mock
+    private OrderOutbox orderOutbox;
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Mock
+    private ReactiveIdempotencyRecordRepository reactiveIdempotencyRecordRepository;
+
+    @Captor
+    private ArgumentCaptor<Iterable<ProductSnapshot>> snapshots;
+
+    @Captor
+    private ArgumentCaptor<List<Order>> captor;
+
+    private IdempotencyCache idempotencyCache;
+    private ReactiveOrderService orderService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        UploadConfig uploadConfig = new UploadConfig();
+        uploadConfig.setBatchSize(2);
+        ProductSnapshotService productSnapshotService = new ProductSnapshotService(mock(ProductSnapshotRepository.class),
+                new ProductSnapshotConfig(), new SimpleMeterRegistry());
+        IdempotencyConfig idempotencyConfig = new IdempotencyConfig();
+        idempotencyConfig.setCartIdAsKey(true);
+        ReactiveCreateIdempotency createIdempotency = new ReactiveCreateIdempotency(
+                new CreateIdempotency(idempotencyRecordRepository, idempotencyConfig, new SimpleMeterRegistry()), reactiveIdempotencyRecordRepository);
+        idempotencyCache = new IdempotencyCache(new IdempotencyConfig(), new SimpleMeterRegistry());
+        orderService = new ReactiveOrderService(orderRepository, snapshotRepository, productSnapshotService, orderRollupService, orderOutbox,
+                createIdempotency, idempotencyCache, shoppingClient, Validation.buildDefaultValidatorFactory().getValidator(), uploadConfig, new ExportConfig(), objectMapper);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(orderRepository.insert(anyList())).thenAnswer(invocation -> Flux.fromIterable(invocation.<List<Order>>getArgument(0)));
+        when(reactiveIdempotencyRecordRepository.insertIfAbsent(any())).thenReturn(Mono.just(true));
+        when(reactiveIdempotencyRecordRepository.release(any(), any())).thenReturn(Mono.just(1L));
+        when(snapshotRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.<Iterable<ProductSnapshot>>getArgument(0)));
+    }
+
+    @Test
+    void should_create_order_from_shopping_cart() {
+        UUID cartId = UUID.randomUUID();
+        ShoppingCart shoppingCart = ShoppingCart.builder().id(cartId).products(List.of()).build();
+        when(shoppingClient.getShoppingCart(cartId)).thenReturn(Mono.just(shoppingCart));
+
+        StepVerifier.create(orderService.createOrder(cartId, CUSTOMER_INFO, DELIVERY_INFO, null))
+                .assertNext(order -> {
+                    assertThat(order.getOrderId()).isNotNull();
+                    assertThat(order.getCustomerInfo()).isEqualTo(CUSTOMER_INFO);
+                    assertThat(order.isPaid()).isFalse();
+                    verify(orderOutbox).prepare(OrderEventType.CREATED, List.of(order.getOrderId()));
+                })
+                .verifyComplete();
+        verify(orderOutbox).commit(List.of());
+    }
+
+    @Test
+    void should_replay_order_created_with_same_idempotency_key_without_calling_shopping_service() {
+        UUID cartId = UUID.randomUUID();
+        ShoppingCart shoppingCart = ShoppingCart.builder().id(cartId).products(List.of()).build();
+        when(shoppingClient.getShoppingCart(cartId)).thenReturn(Mono.just(shoppingCart));
+
+        Order createdOrder = orderService.createOrder(cartId, CUSTOMER_INFO, DELIVERY_INFO, "retry-key").block();
+        when(orderRepository.findOrderByOrderId(createdOrder.getOrderId())).thenReturn(Mono.just(createdOrder));
+
+        StepVerifier.create(orderService.createOrder(cartId, CUSTOMER_INFO, DELIVERY_INFO, "retry-key"))
+                .expectNext(createdOrder)
+                .verifyComplete();
+        verify(reactiveIdempotencyRecordRepository).insertIfAbsent(argThat(record ->
+                record.getKey().equals("key:retry-key") && record.getOrderId().equals(createdOrder.getOrderId())));
+        verify(shoppingClient, times(1)).getShoppingCart(cartId);
+        verify(orderRepository, times(1)).save(any(Order.class));
+    }
+
+    @Test
+    void should_release_create_claim_when_fetching_cart_failed() {
+        UUID cartId = UUID.randomUUID();
+        when(shoppingClient.getShoppingCart(cartId)).thenReturn(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Cart not found")));
+
+        StepVerifier.create(orderService.createOrder(cartId, CUSTOMER_INFO, DELIVERY_INFO, null))
+                .expectError(ResponseStatusException.class)
+                .verify();
+        verify(reactiveIdempotencyRecordRepository).release(eq("cart:" + cartId), any());
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    void should_store_lines_and_return_products_from_snapshots_by_default() {
+        UUID cartId = UUID.randomUUID();
+        Product product = Product.builder().id(UUID.randomUUID()).name("Test product").description("Test description")
+                .price(BigDecimal.TEN).reviews(List.of(Review.builder().comment("Comment").build())).build();
+        when(shoppingClient.getShoppingCart(cartId))
+                .thenReturn(Mono.just(ShoppingCart.builder().id(cartId).products(List.of(product, product)).build()));
+        Order createdOrder = orderService.createOrder(cartId, CUSTOMER_INFO, DELIVERY_INFO, null).block();
+        verify(snapshotRepository).saveAll(snapshots.capture());
+        when(orderRepository.findOrderByOrderId(createdOrder.getOrderId())).thenReturn(Mono.just(createdOrder));
+        when(snapshotRepository.findAllById(anyIterable())).thenReturn(Flux.fromIterable(snapshots.getValue()));
+
+        assertThat(createdOrder.getProducts()).isNull();
+        assertThat(createdOrder.getLines()).singleElement().satisfies(line -> assertThat(line.getQuantity()).isEqualTo(2));
+        assertThat(createdOrder.getTotal()).isEqualByComparingTo("20");
+        verify(orderRollupService).recordPlaced(List.of(createdOrder));
+        StepVerifier.create(orderService.retrieveOrder(createdOrder.getOrderId()))
+                .assertNext(order -> assertThat(order.getProducts()).hasSize(2).allSatisfy(fullProduct -> {
+                    assertThat(fullProduct.getDescription()).isEqualTo("Test description");
+                    assertThat(fullProduct.getReviews()).isNull();
+                }))
+                .verifyComplete();
+        StepVerifier.create(orderService.retrieveOrder(createdOrder.getOrderId(), OrderView.LINES))
+                .assertNext(order -> assertThat(order.getProducts()).isNull())
+                .verifyComplete();
+    }
+
+    @Test
+    void should_create_batch_and_keep_successful_entries_when_a_cart_fails() {
+        UUID cartId = UUID.randomUUID();
+        UUID missingCartId = UUID.randomUUID();
+        ShoppingCart shoppingCart = ShoppingCart.builder().id(cartId).products(List.of()).build();
+        when(shoppingClient.getShoppingCarts(any())).thenReturn(Mono.just(Map.of(
+                cartId, ShoppingCartResult.of(shoppingCart),
+                missingCartId, ShoppingCartResult.failed(new ResponseStatusException(HttpStatus.NOT_FOUND, "Shopping cart not found")))));
+        when(orderRepository.insertUnordered(anyList())).thenReturn(Mono.just(new BulkInsertResult(1, List.of())));
+
+        StepVerifier.create(orderService.createOrders(List.of(
+                        new CartOrderRequest(missingCartId, CUSTOMER_INFO, DELIVERY_INFO),
+                        new CartOrderRequest(cartId, CUSTOMER_INFO, DELIVERY_INFO))))
+                .assertNext(result -> {
+                    assertThat(result.created()).isEqualTo(1);
+                    assertThat(result.results()).extracting(CartOrderResult::status).containsExactly(404, 201);
+                    assertThat(result.results().get(1).order().getCustomerInfo()).isEqualTo(CUSTOMER_INFO);
+                })
+                .verifyComplete();
+        verify(orderRepository).insertUnordered(argThat(orders -> orders.size() == 1));
+        verify(orderRollupService).recordPlaced(argThat(orders -> orders.size() == 1));
+    }
+
+    @Test
+    void should_not_save_order_when_shopping_cart_lookup_fails() {
+        UUID cartId = UUID.randomUUID();
+        when(shoppingClient.getShoppingCart(cartId))
+                .thenReturn(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Shopping cart not found")));
+
+        StepVerifier.create(orderService.createOrder(cartId, CUSTOMER_INFO, DELIVERY_INFO, null))
+                .expectError(ResponseStatusException.class)
+                .verify();
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    void should_return_not_found_for_missing_order() {
+        UUID orderId = UUID.randomUUID();
+        when(orderRepository.findOrderByOrderId(orderId)).thenReturn(Mono.empty());
+
+        StepVerifier.create(orderService.retrieveOrder(orderId))
+                .expectErrorSatisfies(error -> assertThat(((ResponseStatusException) error).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND))
+                .verify();
+    }
+
+    @Test
+    void should_finalize_order_with_conditional_update() {
+        Order order = Order.builder().orderId(UUID.randomUUID()).isPaid(true).build();
+        when(orderRepository.markPaid(order.getOrderId())).thenReturn(Mono.just(order));
+
+        StepVerifier.create(orderService.finalizeOrder(order.getOrderId(), null))
+                .assertNext(savedOrder -> assertThat(savedOrder.isPaid()).isTrue())
+                .verifyComplete();
+        verify(orderRollupService).recordPaid(order);
+        verify(orderRepository, never()).save(any(Order.class));
+        verify(orderOutbox).record(OrderEventType.FINALIZED, List.of(order.getOrderId()));
+    }
+
+    @Test
+    void should_return_already_paid_order_on_repeated_finalize() {
+        Order order = Order.builder().orderId(UUID.randomUUID()).isPaid(true).build();
+        when(orderRepository.markPaid(order.getOrderId())).thenReturn(Mono.empty());
+        when(orderRepository.findOrderByOrderId(order.getOrderId())).thenReturn(Mono.just(order));
+
+        StepVerifier.create(orderService.finalizeOrder(order.getOrderId(), null))
+                .expectNext(order)
+                .verifyComplete();
+        verifyNoInteractions(orderOutbox);
+    }
+
+    @Test
+    void should_return_remembered_order_on_finalize_retry_with_same_key() {
+        Order order = Order.builder().orderId(UUID.randomUUID()).isPaid(true).build();
+        when(orderRepository.markPaid(order.getOrderId())).thenReturn(Mono.just(order));
+
+        StepVerifier.create(orderService.finalizeOrder(order.getOrderId(), "retry-key"))
+                .expectNext(order)
+                .verifyComplete();
+        StepVerifier.create(orderService.finalizeOrder(order.getOrderId(), "retry-key"))
+                .expectNext(order)
+                .verifyComplete();
+        StepVerifier.create(orderService.finalizeOrder(UUID.randomUUID(), "retry-key"))
+                .expectErrorSatisfies(error -> assertThat(((ResponseStatusException) error).getStatusCode())
+                        .isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY))
+                .verify();
+
+        verify(orderRepository, times(1)).markPaid(any());
+        verify(orderRollupService, times(1)).recordPaid(order);
+    }
+
+    @Test
+    void should_delete_existing_order() {
+        UUID orderId = UUID.randomUUID();
+        when(orderRepository.deleteOrderByOrderId(orderId)).thenReturn(Mono.just(1L));
+
+        StepVerifier.create(orderService.deleteOrder(orderId))
+                .verifyComplete();
+        verify(orderRepository, never()).findOrderByOrderId(any());
+        verify(orderOutbox).record(OrderEventType.DELETED, List.of(orderId));
+    }
+
+    @Test
+    void should_return_not_found_when_nothing_was_deleted() {
+        UUID orderId = UUID.randomUUID();
+        when(orderRepository.deleteOrderByOrderId(orderId)).thenReturn(Mono.just(0L));
+
+        StepVerifier.create(orderService.deleteOrder(orderId))
+                .expectErrorSatisfies(error -> assertThat(((ResponseStatusException) error).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND))
+                .verify();
+        verifyNoInteractions(orderOutbox);
+    }
+
+    @Test
+    void should_delete_orders_in_one_batch() {
+        UUID orderId = UUID.randomUUID();
+        when(orderRepository.deleteOrdersByOrderIdIn(Set.of(orderId))).thenReturn(Mono.just(1L));
+
+        StepVerifier.create(orderService.deleteOrders(List.of(orderId, orderId)))
+                .expectNext(new DeleteOrdersResult(1, 1))
+                .verifyComplete();
+    }
+
+    @Test
+    void should_record_deleted_events_for_existing_orders() {
+        UUID orderId = UUID.randomUUID();
+        UUID missingOrderId = UUID.randomUUID();
+        List<OrderEvent> events = List.of(OrderEvent.builder().id("event").orderId(orderId).build());
+        when(orderOutbox.isEnabled()).thenReturn(true);
+        when(orderRepository.findPaidStates(Set.of(orderId, missingOrderId))).thenReturn(Mono.just(Map.of(orderId, false)));
+        when(orderOutbox.prepare(OrderEventType.DELETED, Set.of(orderId))).thenReturn(events);
+        when(orderRepository.deleteOrdersByOrderIdIn(Set.of(orderId, missingOrderId))).thenReturn(Mono.just(1L));
+
+        StepVerifier.create(orderService.deleteOrders(List.of(orderId, missingOrderId)))
+                .expectNext(new DeleteOrdersResult(2, 1))
+                .verifyComplete();
+        verify(orderOutbox).commit(events);
+    }
+
+    @Test
+    void should_skip_batch_delete_when_no_order_exists() {
+        UUID orderId = UUID.randomUUID();
+        when(orderOutbox.isEnabled()).thenReturn(true);
+        when(orderRepository.findPaidStates(Set.of(orderId))).thenReturn(Mono.just(Map.of()));
+
+        StepVerifier.create(orderService.deleteOrders(List.of(orderId)))
+                .expectNext(new DeleteOrdersResult(1, 0))
+                .verifyComplete();
+        verify(orderOutbox, never()).prepare(any(), any());
+        verify(orderRepository, never()).deleteOrdersByOrderIdIn(any());
+    }
+
+    @Test
+    void should_stream_valid_orders_from_json_array_in_batches() {
+        String invalidOrder = ORDER_JSON.replace("\"firstName\":\"Joe\"", "\"firstName\":\"\"");
+        String json = "[" + ORDER_JSON + "," + invalidOrder + "," + ORDER_JSON + "," + ORDER_JSON + "]";
+
+        List<UploadResult> results = orderService.importOrders(content(json, 16), UploadFormat.JSON_ARRAY).collectList().block();
+
+        assertThat(results).filteredOn(result -> !result.isRejected()).extracting(UploadResult::index).containsExactly(0L, 2L, 3L);
+        assertThat(results).filteredOn(UploadResult::isRejected)
+                .containsExactly(UploadResult.rejected(1, "customerInfo.firstName must not be blank"));
+
+        verify(orderRepository, times(2)).insert(captor.capture());
+        assertThat(captor.getAllValues()).extracting(List::size).containsExactly(2, 1);
+        assertThat(captor.getAllValues().get(0)).allSatisfy(order -> {
+            assertThat(order.getOrderId()).isNotNull();
+            assertThat(order.getInsertDateTime()).isNotNull();
+        });
+    }
+
+    @Test
+    void should_stream_orders_from_newline_delimited_json() {
+        String ndjson = ORDER_JSON + "\n" + ORDER_JSON + "\n";
+
+        StepVerifier.create(orderService.importOrders(content(ndjson, 32), new UploadFormat(true, false)))
+                .expectNextCount(2)
+                .verifyComplete();
+    }
+
+    @Test
+    void should_report_malformed_and_null_records_without_failing_upload() {
+        String ndjson = ORDER_JSON + "\n{not json}\n\nnull\n" + ORDER_JSON + "\n";
+        String json = "[" + ORDER_JSON + ",null,{\"paid\":\"maybe\"}]";
+
+        List<UploadResult> lines = orderService.importOrders(content(ndjson, 32), new UploadFormat(true, false)).collectList().block();
+        List<UploadResult> elements = orderService.importOrders(content(json, 32), UploadFormat.JSON_ARRAY).collectList().block();
+
+        assertThat(lines).filteredOn(result -> !result.isRejected()).extracting(UploadResult::index).containsExactly(0L, 4L);
+        assertThat(lines).filteredOn(UploadResult::isRejected).extracting(UploadResult::index).containsExactly(1L, 3L);
+        assertThat(lines).filteredOn(UploadResult::isRejected).extracting(UploadResult::rejection)
+                .satisfiesExactly(reason -> assertThat(reason).startsWith("Malformed order"),
+                        reason -> assertThat(reason).isEqualTo("Order must not be null"));
+        assertThat(elements).filteredOn(UploadResult::isRejected).extracting(UploadResult::index).containsExactly(1L, 2L);
+        assertThat(elements).filteredOn(result -> !result.isRejected()).hasSize(1);
+    }
+
+    @Test
+    void should_reject_gzipped_upload() {
+        StepVerifier.create(orderService.importOrders(Flux.empty(), new UploadFormat(true, true)))
+                .expectErrorSatisfies(error -> assertThat(((ResponseStatusException) error).getStatusCode()).isEqualTo(HttpStatus.UNSUPPORTED_MEDIA_TYPE))
+                .verify();
+    }
+
+    private static Flux<DataBuffer> content(final String json, final int chunkSize) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        return Flux.range(0, (bytes.length + chunkSize - 1) / chunkSize)
+                .map(chunk -> {
+                    int offset = chunk * chunkSize;
+                    byte[] slice = new byte[Math.min(chunkSize, bytes.length - offset)];
+                    System.arraycopy(bytes, offset, slice, 0, slice.length);
+                    return DefaultDataBufferFactory.sharedInstance.wrap(slice);
+                });
+    }
+}
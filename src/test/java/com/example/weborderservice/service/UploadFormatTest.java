@@ -0,0 +1,28 @@
+package com.example.weborderservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UploadFormatTest {
+
+    @Test
+    void should_default_to_json_array() {
+        assertEquals(UploadFormat.JSON_ARRAY, UploadFormat.detect("application/json", "orders.json"));
+        assertEquals(UploadFormat.JSON_ARRAY, UploadFormat.detect(null, null));
+    }
+
+    @Test
+    void should_detect_newline_delimited_json_by_content_type_or_filename() {
+        assertEquals(new UploadFormat(true, false), UploadFormat.detect("application/x-ndjson", "orders"));
+        assertEquals(new UploadFormat(true, false), UploadFormat.detect("application/octet-stream", "orders.jsonl"));
+        assertEquals(new UploadFormat(true, false), UploadFormat.detect(null, "ORDERS.NDJSON"));
+    }
+
+    @Test
+    void should_detect_gzip_by_content_type_or_filename() {
+        assertEquals(new UploadFormat(false, true), UploadFormat.detect("application/gzip", "orders.json"));
+        assertEquals(new UploadFormat(true, true), UploadFormat.detect("application/octet-stream", "orders.ndjson.gz"));
+        assertEquals(new UploadFormat(false, true), UploadFormat.detect(null, "orders.json.gz"));
+    }
+}
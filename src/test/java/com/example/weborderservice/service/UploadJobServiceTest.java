@@ -0,0 +1,215 @@
+package com.example.weborderservice.service;
+
+import com.example.weborderservice.config.UploadConfig;
+import com.example.weborderservice.model.UploadJobState;
+import com.example.weborderservice.model.UploadJobStatus;
+import com.example.weborderservice.model.UploadRejection;
+import com.example.weborderservice.model.UploadSummary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+class UploadJobServiceTest {
+
+    private static final MockMultipartFile FILE = new MockMultipartFile("file", "orders.json", "application/json", "[]".getBytes());
+
+    @Mock
+    private OrderImporter orderImporter;
+
+    private final MutableClock clock = new MutableClock();
+
+    private UploadConfig uploadConfig;
+
+    private UploadJobService uploadJobService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        uploadConfig = new UploadConfig();
+        uploadConfig.setJobWorkers(1);
+        uploadConfig.setJobQueueCapacity(1);
+        uploadConfig.setMaxJobs(10);
+        uploadConfig.setJobRetention(Duration.ofMinutes(5));
+        uploadJobService = new UploadJobService(orderImporter, uploadConfig, clock);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        uploadJobService.shutdown();
+    }
+
+    @Test
+    void should_run_upload_in_background_and_report_progress() throws Exception {
+        when(orderImporter.importOrders(any(InputStream.class), any(UploadFormat.class), any(UploadProgress.class))).thenAnswer(invocation -> {
+            UploadProgress progress = invocation.getArgument(2);
+            progress.recordParsed();
+            progress.recordParsed();
+            progress.recordPersisted(1);
+            progress.recordRejected(1, "E11000 duplicate key");
+            return new UploadSummary(2, 1, 1, progress.getRejections(), 1);
+        });
+
+        UploadJobStatus submitted = uploadJobService.submit(FILE);
+        UploadJobStatus finished = awaitFinished(submitted.jobId());
+
+        assertEquals(UploadJobState.COMPLETED, finished.state());
+        assertEquals(2, finished.parsed());
+        assertEquals(1, finished.persisted());
+        assertEquals(1, finished.rejected());
+        assertThat(finished.rejections()).containsExactly(new UploadRejection(1, "E11000 duplicate key"));
+        assertNotNull(finished.finishedAt());
+    }
+
+    @Test
+    void should_mark_job_as_failed_when_import_fails() throws Exception {
+        when(orderImporter.importOrders(any(InputStream.class), any(UploadFormat.class), any(UploadProgress.class))).thenThrow(new IOException("Broken file"));
+
+        UploadJobStatus submitted = uploadJobService.submit(FILE);
+        UploadJobStatus finished = awaitFinished(submitted.jobId());
+
+        assertEquals(UploadJobState.FAILED, finished.state());
+        assertEquals("Broken file", finished.error());
+    }
+
+    @Test
+    void should_reject_upload_when_queue_is_full() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(orderImporter.importOrders(any(InputStream.class), any(UploadFormat.class), any(UploadProgress.class))).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return new UploadSummary(0, 0, 0, List.of(), 0);
+        });
+
+        uploadJobService.submit(FILE);
+        uploadJobService.submit(FILE);
+        assertThrows(ResponseStatusException.class, () -> uploadJobService.submit(FILE));
+        release.countDown();
+    }
+
+    @Test
+    void should_not_exceed_max_jobs_with_concurrent_submits() throws Exception {
+        uploadConfig.setMaxJobs(3);
+        uploadConfig.setJobQueueCapacity(20);
+        uploadJobService.shutdown();
+        uploadJobService = new UploadJobService(orderImporter, uploadConfig, clock);
+        CountDownLatch release = new CountDownLatch(1);
+        when(orderImporter.importOrders(any(InputStream.class), any(UploadFormat.class), any(UploadProgress.class))).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return new UploadSummary(0, 0, 0, List.of(), 0);
+        });
+        ExecutorService submitters = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            results.add(submitters.submit(() -> {
+                start.await();
+                try {
+                    uploadJobService.submit(FILE);
+                    return true;
+                } catch (ResponseStatusException e) {
+                    return false;
+                }
+            }));
+        }
+
+        start.countDown();
+        int accepted = 0;
+        for (Future<Boolean> result : results) {
+            accepted += result.get(5, TimeUnit.SECONDS) ? 1 : 0;
+        }
+        release.countDown();
+        submitters.shutdown();
+
+        assertEquals(3, accepted);
+    }
+
+    @Test
+    void should_free_job_slot_when_finished_job_expires() throws Exception {
+        uploadConfig.setMaxJobs(1);
+        uploadJobService.shutdown();
+        uploadJobService = new UploadJobService(orderImporter, uploadConfig, clock);
+        when(orderImporter.importOrders(any(InputStream.class), any(UploadFormat.class), any(UploadProgress.class))).thenReturn(new UploadSummary(0, 0, 0, List.of(), 0));
+
+        awaitFinished(uploadJobService.submit(FILE).jobId());
+        assertThrows(ResponseStatusException.class, () -> uploadJobService.submit(FILE));
+
+        clock.advance(Duration.ofMinutes(6));
+
+        assertNotNull(uploadJobService.submit(FILE).jobId());
+    }
+
+    @Test
+    void should_expire_finished_jobs() throws Exception {
+        when(orderImporter.importOrders(any(InputStream.class), any(UploadFormat.class), any(UploadProgress.class))).thenReturn(new UploadSummary(0, 0, 0, List.of(), 0));
+
+        UploadJobStatus submitted = uploadJobService.submit(FILE);
+        awaitFinished(submitted.jobId());
+
+        clock.advance(Duration.ofMinutes(6));
+        uploadJobService.removeExpiredJobs();
+
+        assertThrows(ResponseStatusException.class, () -> uploadJobService.getStatus(submitted.jobId()));
+    }
+
+    @Test
+    void should_return_not_found_for_unknown_job() {
+        assertThrows(ResponseStatusException.class, () -> uploadJobService.getStatus(UUID.randomUUID()));
+    }
+
+    private UploadJobStatus awaitFinished(final UUID jobId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        UploadJobStatus status = uploadJobService.getStatus(jobId);
+        while (!status.state().isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            status = uploadJobService.getStatus(jobId);
+        }
+        return status;
+    }
+
+    private static class MutableClock extends Clock {
+
+        private volatile Instant instant = Instant.now();
+
+        void advance(final Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.systemDefault();
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}